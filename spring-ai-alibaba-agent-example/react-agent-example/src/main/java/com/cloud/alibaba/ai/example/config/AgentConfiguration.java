@@ -2,15 +2,18 @@ package com.cloud.alibaba.ai.example.config;
 
 import com.alibaba.cloud.ai.graph.agent.ReactAgent;
 import com.alibaba.cloud.ai.graph.agent.hook.hip.HumanInTheLoopHook;
-import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
 import com.cloud.alibaba.ai.example.interceptor.LogToolInterceptor;
 import com.cloud.alibaba.ai.example.tools.FileReadTool;
 import com.cloud.alibaba.ai.example.tools.FileWriteTool;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
 @Configuration
 public class AgentConfiguration {
 
@@ -20,13 +23,22 @@ public class AgentConfiguration {
         this.chatModel = chatModel;
     }
 
+    @Bean(destroyMethod = "close")
+    public SegmentLogCheckpointSaver checkpointSaver(
+            @Value("${graph.checkpoint.directory:./data/checkpoints/react-agent}") String directory,
+            @Value("${graph.checkpoint.ttl:7d}") Duration ttl) {
+        return SegmentLogCheckpointSaver.builder(Path.of(directory))
+                .ttl(ttl)
+                .build();
+    }
+
     @Bean
-    public ReactAgent reactAgent() throws GraphStateException {
+    public ReactAgent reactAgent(SegmentLogCheckpointSaver checkpointSaver) throws GraphStateException {
         return ReactAgent.builder()
                 .name("agent")
                 .description("This is a react agent")
                 .model(chatModel)
-                .saver(new MemorySaver())
+                .saver(checkpointSaver)
                 .tools(
                         new FileReadTool().toolCallback(),
                         new FileWriteTool().toolCallback()
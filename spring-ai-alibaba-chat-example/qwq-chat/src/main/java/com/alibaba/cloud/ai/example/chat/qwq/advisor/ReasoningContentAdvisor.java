@@ -16,17 +16,21 @@
 
 package com.alibaba.cloud.ai.example.chat.qwq.advisor;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 
-import org.jetbrains.annotations.NotNull;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.ai.chat.client.ChatClientRequest;
 import org.springframework.ai.chat.client.ChatClientResponse;
 import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
 import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.model.Generation;
@@ -36,16 +40,39 @@ import org.springframework.util.StringUtils;
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  * Incorporate DeepSeek-R1's reasoning content into the output
+ * <p>
+ * 流式输出时每个响应使用一个 {@link ThinkState} 状态机，输出带类型的增量：
+ * 每个 chunk 的消息元数据中 {@link #DELTA_TYPE} 为 {@link DeltaType#REASONING} 或 {@link DeltaType#CONTENT}，
+ * 同时包含 reasoning 与正文的 chunk 拆成两个 chunk；只携带元数据（如结束原因、用量）的 chunk 原样返回。
+ * <p>
+ * thinkTags 为 true 时（默认，前端按文本解析思考过程），第一段 reasoning 前输出一次 &lt;think&gt;，
+ * 切换到正文或响应结束时输出一次 &lt;/think&gt;；为 false 时文本只包含增量本身，由调用方按类型区分。
  */
 
 public class ReasoningContentAdvisor implements BaseAdvisor {
 
-	private static final Logger logger = LoggerFactory.getLogger(ReasoningContentAdvisor.class);
+	/**
+	 * 流式 chunk 的增量类型，值为 {@link DeltaType}
+	 */
+	public static final String DELTA_TYPE = "deltaType";
+
+	private static final String REASONING_CONTENT = "reasoningContent";
+
+	private static final String THINK_START = "<think>";
+
+	private static final String THINK_END = "</think>";
 
 	private final int order;
 
+	private final boolean thinkTags;
+
 	public ReasoningContentAdvisor(Integer order) {
+		this(order, true);
+	}
+
+	public ReasoningContentAdvisor(Integer order, boolean thinkTags) {
 		this.order = order != null ? order : 0;
+		this.thinkTags = thinkTags;
 	}
 
 	@Override
@@ -55,39 +82,174 @@ public class ReasoningContentAdvisor implements BaseAdvisor {
 	}
 	
 	@Override
-	public ChatClientRequest before(@NotNull final ChatClientRequest chatClientRequest, @NotNull final AdvisorChain advisorChain) {
+	public ChatClientRequest before(final ChatClientRequest chatClientRequest, final AdvisorChain advisorChain) {
 		return chatClientRequest;
 	}
-	
+
+	/**
+	 * 非流式调用，完整的 reasoning 放在一个 think 块中；不使用 think 标签时 reasoning 只保留在元数据中。
+	 */
 	@Override
-	public ChatClientResponse after(@NotNull final ChatClientResponse chatClientResponse, @NotNull final AdvisorChain advisorChain) {
+	public ChatClientResponse after(final ChatClientResponse chatClientResponse, final AdvisorChain advisorChain) {
+		
 		ChatResponse resp = chatClientResponse.chatResponse();
-		if (Objects.isNull(resp)) {
-			
+
+		if (!thinkTags || Objects.isNull(resp) || resp.getResults().isEmpty()) {
 			return chatClientResponse;
 		}
-		
-		logger.debug(String.valueOf(resp.getResults().get(0).getOutput().getMetadata()));
-		String reasoningContent = String.valueOf(resp.getResults().get(0).getOutput().getMetadata().get("reasoningContent"));
-		
-		if (StringUtils.hasText(reasoningContent)) {
-			List<Generation> thinkGenerations = resp.getResults().stream()
-					.map(generation -> {
-						AssistantMessage output = generation.getOutput();
-						AssistantMessage thinkAssistantMessage = AssistantMessage.builder()
-							.content(String.format("<think>%s</think>", reasoningContent) + output.getText())
-							.properties(output.getMetadata())
-							.toolCalls(output.getToolCalls())
-							.media(output.getMedia())
-							.build();
-						return new Generation(thinkAssistantMessage, generation.getMetadata());
-					}).toList();
-			
-			ChatResponse thinkChatResp = ChatResponse.builder().from(resp).generations(thinkGenerations).build();
-			return ChatClientResponse.builder().chatResponse(thinkChatResp).build();
-			
+
+		String reasoningContent = reasoningContent(resp.getResults().get(0).getOutput());
+		if (!StringUtils.hasLength(reasoningContent)) {
+			return chatClientResponse;
 		}
-		
-		return chatClientResponse;
+
+		return rebuild(chatClientResponse, text -> THINK_START + reasoningContent + THINK_END + text, null);
+	}
+
+	@Override
+	public Flux<ChatClientResponse> adviseStream(final ChatClientRequest chatClientRequest,
+			final StreamAdvisorChain streamAdvisorChain) {
+
+		// 每次订阅对应一个响应，状态不在订阅之间共享
+		return Flux.defer(() -> {
+			ThinkState state = new ThinkState(thinkTags);
+
+			return streamAdvisorChain.nextStream(before(chatClientRequest, streamAdvisorChain))
+					.concatMapIterable(state::next)
+					.concatWith(Mono.fromSupplier(state::close));
+		});
+	}
+
+	private static String reasoningContent(AssistantMessage output) {
+
+		// 元数据中没有 reasoning 时不能转换成 "null"
+		return output.getMetadata().get(REASONING_CONTENT) instanceof String reasoning ? reasoning : null;
+	}
+
+	/**
+	 * 替换每个 generation 的文本，deltaType 不为 null 时写入消息元数据。
+	 */
+	private static ChatClientResponse rebuild(ChatClientResponse response, UnaryOperator<String> text,
+			DeltaType deltaType) {
+
+		ChatResponse resp = Objects.requireNonNull(response.chatResponse());
+		List<Generation> generations = new ArrayList<>(resp.getResults().size());
+		for (Generation generation : resp.getResults()) {
+			AssistantMessage output = generation.getOutput();
+			Map<String, Object> properties = output.getMetadata();
+			if (deltaType != null) {
+				properties = new HashMap<>(properties);
+				properties.put(DELTA_TYPE, deltaType);
+			}
+			AssistantMessage message = AssistantMessage.builder()
+					.content(text.apply(Objects.requireNonNullElse(output.getText(), "")))
+					.properties(properties)
+					.toolCalls(output.getToolCalls())
+					.media(output.getMedia())
+					.build();
+			generations.add(new Generation(message, generation.getMetadata()));
+		}
+
+		return response.mutate()
+				.chatResponse(ChatResponse.builder().from(resp).generations(generations).build())
+				.build();
+	}
+
+	public enum DeltaType {
+
+		REASONING,
+
+		CONTENT
+
+	}
+
+	private enum Phase {
+
+		/**
+		 * 还没有输出内容
+		 */
+		IDLE,
+
+		/**
+		 * 正在输出 reasoning，使用 think 标签时 think 块已打开
+		 */
+		REASONING,
+
+		/**
+		 * 正在输出正文，think 块已关闭或没有 reasoning
+		 */
+		CONTENT
+
+	}
+
+	private static final class ThinkState {
+
+		private final boolean thinkTags;
+
+		private Phase phase = Phase.IDLE;
+
+		/**
+		 * 最近一个带有 ChatResponse 的 chunk，用作补发关闭标签的模板
+		 */
+		private ChatClientResponse template;
+
+		private ThinkState(boolean thinkTags) {
+			this.thinkTags = thinkTags;
+		}
+
+		private List<ChatClientResponse> next(ChatClientResponse response) {
+
+			ChatResponse resp = response.chatResponse();
+			if (resp == null || resp.getResults().isEmpty()) {
+				return List.of(response);
+			}
+			template = response;
+
+			AssistantMessage output = resp.getResults().get(0).getOutput();
+			String reasoning = reasoningContent(output);
+			boolean hasReasoning = StringUtils.hasLength(reasoning);
+			boolean hasText = StringUtils.hasLength(output.getText());
+
+			if (!hasReasoning && !hasText) {
+				// 只携带元数据的 chunk 原样返回
+				return List.of(response);
+			}
+
+			List<ChatClientResponse> deltas = new ArrayList<>(2);
+			if (hasReasoning) {
+				String start = thinkTags && phase != Phase.REASONING ? THINK_START : "";
+				String end = thinkTags && hasText ? THINK_END : "";
+				deltas.add(rebuild(response, text -> start + reasoning + end, DeltaType.REASONING));
+				phase = Phase.REASONING;
+			}
+			if (hasText) {
+				String end = thinkTags && phase == Phase.REASONING && !hasReasoning ? THINK_END : "";
+				deltas.add(rebuild(response, text -> end + text, DeltaType.CONTENT));
+				phase = Phase.CONTENT;
+			}
+
+			return deltas;
+		}
+
+		/**
+		 * @return reasoning 之后没有正文时补一个关闭 think 块的 reasoning chunk，不需要时返回 null
+		 */
+		private ChatClientResponse close() {
+
+			if (!thinkTags || phase != Phase.REASONING || template == null) {
+				return null;
+			}
+
+			phase = Phase.CONTENT;
+			Map<String, Object> properties = Map.of(DELTA_TYPE, DeltaType.REASONING);
+			ChatResponse resp = ChatResponse.builder()
+					.from(Objects.requireNonNull(template.chatResponse()))
+					.generations(List.of(new Generation(
+							AssistantMessage.builder().content(THINK_END).properties(properties).build())))
+					.build();
+			return template.mutate().chatResponse(resp).build();
+		}
+
 	}
+
 }
@@ -26,6 +26,7 @@ import reactor.core.publisher.Flux;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
 
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -59,8 +60,8 @@ public class QWQChatClientController {
 				.defaultAdvisors(
                         MessageChatMemoryAdvisor.builder(MessageWindowChatMemory.builder().build()).build(),
 
-						// 整合 QWQ 的思考过程到输出中
-						new ReasoningContentAdvisor(0)
+						// 整合 QWQ 的思考过程到输出中，位于 chat memory 之外，思考过程不会写入会话记忆
+						new ReasoningContentAdvisor(Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER - 1)
 				)
 				// 实现 Logger 的 Advisor
 				.defaultAdvisors(
@@ -16,17 +16,28 @@
 
 package com.alibaba.example.chatmemory.config;
 
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
 import com.alibaba.cloud.ai.memory.jdbc.MysqlChatMemoryRepository;
 import com.alibaba.cloud.ai.memory.jdbc.SQLiteChatMemoryRepository;
 import com.alibaba.cloud.ai.memory.redis.RedissonRedisChatMemoryRepository;
+import com.alibaba.example.chatmemory.memory.WriteBehindChatMemoryRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 
 /**
+ * 数据库连接使用 Hikari 连接池，repository 外层包装 {@link WriteBehindChatMemoryRepository}，
+ * 每轮对话只读写进程内的数据，按 flush-interval 批量写入数据库。
+ *
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
@@ -51,39 +62,79 @@ public class MemoryConfig {
 	private String mysqlPassword;
 	@Value("${spring.ai.chat.memory.repository.jdbc.mysql.driver-class-name}")
 	private String mysqlDriverClassName;
+	@Value("${spring.ai.chat.memory.repository.jdbc.mysql.maximum-pool-size:10}")
+	private int mysqlMaximumPoolSize;
 
-	@Bean
-	public SQLiteChatMemoryRepository sqliteChatMemoryRepository() {
-		DriverManagerDataSource dataSource = new DriverManagerDataSource();
+	@Value("${spring.ai.chat.memory.write-behind.flush-interval:1s}")
+	private Duration flushInterval;
+	@Value("${spring.ai.chat.memory.write-behind.batch-size:64}")
+	private int batchSize;
+	@Value("${spring.ai.chat.memory.write-behind.max-conversations:10000}")
+	private int maxConversations;
+
+	/**
+	 * 两个 DataSource 中以本地 SQLite 为主，按类型注入 DataSource 的自动配置（如 JdbcTemplate）使用它
+	 */
+	@Bean(destroyMethod = "close")
+	@Primary
+	public HikariDataSource sqliteDataSource() {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setPoolName("chat-memory-sqlite");
 		dataSource.setDriverClassName("org.sqlite.JDBC");
-		dataSource.setUrl("jdbc:sqlite:spring-ai-alibaba-chat-memory-example/src/main/resources/chat-memory.db");
-		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		return SQLiteChatMemoryRepository.sqliteBuilder()
-				.jdbcTemplate(jdbcTemplate)
-				.build();
+		dataSource.setJdbcUrl("jdbc:sqlite:spring-ai-alibaba-chat-memory-example/src/main/resources/chat-memory.db");
+		// SQLite 同一时间只允许一个写连接
+		dataSource.setMaximumPoolSize(1);
+		return dataSource;
 	}
 
-	@Bean
-	public MysqlChatMemoryRepository mysqlChatMemoryRepository() {
-		DriverManagerDataSource dataSource = new DriverManagerDataSource();
+	@Bean(destroyMethod = "close")
+	public HikariDataSource mysqlDataSource() {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setPoolName("chat-memory-mysql");
 		dataSource.setDriverClassName(mysqlDriverClassName);
-		dataSource.setUrl(mysqlJdbcUrl);
+		dataSource.setJdbcUrl(mysqlJdbcUrl);
 		dataSource.setUsername(mysqlUsername);
 		dataSource.setPassword(mysqlPassword);
-		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		return MysqlChatMemoryRepository.mysqlBuilder()
-				.jdbcTemplate(jdbcTemplate)
+		dataSource.setMaximumPoolSize(mysqlMaximumPoolSize);
+		return dataSource;
+	}
+
+	@Bean
+	public WriteBehindChatMemoryRepository sqliteChatMemoryRepository(
+			@Qualifier("sqliteDataSource") DataSource dataSource) {
+		SQLiteChatMemoryRepository repository = SQLiteChatMemoryRepository.sqliteBuilder()
+				.jdbcTemplate(new JdbcTemplate(dataSource))
+				.build();
+		return writeBehind("sqlite", repository);
+	}
+
+	@Bean
+	public WriteBehindChatMemoryRepository mysqlChatMemoryRepository(
+			@Qualifier("mysqlDataSource") DataSource dataSource) {
+		MysqlChatMemoryRepository repository = MysqlChatMemoryRepository.mysqlBuilder()
+				.jdbcTemplate(new JdbcTemplate(dataSource))
 				.build();
+		return writeBehind("mysql", repository);
 	}
 
 	@Bean
-	public RedissonRedisChatMemoryRepository redisChatMemoryRepository() {
-		return RedissonRedisChatMemoryRepository.builder()
+	public WriteBehindChatMemoryRepository redisChatMemoryRepository() {
+		RedissonRedisChatMemoryRepository repository = RedissonRedisChatMemoryRepository.builder()
 				.host(redisHost)
 				.port(redisPort)
 				// 若没有设置密码则注释该项
 //				.password(redisPassword)
 				.timeout(redisTimeout)
 				.build();
+		return writeBehind("redis", repository);
+	}
+
+	private WriteBehindChatMemoryRepository writeBehind(String name, ChatMemoryRepository repository) {
+		return WriteBehindChatMemoryRepository.builder(repository)
+				.name(name)
+				.flushInterval(flushInterval)
+				.batchSize(batchSize)
+				.maxConversations(maxConversations)
+				.build();
 	}
 }
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.chatmemory.memory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+/**
+ * 写回（write-behind）的 ChatMemoryRepository 装饰器：
+ * <p>
+ * 1. 进程内热数据层：读取命中时不访问数据库，未命中时从被装饰的 repository 加载一次；
+ * 2. saveAll / delete 只更新热数据层，并把会话 ID 追加到待刷写队列，调用方不等待数据库往返；
+ * 3. 后台线程每隔 flushInterval（持久化窗口）批量刷写，同一会话在窗口内的多次写入合并为一次 saveAll，
+ *    待刷写的会话数达到 batchSize 时提前刷写；刷写失败的会话保留在队列中，下次重试；
+ * 4. 未刷写的会话不会被淘汰，已刷写的会话在数量超过 maxConversations 时按最近访问时间淘汰；
+ * 5. 关闭时刷写全部未持久化的会话，关闭之后的写入在调用线程中直接刷写。进程异常退出时最多丢失一个持久化窗口内的写入。
+ */
+
+public class WriteBehindChatMemoryRepository implements ChatMemoryRepository, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(WriteBehindChatMemoryRepository.class);
+
+	private final ChatMemoryRepository delegate;
+
+	private final Duration flushInterval;
+
+	private final int batchSize;
+
+	private final int maxConversations;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+	private final ScheduledExecutorService executor;
+
+	private WriteBehindChatMemoryRepository(Builder builder) {
+
+		Assert.notNull(builder.delegate, "delegate must not be null");
+		Assert.isTrue(builder.flushInterval != null && !builder.flushInterval.isNegative()
+				&& !builder.flushInterval.isZero(), "flushInterval must be positive");
+		Assert.isTrue(builder.batchSize > 0, "batchSize must be greater than 0");
+		Assert.isTrue(builder.maxConversations > 0, "maxConversations must be greater than 0");
+
+		this.delegate = builder.delegate;
+		this.flushInterval = builder.flushInterval;
+		this.batchSize = builder.batchSize;
+		this.maxConversations = builder.maxConversations;
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "chat-memory-write-behind-" + builder.name);
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public List<String> findConversationIds() {
+
+		Set<String> ids = new LinkedHashSet<>(delegate.findConversationIds());
+		entries.forEach((id, entry) -> {
+			synchronized (entry) {
+				if (!entry.loaded) {
+					// 正在加载，以 delegate 的结果为准
+					return;
+				}
+				if (entry.messages == null) {
+					ids.remove(id);
+				}
+				else {
+					ids.add(id);
+				}
+			}
+		});
+
+		return new ArrayList<>(ids);
+	}
+
+	@Override
+	public List<Message> findByConversationId(String conversationId) {
+
+		Assert.hasText(conversationId, "conversationId cannot be null or empty");
+
+		while (true) {
+			Entry entry = entries.get(conversationId);
+			List<Message> persisted = null;
+			if (entry == null) {
+				persisted = List.copyOf(delegate.findByConversationId(conversationId));
+				if (persisted.isEmpty()) {
+					// 不为不存在的会话创建 entry，否则 findConversationIds 会返回它
+					return List.of();
+				}
+				entry = entries.computeIfAbsent(conversationId, id -> new Entry());
+			}
+			synchronized (entry) {
+				if (entry.evicted) {
+					continue;
+				}
+				if (!entry.loaded) {
+					entry.messages = persisted != null ? persisted
+							: List.copyOf(delegate.findByConversationId(conversationId));
+					entry.loaded = true;
+				}
+				entry.lastAccess = System.nanoTime();
+
+				return entry.messages != null ? entry.messages : List.of();
+			}
+		}
+	}
+
+	@Override
+	public void saveAll(String conversationId, List<Message> messages) {
+
+		Assert.hasText(conversationId, "conversationId cannot be null or empty");
+		Assert.notNull(messages, "messages cannot be null");
+
+		update(conversationId, List.copyOf(messages));
+	}
+
+	@Override
+	public void deleteByConversationId(String conversationId) {
+
+		Assert.hasText(conversationId, "conversationId cannot be null or empty");
+
+		// null 表示删除，刷写时调用 delegate.deleteByConversationId
+		update(conversationId, null);
+	}
+
+	private void update(String conversationId, List<Message> messages) {
+
+		while (!tryUpdate(conversationId, messages)) {
+			// entry 刚被淘汰，重新创建
+		}
+	}
+
+	private boolean tryUpdate(String conversationId, List<Message> messages) {
+
+		Entry entry = entries.computeIfAbsent(conversationId, id -> new Entry());
+		synchronized (entry) {
+			if (entry.evicted) {
+				return false;
+			}
+			entry.messages = messages;
+			entry.loaded = true;
+			entry.lastAccess = System.nanoTime();
+			entry.version++;
+
+			if (entry.queued) {
+				return true;
+			}
+			entry.queued = true;
+		}
+
+		pending.add(conversationId);
+		pendingCount.incrementAndGet();
+		if (executor.isShutdown()) {
+			// 关闭后不再有后台刷写，在调用线程中直接刷写
+			flushQuietly();
+		}
+		else if (pendingCount.get() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+			try {
+				executor.execute(this::flushQuietly);
+			}
+			catch (RejectedExecutionException e) {
+				// 与 destroy() 并发，executor 已关闭
+				flushQuietly();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 刷写全部待持久化的会话。
+	 * @return 刷写成功的会话数
+	 */
+	public synchronized int flush() {
+
+		flushScheduled.set(false);
+		long start = System.nanoTime();
+		int flushed = 0;
+		List<String> failed = new ArrayList<>();
+
+		String conversationId;
+		while ((conversationId = pending.poll()) != null) {
+			pendingCount.decrementAndGet();
+			Entry entry = entries.get(conversationId);
+			if (entry == null) {
+				continue;
+			}
+
+			List<Message> messages;
+			long version;
+			synchronized (entry) {
+				entry.queued = false;
+				messages = entry.messages;
+				version = entry.version;
+			}
+
+			try {
+				if (messages == null) {
+					delegate.deleteByConversationId(conversationId);
+				}
+				else {
+					delegate.saveAll(conversationId, messages);
+				}
+				flushed++;
+			}
+			catch (RuntimeException e) {
+				logger.warn("Failed to flush chat memory of conversation {}, will retry: {}", conversationId,
+						e.getMessage());
+				failed.add(conversationId);
+				continue;
+			}
+
+			synchronized (entry) {
+				entry.flushedVersion = Math.max(entry.flushedVersion, version);
+			}
+		}
+
+		for (String id : failed) {
+			Entry entry = entries.get(id);
+			if (entry != null) {
+				synchronized (entry) {
+					if (entry.queued) {
+						continue;
+					}
+					entry.queued = true;
+				}
+				pending.add(id);
+				pendingCount.incrementAndGet();
+			}
+		}
+
+		evict();
+
+		if (flushed > 0) {
+			logger.debug("Flushed {} conversations in {}ms", flushed, (System.nanoTime() - start) / 1_000_000);
+		}
+		return flushed;
+	}
+
+	private void flushQuietly() {
+
+		try {
+			flush();
+		}
+		catch (RuntimeException e) {
+			logger.error("Failed to flush chat memory", e);
+		}
+	}
+
+	/**
+	 * 只淘汰已经持久化的会话，删除标记在持久化后也一并移除。
+	 */
+	private void evict() {
+
+		for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+			Entry entry = candidate.getValue();
+			synchronized (entry) {
+				if (entry.messages == null && entry.isClean()) {
+					remove(candidate.getKey(), entry);
+				}
+			}
+		}
+
+		int excess = entries.size() - maxConversations;
+		if (excess <= 0) {
+			return;
+		}
+
+		List<Map.Entry<String, Entry>> candidates = new ArrayList<>(entries.entrySet());
+		candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+		for (Map.Entry<String, Entry> candidate : candidates) {
+			if (excess <= 0) {
+				break;
+			}
+			Entry entry = candidate.getValue();
+			synchronized (entry) {
+				if (entry.isClean() && remove(candidate.getKey(), entry)) {
+					excess--;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 调用方持有 entry 的锁。被移除的 entry 标记为 evicted，并发的读写会重新创建 entry。
+	 */
+	private boolean remove(String conversationId, Entry entry) {
+
+		if (entries.remove(conversationId, entry)) {
+			entry.evicted = true;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void destroy() {
+
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(flushInterval.toMillis() * 2 + 1000, TimeUnit.MILLISECONDS)) {
+				logger.warn("Timed out waiting for chat memory flusher to stop");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		flush();
+		if (pendingCount.get() > 0) {
+			logger.error("{} conversations could not be persisted on shutdown", pendingCount.get());
+		}
+	}
+
+	private static final class Entry {
+
+		/**
+		 * null 表示会话已删除
+		 */
+		private List<Message> messages;
+
+		private boolean loaded;
+
+		private boolean queued;
+
+		private boolean evicted;
+
+		private long version;
+
+		private long flushedVersion;
+
+		private volatile long lastAccess = System.nanoTime();
+
+		private boolean isClean() {
+			return !queued && version == flushedVersion;
+		}
+	}
+
+	public static Builder builder(ChatMemoryRepository delegate) {
+		return new Builder(delegate);
+	}
+
+	public static final class Builder {
+
+		private final ChatMemoryRepository delegate;
+
+		private String name = "default";
+
+		private Duration flushInterval = Duration.ofSeconds(1);
+
+		private int batchSize = 64;
+
+		private int maxConversations = 10_000;
+
+		private Builder(ChatMemoryRepository delegate) {
+			this.delegate = delegate;
+		}
+
+		public Builder name(String name) {
+
+			this.name = name;
+			return this;
+		}
+
+		public Builder flushInterval(Duration flushInterval) {
+
+			this.flushInterval = flushInterval;
+			return this;
+		}
+
+		public Builder batchSize(int batchSize) {
+
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		public Builder maxConversations(int maxConversations) {
+
+			this.maxConversations = maxConversations;
+			return this;
+		}
+
+		public WriteBehindChatMemoryRepository build() {
+
+			return new WriteBehindChatMemoryRepository(this);
+		}
+	}
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.chatmemory.memory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBehindChatMemoryRepositoryTest {
+
+	private final CountingRepository delegate = new CountingRepository();
+
+	private WriteBehindChatMemoryRepository repository;
+
+	@AfterEach
+	void destroy() {
+		if (repository != null) {
+			repository.destroy();
+		}
+	}
+
+	@Test
+	void readsOwnWritesAndCoalescesUntilFlush() {
+		repository = repository(10_000);
+
+		repository.saveAll("c1", List.of(new UserMessage("1")));
+		repository.saveAll("c1", List.of(new UserMessage("1"), new AssistantMessage("2")));
+		repository.saveAll("c1", List.of(new UserMessage("1"), new AssistantMessage("2"), new UserMessage("3")));
+
+		assertThat(texts(repository.findByConversationId("c1"))).containsExactly("1", "2", "3");
+		assertThat(delegate.saves.get()).isZero();
+
+		assertThat(repository.flush()).isEqualTo(1);
+		assertThat(delegate.saves.get()).isEqualTo(1);
+		assertThat(texts(delegate.findByConversationId("c1"))).containsExactly("1", "2", "3");
+	}
+
+	@Test
+	void loadsFromDelegateOnce() {
+		delegate.saveAll("c1", List.of(new UserMessage("persisted")));
+		repository = repository(10_000);
+
+		assertThat(texts(repository.findByConversationId("c1"))).containsExactly("persisted");
+		assertThat(texts(repository.findByConversationId("c1"))).containsExactly("persisted");
+		assertThat(delegate.finds.get()).isEqualTo(1);
+	}
+
+	@Test
+	void unknownConversationIsNotListed() {
+		repository = repository(10_000);
+
+		assertThat(repository.findByConversationId("missing")).isEmpty();
+		assertThat(repository.findConversationIds()).doesNotContain("missing");
+
+		delegate.saveAll("missing", List.of(new UserMessage("created elsewhere")));
+		assertThat(texts(repository.findByConversationId("missing"))).containsExactly("created elsewhere");
+		assertThat(repository.findConversationIds()).contains("missing");
+	}
+
+	@Test
+	void deleteIsPersistedOnFlush() {
+		delegate.saveAll("c1", List.of(new UserMessage("persisted")));
+		repository = repository(10_000);
+
+		repository.deleteByConversationId("c1");
+
+		assertThat(repository.findByConversationId("c1")).isEmpty();
+		assertThat(repository.findConversationIds()).doesNotContain("c1");
+		assertThat(delegate.findConversationIds()).contains("c1");
+
+		repository.flush();
+		assertThat(delegate.findConversationIds()).doesNotContain("c1");
+	}
+
+	@Test
+	void failedFlushIsRetried() {
+		repository = repository(10_000);
+		repository.saveAll("c1", List.of(new UserMessage("1")));
+
+		delegate.failing.set(true);
+		assertThat(repository.flush()).isZero();
+		assertThat(texts(repository.findByConversationId("c1"))).containsExactly("1");
+
+		delegate.failing.set(false);
+		assertThat(repository.flush()).isEqualTo(1);
+		assertThat(texts(delegate.findByConversationId("c1"))).containsExactly("1");
+	}
+
+	@Test
+	void evictsOnlyFlushedConversations() {
+		repository = repository(2);
+		delegate.failing.set(true);
+		for (int i = 0; i < 3; i++) {
+			repository.saveAll("c" + i, List.of(new UserMessage("m" + i)));
+		}
+		repository.flush();
+
+		// 未持久化的会话超过上限也不会被淘汰
+		for (int i = 0; i < 3; i++) {
+			assertThat(texts(repository.findByConversationId("c" + i))).containsExactly("m" + i);
+		}
+		assertThat(delegate.finds.get()).isZero();
+
+		delegate.failing.set(false);
+		repository.flush();
+		for (int i = 0; i < 3; i++) {
+			assertThat(texts(repository.findByConversationId("c" + i))).containsExactly("m" + i);
+		}
+		assertThat(delegate.finds.get()).isEqualTo(1);
+	}
+
+	@Test
+	void batchSizeTriggersBackgroundFlush() throws InterruptedException {
+		repository = WriteBehindChatMemoryRepository.builder(delegate)
+			.flushInterval(Duration.ofHours(1))
+			.batchSize(2)
+			.build();
+
+		repository.saveAll("c1", List.of(new UserMessage("1")));
+		repository.saveAll("c2", List.of(new UserMessage("2")));
+
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (delegate.saves.get() < 2 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(delegate.saves.get()).isEqualTo(2);
+	}
+
+	@Test
+	void destroyFlushesPendingAndLaterWritesGoThrough() {
+		repository = repository(10_000);
+		repository.saveAll("c1", List.of(new UserMessage("1")));
+
+		repository.destroy();
+		assertThat(texts(delegate.findByConversationId("c1"))).containsExactly("1");
+
+		repository.saveAll("c2", List.of(new UserMessage("2")));
+		assertThat(texts(delegate.findByConversationId("c2"))).containsExactly("2");
+	}
+
+	private WriteBehindChatMemoryRepository repository(int maxConversations) {
+		return WriteBehindChatMemoryRepository.builder(delegate)
+			.flushInterval(Duration.ofHours(1))
+			.batchSize(1000)
+			.maxConversations(maxConversations)
+			.build();
+	}
+
+	private static List<String> texts(List<Message> messages) {
+		return messages.stream().map(Message::getText).toList();
+	}
+
+	private static final class CountingRepository implements ChatMemoryRepository {
+
+		private final InMemoryChatMemoryRepository target = new InMemoryChatMemoryRepository();
+
+		private final AtomicInteger saves = new AtomicInteger();
+
+		private final AtomicInteger finds = new AtomicInteger();
+
+		private final AtomicBoolean failing = new AtomicBoolean();
+
+		@Override
+		public List<String> findConversationIds() {
+			return target.findConversationIds();
+		}
+
+		@Override
+		public List<Message> findByConversationId(String conversationId) {
+			finds.incrementAndGet();
+			return target.findByConversationId(conversationId);
+		}
+
+		@Override
+		public void saveAll(String conversationId, List<Message> messages) {
+			if (failing.get()) {
+				throw new IllegalStateException("database unavailable");
+			}
+			saves.incrementAndGet();
+			target.saveAll(conversationId, messages);
+		}
+
+		@Override
+		public void deleteByConversationId(String conversationId) {
+			if (failing.get()) {
+				throw new IllegalStateException("database unavailable");
+			}
+			target.deleteByConversationId(conversationId);
+		}
+
+	}
+
+}
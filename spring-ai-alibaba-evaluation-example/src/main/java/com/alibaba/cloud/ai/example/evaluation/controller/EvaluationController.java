@@ -19,6 +19,7 @@ package com.alibaba.cloud.ai.example.evaluation.controller;
 import com.alibaba.cloud.ai.evaluation.AnswerCorrectnessEvaluator;
 import com.alibaba.cloud.ai.evaluation.AnswerFaithfulnessEvaluator;
 import com.alibaba.cloud.ai.evaluation.AnswerRelevancyEvaluator;
+import com.alibaba.cloud.ai.example.evaluation.vectorstore.FlatVectorStore;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
@@ -35,7 +36,6 @@ import org.springframework.ai.evaluation.Evaluator;
 import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
 import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
 import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
 import org.springframework.util.CollectionUtils;
@@ -71,7 +71,7 @@ public class EvaluationController {
                                 ObjectMapper objectMapper) {
         this.chatClientBuilder = chatClientBuilder;
         this.chatClient = chatClientBuilder.build();
-        this.vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+        this.vectorStore = FlatVectorStore.builder(embeddingModel).build();
         this.objectMapper = objectMapper;
         this.ragAdvisor = RetrievalAugmentationAdvisor.builder()
                 .documentRetriever(VectorStoreDocumentRetriever.builder()
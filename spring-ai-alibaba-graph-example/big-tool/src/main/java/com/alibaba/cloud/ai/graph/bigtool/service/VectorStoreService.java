@@ -20,7 +20,6 @@ import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingModel;
 
 import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Service;
 
@@ -35,7 +34,7 @@ public class VectorStoreService {
 
 	public VectorStoreService(EmbeddingModel embeddingModel) {
 		this.embeddingModel = embeddingModel;
-		this.vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+		this.vectorStore = FlatVectorStore.builder(embeddingModel).build();
 	}
 
 	public void addDocuments(List<Document> documents) {
@@ -25,7 +25,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.codec.ServerSentEvent;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -44,6 +49,12 @@ public class GraphProcess {
 
 	private static final Logger logger = LoggerFactory.getLogger(GraphProcess.class);
 
+	private static final int MAX_PREFETCH = 64;
+
+	private static final int MAX_FRAME_CHUNKS = 32;
+
+	private static final Duration MAX_FRAME_DELAY = Duration.ofMillis(50);
+
 	/**
 	 * Constructor for GraphProcess
 	 *
@@ -62,58 +73,79 @@ public class GraphProcess {
 		return Flux.create(sink -> processNext(generator, sink));
 	}
 
+	/**
+	 * 将图的 Flux<NodeOutput> 转为 Flux<ServerSentEvent<String>>。
+	 *
+	 * 返回的 Flux 由 SSE 连接订阅：客户端的 demand 逐级传递到图，每个连接最多预取 MAX_PREFETCH 个输出，
+	 * 客户端断开时取消图的执行；同一个节点的 streaming 小块合并为一帧，每 MAX_FRAME_CHUNKS 个输出或
+	 * MAX_FRAME_DELAY 输出一次。
+	 * @param generator the graph output flux
+	 * @return Flux of SSE events
+	 */
 	public Flux<ServerSentEvent<String>> processStream(Flux<NodeOutput> generator) {
-		return Flux.create(sink -> processNext(generator, sink));
+		return generator.limitRate(MAX_PREFETCH)
+			.bufferTimeout(MAX_FRAME_CHUNKS, MAX_FRAME_DELAY, true)
+			.concatMapIterable(GraphProcess::toEvents)
+			.concatWith(Mono.fromSupplier(() -> {
+				logger.debug("processStream: Graph processing completed");
+				return completedEvent("Graph processing completed");
+			}))
+			.onErrorResume(error -> {
+				logger.error("processStream: Error occurred in data stream", error);
+				return Flux.just(
+						ServerSentEvent.builder("{\"type\":\"error\",\"message\":\"" + error.getMessage() + "\"}")
+							.event("error")
+							.build(),
+						completedEvent("Graph processing completed with error"));
+			})
+			.doOnCancel(() -> logger.debug("processStream: Client disconnected, graph execution cancelled"));
 	}
 
-	public void processNext(Flux<NodeOutput> generator,
-							reactor.core.publisher.FluxSink<ServerSentEvent<String>> sink) {
-		generator.subscribe(
-				output -> {
-					logger.debug("processNext: output node={}, output class={}, output={}",
-							output != null ? output.node() : null,
-							output != null ? output.getClass().getName() : null, output);
-
-					String content;
-					if (output instanceof StreamingOutput streamingOutput) {
-						content = JSON.toJSONString(Map.of("type", "streaming", "node", output.node(), "chunk",
-								streamingOutput.chunk(), "timestamp", System.currentTimeMillis()));
-					}
-					else {
-						JSONObject nodeOutput = new JSONObject();
-						nodeOutput.put("type", "node_output");
-						nodeOutput.put("node", output.node());
-						nodeOutput.put("data", output.state().data());
-						nodeOutput.put("timestamp", System.currentTimeMillis());
-						content = JSON.toJSONString(nodeOutput);
-					}
-
-					logger.debug("processNext: emitting SSE event for node {}",
-							output != null ? output.node() : null);
-
-					sink.next(ServerSentEvent.builder(content)
-							.event("node_output")
-							.id(output.node() + "_" + System.currentTimeMillis())
-							.build());
-				},
-				error -> {
-					logger.error("processNext: Error occurred in data stream", error);
-					sink.next(ServerSentEvent.builder("{\"type\":\"error\",\"message\":\"" + error.getMessage() + "\"}")
-							.event("error")
-							.build());
-					sink.next(ServerSentEvent.builder("{\"type\":\"completed\",\"message\":\"Graph processing completed with error\"}")
-							.event("completed")
-							.build());
-					sink.complete();
-				},
-				() -> {
-					logger.debug("processNext: Graph processing completed");
-					sink.next(ServerSentEvent.builder("{\"type\":\"completed\",\"message\":\"Graph processing completed\"}")
-							.event("completed")
-							.build());
-					sink.complete();
+	/**
+	 * 并行分支的小块交替到达，按节点分别合并，同一节点内保持顺序；普通输出之前先输出已合并的帧。
+	 */
+	private static List<ServerSentEvent<String>> toEvents(List<NodeOutput> outputs) {
+		List<ServerSentEvent<String>> events = new ArrayList<>();
+		Map<String, StringBuilder> frames = new LinkedHashMap<>();
+
+		for (NodeOutput output : outputs) {
+			logger.debug("processStream: output node={}, output class={}, output={}", output.node(),
+					output.getClass().getName(), output);
+			if (output instanceof StreamingOutput<?> streamingOutput) {
+				String chunk = streamingOutput.chunk();
+				if (chunk != null && !chunk.isEmpty()) {
+					frames.computeIfAbsent(output.node(), key -> new StringBuilder()).append(chunk);
 				}
-		);
+			}
+			else {
+				addFrames(events, frames);
+				JSONObject nodeOutput = new JSONObject();
+				nodeOutput.put("type", "node_output");
+				nodeOutput.put("node", output.node());
+				nodeOutput.put("data", output.state().data());
+				nodeOutput.put("timestamp", System.currentTimeMillis());
+				events.add(nodeOutputEvent(output.node(), JSON.toJSONString(nodeOutput)));
+			}
+		}
+		addFrames(events, frames);
+
+		return events;
+	}
+
+	private static void addFrames(List<ServerSentEvent<String>> events, Map<String, StringBuilder> frames) {
+		frames.forEach((node, frame) -> events.add(nodeOutputEvent(node, JSON.toJSONString(Map.of("type",
+				"streaming", "node", node, "chunk", frame.toString(), "timestamp", System.currentTimeMillis())))));
+		frames.clear();
+	}
+
+	private static ServerSentEvent<String> nodeOutputEvent(String node, String content) {
+		return ServerSentEvent.builder(content).event("node_output").id(node + "_" + System.currentTimeMillis()).build();
+	}
+
+	private static ServerSentEvent<String> completedEvent(String message) {
+		return ServerSentEvent.builder("{\"type\":\"completed\",\"message\":\"" + message + "\"}")
+			.event("completed")
+			.build();
 	}
 
 	private void processNext(AsyncGenerator<NodeOutput> generator,
@@ -31,9 +31,12 @@ import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -48,6 +51,18 @@ public class GraphHumanConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(GraphHumanConfiguration.class);
 
+    /**
+     * 等待人工反馈的线程状态写入本地日志，服务重启后仍可通过 thread_id 继续
+     */
+    @Bean(destroyMethod = "close")
+    public SegmentLogCheckpointSaver checkpointSaver(
+            @Value("${graph.checkpoint.directory:./data/checkpoints/human-node}") String directory,
+            @Value("${graph.checkpoint.ttl:7d}") Duration ttl) {
+        return SegmentLogCheckpointSaver.builder(Path.of(directory))
+                .ttl(ttl)
+                .build();
+    }
+
     @Bean
     public StateGraph humanGraph(ChatClient.Builder chatClientBuilder) throws GraphStateException {
         KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
@@ -24,7 +24,7 @@ import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
 import com.alibaba.cloud.ai.graph.checkpoint.constant.SaverEnum;
-import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
+import com.alibaba.cloud.ai.graph.config.SegmentLogCheckpointSaver;
 import com.alibaba.cloud.ai.graph.controller.GraphProcess.GraphProcess;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
@@ -40,7 +40,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -59,8 +58,9 @@ public class GraphHumanController {
     private final CompiledGraph compiledGraph;
 
     @Autowired
-    public GraphHumanController(@Qualifier("humanGraph") StateGraph stateGraph) throws GraphStateException {
-        SaverConfig saverConfig = SaverConfig.builder().register(new MemorySaver()).build();
+    public GraphHumanController(@Qualifier("humanGraph") StateGraph stateGraph,
+            SegmentLogCheckpointSaver checkpointSaver) throws GraphStateException {
+        SaverConfig saverConfig = SaverConfig.builder().register(checkpointSaver).build();
         this.compiledGraph = stateGraph
                 .compile(CompileConfig.builder().saverConfig(saverConfig).interruptBefore("human_feedback").build());    }
 
@@ -74,13 +74,9 @@ public class GraphHumanController {
         objectMap.put("expander_number", expanderNumber);
 
         GraphProcess graphProcess = new GraphProcess(this.compiledGraph);
-        Sinks.Many<ServerSentEvent<GraphProcess.ChatMessage>> sink = Sinks.many().unicast().onBackpressureBuffer();
         Flux<NodeOutput> nodeOutputFlux = compiledGraph.stream(objectMap, runnableConfig);
-        graphProcess.processStream(nodeOutputFlux, sink);
 
-        return sink.asFlux()
-                .doOnCancel(() -> logger.info("Client disconnected from stream"))
-                .doOnError(e -> logger.error("Error occurred during streaming", e));
+        return graphProcess.processStream(nodeOutputFlux);
     }
 
     @GetMapping(value = "/resume", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -96,13 +92,9 @@ public class GraphHumanController {
                 ), null);
                 // 从中断点继续执行工作流
                 GraphProcess graphProcess = new GraphProcess(this.compiledGraph);
-                Sinks.Many<ServerSentEvent<GraphProcess.ChatMessage>> sink = Sinks.many().unicast().onBackpressureBuffer();
                 Flux<NodeOutput> nodeOutputFlux = compiledGraph.stream(null, runnableConfig);
-                graphProcess.processStream(nodeOutputFlux, sink);
 
-                return sink.asFlux()
-                        .doOnCancel(() -> logger.info("Client disconnected from stream"))
-                        .doOnError(e -> logger.error("Error occurred during streaming", e));
+                return graphProcess.processStream(nodeOutputFlux);
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
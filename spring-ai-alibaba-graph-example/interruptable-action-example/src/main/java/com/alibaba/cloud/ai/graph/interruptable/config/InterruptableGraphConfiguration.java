@@ -26,9 +26,13 @@ import com.alibaba.cloud.ai.graph.interruptable.node.OrderApprovalNode;
 import com.alibaba.cloud.ai.graph.interruptable.node.SensitiveOperationNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
 /**
  * @author Libres-coder
  * @since 2025/10/31
@@ -38,6 +42,18 @@ public class InterruptableGraphConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(InterruptableGraphConfiguration.class);
 
+    /**
+     * 等待人工审批的工作流状态写入本地日志，服务重启后仍可继续审批
+     */
+    @Bean(destroyMethod = "close")
+    public SegmentLogCheckpointSaver checkpointSaver(
+            @Value("${graph.checkpoint.directory:./data/checkpoints/interruptable-action}") String directory,
+            @Value("${graph.checkpoint.ttl:7d}") Duration ttl) {
+        return SegmentLogCheckpointSaver.builder(Path.of(directory))
+            .ttl(ttl)
+            .build();
+    }
+
     @Bean(name = "orderApprovalGraph")
     public StateGraph orderApprovalGraph() throws GraphStateException {
         logger.info("Initializing orderApprovalGraph");
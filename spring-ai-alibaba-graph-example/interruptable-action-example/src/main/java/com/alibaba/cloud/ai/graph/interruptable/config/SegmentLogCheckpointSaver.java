@@ -0,0 +1,1003 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.interruptable.config;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.checkpoint.BaseCheckpointSaver;
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import com.alibaba.cloud.ai.graph.serializer.StateSerializer;
+import com.alibaba.cloud.ai.graph.serializer.check_point.CheckPointSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 基于本地追加写日志的 checkpoint saver，替代 MemorySaver，重启后等待人工处理的线程仍可恢复：
+ * <p>
+ * 1. checkpoint 以记录的形式追加到分段日志（segment-N.log），每条记录带长度与 CRC，写满 maxSegmentBytes 后切换到新的分段；
+ * 2. 内存中只保存索引：threadId 到各 checkpoint 所在分段与偏移的映射，get 为一次哈希查找加一次按偏移读取，与线程数无关；
+ * 3. 每个线程最多保留 maxCheckpointsPerThread 个 checkpoint，超过 ttl 未更新的线程视为已放弃，由后台任务释放；
+ * 4. 后台任务定期压缩：从最旧的分段开始，存活数据占比低于 compactionThreshold 的分段把存活记录复制到当前分段后删除，
+ *    复制按批进行，批次之间释放写锁；
+ * 5. syncInterval 为 0 时 put 在 fsync 之后返回，并发的写入合并为一次 fsync；大于 0 时按间隔批量 fsync，
+ *    进程异常退出时最多丢失一个间隔内的写入；
+ * 6. 启动时按顺序回放分段重建索引，最后一个分段末尾不完整的记录会被截断；
+ * 7. 目录通过 lock 文件独占，同一目录被其它 saver（包括其它进程）使用时启动失败。
+ */
+
+public class SegmentLogCheckpointSaver implements BaseCheckpointSaver, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentLogCheckpointSaver.class);
+
+    private static final String LOCK_FILE = "checkpoint.lock";
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{20})\\.log");
+
+    private static final int HEADER_BYTES = 8;
+
+    private static final byte PUT = 1;
+
+    private static final byte RELEASE = 2;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final int COMPACTION_BATCH_RECORDS = 256;
+
+    private final Path directory;
+
+    private final CheckPointSerializer serializer;
+
+    private final long maxSegmentBytes;
+
+    private final int maxCheckpointsPerThread;
+
+    private final Duration ttl;
+
+    private final double compactionThreshold;
+
+    private final Duration syncInterval;
+
+    private final Clock clock;
+
+    private final Map<String, ThreadEntry> index = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    private final Object syncMonitor = new Object();
+
+    private final ScheduledExecutorService maintenance;
+
+    private final FileChannel lockChannel;
+
+    private final FileLock directoryLock;
+
+    private volatile Segment active;
+
+    private volatile long appendedRecords;
+
+    private long syncedRecords;
+
+    private boolean syncing;
+
+    private long nextSlot;
+
+    private volatile boolean closed;
+
+    private SegmentLogCheckpointSaver(Builder builder) throws IOException {
+        Assert.notNull(builder.directory, "directory must not be null");
+        Assert.notNull(builder.stateSerializer, "stateSerializer must not be null");
+        Assert.isTrue(builder.maxSegmentBytes > 0, "maxSegmentBytes must be greater than 0");
+        Assert.isTrue(builder.maxCheckpointsPerThread > 0, "maxCheckpointsPerThread must be greater than 0");
+        Assert.isTrue(isPositive(builder.ttl), "ttl must be positive");
+        Assert.isTrue(isPositive(builder.compactionInterval), "compactionInterval must be positive");
+        Assert.isTrue(builder.compactionThreshold > 0 && builder.compactionThreshold <= 1,
+                "compactionThreshold must be in (0, 1]");
+        Assert.isTrue(builder.syncInterval != null && !builder.syncInterval.isNegative(),
+                "syncInterval must not be negative");
+
+        this.directory = builder.directory;
+        this.serializer = new CheckPointSerializer(builder.stateSerializer);
+        this.maxSegmentBytes = builder.maxSegmentBytes;
+        this.maxCheckpointsPerThread = builder.maxCheckpointsPerThread;
+        this.ttl = builder.ttl;
+        this.compactionThreshold = builder.compactionThreshold;
+        this.syncInterval = builder.syncInterval;
+        this.clock = builder.clock;
+
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        this.directoryLock = lockDirectory();
+        try {
+            recover();
+        }
+        catch (IOException | RuntimeException e) {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            lockChannel.close();
+            throw e;
+        }
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-log-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long compactionMillis = builder.compactionInterval.toMillis();
+        this.maintenance.scheduleWithFixedDelay(this::compactQuietly, compactionMillis, compactionMillis,
+                TimeUnit.MILLISECONDS);
+        if (!syncInterval.isZero()) {
+            this.maintenance.scheduleWithFixedDelay(this::syncQuietly, syncInterval.toMillis(),
+                    syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public Collection<Checkpoint> list(RunnableConfig config) {
+        return withRetry(() -> {
+            ThreadEntry entry = liveEntry(threadId(config));
+            if (entry == null) {
+                return List.of();
+            }
+            List<Checkpoint> checkpoints = new ArrayList<>(entry.checkpoints().size());
+            for (Location location : entry.checkpoints()) {
+                checkpoints.add(read(location));
+            }
+            return checkpoints;
+        });
+    }
+
+    @Override
+    public Optional<Checkpoint> get(RunnableConfig config) {
+        return withRetry(() -> {
+            ThreadEntry entry = liveEntry(threadId(config));
+            if (entry == null) {
+                return Optional.empty();
+            }
+            Optional<Location> location = config.checkPointId().isPresent()
+                    ? find(entry.checkpoints(), config.checkPointId().get())
+                    : Optional.of(entry.checkpoints().get(0));
+            return location.isPresent() ? Optional.of(read(location.get())) : Optional.empty();
+        });
+    }
+
+    @Override
+    public RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
+        String threadId = threadId(config);
+        byte[] payload = serializer.objectToBytes(checkpoint);
+
+        RunnableConfig result;
+        long ticket;
+        writeLock.lock();
+        try {
+            ensureOpen();
+            ThreadEntry entry = index.get(threadId);
+            if (entry != null && isExpired(entry, clock.millis())) {
+                // 过期的线程对 get/list 已不可见，先释放，新的 checkpoint 不会带回旧的记录，也不会刷新 lastUpdated
+                releaseThread(threadId);
+                entry = null;
+            }
+            long slot;
+            if (config.checkPointId().isPresent()) {
+                String checkPointId = config.checkPointId().get();
+                Optional<Location> replaced = entry != null ? find(entry.checkpoints(), checkPointId)
+                        : Optional.empty();
+                slot = replaced.orElseThrow(() -> new NoSuchElementException(
+                        String.format("Checkpoint with id %s not found!", checkPointId))).slot();
+                result = config;
+            }
+            else {
+                slot = nextSlot++;
+                result = RunnableConfig.builder(config).checkPointId(checkpoint.getId()).build();
+            }
+
+            long timestamp = clock.millis();
+            Location location = append(encode(PUT, slot, timestamp, threadId, checkpoint.getId(), payload), slot,
+                    checkpoint.getId());
+            applyPut(threadId, location, timestamp);
+            ticket = appendedRecords;
+        }
+        finally {
+            writeLock.unlock();
+        }
+
+        if (syncInterval.isZero()) {
+            sync(ticket);
+        }
+        return result;
+    }
+
+    @Override
+    public Tag release(RunnableConfig config) throws Exception {
+        String threadId = threadId(config);
+
+        List<Checkpoint> checkpoints = new ArrayList<>();
+        long ticket;
+        writeLock.lock();
+        try {
+            ensureOpen();
+            ThreadEntry entry = index.get(threadId);
+            if (entry != null) {
+                // 持有写锁，压缩不会同时删除分段
+                for (Location location : entry.checkpoints()) {
+                    checkpoints.add(read(location));
+                }
+            }
+            releaseThread(threadId);
+            ticket = appendedRecords;
+        }
+        finally {
+            writeLock.unlock();
+        }
+
+        if (syncInterval.isZero()) {
+            sync(ticket);
+        }
+        return new Tag(threadId, checkpoints);
+    }
+
+    /**
+     * 释放超过 ttl 未更新的线程，并压缩存活数据占比低于 compactionThreshold 的分段。
+     * @return 被删除的分段数
+     */
+    public int compact() throws IOException {
+        compactionLock.lock();
+        try {
+            List<Segment> candidates = new ArrayList<>();
+            Set<Long> candidateIds = new HashSet<>();
+            List<String> threadIds = new ArrayList<>();
+            writeLock.lock();
+            try {
+                ensureOpen();
+                expireThreads();
+
+                // 只压缩最旧的连续分段：RELEASE 记录不在索引中，删除的分段必须都早于保留的分段，
+                // 否则被释放的 checkpoint 会在回放时重新出现
+                for (Segment segment : segments.headMap(active.id()).values()) {
+                    if (segment.liveBytes >= segment.size * compactionThreshold) {
+                        break;
+                    }
+                    candidates.add(segment);
+                    candidateIds.add(segment.id());
+                }
+                if (candidates.isEmpty()) {
+                    return 0;
+                }
+
+                // 候选分段都已写满，之后的写入只会进入更新的分段，这里记录的线程覆盖了所有需要复制的记录
+                index.forEach((threadId, entry) -> {
+                    for (Location location : entry.checkpoints()) {
+                        if (candidateIds.contains(location.segmentId())) {
+                            threadIds.add(threadId);
+                            return;
+                        }
+                    }
+                });
+            }
+            finally {
+                writeLock.unlock();
+            }
+
+            long start = System.nanoTime();
+            int relocated = 0;
+            int next = 0;
+            while (next < threadIds.size()) {
+                // 每批最多复制 COMPACTION_BATCH_RECORDS 条记录，批次之间释放写锁，put 与 release 不会被整个压缩阻塞
+                writeLock.lock();
+                try {
+                    ensureOpen();
+                    int batch = 0;
+                    while (next < threadIds.size() && batch < COMPACTION_BATCH_RECORDS) {
+                        batch += relocate(threadIds.get(next++), candidateIds);
+                    }
+                    relocated += batch;
+                }
+                finally {
+                    writeLock.unlock();
+                }
+            }
+
+            writeLock.lock();
+            try {
+                ensureOpen();
+                // 复制的记录落盘之后才能删除旧分段，之前切换掉的分段在切换时已经落盘
+                active.channel().force(false);
+                for (Segment segment : candidates) {
+                    segments.remove(segment.id());
+                    segment.close();
+                    Files.deleteIfExists(segment.path());
+                }
+            }
+            finally {
+                writeLock.unlock();
+            }
+
+            logger.info("Compacted {} checkpoint segments, relocated {} records in {}ms", candidates.size(),
+                    relocated, (System.nanoTime() - start) / 1_000_000);
+            return candidates.size();
+        }
+        finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * 当前索引中的线程数
+     */
+    public int threadCount() {
+        return index.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        maintenance.shutdown();
+
+        writeLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            active.channel().force(false);
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            directoryLock.release();
+            lockChannel.close();
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 两个 saver 同时追加同一目录会互相覆盖分段并删除对方仍在使用的数据，拿不到锁时直接失败
+     */
+    private FileLock lockDirectory() throws IOException {
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        }
+        catch (OverlappingFileLockException e) {
+            // 同一进程内已有 saver 持有该目录的锁
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Checkpoint directory " + directory
+                    + " is already in use by another checkpoint saver");
+        }
+        return lock;
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+
+        long start = System.nanoTime();
+        long records = 0;
+        for (int i = 0; i < files.size(); i++) {
+            Path path = files.get(i);
+            Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+            matcher.matches();
+            Segment segment = new Segment(Long.parseLong(matcher.group(1)), path,
+                    FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            segments.put(segment.id(), segment);
+            records += replay(segment, i == files.size() - 1);
+        }
+
+        Segment last = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        active = last != null && last.size < maxSegmentBytes ? last : openSegment(last != null ? last.id() + 1 : 0);
+
+        if (!files.isEmpty()) {
+            logger.info("Recovered {} checkpoint threads from {} records in {} segments in {}ms", index.size(),
+                    records, files.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private long replay(Segment segment, boolean last) throws IOException {
+        FileChannel channel = segment.channel();
+        long fileSize = channel.size();
+        long offset = 0;
+        long records = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+        while (offset < fileSize) {
+            header.clear();
+            int bodyLength = -1;
+            int crc = 0;
+            if (fileSize - offset >= HEADER_BYTES && readFully(channel, header, offset)) {
+                bodyLength = header.getInt(0);
+                crc = header.getInt(4);
+            }
+
+            ByteBuffer body = null;
+            if (bodyLength > 0 && bodyLength <= fileSize - offset - HEADER_BYTES) {
+                body = ByteBuffer.allocate(bodyLength);
+                if (!readFully(channel, body, offset + HEADER_BYTES) || crc(body.array()) != crc) {
+                    body = null;
+                }
+            }
+
+            if (body == null) {
+                if (last) {
+                    logger.warn("Truncating incomplete checkpoint record at {}:{}", segment.path(), offset);
+                    channel.truncate(offset);
+                }
+                else {
+                    logger.error("Corrupted checkpoint record at {}:{}, skipping the rest of the segment",
+                            segment.path(), offset);
+                }
+                break;
+            }
+
+            int length = HEADER_BYTES + bodyLength;
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body.array()))) {
+                byte type = in.readByte();
+                long slot = in.readLong();
+                long timestamp = in.readLong();
+                String threadId = in.readUTF();
+                nextSlot = Math.max(nextSlot, slot + 1);
+                if (type == PUT) {
+                    String checkpointId = in.readUTF();
+                    applyPut(threadId, new Location(segment.id(), offset, length, slot, checkpointId), timestamp);
+                }
+                else if (type == RELEASE) {
+                    applyRelease(threadId, slot);
+                }
+            }
+
+            offset += length;
+            records++;
+        }
+
+        segment.size = offset;
+        return records;
+    }
+
+    private Location append(byte[] record, long slot, String checkpointId) throws IOException {
+        Segment segment = active;
+        if (segment.size > 0 && segment.size + record.length > maxSegmentBytes) {
+            // 切换前落盘，sync 只需要 force 当前分段
+            segment.channel().force(false);
+            segment = openSegment(segment.id() + 1);
+            active = segment;
+        }
+
+        long offset = segment.size;
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += segment.channel().write(buffer, position);
+        }
+        segment.size = position;
+        appendedRecords++;
+
+        return new Location(segment.id(), offset, record.length, slot, checkpointId);
+    }
+
+    private static byte[] encode(byte type, long slot, long timestamp, String threadId, String checkpointId,
+            byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_BYTES + 64 + payload.length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeByte(type);
+        out.writeLong(slot);
+        out.writeLong(timestamp);
+        out.writeUTF(threadId);
+        if (checkpointId != null) {
+            out.writeUTF(checkpointId);
+        }
+        out.write(payload);
+        out.flush();
+
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER_BYTES, record.length - HEADER_BYTES);
+        ByteBuffer.wrap(record).putInt(0, record.length - HEADER_BYTES).putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    private Checkpoint read(Location location) throws IOException {
+        byte[] record = readRecord(location);
+        // 跳过 type、slot、timestamp 以及 threadId、checkpointId 两个 UTF 字段
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        int position = HEADER_BYTES + 1 + Long.BYTES * 2;
+        position += Short.BYTES + Short.toUnsignedInt(buffer.getShort(position));
+        position += Short.BYTES + Short.toUnsignedInt(buffer.getShort(position));
+        try {
+            return serializer.bytesToObject(Arrays.copyOfRange(record, position, record.length));
+        }
+        catch (ClassNotFoundException e) {
+            throw new IOException("Failed to read checkpoint " + location.checkpointId(), e);
+        }
+    }
+
+    private byte[] readRecord(Location location) throws IOException {
+        Segment segment = segments.get(location.segmentId());
+        if (segment == null) {
+            throw new ClosedChannelException();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(location.length());
+        if (!readFully(segment.channel(), buffer, location.offset())) {
+            throw new IOException("Unexpected end of checkpoint segment " + segment.path());
+        }
+        return buffer.array();
+    }
+
+    private void applyPut(String threadId, Location location, long timestamp) {
+        ThreadEntry entry = index.get(threadId);
+        List<Location> locations = entry != null ? new ArrayList<>(entry.checkpoints()) : new ArrayList<>(1);
+
+        int position = 0;
+        boolean replaced = false;
+        for (; position < locations.size(); position++) {
+            Location existing = locations.get(position);
+            if (existing.slot() == location.slot()) {
+                dropLive(existing);
+                locations.set(position, location);
+                replaced = true;
+                break;
+            }
+            if (existing.slot() < location.slot()) {
+                break;
+            }
+        }
+        if (!replaced) {
+            // 按 slot 从新到旧排列，第一个即为最新的 checkpoint
+            locations.add(position, location);
+        }
+        while (locations.size() > maxCheckpointsPerThread) {
+            dropLive(locations.remove(locations.size() - 1));
+        }
+
+        Segment segment = segments.get(location.segmentId());
+        if (segment != null && locations.contains(location)) {
+            segment.liveBytes += location.length();
+        }
+        long lastUpdated = entry != null ? Math.max(entry.lastUpdated(), timestamp) : timestamp;
+        index.put(threadId, new ThreadEntry(List.copyOf(locations), lastUpdated));
+    }
+
+    private void applyRelease(String threadId, long slot) {
+        ThreadEntry entry = index.get(threadId);
+        if (entry == null) {
+            return;
+        }
+        List<Location> remaining = new ArrayList<>();
+        for (Location location : entry.checkpoints()) {
+            if (location.slot() < slot) {
+                dropLive(location);
+            }
+            else {
+                remaining.add(location);
+            }
+        }
+        if (remaining.isEmpty()) {
+            index.remove(threadId);
+        }
+        else {
+            index.put(threadId, new ThreadEntry(List.copyOf(remaining), entry.lastUpdated()));
+        }
+    }
+
+    /**
+     * 把线程位于待删除分段中的记录复制到当前分段，调用方持有写锁。
+     * @return 复制的记录数
+     */
+    private int relocate(String threadId, Set<Long> candidateIds) throws IOException {
+        ThreadEntry entry = index.get(threadId);
+        if (entry == null) {
+            return 0;
+        }
+        List<Location> locations = null;
+        int relocated = 0;
+        for (int i = 0; i < entry.checkpoints().size(); i++) {
+            Location location = entry.checkpoints().get(i);
+            if (!candidateIds.contains(location.segmentId())) {
+                continue;
+            }
+            if (locations == null) {
+                locations = new ArrayList<>(entry.checkpoints());
+            }
+            // 原样复制记录，slot 与时间戳不变，回放时顺序与 ttl 不受影响
+            Location moved = append(readRecord(location), location.slot(), location.checkpointId());
+            segments.get(moved.segmentId()).liveBytes += moved.length();
+            locations.set(i, moved);
+            relocated++;
+        }
+        if (locations != null) {
+            index.put(threadId, new ThreadEntry(List.copyOf(locations), entry.lastUpdated()));
+        }
+        return relocated;
+    }
+
+    private void releaseThread(String threadId) throws IOException {
+        long slot = nextSlot++;
+        append(encode(RELEASE, slot, clock.millis(), threadId, null, EMPTY), slot, null);
+        applyRelease(threadId, slot);
+    }
+
+    private void expireThreads() throws IOException {
+        long now = clock.millis();
+        List<String> expired = new ArrayList<>();
+        index.forEach((threadId, entry) -> {
+            if (isExpired(entry, now)) {
+                expired.add(threadId);
+            }
+        });
+        for (String threadId : expired) {
+            releaseThread(threadId);
+        }
+        if (!expired.isEmpty()) {
+            logger.info("Released {} checkpoint threads not updated within {}", expired.size(), ttl);
+        }
+    }
+
+    private void dropLive(Location location) {
+        Segment segment = segments.get(location.segmentId());
+        if (segment != null) {
+            segment.liveBytes -= location.length();
+        }
+    }
+
+    /**
+     * 组提交：同一时间只有一个线程执行 fsync，等待中的写入由下一次 fsync 一并落盘。
+     */
+    private void sync(long ticket) throws IOException {
+        synchronized (syncMonitor) {
+            while (syncedRecords < ticket && syncing) {
+                try {
+                    syncMonitor.wait();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for checkpoint fsync");
+                }
+            }
+            if (syncedRecords >= ticket) {
+                return;
+            }
+            syncing = true;
+        }
+
+        // 先读取已追加的记录数再读取当前分段，之前分段的记录在切换时已经落盘
+        long target = appendedRecords;
+        Segment segment = active;
+        boolean synced = false;
+        try {
+            segment.channel().force(false);
+            synced = true;
+        }
+        finally {
+            synchronized (syncMonitor) {
+                syncing = false;
+                if (synced) {
+                    syncedRecords = Math.max(syncedRecords, target);
+                }
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            if (!closed) {
+                sync(appendedRecords);
+            }
+        }
+        catch (IOException e) {
+            logger.error("Failed to fsync checkpoint log", e);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            if (!closed) {
+                compact();
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            logger.error("Failed to compact checkpoint log", e);
+        }
+    }
+
+    private ThreadEntry liveEntry(String threadId) {
+        ensureOpen();
+        ThreadEntry entry = index.get(threadId);
+        if (entry == null || isExpired(entry, clock.millis())) {
+            return null;
+        }
+        return entry;
+    }
+
+    private boolean isExpired(ThreadEntry entry, long now) {
+        return entry.lastUpdated() < now - ttl.toMillis();
+    }
+
+    /**
+     * 读取时分段可能刚被压缩删除，重新查找索引后重试。
+     */
+    private <T> T withRetry(IOCallable<T> callable) {
+        for (int attempt = 0;; attempt++) {
+            try {
+                return callable.call();
+            }
+            catch (ClosedChannelException e) {
+                if (closed || attempt >= 2) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        Path path = directory.resolve(String.format("segment-%020d.log", id));
+        Segment segment = new Segment(id, path, FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segment.size = segment.channel().size();
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Checkpoint saver is closed");
+        }
+    }
+
+    private static Optional<Location> find(List<Location> locations, String checkpointId) {
+        for (Location location : locations) {
+            if (location.checkpointId().equals(checkpointId)) {
+                return Optional.of(location);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static String threadId(RunnableConfig config) {
+        return config.threadId().orElse(THREAD_ID_DEFAULT);
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    private static boolean isPositive(Duration duration) {
+        return duration != null && !duration.isNegative() && !duration.isZero();
+    }
+
+    @FunctionalInterface
+    private interface IOCallable<T> {
+
+        T call() throws IOException;
+
+    }
+
+    /**
+     * @param checkpoints 按 slot 从新到旧排列
+     * @param lastUpdated 最后一次写入的时间，用于 ttl
+     */
+    private record ThreadEntry(List<Location> checkpoints, long lastUpdated) {
+    }
+
+    /**
+     * @param slot checkpoint 在线程中的位置，更新 checkpoint 时沿用原来的 slot
+     */
+    private record Location(long segmentId, long offset, int length, long slot, String checkpointId) {
+    }
+
+    /**
+     * size 与 liveBytes 只在持有写锁（或启动回放）时修改
+     */
+    private static final class Segment {
+
+        private final long id;
+
+        private final Path path;
+
+        private volatile FileChannel channel;
+
+        private volatile boolean closed;
+
+        private long size;
+
+        private long liveBytes;
+
+        private Segment(long id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        private long id() {
+            return id;
+        }
+
+        private Path path() {
+            return path;
+        }
+
+        private FileChannel channel() throws IOException {
+            FileChannel current = channel;
+            if (current.isOpen() || closed) {
+                return current;
+            }
+            synchronized (this) {
+                // 线程在读写时被中断会关闭 FileChannel，分段仍在使用时重新打开
+                if (!channel.isOpen() && !closed) {
+                    channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                }
+                return channel;
+            }
+        }
+
+        private void close() throws IOException {
+            synchronized (this) {
+                closed = true;
+                channel.close();
+            }
+        }
+
+    }
+
+    public static Builder builder(Path directory) {
+        return new Builder(directory);
+    }
+
+    public static class Builder {
+
+        private final Path directory;
+
+        private StateSerializer stateSerializer = StateGraph.DEFAULT_JACKSON_SERIALIZER;
+
+        private long maxSegmentBytes = 64L * 1024 * 1024;
+
+        private int maxCheckpointsPerThread = 16;
+
+        private Duration ttl = Duration.ofDays(7);
+
+        private Duration compactionInterval = Duration.ofMinutes(5);
+
+        private double compactionThreshold = 0.5;
+
+        private Duration syncInterval = Duration.ZERO;
+
+        private Clock clock = Clock.systemUTC();
+
+        private Builder(Path directory) {
+            this.directory = directory;
+        }
+
+        public Builder stateSerializer(StateSerializer stateSerializer) {
+            this.stateSerializer = stateSerializer;
+            return this;
+        }
+
+        public Builder maxSegmentBytes(long maxSegmentBytes) {
+            this.maxSegmentBytes = maxSegmentBytes;
+            return this;
+        }
+
+        public Builder maxCheckpointsPerThread(int maxCheckpointsPerThread) {
+            this.maxCheckpointsPerThread = maxCheckpointsPerThread;
+            return this;
+        }
+
+        public Builder ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        public Builder compactionInterval(Duration compactionInterval) {
+            this.compactionInterval = compactionInterval;
+            return this;
+        }
+
+        public Builder compactionThreshold(double compactionThreshold) {
+            this.compactionThreshold = compactionThreshold;
+            return this;
+        }
+
+        public Builder syncInterval(Duration syncInterval) {
+            this.syncInterval = syncInterval;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public SegmentLogCheckpointSaver build() {
+            try {
+                return new SegmentLogCheckpointSaver(this);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Failed to open checkpoint log in " + directory, e);
+            }
+        }
+
+    }
+
+}
@@ -23,9 +23,9 @@ import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.action.InterruptionMetadata;
 import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
-import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.interruptable.config.SegmentLogCheckpointSaver;
 import com.alibaba.cloud.ai.graph.state.StateSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,7 +34,6 @@ import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -50,16 +49,22 @@ public class InterruptableController {
 
     private static final Logger logger = LoggerFactory.getLogger(InterruptableController.class);
 
+    /**
+     * 每个 SSE 连接最多向图预取的输出数
+     */
+    private static final int MAX_PREFETCH = 64;
+
     private final CompiledGraph orderApprovalCompiledGraph;
     private final CompiledGraph sensitiveOperationCompiledGraph;
 
     public InterruptableController(
             @Qualifier("orderApprovalGraph") StateGraph orderApprovalGraph,
-            @Qualifier("sensitiveOperationGraph") StateGraph sensitiveOperationGraph) 
+            @Qualifier("sensitiveOperationGraph") StateGraph sensitiveOperationGraph,
+            SegmentLogCheckpointSaver checkpointSaver) 
             throws GraphStateException {
         
         SaverConfig saverConfig = SaverConfig.builder()
-            .register(new MemorySaver())
+            .register(checkpointSaver)
             .build();
 
         this.orderApprovalCompiledGraph = orderApprovalGraph.compile(
@@ -94,15 +99,9 @@ public class InterruptableController {
             .threadId(threadId)
             .build();
 
-        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().unicast().onBackpressureBuffer();
-
         Flux<NodeOutput> nodeOutputFlux = orderApprovalCompiledGraph.stream(initialState, config);
-        
-        processStream(nodeOutputFlux, sink, "Order Processing");
 
-        return sink.asFlux()
-            .doOnCancel(() -> logger.info("Client disconnected"))
-            .doOnError(e -> logger.error("Error during streaming", e));
+        return processStream(nodeOutputFlux, "Order Processing");
     }
 
     @PostMapping(value = "/order/resume", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -135,15 +134,9 @@ public class InterruptableController {
             .addMetadata(RunnableConfig.STATE_UPDATE_METADATA_KEY, stateUpdate)
             .build();
 
-        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().unicast().onBackpressureBuffer();
-
         Flux<NodeOutput> nodeOutputFlux = orderApprovalCompiledGraph.stream(null, resumeConfig);
-        
-        processStream(nodeOutputFlux, sink, "Order Resume");
 
-        return sink.asFlux()
-            .doOnCancel(() -> logger.info("Client disconnected"))
-            .doOnError(e -> logger.error("Error during streaming", e));
+        return processStream(nodeOutputFlux, "Order Resume");
     }
 
     @PostMapping(value = "/operation/execute", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -174,15 +167,9 @@ public class InterruptableController {
             .threadId(threadId)
             .build();
 
-        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().unicast().onBackpressureBuffer();
-
         Flux<NodeOutput> nodeOutputFlux = sensitiveOperationCompiledGraph.stream(initialState, config);
-        
-        processStream(nodeOutputFlux, sink, "Operation Execution");
 
-        return sink.asFlux()
-            .doOnCancel(() -> logger.info("Client disconnected"))
-            .doOnError(e -> logger.error("Error during streaming", e));
+        return processStream(nodeOutputFlux, "Operation Execution");
     }
 
     @PostMapping(value = "/operation/confirm", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -211,52 +198,33 @@ public class InterruptableController {
             .addMetadata(RunnableConfig.HUMAN_FEEDBACK_METADATA_KEY, feedback)
             .build();
 
-        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().unicast().onBackpressureBuffer();
-
         Flux<NodeOutput> nodeOutputFlux = sensitiveOperationCompiledGraph.stream(null, resumeConfig);
-        
-        processStream(nodeOutputFlux, sink, "Operation Confirmation");
 
-        return sink.asFlux()
-            .doOnCancel(() -> logger.info("Client disconnected"))
-            .doOnError(e -> logger.error("Error during streaming", e));
+        return processStream(nodeOutputFlux, "Operation Confirmation");
     }
 
-    private void processStream(
-            Flux<NodeOutput> nodeOutputFlux, 
-            Sinks.Many<ServerSentEvent<String>> sink,
-            String workflowName) {
-        
-        nodeOutputFlux.subscribe(
-            output -> {
-                try {
-                    logger.info("Workflow [{}] output from node: {}", workflowName, output.node());
-                    
-                    String data;
-                    if (output instanceof InterruptionMetadata) {
-                        InterruptionMetadata metadata = (InterruptionMetadata) output;
-                        data = formatInterruptionMetadata(metadata);
-                        logger.info("Workflow [{}] interrupted, waiting for human action", workflowName);
-                    } else {
-                        data = formatNodeOutput(output);
-                    }
-                    
-                    sink.tryEmitNext(ServerSentEvent.<String>builder().data(data).build());
-                    
-                } catch (Exception e) {
-                    logger.error("Error processing output", e);
-                    sink.tryEmitError(e);
+    /**
+     * 由 SSE 连接直接订阅图的输出：客户端的 demand 传递到图，客户端断开时取消图的执行，
+     * 不再由独立的订阅把输出写入无界的 sink。
+     */
+    private Flux<ServerSentEvent<String>> processStream(Flux<NodeOutput> nodeOutputFlux, String workflowName) {
+        return nodeOutputFlux.limitRate(MAX_PREFETCH)
+            .map(output -> {
+                logger.info("Workflow [{}] output from node: {}", workflowName, output.node());
+
+                String data;
+                if (output instanceof InterruptionMetadata metadata) {
+                    data = formatInterruptionMetadata(metadata);
+                    logger.info("Workflow [{}] interrupted, waiting for human action", workflowName);
+                } else {
+                    data = formatNodeOutput(output);
                 }
-            },
-            error -> {
-                logger.error("Workflow [{}] error", workflowName, error);
-                sink.tryEmitError(error);
-            },
-            () -> {
-                logger.info("Workflow [{}] completed", workflowName);
-                sink.tryEmitComplete();
-            }
-        );
+
+                return ServerSentEvent.<String>builder().data(data).build();
+            })
+            .doOnComplete(() -> logger.info("Workflow [{}] completed", workflowName))
+            .doOnCancel(() -> logger.info("Client disconnected, workflow [{}] cancelled", workflowName))
+            .doOnError(e -> logger.error("Workflow [{}] error", workflowName, e));
     }
 
     private String formatInterruptionMetadata(InterruptionMetadata metadata) {
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.interruptable.config;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentLogCheckpointSaverTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void putGetListAndUpdateInPlace() throws Exception {
+        try (SegmentLogCheckpointSaver saver = SegmentLogCheckpointSaver.builder(directory).build()) {
+            RunnableConfig first = saver.put(config("t1"), checkpoint("a", 1));
+            saver.put(config("t1"), checkpoint("b", 2));
+
+            assertThat(saver.get(config("t1"))).get().extracting(Checkpoint::getNodeId).isEqualTo("b");
+
+            saver.put(first, checkpoint("a2", 3));
+            List<Checkpoint> checkpoints = List.copyOf(saver.list(config("t1")));
+            assertThat(checkpoints).extracting(Checkpoint::getNodeId).containsExactly("b", "a2");
+
+            RunnableConfig missing = RunnableConfig.builder().threadId("t1").checkPointId("missing").build();
+            assertThatThrownBy(() -> saver.put(missing, checkpoint("x", 0)))
+                    .isInstanceOf(NoSuchElementException.class);
+        }
+    }
+
+    @Test
+    void trimsCheckpointsPerThread() throws Exception {
+        try (SegmentLogCheckpointSaver saver = SegmentLogCheckpointSaver.builder(directory)
+                .maxCheckpointsPerThread(3)
+                .build()) {
+            for (int i = 0; i < 5; i++) {
+                saver.put(config("t"), checkpoint("n" + i, i));
+            }
+
+            assertThat(saver.list(config("t"))).extracting(Checkpoint::getNodeId).containsExactly("n4", "n3", "n2");
+        }
+    }
+
+    @Test
+    void recoversAfterTornTail() throws Exception {
+        SegmentLogCheckpointSaver saver = SegmentLogCheckpointSaver.builder(directory).maxCheckpointsPerThread(3).build();
+        saver.put(config("t1"), checkpoint("a", 1));
+        saver.put(config("t1"), checkpoint("b", 2));
+        for (int i = 0; i < 5; i++) {
+            saver.put(config("t2"), checkpoint("n" + i, i));
+        }
+        saver.put(config("t3"), checkpoint("r", 1));
+        assertThat(saver.release(config("t3")).checkpoints()).hasSize(1);
+        saver.close();
+
+        // 模拟写入过程中进程退出：记录头声明的长度超过实际写入的字节数
+        Files.write(lastSegment(), new byte[] { 0, 0, 0, 50, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+        try (SegmentLogCheckpointSaver recovered = SegmentLogCheckpointSaver.builder(directory)
+                .maxCheckpointsPerThread(3)
+                .build()) {
+            assertThat(recovered.list(config("t1"))).extracting(Checkpoint::getNodeId).containsExactly("b", "a");
+            assertThat(recovered.list(config("t2"))).extracting(Checkpoint::getNodeId).containsExactly("n4", "n3", "n2");
+            assertThat(recovered.get(config("t3"))).isEmpty();
+
+            RunnableConfig appended = recovered.put(config("t4"), checkpoint("z", 1));
+            assertThat(recovered.get(appended)).get().extracting(Checkpoint::getNodeId).isEqualTo("z");
+        }
+    }
+
+    @Test
+    void compactionKeepsLiveThreads() throws Exception {
+        SegmentLogCheckpointSaver.Builder builder = SegmentLogCheckpointSaver.builder(directory).maxSegmentBytes(16 * 1024);
+        SegmentLogCheckpointSaver saver = builder.build();
+        for (int i = 0; i < 1000; i++) {
+            saver.put(config("thread-" + i), checkpoint("order_approval", i));
+        }
+        for (int i = 0; i < 900; i++) {
+            saver.release(config("thread-" + i));
+        }
+        long before = segmentBytes();
+
+        assertThat(saver.compact()).isPositive();
+        assertThat(segmentBytes()).isLessThan(before);
+        assertThat(saver.threadCount()).isEqualTo(100);
+        assertThat(saver.get(config("thread-5"))).isEmpty();
+        assertThat(saver.get(config("thread-950"))).isPresent();
+        saver.close();
+
+        try (SegmentLogCheckpointSaver reopened = builder.build()) {
+            assertThat(reopened.threadCount()).isEqualTo(100);
+            assertThat(reopened.get(config("thread-999"))).get()
+                    .extracting(checkpoint -> checkpoint.getState().get("order_id"))
+                    .isEqualTo("order-999");
+        }
+    }
+
+    @Test
+    void expiredThreadStartsFreshAndStaysReleasedAfterReopen() throws Exception {
+        AtomicLong now = new AtomicLong(1_000_000);
+        SegmentLogCheckpointSaver.Builder builder = SegmentLogCheckpointSaver.builder(directory)
+                .ttl(Duration.ofHours(1))
+                .maxCheckpointsPerThread(5)
+                .clock(clock(now));
+
+        try (SegmentLogCheckpointSaver saver = builder.build()) {
+            saver.put(config("t"), checkpoint("old", 1));
+            saver.put(config("t"), checkpoint("old", 2));
+            now.addAndGet(Duration.ofHours(2).toMillis());
+            saver.put(config("t"), checkpoint("new", 3));
+
+            assertThat(saver.list(config("t"))).extracting(Checkpoint::getNodeId).containsExactly("new");
+        }
+
+        try (SegmentLogCheckpointSaver reopened = builder.build()) {
+            assertThat(reopened.list(config("t"))).extracting(Checkpoint::getNodeId).containsExactly("new");
+        }
+    }
+
+    @Test
+    void directoryIsLockedByOneSaver() throws Exception {
+        SegmentLogCheckpointSaver saver = SegmentLogCheckpointSaver.builder(directory).build();
+        saver.put(config("t"), checkpoint("n", 1));
+
+        assertThatThrownBy(() -> SegmentLogCheckpointSaver.builder(directory).build())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("already in use");
+        saver.close();
+
+        try (SegmentLogCheckpointSaver reopened = SegmentLogCheckpointSaver.builder(directory).build()) {
+            assertThat(reopened.threadCount()).isEqualTo(1);
+        }
+    }
+
+    private Path lastSegment() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+                    .sorted()
+                    .reduce((first, second) -> second)
+                    .orElseThrow();
+        }
+    }
+
+    private long segmentBytes() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+                    .mapToLong(file -> file.toFile().length())
+                    .sum();
+        }
+    }
+
+    private static RunnableConfig config(String threadId) {
+        return RunnableConfig.builder().threadId(threadId).build();
+    }
+
+    private static Checkpoint checkpoint(String nodeId, int i) {
+        Map<String, Object> state = new HashMap<>();
+        state.put("order_id", "order-" + i);
+        state.put("order_amount", 100.0 + i);
+        state.put("message", "waiting approval " + i);
+        return Checkpoint.builder().nodeId(nodeId).nextNodeId("final_process").state(state).build();
+    }
+
+    private static Clock clock(AtomicLong now) {
+        return new Clock() {
+
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(now.get());
+            }
+
+        };
+    }
+
+}
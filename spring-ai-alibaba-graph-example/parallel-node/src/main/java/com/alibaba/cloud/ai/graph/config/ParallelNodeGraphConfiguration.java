@@ -21,26 +21,24 @@ import com.alibaba.cloud.ai.graph.KeyStrategy;
 import com.alibaba.cloud.ai.graph.KeyStrategyFactory;
 import com.alibaba.cloud.ai.graph.KeyStrategyFactoryBuilder;
 import com.alibaba.cloud.ai.graph.StateGraph;
-import com.alibaba.cloud.ai.graph.dispatcher.CollectorDispatcher;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
-import com.alibaba.cloud.ai.graph.node.CollectorNode;
 import com.alibaba.cloud.ai.graph.node.DispatcherNode;
 import com.alibaba.cloud.ai.graph.node.ExpanderNode;
+import com.alibaba.cloud.ai.graph.node.JoinNode;
 import com.alibaba.cloud.ai.graph.node.TranslateNode;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
 
 import static com.alibaba.cloud.ai.graph.StateGraph.END;
-import static com.alibaba.cloud.ai.graph.action.AsyncEdgeAction.edge_async;
 import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
 
 /**
@@ -53,6 +51,23 @@ public class ParallelNodeGraphConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(ParallelNodeGraphConfiguration.class);
 
+    /**
+     * translator 与 expander 由 dispatcher 并行触发，分支在独立的执行器中运行，不占用 graph-core 的共享线程池。
+     */
+    @Bean
+    public GraphExecutionPolicy graphExecutionPolicy(
+            @Value("${graph.execution.mode:PLATFORM}") GraphExecutionPolicy.Mode mode,
+            @Value("${graph.execution.max-threads:64}") int maxThreads,
+            @Value("${graph.execution.queue-capacity:1000}") int queueCapacity,
+            @Value("${graph.execution.dispatcher-concurrency:32}") int dispatcherConcurrency) {
+        return GraphExecutionPolicy.builder()
+                .mode(mode)
+                .maxThreads(maxThreads)
+                .queueCapacity(queueCapacity)
+                .nodeConcurrency("dispatcher", dispatcherConcurrency)
+                .build();
+    }
+
     @Bean
     public StateGraph parallelNodeGraph(ChatClient.Builder chatClientBuilder) throws GraphStateException {
         KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
@@ -61,16 +76,24 @@ public class ParallelNodeGraphConfiguration {
                 .addPatternStrategy("expander_content", new ReplaceStrategy())
                 .addPatternStrategy("translate_language", new ReplaceStrategy())
                 .addPatternStrategy("translate_content", new ReplaceStrategy())
-                .addPatternStrategy("collector_next_node", new ReplaceStrategy())
+                .addPatternStrategy(JoinNode.DEFAULT_MISSING_KEY, new ReplaceStrategy())
                 .addPatternStrategy("expand_status", new ReplaceStrategy())
                 .addPatternStrategy("translate_status", new ReplaceStrategy())
                 .build();
 
         StateGraph stateGraph = new StateGraph(keyStrategyFactory)
                 .addNode("dispatcher", node_async(new DispatcherNode()))
-                .addNode("translator", node_async(new TranslateNode(chatClientBuilder)))
-                .addNode("expander", node_async(new ExpanderNode(chatClientBuilder)))
-                .addNode("collector", node_async(new CollectorNode()))
+                // 分支节点本身的执行期限，到期未返回的节点按分支缺失处理
+                .addNode("translator", JoinNode.withDeadline("translator",
+                        new TranslateNode(chatClientBuilder), Duration.ofSeconds(30)))
+                .addNode("expander", JoinNode.withDeadline("expander",
+                        new ExpanderNode(chatClientBuilder), Duration.ofSeconds(60)))
+                // 两个分支返回的流都写入结果后立即汇合，缺失或超时的分支记录在 join_missing_branches 中
+                .addNode("collector", JoinNode.builder()
+                        .branch("translate_content", Duration.ofSeconds(30))
+                        .branch("expander_content", Duration.ofSeconds(60))
+                        .policy(JoinNode.Policy.PARTIAL_MERGE)
+                        .build())
                 
                 // 并行边
                 .addEdge("dispatcher", "translator")
@@ -79,8 +102,7 @@ public class ParallelNodeGraphConfiguration {
                 .addEdge("expander", "collector")
                 
                 .addEdge(StateGraph.START, "dispatcher")
-                .addConditionalEdges("collector", edge_async(new CollectorDispatcher()),
-                        Map.of("dispatcher", "dispatcher", END, END));
+                .addEdge("collector", END);
 
         GraphRepresentation representation = stateGraph.getGraph(GraphRepresentation.Type.PLANTUML,
                 "parallel translator and expander flow");
@@ -24,9 +24,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.codec.ServerSentEvent;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
+ * 将图的输出桥接为 SSE：
+ * <p>
+ * 1. 不单独订阅图的 Flux，返回的 Flux 由 SSE 连接订阅，客户端的 demand 逐级传递到图，
+ *    每个连接最多预取 MAX_PREFETCH 个输出，客户端断开时取消订阅，图的执行随之取消；
+ * 2. StreamingOutput 小块按节点合并为帧，每 MAX_FRAME_CHUNKS 个输出或 MAX_FRAME_DELAY 输出一次。
+ *
  * @author sixiyida
  * @since 2025/6/27
  */
@@ -35,40 +46,59 @@ public class GraphProcess {
 
     private static final Logger logger = LoggerFactory.getLogger(GraphProcess.class);
 
+    private static final int MAX_PREFETCH = 64;
+
+    private static final int MAX_FRAME_CHUNKS = 32;
+
+    private static final Duration MAX_FRAME_DELAY = Duration.ofMillis(50);
+
     private CompiledGraph compiledGraph;
 
     public GraphProcess(CompiledGraph compiledGraph) {
         this.compiledGraph = compiledGraph;
     }
 
-    public void processStream(Flux<NodeOutput> nodeOutputFlux, Sinks.Many<ServerSentEvent<ChatMessage>> sink) {
-        nodeOutputFlux
-                .doOnNext(output -> {
-                    logger.info("output = {}", output);
-                    String nodeName = output.node();
-                    ChatMessage chatMessage = null;
-                    if (output instanceof StreamingOutput<?> streamingOutput) {
-                        String chunk = streamingOutput.chunk();
-                        if (chunk != null && !chunk.isEmpty()) {
-                            chatMessage = new ChatMessage(nodeName, chunk);
-                        }
-                    } else {
-                        chatMessage = new ChatMessage(nodeName, output.state().data());
-                    }
-                    sink.tryEmitNext(ServerSentEvent.builder(chatMessage).build());
-                })
-                .doOnComplete(() -> {
-                    // 正常完成
-                    sink.tryEmitComplete();
-                })
-                .doOnError(e -> {
-                    logger.error("Error occurred during streaming", e);
-                    sink.tryEmitError(e);
-                })
-                .subscribe();
+    public Flux<ServerSentEvent<ChatMessage>> processStream(Flux<NodeOutput> nodeOutputFlux) {
+        return nodeOutputFlux
+                .limitRate(MAX_PREFETCH)
+                .bufferTimeout(MAX_FRAME_CHUNKS, MAX_FRAME_DELAY, true)
+                .concatMapIterable(GraphProcess::toMessages)
+                .map(chatMessage -> ServerSentEvent.builder(chatMessage).build())
+                .doOnCancel(() -> logger.info("Client disconnected, graph execution cancelled"))
+                .doOnError(e -> logger.error("Error occurred during streaming", e));
+    }
+
+    /**
+     * 并行分支的小块交替到达，按节点分别合并，同一节点内保持顺序；普通输出之前先输出已合并的帧。
+     */
+    private static List<ChatMessage> toMessages(List<NodeOutput> outputs) {
+        List<ChatMessage> messages = new ArrayList<>();
+        Map<String, StringBuilder> frames = new LinkedHashMap<>();
+
+        for (NodeOutput output : outputs) {
+            logger.debug("output = {}", output);
+            String nodeName = output.node();
+            if (output instanceof StreamingOutput<?> streamingOutput) {
+                String chunk = streamingOutput.chunk();
+                if (chunk != null && !chunk.isEmpty()) {
+                    frames.computeIfAbsent(nodeName, key -> new StringBuilder()).append(chunk);
+                }
+            } else {
+                addFrames(messages, frames);
+                messages.add(new ChatMessage(nodeName, output.state().data()));
+            }
+        }
+        addFrames(messages, frames);
+
+        return messages;
+    }
+
+    private static void addFrames(List<ChatMessage> messages, Map<String, StringBuilder> frames) {
+        frames.forEach((nodeName, frame) -> messages.add(new ChatMessage(nodeName, frame.toString())));
+        frames.clear();
     }
 
     public record ChatMessage(@JsonProperty("node_name") String nodeName, @JsonProperty("type") Object data) {
     }
-}
 
+}
@@ -21,6 +21,7 @@ import com.alibaba.cloud.ai.graph.NodeOutput;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.async.AsyncGenerator;
+import com.alibaba.cloud.ai.graph.config.GraphExecutionPolicy;
 import com.alibaba.cloud.ai.graph.controller.GraphProcess.GraphProcess;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
@@ -34,7 +35,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -52,27 +52,32 @@ public class ParallelNodeGraphController {
 
     private final CompiledGraph compiledGraph;
 
-    public ParallelNodeGraphController(@Qualifier("parallelNodeGraph")StateGraph stateGraph) throws GraphStateException {
+    private final GraphExecutionPolicy executionPolicy;
+
+    public ParallelNodeGraphController(@Qualifier("parallelNodeGraph")StateGraph stateGraph,
+                                       GraphExecutionPolicy executionPolicy) throws GraphStateException {
         this.compiledGraph = stateGraph.compile();
+        this.executionPolicy = executionPolicy;
     }
 
     @GetMapping(value = "/expand", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<ServerSentEvent<GraphProcess.ChatMessage>> expand(@RequestParam(value = "query", defaultValue = "你好，很高兴认识你，能简单介绍一下自己吗？", required = false) String query,
                                                 @RequestParam(value = "expander_number", defaultValue = "3", required = false) Integer  expanderNumber,
                                                 @RequestParam(value = "thread_id", defaultValue = "__default__", required = false) String threadId) throws GraphRunnerException {
-        RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
+        RunnableConfig runnableConfig = executionPolicy.apply(RunnableConfig.builder().threadId(threadId)).build();
         Map<String, Object> objectMap = new HashMap<>();
         objectMap.put("query", query);
         objectMap.put("expander_number", expanderNumber);
 
         GraphProcess graphProcess = new GraphProcess(this.compiledGraph);
-        Sinks.Many<ServerSentEvent<GraphProcess.ChatMessage>> sink = Sinks.many().unicast().onBackpressureBuffer();
         Flux<NodeOutput> nodeOutputFlux = compiledGraph.stream(objectMap, runnableConfig);
-        graphProcess.processStream(nodeOutputFlux, sink);
 
-        return sink.asFlux()
-                .doOnCancel(() -> logger.info("Client disconnected from stream"))
-                .doOnError(e -> logger.error("Error occurred during streaming", e));
+        return graphProcess.processStream(nodeOutputFlux);
+    }
+
+    @GetMapping("/metrics")
+    public Map<String, GraphExecutionPolicy.NodeMetrics> metrics() {
+        return executionPolicy.metrics();
     }
 
 
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.node;
+
+import com.alibaba.cloud.ai.graph.GraphResponse;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 并行分支的汇合节点（join barrier）：所有声明的分支都写入各自的 key 后立即完成，不轮询、不休眠。
+ * <p>
+ * 1. 分支的值可以是普通值、{@link CompletionStage}、{@link Publisher}（如流式的 {@code Flux<ChatResponse>}），
+ *    或者图执行器消费流式分支后写入的 {@link GraphResponse}；未完成的值以非阻塞方式等待，每个分支有独立的超时时间。
+ *    超时只约束分支节点返回的异步值，节点本身执行慢或卡住时本节点还未被调度，需要通过
+ *    {@link #withDeadline(String, NodeAction, Duration)} 为分支节点设置执行期限，到期的节点按分支缺失处理；
+ * 2. 解析后的值写回分支的 key，下游节点拿到的都是普通值；
+ * 3. 图只在全部上游节点完成后才调度本节点，此时仍不存在的 key 之后也不会出现，按分支缺失处理；
+ * 4. {@link Policy#FAIL_FAST} 在任一分支缺失、失败或超时时立即失败，{@link Policy#PARTIAL_MERGE} 合并已完成的分支。
+ */
+
+public class JoinNode implements AsyncNodeAction {
+
+    private static final Logger logger = LoggerFactory.getLogger(JoinNode.class);
+
+    public static final String DEFAULT_MISSING_KEY = "join_missing_branches";
+
+    /**
+     * 带期限的分支节点在这里执行，图的分支线程只等待结果；空闲线程 60 秒后回收
+     */
+    private static final ExecutorService DEADLINE_EXECUTOR = Executors.newCachedThreadPool(deadlineThreadFactory());
+
+    private final Map<String, Duration> branches;
+
+    private final Policy policy;
+
+    private final String missingKey;
+
+    private JoinNode(Builder builder) {
+        Assert.notEmpty(builder.branches, "at least one branch must be declared");
+        Assert.notNull(builder.policy, "policy must not be null");
+        Assert.hasText(builder.missingKey, "missingKey must not be empty");
+
+        this.branches = Collections.unmodifiableMap(new LinkedHashMap<>(builder.branches));
+        this.policy = builder.policy;
+        this.missingKey = builder.missingKey;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> apply(OverAllState state) {
+        long start = System.nanoTime();
+
+        List<Mono<BranchResult>> results = new ArrayList<>(branches.size());
+        branches.forEach((key, timeout) -> results.add(resolve(state, key, timeout)));
+
+        // FAIL_FAST 时第一个失败的分支会取消其余分支
+        return Flux.merge(results)
+                .collectList()
+                .map(list -> {
+                    Map<String, Object> updated = new HashMap<>();
+                    List<String> missing = new ArrayList<>();
+                    for (BranchResult result : list) {
+                        if (result.value() != null) {
+                            updated.put(result.key(), result.value());
+                        }
+                        else {
+                            missing.add(result.key());
+                        }
+                    }
+                    if (policy == Policy.PARTIAL_MERGE) {
+                        updated.put(missingKey, missing);
+                    }
+
+                    logger.info("join completed in {}ms, missing branches: {}",
+                            (System.nanoTime() - start) / 1_000_000, missing);
+                    return updated;
+                })
+                .toFuture();
+    }
+
+    private Mono<BranchResult> resolve(OverAllState state, String key, Duration timeout) {
+        Mono<BranchResult> value = Mono.justOrEmpty(state.value(key))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("branch '" + key + "' produced no value")))
+                .flatMap(raw -> unwrap(key, raw))
+                .timeout(timeout, Mono.error(() -> new TimeoutException(
+                        "branch '" + key + "' did not complete within " + timeout.toMillis() + "ms")))
+                .map(resolved -> new BranchResult(key, resolved));
+
+        if (policy == Policy.FAIL_FAST) {
+            return value;
+        }
+        return value.onErrorResume(e -> {
+            logger.warn("branch '{}' skipped: {}", key, e.getMessage());
+            return Mono.just(new BranchResult(key, null));
+        });
+    }
+
+    /**
+     * 为分支节点设置执行期限：节点在独立的线程中执行，超过 deadline 时中断节点，
+     * 按节点没有写入任何 key 处理，由汇合节点按策略记为缺失分支或失败。
+     */
+    public static AsyncNodeAction withDeadline(String nodeId, NodeAction action, Duration deadline) {
+        Assert.notNull(action, "action must not be null");
+        Assert.isTrue(deadline != null && deadline.toMillis() > 0, "deadline must be positive");
+
+        return state -> {
+            FutureTask<Map<String, Object>> task = new FutureTask<>(() -> action.apply(state));
+            CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+            DEADLINE_EXECUTOR.execute(() -> {
+                task.run();
+                try {
+                    result.complete(task.get());
+                }
+                catch (ExecutionException e) {
+                    result.completeExceptionally(e.getCause());
+                }
+                catch (CancellationException | InterruptedException e) {
+                    // 已超时，result 已经以 TimeoutException 完成
+                }
+            });
+
+            return result.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS).handle((value, ex) -> {
+                if (ex == null) {
+                    return value;
+                }
+                if (ex instanceof TimeoutException) {
+                    task.cancel(true);
+                    logger.warn("Node {} did not complete within {}ms, skip its output", nodeId, deadline.toMillis());
+                    return Map.of();
+                }
+                throw ex instanceof CompletionException completion ? completion : new CompletionException(ex);
+            });
+        };
+    }
+
+    private static CustomizableThreadFactory deadlineThreadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("graph-branch-deadline-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Mono<Object> unwrap(String key, Object raw) {
+        if (raw instanceof CompletionStage<?> stage) {
+            return Mono.fromCompletionStage((CompletionStage<Object>) stage).flatMap(value -> unwrap(key, value));
+        }
+        if (raw instanceof Publisher<?> publisher) {
+            return Flux.from(publisher)
+                    .collectList()
+                    .flatMap(elements -> elements.isEmpty()
+                            ? Mono.error(new IllegalStateException("branch '" + key + "' emitted no element"))
+                            : merge(elements));
+        }
+        if (raw instanceof GraphResponse<?> response) {
+            if (response.isError()) {
+                return Mono.fromCompletionStage((CompletionStage<Object>) response.getOutput());
+            }
+            Optional<Object> result = response.resultValue();
+            if (result.isPresent() && result.get() instanceof Map<?, ?> map && map.containsKey(key)) {
+                return unwrap(key, map.get(key));
+            }
+            return Mono.error(new IllegalStateException("branch '" + key + "' did not complete"));
+        }
+        if (raw instanceof AssistantMessage message) {
+            return Mono.justOrEmpty(message.getText());
+        }
+        return Mono.just(raw);
+    }
+
+    /**
+     * 流式的 ChatResponse 拼接为完整文本，其余类型取最后一个元素。
+     */
+    private static Mono<Object> merge(List<?> elements) {
+        if (elements.get(0) instanceof ChatResponse) {
+            StringBuilder text = new StringBuilder();
+            for (Object element : elements) {
+                ChatResponse response = (ChatResponse) element;
+                if (response.getResult() != null && response.getResult().getOutput().getText() != null) {
+                    text.append(response.getResult().getOutput().getText());
+                }
+            }
+            return Mono.just(text.toString());
+        }
+        return Mono.just(elements.get(elements.size() - 1));
+    }
+
+    private record BranchResult(String key, Object value) {
+    }
+
+    public enum Policy {
+
+        /**
+         * 任一分支缺失、失败或超时时，join 节点立即失败
+         */
+        FAIL_FAST,
+
+        /**
+         * 合并已完成的分支，缺失、失败或超时的分支记录在 missingKey 中
+         */
+        PARTIAL_MERGE
+
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private final Map<String, Duration> branches = new LinkedHashMap<>();
+
+        private Duration defaultTimeout = Duration.ofSeconds(60);
+
+        private Policy policy = Policy.FAIL_FAST;
+
+        private String missingKey = DEFAULT_MISSING_KEY;
+
+        public Builder branch(String key) {
+            this.branches.put(key, null);
+            return this;
+        }
+
+        public Builder branch(String key, Duration timeout) {
+            Assert.isTrue(timeout != null && timeout.toMillis() > 0, "timeout must be positive");
+            this.branches.put(key, timeout);
+            return this;
+        }
+
+        public Builder defaultTimeout(Duration defaultTimeout) {
+            Assert.isTrue(defaultTimeout != null && defaultTimeout.toMillis() > 0, "timeout must be positive");
+            this.defaultTimeout = defaultTimeout;
+            return this;
+        }
+
+        public Builder policy(Policy policy) {
+            this.policy = policy;
+            return this;
+        }
+
+        public Builder missingKey(String missingKey) {
+            this.missingKey = missingKey;
+            return this;
+        }
+
+        public JoinNode build() {
+            branches.replaceAll((key, timeout) -> timeout != null ? timeout : defaultTimeout);
+            return new JoinNode(this);
+        }
+
+    }
+
+}
@@ -32,7 +32,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -65,13 +64,9 @@ public class GraphStreamController {
         objectMap.put("translate_language", translateLanguage);
 
         GraphProcess graphProcess = new GraphProcess(this.compiledGraph);
-        Sinks.Many<ServerSentEvent<GraphProcess.ChatMessage>> sink = Sinks.many().unicast().onBackpressureBuffer();
         Flux<NodeOutput> nodeOutputFlux = compiledGraph.stream(objectMap, runnableConfig);
-        graphProcess.processStream(nodeOutputFlux, sink);
 
-        return sink.asFlux()
-                .doOnCancel(() -> logger.info("Client disconnected from stream"))
-                .doOnError(e -> logger.error("Error occurred during streaming", e));
+        return graphProcess.processStream(nodeOutputFlux);
     }
 
 
@@ -26,11 +26,14 @@ import com.alibaba.cloud.ai.graph.exception.GraphStateException;
 import com.alibaba.cloud.ai.graph.state.AgentStateFactory;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import com.alibaba.example.graph.product.model.Product;
-import com.alibaba.example.graph.product.serializer.ProductStateSerializer;
+import com.alibaba.example.graph.product.serializer.BinaryStateSerializer;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import static com.alibaba.cloud.ai.graph.StateGraph.END;
@@ -40,6 +43,23 @@ import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
 @Configuration
 public class ProductGraphConfiguration {
 
+    /**
+     * marketingCopy 与 specificationExtraction 从 START 并行执行，分支中阻塞的 ChatClient.call() 运行在独立的执行器中
+     */
+    @Bean
+    public GraphExecutionPolicy graphExecutionPolicy(
+            @Value("${graph.execution.mode:PLATFORM}") GraphExecutionPolicy.Mode mode,
+            @Value("${graph.execution.max-threads:64}") int maxThreads,
+            @Value("${graph.execution.queue-capacity:1000}") int queueCapacity,
+            @Value("${graph.execution.start-concurrency:32}") int startConcurrency) {
+        return GraphExecutionPolicy.builder()
+                .mode(mode)
+                .maxThreads(maxThreads)
+                .queueCapacity(queueCapacity)
+                .nodeConcurrency(START, startConcurrency)
+                .build();
+    }
+
     @Bean
     public StateGraph productAnalysisGraph(ChatClient.Builder chatClientBuilder) throws GraphStateException {
         ChatClient client = chatClientBuilder.build();
@@ -51,9 +71,13 @@ public class ProductGraphConfiguration {
                 .addPatternStrategy("finalProduct", new ReplaceStrategy())
                 .build();
 
-        // Create custom serializer to handle Product object serialization
+        // Binary serializer: state keys and Product are written as registered IDs instead of JSON with class names
         AgentStateFactory<OverAllState> stateFactory = OverAllState::new;
-        ProductStateSerializer serializer = new ProductStateSerializer(stateFactory);
+        BinaryStateSerializer serializer = BinaryStateSerializer.builder(stateFactory)
+                .keys("productDesc", "slogan", "productSpec", "finalProduct")
+                .registerImmutable(1, Product.class, ProductGraphConfiguration::writeProduct,
+                        ProductGraphConfiguration::readProduct)
+                .build();
 
         NodeAction marketingCopyNode = state -> {
             String productDesc = (String) state.value("productDesc").orElseThrow();
@@ -97,4 +121,16 @@ public class ProductGraphConfiguration {
 
         return graph;
     }
+
+    private static void writeProduct(Product product, BinaryStateSerializer.Output out) {
+        out.writeString(product.slogan());
+        out.writeString(product.material());
+        out.writeValue(product.colors());
+        out.writeString(product.season());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Product readProduct(BinaryStateSerializer.Input in) throws IOException {
+        return new Product(in.readString(), in.readString(), (List<String>) in.readValue(), in.readString());
+    }
 }
@@ -18,12 +18,13 @@ package com.alibaba.example.graph.product.controller;
 
 import com.alibaba.cloud.ai.graph.*;
 import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
-import com.alibaba.cloud.ai.graph.checkpoint.constant.SaverEnum;
 import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.example.graph.product.conf.GraphExecutionPolicy;
 import com.alibaba.example.graph.product.model.Product;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
@@ -36,16 +37,25 @@ public class ProductController {
 
     private final CompiledGraph compiledGraph;
 
-    public ProductController(@Qualifier("productAnalysisGraph") StateGraph productAnalysisGraph) throws GraphStateException {
-        SaverConfig saverConfig = SaverConfig.builder().register(SaverEnum.MEMORY.getValue(), new MemorySaver()).build();
+    private final GraphExecutionPolicy executionPolicy;
+
+    public ProductController(@Qualifier("productAnalysisGraph") StateGraph productAnalysisGraph,
+                             GraphExecutionPolicy executionPolicy) throws GraphStateException {
+        this.executionPolicy = executionPolicy;
+        SaverConfig saverConfig = SaverConfig.builder().register(new MemorySaver()).build();
         this.compiledGraph = productAnalysisGraph.compile(CompileConfig.builder().saverConfig(saverConfig).build());
     }
 
     @PostMapping("/product/enrich")
     public Product enrichProduct(@RequestBody String productDesc) throws GraphRunnerException {
         Map<String, Object> initialState = Map.of("productDesc", productDesc);
-        RunnableConfig runnableConfig = RunnableConfig.builder().build();
+        RunnableConfig runnableConfig = executionPolicy.runnableConfig();
         Optional<OverAllState> invoke = compiledGraph.invoke(initialState, runnableConfig);
         return (Product) invoke.get().value("finalProduct").orElseThrow();
     }
+
+    @GetMapping("/product/metrics")
+    public Map<String, GraphExecutionPolicy.NodeMetrics> metrics() {
+        return executionPolicy.metrics();
+    }
 }
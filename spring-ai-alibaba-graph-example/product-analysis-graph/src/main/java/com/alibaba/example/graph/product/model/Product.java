@@ -18,5 +18,13 @@ package com.alibaba.example.graph.product.model;
 
 import java.util.List;
 
+/**
+ * 以不可变对象注册到 BinaryStateSerializer，clone 时直接共享实例，因此 colors 在构造时复制为不可变列表
+ */
 public record Product(String slogan, String material, List<String> colors, String season) {
+
+    public Product {
+        colors = colors != null ? List.copyOf(colors) : null;
+    }
+
 }
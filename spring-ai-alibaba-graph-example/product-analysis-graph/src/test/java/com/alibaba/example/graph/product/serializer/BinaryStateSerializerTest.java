@@ -0,0 +1,177 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.serializer;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.example.graph.product.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryStateSerializerTest {
+
+    private final BinaryStateSerializer serializer = BinaryStateSerializer.builder(OverAllState::new)
+            .keys("productDesc", "slogan", "productSpec", "finalProduct", "messages")
+            .registerImmutable(1, Product.class, (product, out) -> {
+                out.writeString(product.slogan());
+                out.writeString(product.material());
+                out.writeValue(product.colors());
+                out.writeString(product.season());
+            }, in -> new Product(in.readString(), in.readString(), readColors(in), in.readString()))
+            .build();
+
+    @Test
+    void roundTripsScalarsCollectionsAndUndeclaredKeys() throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("productDesc", "轻量防水的登山夹克");
+        data.put("undeclared", "written with its key name");
+        data.put("count", -42);
+        data.put("total", Long.MAX_VALUE);
+        data.put("price", 199.5d);
+        data.put("ratio", 0.25f);
+        data.put("enabled", Boolean.TRUE);
+        data.put("bytes", new byte[] { 1, 2, 3 });
+        data.put("missing", null);
+        data.put("tags", new ArrayList<>(List.of("a", "b")));
+        data.put("nested", new HashMap<>(Map.of("k", List.of(1, 2L))));
+        data.put("set", new LinkedHashSet<>(List.of("x", "y")));
+        data.put("large", "x".repeat(100_000));
+
+        Map<String, Object> read = roundTrip(data).data();
+
+        assertThat(read).containsOnlyKeys(data.keySet());
+        assertThat(read.get("bytes")).isEqualTo(new byte[] { 1, 2, 3 });
+        assertThat(read).containsEntry("productDesc", "轻量防水的登山夹克")
+                .containsEntry("undeclared", "written with its key name")
+                .containsEntry("count", -42)
+                .containsEntry("total", Long.MAX_VALUE)
+                .containsEntry("price", 199.5d)
+                .containsEntry("ratio", 0.25f)
+                .containsEntry("enabled", Boolean.TRUE)
+                .containsEntry("missing", null)
+                .containsEntry("tags", List.of("a", "b"))
+                .containsEntry("nested", Map.of("k", List.of(1, 2L)))
+                .containsEntry("set", Set.of("x", "y"))
+                .containsEntry("large", "x".repeat(100_000));
+    }
+
+    @Test
+    void roundTripsMessages() throws Exception {
+        AssistantMessage toolCall = AssistantMessage.builder()
+                .content("")
+                .properties(new HashMap<>(Map.of("finishReason", "TOOL_CALLS")))
+                .toolCalls(List.of(new AssistantMessage.ToolCall("call_1", "function", "saveField", "{\"field\":\"name\"}")))
+                .build();
+        ToolResponseMessage toolResponse = ToolResponseMessage.builder()
+                .responses(List.of(new ToolResponseMessage.ToolResponse("call_1", "saveField", "saved")))
+                .metadata(new HashMap<>())
+                .build();
+        List<Object> messages = List.of(new SystemMessage("system"), new UserMessage("你好"), toolCall, toolResponse);
+
+        List<?> read = (List<?>) roundTrip(Map.of("messages", messages)).value("messages").orElseThrow();
+
+        assertThat(read).hasSize(4);
+        assertThat(((SystemMessage) read.get(0)).getText()).isEqualTo("system");
+        assertThat(((UserMessage) read.get(1)).getText()).isEqualTo("你好");
+        AssistantMessage readToolCall = (AssistantMessage) read.get(2);
+        assertThat(readToolCall.getToolCalls()).isEqualTo(toolCall.getToolCalls());
+        assertThat(readToolCall.getMetadata()).containsEntry("finishReason", "TOOL_CALLS");
+        assertThat(((ToolResponseMessage) read.get(3)).getResponses()).isEqualTo(toolResponse.getResponses());
+    }
+
+    @Test
+    void roundTripsRegisteredProduct() throws Exception {
+        Product product = new Product("Conquer every trail", "nylon", List.of("red", "navy"), "autumn");
+        Product empty = new Product("slogan", null, null, null);
+
+        OverAllState read = roundTrip(Map.of("finalProduct", product, "productSpec", empty));
+
+        Product readProduct = (Product) read.value("finalProduct").orElseThrow();
+        assertThat(readProduct).isEqualTo(product);
+        assertThatThrownBy(() -> readProduct.colors().add("black")).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(read.value("productSpec")).contains(empty);
+    }
+
+    @Test
+    void cloneSharesImmutableValuesAndCopiesMutableCollections() throws Exception {
+        List<String> colors = new ArrayList<>(List.of("red"));
+        Product product = new Product("slogan", "nylon", colors, "autumn");
+        colors.add("blue");
+        List<String> tags = new ArrayList<>(List.of("a"));
+        Map<String, Object> data = new HashMap<>();
+        data.put("finalProduct", product);
+        data.put("tags", tags);
+
+        OverAllState clone = serializer.cloneObject(new OverAllState(data));
+
+        assertThat(product.colors()).containsExactly("red");
+        assertThat(clone.value("finalProduct").orElseThrow()).isSameAs(product);
+        assertThat(clone.value("tags").orElseThrow()).isNotSameAs(tags).isEqualTo(tags);
+        tags.add("b");
+        assertThat(clone.value("tags").orElseThrow()).isEqualTo(List.of("a"));
+    }
+
+    @Test
+    void cloneCopiesMessageMetadata() throws Exception {
+        AssistantMessage message = AssistantMessage.builder()
+                .content("answer")
+                .properties(new HashMap<>(Map.of("finishReason", "STOP")))
+                .build();
+        Map<String, Object> data = new HashMap<>();
+        data.put("messages", new ArrayList<>(List.of(message)));
+
+        OverAllState clone = serializer.cloneObject(new OverAllState(data));
+        message.getMetadata().put("finishReason", "LENGTH");
+
+        AssistantMessage cloned = (AssistantMessage) ((List<?>) clone.value("messages").orElseThrow()).get(0);
+        assertThat(cloned).isNotSameAs(message);
+        assertThat(cloned.getText()).isEqualTo("answer");
+        assertThat(cloned.getMetadata()).containsEntry("finishReason", "STOP");
+    }
+
+    @Test
+    void rejectsUnregisteredTypes() {
+        Map<String, Object> data = Map.of("productSpec", new StringBuilder("not registered"));
+
+        assertThatThrownBy(() -> serializer.objectToBytes(new OverAllState(new HashMap<>(data))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(StringBuilder.class.getName());
+    }
+
+    private OverAllState roundTrip(Map<String, Object> data) throws Exception {
+        return serializer.bytesToObject(serializer.objectToBytes(new OverAllState(new HashMap<>(data))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> readColors(BinaryStateSerializer.Input in) throws IOException {
+        return (List<String>) in.readValue();
+    }
+
+}
@@ -0,0 +1,850 @@
+/*
+ * Copyright 2025-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.alibaba.cloud.ai.graph.conf;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.serializer.StateSerializer;
+import com.alibaba.cloud.ai.graph.state.AgentStateFactory;
+import org.springframework.ai.chat.messages.AbstractMessage;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.content.Media;
+import org.springframework.util.Assert;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * OverAllState 的二进制序列化器，替代基于 Jackson default typing 的 JSON 序列化：
+ * <p>
+ * 1. 类型用 tag / 注册的类型 ID 表示，不写类名；声明过的 state key 只写 ID，未声明的 key 写字符串；
+ * 2. 编码到线程内复用的缓冲区，以长度前缀写入 ObjectOutput，没有 writeUTF 的 64KB 上限；读取时字符串直接从输入缓冲区解码；
+ * 3. cloneObject 不经过整个 state 的序列化：不可变的值（字符串、数字、List.of 等不可变集合、以 registerImmutable 注册的类型）
+ *    在新旧 state 之间共享，只复制可变的 List / Map / Set；Message 的 metadata 是可变 Map，按值单独编解码复制；
+ * 4. 内置支持 UserMessage、AssistantMessage、SystemMessage 与 ToolResponseMessage（按类型精确匹配，子类需要注册），
+ *    其他类型通过 {@link Builder#register} 注册，未注册的类型直接报错，不回退到按类名反序列化。
+ * <p>
+ * key 与类型 ID 会写入检查点，新增时只能追加，不能修改已有的 ID。
+ */
+public class BinaryStateSerializer extends StateSerializer {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+
+    private static final int NULL = 0;
+
+    private static final int STRING = 1;
+
+    private static final int TRUE = 2;
+
+    private static final int FALSE = 3;
+
+    private static final int INT = 4;
+
+    private static final int LONG = 5;
+
+    private static final int DOUBLE = 6;
+
+    private static final int FLOAT = 7;
+
+    private static final int BYTES = 8;
+
+    private static final int LIST = 9;
+
+    private static final int MAP = 10;
+
+    private static final int SET = 11;
+
+    private static final int USER_MESSAGE = 12;
+
+    private static final int ASSISTANT_MESSAGE = 13;
+
+    private static final int SYSTEM_MESSAGE = 14;
+
+    private static final int TOOL_RESPONSE_MESSAGE = 15;
+
+    private static final int REGISTERED = 16;
+
+    private static final Set<Class<?>> SHARED_TYPES = Set.of(String.class, Boolean.class, Integer.class, Long.class,
+            Double.class, Float.class);
+
+    private final Map<String, Integer> keyIds;
+
+    private final String[] keys;
+
+    private final Map<Class<?>, Registration<?>> registrationsByType;
+
+    private final Map<Integer, Registration<?>> registrationsById;
+
+    private final ThreadLocal<Output> outputs = ThreadLocal.withInitial(() -> new Output(this));
+
+    private BinaryStateSerializer(Builder builder) {
+        super(builder.stateFactory);
+
+        this.keys = builder.keys.toArray(new String[0]);
+        Map<String, Integer> keyIds = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            keyIds.put(keys[i], i);
+        }
+        this.keyIds = keyIds;
+
+        this.registrationsByType = new HashMap<>();
+        this.registrationsById = new HashMap<>();
+        for (Registration<?> registration : builder.registrations) {
+            this.registrationsByType.put(registration.type(), registration);
+            this.registrationsById.put(registration.id(), registration);
+        }
+    }
+
+    @Override
+    public void writeData(Map<String, Object> data, ObjectOutput out) throws IOException {
+        Output output = outputs.get();
+        try {
+            output.writeByte(FORMAT_VERSION);
+            output.writeVarInt(data.size());
+            for (Map.Entry<String, Object> entry : data.entrySet()) {
+                writeKey(entry.getKey(), output);
+                writeValue(entry.getValue(), output);
+            }
+
+            out.writeInt(output.position);
+            out.write(output.buffer, 0, output.position);
+        }
+        finally {
+            output.reset();
+        }
+    }
+
+    @Override
+    public Map<String, Object> readData(ObjectInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        Input input = new Input(this, bytes);
+        int version = input.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported state format version: " + version);
+        }
+
+        int size = input.readVarInt();
+        Map<String, Object> data = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+        for (int i = 0; i < size; i++) {
+            String key = readKey(input);
+            data.put(key, readValue(input));
+        }
+        return data;
+    }
+
+    @Override
+    public OverAllState cloneObject(OverAllState state) throws IOException {
+        Map<String, Object> data = state.data();
+        Map<String, Object> copy = new HashMap<>(Math.max(16, data.size() * 4 / 3 + 1));
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return stateFactory().apply(copy);
+    }
+
+    private void writeKey(String key, Output out) {
+        Integer id = keyIds.get(key);
+        if (id != null) {
+            out.writeVarInt(id + 1);
+        }
+        else {
+            out.writeVarInt(0);
+            out.writeString(key);
+        }
+    }
+
+    private String readKey(Input in) throws IOException {
+        int id = in.readVarInt();
+        if (id == 0) {
+            return in.readString();
+        }
+        if (id > keys.length) {
+            throw new IOException("Unknown state key id: " + (id - 1));
+        }
+        return keys[id - 1];
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeValue(Object value, Output out) {
+        if (value == null) {
+            out.writeByte(NULL);
+        }
+        else if (value instanceof String string) {
+            out.writeByte(STRING);
+            out.writeString(string);
+        }
+        else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? TRUE : FALSE);
+        }
+        else if (value instanceof Integer number) {
+            out.writeByte(INT);
+            out.writeVarLong(zigZag(number));
+        }
+        else if (value instanceof Long number) {
+            out.writeByte(LONG);
+            out.writeVarLong(zigZag(number));
+        }
+        else if (value instanceof Double number) {
+            out.writeByte(DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(number));
+        }
+        else if (value instanceof Float number) {
+            out.writeByte(FLOAT);
+            out.writeInt(Float.floatToRawIntBits(number));
+        }
+        else if (value instanceof byte[] bytes) {
+            out.writeByte(BYTES);
+            out.writeVarInt(bytes.length);
+            out.writeBytes(bytes, 0, bytes.length);
+        }
+        else if (value instanceof List<?> list) {
+            out.writeByte(LIST);
+            writeElements(list, out);
+        }
+        else if (value instanceof Set<?> set) {
+            out.writeByte(SET);
+            writeElements(set, out);
+        }
+        else if (value instanceof Map<?, ?> map) {
+            out.writeByte(MAP);
+            writeEntries(map, out);
+        }
+        else if (value.getClass() == UserMessage.class) {
+            UserMessage message = (UserMessage) value;
+            out.writeByte(USER_MESSAGE);
+            out.writeString(message.getText());
+            writeMetadata(message.getMetadata(), out);
+            writeMedia(message.getMedia(), out);
+        }
+        else if (value.getClass() == AssistantMessage.class) {
+            AssistantMessage message = (AssistantMessage) value;
+            out.writeByte(ASSISTANT_MESSAGE);
+            out.writeString(message.getText());
+            writeMetadata(message.getMetadata(), out);
+            out.writeVarInt(message.getToolCalls().size());
+            for (AssistantMessage.ToolCall toolCall : message.getToolCalls()) {
+                out.writeString(toolCall.id());
+                out.writeString(toolCall.type());
+                out.writeString(toolCall.name());
+                out.writeString(toolCall.arguments());
+            }
+            writeMedia(message.getMedia(), out);
+        }
+        else if (value.getClass() == SystemMessage.class) {
+            SystemMessage message = (SystemMessage) value;
+            out.writeByte(SYSTEM_MESSAGE);
+            out.writeString(message.getText());
+            writeMetadata(message.getMetadata(), out);
+        }
+        else if (value.getClass() == ToolResponseMessage.class) {
+            ToolResponseMessage message = (ToolResponseMessage) value;
+            out.writeByte(TOOL_RESPONSE_MESSAGE);
+            out.writeVarInt(message.getResponses().size());
+            for (ToolResponseMessage.ToolResponse response : message.getResponses()) {
+                out.writeString(response.id());
+                out.writeString(response.name());
+                out.writeString(response.responseData());
+            }
+            writeMetadata(message.getMetadata(), out);
+        }
+        else {
+            Registration<Object> registration = (Registration<Object>) registration(value);
+            out.writeByte(REGISTERED);
+            out.writeVarInt(registration.id());
+            registration.writer().write(value, out);
+        }
+    }
+
+    private Object readValue(Input in) throws IOException {
+        int tag = in.readByte();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> in.readString();
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case INT -> (int) unZigZag(in.readVarLong());
+            case LONG -> unZigZag(in.readVarLong());
+            case DOUBLE -> Double.longBitsToDouble(in.readLong());
+            case FLOAT -> Float.intBitsToFloat(in.readInt());
+            case BYTES -> in.readBytes(in.readVarInt());
+            case LIST -> readElements(new ArrayList<>(), in);
+            case SET -> readElements(new LinkedHashSet<>(), in);
+            case MAP -> readEntries(in);
+            case USER_MESSAGE -> UserMessage.builder()
+                    .text(in.readString())
+                    .metadata(readMetadata(in))
+                    .media(readMedia(in))
+                    .build();
+            case ASSISTANT_MESSAGE -> {
+                String text = in.readString();
+                Map<String, Object> metadata = readMetadata(in);
+                int size = in.readVarInt();
+                List<AssistantMessage.ToolCall> toolCalls = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    toolCalls.add(new AssistantMessage.ToolCall(in.readString(), in.readString(), in.readString(),
+                            in.readString()));
+                }
+                yield AssistantMessage.builder()
+                        .content(text)
+                        .properties(metadata)
+                        .toolCalls(toolCalls)
+                        .media(readMedia(in))
+                        .build();
+            }
+            case SYSTEM_MESSAGE -> SystemMessage.builder()
+                    .text(in.readString())
+                    .metadata(readMetadata(in))
+                    .build();
+            case TOOL_RESPONSE_MESSAGE -> {
+                int size = in.readVarInt();
+                List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    responses.add(new ToolResponseMessage.ToolResponse(in.readString(), in.readString(),
+                            in.readString()));
+                }
+                yield ToolResponseMessage.builder().responses(responses).metadata(readMetadata(in)).build();
+            }
+            case REGISTERED -> {
+                int id = in.readVarInt();
+                Registration<?> registration = registrationsById.get(id);
+                if (registration == null) {
+                    throw new IOException("Unknown registered type id: " + id);
+                }
+                yield registration.reader().read(in);
+            }
+            default -> throw new IOException("Unknown value tag: " + tag);
+        };
+    }
+
+    private void writeElements(Collection<?> elements, Output out) {
+        out.writeVarInt(elements.size());
+        for (Object element : elements) {
+            writeValue(element, out);
+        }
+    }
+
+    private <C extends Collection<Object>> C readElements(C elements, Input in) throws IOException {
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            elements.add(readValue(in));
+        }
+        return elements;
+    }
+
+    private void writeEntries(Map<?, ?> map, Output out) {
+        out.writeVarInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeValue(entry.getKey(), out);
+            writeValue(entry.getValue(), out);
+        }
+    }
+
+    private Map<Object, Object> readEntries(Input in) throws IOException {
+        int size = in.readVarInt();
+        Map<Object, Object> map = new LinkedHashMap<>(Math.max(16, size * 4 / 3 + 1));
+        for (int i = 0; i < size; i++) {
+            Object key = readValue(in);
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    /**
+     * Message 的构造方法会重新写入 messageType，这里不保存
+     */
+    private void writeMetadata(Map<String, Object> metadata, Output out) {
+        boolean hasMessageType = metadata.containsKey(AbstractMessage.MESSAGE_TYPE);
+        out.writeVarInt(hasMessageType ? metadata.size() - 1 : metadata.size());
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            if (!AbstractMessage.MESSAGE_TYPE.equals(entry.getKey())) {
+                writeValue(entry.getKey(), out);
+                writeValue(entry.getValue(), out);
+            }
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Map<String, Object> readMetadata(Input in) throws IOException {
+        return (Map) readEntries(in);
+    }
+
+    private void writeMedia(List<Media> media, Output out) {
+        out.writeVarInt(media.size());
+        for (Media item : media) {
+            out.writeString(item.getMimeType().toString());
+            out.writeString(item.getId());
+            out.writeString(item.getName());
+            writeValue(item.getData(), out);
+        }
+    }
+
+    private List<Media> readMedia(Input in) throws IOException {
+        int size = in.readVarInt();
+        List<Media> media = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            media.add(Media.builder()
+                    .mimeType(MimeType.valueOf(in.readString()))
+                    .id(in.readString())
+                    .name(in.readString())
+                    .data(readValue(in))
+                    .build());
+        }
+        return media;
+    }
+
+    private Object copyValue(Object value) throws IOException {
+        if (isShared(value)) {
+            return value;
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.clone();
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        if (value instanceof Set<?> set) {
+            Set<Object> copy = new LinkedHashSet<>(Math.max(16, set.size() * 4 / 3 + 1));
+            for (Object element : set) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>(Math.max(16, map.size() * 4 / 3 + 1));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+            }
+            return copy;
+        }
+
+        // Message 与可变的注册类型只对这个值做一次编解码
+        Output output = new Output(this);
+        writeValue(value, output);
+        return readValue(new Input(this, Arrays.copyOf(output.buffer, output.position)));
+    }
+
+    /**
+     * 不可变的值在 clone 前后共享同一个实例；JDK 不可变集合（List.of、Map.of、Stream.toList 等）只在元素也不可变时共享。
+     */
+    private boolean isShared(Object value) {
+        if (value == null || SHARED_TYPES.contains(value.getClass())) {
+            return true;
+        }
+        Registration<?> registration = registrationsByType.get(value.getClass());
+        if (registration != null) {
+            return registration.immutable();
+        }
+        if (!value.getClass().getName().startsWith("java.util.ImmutableCollections$")) {
+            return false;
+        }
+        if (value instanceof Collection<?> collection) {
+            for (Object element : collection) {
+                if (!isShared(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!isShared(entry.getKey()) || !isShared(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private Registration<?> registration(Object value) {
+        Registration<?> registration = registrationsByType.get(value.getClass());
+        if (registration == null) {
+            throw new IllegalArgumentException("No codec registered for state value of type "
+                    + value.getClass().getName() + ", register it with BinaryStateSerializer.Builder#register");
+        }
+        return registration;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 注册类型的编码器，通过 {@link Output} 写入字段
+     */
+    @FunctionalInterface
+    public interface ValueWriter<T> {
+
+        void write(T value, Output out);
+
+    }
+
+    /**
+     * 注册类型的解码器，按写入的顺序从 {@link Input} 读取字段
+     */
+    @FunctionalInterface
+    public interface ValueReader<T> {
+
+        T read(Input in) throws IOException;
+
+    }
+
+    private record Registration<T>(int id, Class<T> type, ValueWriter<T> writer, ValueReader<T> reader,
+            boolean immutable) {
+    }
+
+    public static final class Output {
+
+        private final BinaryStateSerializer serializer;
+
+        private byte[] buffer = new byte[256];
+
+        private int position;
+
+        private Output(BinaryStateSerializer serializer) {
+            this.serializer = serializer;
+        }
+
+        public void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        public void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        public void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        public void writeInt(int value) {
+            ensureCapacity(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        public void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        public void writeBytes(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+        }
+
+        /**
+         * 长度 + 1 后写入，0 表示 null；UTF-8 直接编码到缓冲区，不创建中间的 byte[]
+         */
+        public void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+
+            int length = value.length();
+            int utf8Length = 0;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    utf8Length++;
+                }
+                else if (c < 0x800) {
+                    utf8Length += 2;
+                }
+                else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    utf8Length += 4;
+                    i++;
+                }
+                else {
+                    utf8Length += 3;
+                }
+            }
+
+            writeVarInt(utf8Length + 1);
+            ensureCapacity(utf8Length);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                }
+                else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+                else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                }
+                else {
+                    // 孤立的代理字符按 3 字节写入，与 String.getBytes(UTF_8) 的替换行为不同，但可以原样读回
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        public void writeValue(Object value) {
+            serializer.writeValue(value, this);
+        }
+
+        private void ensureCapacity(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+
+        private void reset() {
+            position = 0;
+            if (buffer.length > MAX_RETAINED_BUFFER) {
+                buffer = new byte[256];
+            }
+        }
+
+    }
+
+    public static final class Input {
+
+        private final BinaryStateSerializer serializer;
+
+        private final byte[] buffer;
+
+        private int position;
+
+        private Input(BinaryStateSerializer serializer, byte[] buffer) {
+            this.serializer = serializer;
+            this.buffer = buffer;
+        }
+
+        public int readByte() throws IOException {
+            require(1);
+            return buffer[position++] & 0xFF;
+        }
+
+        public int readVarInt() throws IOException {
+            long value = readVarLong();
+            if (value > 0xFFFFFFFFL) {
+                throw new IOException("Malformed var int");
+            }
+            return (int) value;
+        }
+
+        public long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed var long");
+        }
+
+        public int readInt() throws IOException {
+            require(4);
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        public long readLong() throws IOException {
+            require(8);
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        public byte[] readBytes(int length) throws IOException {
+            require(length);
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        public String readString() throws IOException {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            require(length);
+            String value = decodeUtf8(length);
+            position += length;
+            return value;
+        }
+
+        public Object readValue() throws IOException {
+            return serializer.readValue(this);
+        }
+
+        private String decodeUtf8(int length) {
+            for (int i = position; i < position + length; i++) {
+                if (buffer[i] < 0) {
+                    return decodeModifiedUtf8(length);
+                }
+            }
+            return new String(buffer, position, length, StandardCharsets.ISO_8859_1);
+        }
+
+        /**
+         * 与 writeString 对应：孤立的代理字符按 3 字节编码，String(bytes, UTF_8) 会把它们替换为 U+FFFD
+         */
+        private String decodeModifiedUtf8(int length) {
+            char[] chars = new char[length];
+            int count = 0;
+            int i = position;
+            int end = position + length;
+            while (i < end) {
+                int b = buffer[i++] & 0xFF;
+                if (b < 0x80) {
+                    chars[count++] = (char) b;
+                }
+                else if (b < 0xE0) {
+                    chars[count++] = (char) (((b & 0x1F) << 6) | (buffer[i++] & 0x3F));
+                }
+                else if (b < 0xF0) {
+                    chars[count++] = (char) (((b & 0x0F) << 12) | ((buffer[i++] & 0x3F) << 6) | (buffer[i++] & 0x3F));
+                }
+                else {
+                    int codePoint = ((b & 0x07) << 18) | ((buffer[i++] & 0x3F) << 12) | ((buffer[i++] & 0x3F) << 6)
+                            | (buffer[i++] & 0x3F);
+                    count += Character.toChars(codePoint, chars, count);
+                }
+            }
+            return new String(chars, 0, count);
+        }
+
+        private void require(int length) throws IOException {
+            if (length < 0 || position + length > buffer.length) {
+                throw new IOException("Unexpected end of state data");
+            }
+        }
+
+    }
+
+    public static Builder builder(AgentStateFactory<OverAllState> stateFactory) {
+        return new Builder(stateFactory);
+    }
+
+    public static class Builder {
+
+        private final AgentStateFactory<OverAllState> stateFactory;
+
+        private final List<String> keys = new ArrayList<>();
+
+        private final List<Registration<?>> registrations = new ArrayList<>();
+
+        private Builder(AgentStateFactory<OverAllState> stateFactory) {
+            this.stateFactory = stateFactory;
+        }
+
+        /**
+         * 声明 state key，按声明顺序分配 ID；检查点中只写 ID
+         */
+        public Builder keys(String... keys) {
+            for (String key : keys) {
+                Assert.hasText(key, "key must not be empty");
+                Assert.isTrue(!this.keys.contains(key), "duplicate key: " + key);
+                this.keys.add(key);
+            }
+            return this;
+        }
+
+        /**
+         * 注册可变类型，cloneObject 时对该值做一次编解码
+         */
+        public <T> Builder register(int id, Class<T> type, ValueWriter<T> writer, ValueReader<T> reader) {
+            return register(new Registration<>(id, type, writer, reader, false));
+        }
+
+        /**
+         * 注册不可变类型，cloneObject 时共享同一个实例；record 中的集合字段也必须不可变（如在构造器中 List.copyOf），
+         * 否则 clone 出的状态会共享同一个可变集合，含可变字段的类型使用 {@link #register}
+         */
+        public <T> Builder registerImmutable(int id, Class<T> type, ValueWriter<T> writer, ValueReader<T> reader) {
+            return register(new Registration<>(id, type, writer, reader, true));
+        }
+
+        private Builder register(Registration<?> registration) {
+            Assert.isTrue(registration.id() >= 0, "type id must not be negative");
+            Assert.notNull(registration.type(), "type must not be null");
+            Assert.notNull(registration.writer(), "writer must not be null");
+            Assert.notNull(registration.reader(), "reader must not be null");
+            for (Registration<?> existing : registrations) {
+                Assert.isTrue(existing.id() != registration.id(), "duplicate type id: " + registration.id());
+                Assert.isTrue(existing.type() != registration.type(), "duplicate type: " + registration.type());
+            }
+            this.registrations.add(registration);
+            return this;
+        }
+
+        public BinaryStateSerializer build() {
+            Assert.notNull(stateFactory, "stateFactory must not be null");
+            return new BinaryStateSerializer(this);
+        }
+
+    }
+
+}
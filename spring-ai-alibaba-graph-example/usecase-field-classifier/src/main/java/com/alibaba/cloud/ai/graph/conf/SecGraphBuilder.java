@@ -35,19 +35,17 @@ import com.alibaba.cloud.ai.graph.nodes.ClftNode;
 import com.alibaba.cloud.ai.graph.nodes.HumanFeedbackNode;
 import com.alibaba.cloud.ai.graph.nodes.SensitiveWordDecNode;
 import com.alibaba.cloud.ai.graph.tools.FieldSaveTool;
-import com.fasterxml.jackson.annotation.JsonTypeInfo;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.module.SimpleModule;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.messages.AssistantMessage;
-import org.springframework.ai.chat.messages.ToolResponseMessage;
 import org.springframework.ai.tool.resolution.ToolCallbackResolver;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -64,6 +62,19 @@ import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
 @Slf4j
 public class SecGraphBuilder {
 
+    /**
+     * 等待人工确认分类结果的线程写入本地日志，checkpoint 使用与图相同的二进制序列化器
+     */
+    @Bean(destroyMethod = "close")
+    public SegmentLogCheckpointSaver secCheckpointSaver(@Qualifier("secGraph") StateGraph secGraph,
+                                                        @Value("${graph.checkpoint.directory:./data/checkpoints/usecase-field-classifier}") String directory,
+                                                        @Value("${graph.checkpoint.ttl:7d}") Duration ttl) {
+        return SegmentLogCheckpointSaver.builder(Path.of(directory))
+                .stateSerializer(secGraph.getStateSerializer())
+                .ttl(ttl)
+                .build();
+    }
+
     @Bean
     public StateGraph secGraph(ChatClient.Builder chatClientBuilder,
                                @Qualifier("classificationVectorStore") VectorStore classificationVectorStore,
@@ -81,21 +92,12 @@ public class SecGraphBuilder {
                 .addPatternStrategy("human_next_node", new ReplaceStrategy())
                 .build();
 
+        // clft_res 与 save_result 中的 AssistantMessage / ToolResponseMessage 由二进制序列化器内置支持
         AgentStateFactory<OverAllState> factory = OverAllState::new;
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.activateDefaultTyping(
-                mapper.getPolymorphicTypeValidator(),
-                ObjectMapper.DefaultTyping.NON_FINAL,
-                JsonTypeInfo.As.PROPERTY
-        );
-
-        // 注册反序列化器
-        SimpleModule module = new SimpleModule();
-        module.addDeserializer(AssistantMessage.class, new AssistantMessageDeserializer());
-        module.addDeserializer(ToolResponseMessage.class, new ToolResponseMessageDeserializer());
-        mapper.registerModule(module);
-
-        JsonStateSerializerWithTypeInfo serializer = new JsonStateSerializerWithTypeInfo(factory, mapper);
+        BinaryStateSerializer serializer = BinaryStateSerializer.builder(factory)
+                .keys("field", "is_sensitive", "clft_res", "save_result", "thread_id", "feed_back", "feedback_reason",
+                        "human_next_node", "feedback")
+                .build();
 
         StateGraph stateGraph = new StateGraph(keyStrategyFactory, serializer);
         stateGraph.addEdge(START, "sensitive")
@@ -25,8 +25,7 @@ import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.async.AsyncGenerator;
 import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
-import com.alibaba.cloud.ai.graph.checkpoint.constant.SaverEnum;
-import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
+import com.alibaba.cloud.ai.graph.conf.SegmentLogCheckpointSaver;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
 import com.alibaba.cloud.ai.graph.state.StateSnapshot;
@@ -39,7 +38,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -55,8 +53,9 @@ import java.util.Map;
 public class SecGraphController {
     private final CompiledGraph compiledGraph;
 
-    public SecGraphController(@Qualifier("secGraph") StateGraph stateGraph) throws GraphStateException {
-        SaverConfig saverConfig = SaverConfig.builder().register(SaverEnum.MEMORY.getValue(), new MemorySaver()).build();
+    public SecGraphController(@Qualifier("secGraph") StateGraph stateGraph,
+                              SegmentLogCheckpointSaver checkpointSaver) throws GraphStateException {
+        SaverConfig saverConfig = SaverConfig.builder().register(checkpointSaver).build();
 
         this.compiledGraph = stateGraph
                 .compile(CompileConfig.builder().saverConfig(saverConfig).interruptBefore("human").build());
@@ -67,12 +66,8 @@ public class SecGraphController {
                                                     @RequestParam(value = "thread_id", defaultValue = "yhong", required = false) String threadId) throws Exception {
         RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
         GraphProcess graphProcess = new GraphProcess(this.compiledGraph);
-        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().unicast().onBackpressureBuffer();
         Flux<NodeOutput> resultFuture = compiledGraph.fluxStream(Map.of("field", fieldName), runnableConfig);
-        graphProcess.processStream(resultFuture, sink);
-        return sink.asFlux()
-                .doOnCancel(() -> log.info("Client disconnected from stream"))
-                .doOnError(e -> log.error("Error occurred during streaming", e));
+        return graphProcess.processStream(resultFuture);
     }
 
     // resume workflow
@@ -90,14 +85,10 @@ public class SecGraphController {
         objectMap.put("feedback_reason", humanReason);
         state.withHumanFeedback(new OverAllState.HumanFeedback(objectMap, "feed_back"));
 
-        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().unicast().onBackpressureBuffer();
         GraphProcess graphProcess = new GraphProcess(this.compiledGraph);
         Flux<NodeOutput> resultFuture = compiledGraph.fluxStreamFromInitialNode(state, runnableConfig);
-        graphProcess.processStream(resultFuture, sink);
 
-        return sink.asFlux()
-                .doOnCancel(() -> log.info("Client disconnected from stream"))
-                .doOnError(e -> log.error("Error occurred during streaming", e));
+        return graphProcess.processStream(resultFuture);
     }
 
 }
@@ -25,6 +25,7 @@ import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.example.graph.conf.GraphExecutionPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -46,8 +47,12 @@ public class ParallelController {
 
 	private final CompiledGraph engine;
 
+	private final GraphExecutionPolicy executionPolicy;
+
 	@Autowired
-	public ParallelController(@Qualifier("parallelGraph") StateGraph parallelGraph) throws GraphStateException {
+	public ParallelController(@Qualifier("parallelGraph") StateGraph parallelGraph,
+			GraphExecutionPolicy executionPolicy) throws GraphStateException {
+		this.executionPolicy = executionPolicy;
 		SaverConfig saverConfig = SaverConfig.builder().build();
 		// 编译时可设中断点
 		this.engine = parallelGraph
@@ -56,17 +61,23 @@ public class ParallelController {
 
 	@GetMapping
 	public Map<String, Object> analyze(@RequestParam("text") String text) {
-		return engine.call(Map.of("inputText", text)).get().data();
+		return engine.invoke(Map.of("inputText", text), executionPolicy.runnableConfig()).get().data();
 	}
 
 	@GetMapping(path = "/stream", produces = "text/event-stream")
 	public Flux<Map<String, Object>> analyzeStream(@RequestParam("text") String text) {
-		RunnableConfig cfg = RunnableConfig.builder().streamMode(CompiledGraph.StreamMode.SNAPSHOTS).build();
+		RunnableConfig cfg = executionPolicy.apply(RunnableConfig.builder().streamMode(CompiledGraph.StreamMode.SNAPSHOTS))
+			.build();
 		return Flux.create(sink -> {
-            engine.fluxStream(Map.of("inputText", text), cfg).doOnNext(
+            engine.stream(Map.of("inputText", text), cfg).doOnNext(
                     node -> sink.next(node.state().data())
             ).doOnComplete(sink::complete).doOnError(sink::error).subscribe();
         });
 	}
 
+	@GetMapping("/metrics")
+	public Map<String, GraphExecutionPolicy.NodeMetrics> metrics() {
+		return executionPolicy.metrics();
+	}
+
 }
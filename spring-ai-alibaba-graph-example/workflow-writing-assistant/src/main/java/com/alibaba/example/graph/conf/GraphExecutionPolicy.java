@@ -0,0 +1,339 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.conf;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图中并行分支的执行策略。
+ * <p>
+ * 1. 并行分支默认在 graph-core 共享的小线程池中执行，分支内阻塞的 ChatClient.call() 会占住线程，
+ *    并发请求多时所有图的分支都在同一个队列里排队；这里为并行分支提供独立的执行器：
+ *    PLATFORM（有界平台线程池，默认）、VIRTUAL（每个任务一个虚拟线程，需要 Java 21 及以上）、
+ *    REACTIVE（Reactor boundedElastic）；
+ * 2. 每个 fan-out 节点有独立的并发上限与等待队列，超出上限的分支在队列中等待，不占用线程，
+ *    队列满时拒绝执行，图调用以异常结束，不会无限堆积；
+ * 3. 通过 {@link #apply(RunnableConfig.Builder)} 写入 RunnableConfig，{@link #metrics()} 返回每个节点的
+ *    执行中、排队中、已完成与被拒绝的任务数。
+ */
+
+public class GraphExecutionPolicy implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(GraphExecutionPolicy.class);
+
+	public static final String DEFAULT_NODE = "default";
+
+	private final Mode mode;
+
+	private final ExecutorService executorService;
+
+	private final Scheduler scheduler;
+
+	private final Executor backend;
+
+	private final LimitedExecutor defaultExecutor;
+
+	private final Map<String, LimitedExecutor> nodeExecutors;
+
+	private volatile boolean shutdown;
+
+	private GraphExecutionPolicy(Builder builder) {
+		Assert.notNull(builder.mode, "mode must not be null");
+		Assert.isTrue(builder.maxThreads > 0, "maxThreads must be greater than 0");
+		Assert.isTrue(builder.queueCapacity > 0, "queueCapacity must be greater than 0");
+
+		Mode mode = builder.mode;
+		ExecutorService virtual = mode == Mode.VIRTUAL ? newVirtualThreadExecutor() : null;
+		if (mode == Mode.VIRTUAL && virtual == null) {
+			logger.warn("Virtual threads are not available on Java {}, fallback to PLATFORM",
+					Runtime.version().feature());
+			mode = Mode.PLATFORM;
+		}
+		this.mode = mode;
+
+		switch (mode) {
+			case VIRTUAL -> {
+				this.executorService = virtual;
+				this.scheduler = null;
+				this.backend = virtual;
+			}
+			case REACTIVE -> {
+				this.executorService = null;
+				this.scheduler = Schedulers.newBoundedElastic(builder.maxThreads, Integer.MAX_VALUE,
+						"graph-branch");
+				this.backend = this.scheduler::schedule;
+			}
+			default -> {
+				// 排队发生在各节点的 LimitedExecutor 中，线程池本身的队列只用于交接
+				this.executorService = Executors.newFixedThreadPool(builder.maxThreads, new BranchThreadFactory());
+				this.scheduler = null;
+				this.backend = this.executorService;
+			}
+		}
+
+		this.defaultExecutor = new LimitedExecutor(DEFAULT_NODE, builder.defaultConcurrency, builder.queueCapacity);
+		Map<String, LimitedExecutor> nodeExecutors = new LinkedHashMap<>();
+		builder.nodeConcurrency.forEach((nodeId, limit) -> nodeExecutors.put(nodeId,
+				new LimitedExecutor(nodeId, limit, builder.queueCapacity)));
+		this.nodeExecutors = Collections.unmodifiableMap(nodeExecutors);
+
+		logger.info("Graph execution policy: mode={}, maxThreads={}, defaultConcurrency={}, nodeConcurrency={}",
+				mode, builder.maxThreads, builder.defaultConcurrency, builder.nodeConcurrency);
+	}
+
+	/**
+	 * 将并行分支的执行器写入 RunnableConfig，nodeId 为 fan-out 的源节点。
+	 */
+	public RunnableConfig.Builder apply(RunnableConfig.Builder builder) {
+		builder.defaultParallelExecutor(defaultExecutor);
+		nodeExecutors.forEach(builder::addParallelNodeExecutor);
+		return builder;
+	}
+
+	public RunnableConfig runnableConfig() {
+		return apply(RunnableConfig.builder()).build();
+	}
+
+	public Mode mode() {
+		return mode;
+	}
+
+	public Map<String, NodeMetrics> metrics() {
+		Map<String, NodeMetrics> metrics = new LinkedHashMap<>();
+		metrics.put(DEFAULT_NODE, defaultExecutor.metrics());
+		nodeExecutors.forEach((nodeId, executor) -> metrics.put(nodeId, executor.metrics()));
+		return metrics;
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		shutdown = true;
+		if (scheduler != null) {
+			scheduler.dispose();
+		}
+		if (executorService != null) {
+			executorService.shutdown();
+			if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
+				executorService.shutdownNow();
+			}
+		}
+	}
+
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 限制同时提交到 backend 的任务数，超出的任务在本地队列中等待，不占用 backend 的线程。
+	 */
+	private final class LimitedExecutor implements Executor {
+
+		private final String nodeId;
+
+		private final int limit;
+
+		private final int queueCapacity;
+
+		private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger queued = new AtomicInteger();
+
+		private final AtomicInteger active = new AtomicInteger();
+
+		private final AtomicLong completed = new AtomicLong();
+
+		private final AtomicLong rejected = new AtomicLong();
+
+		private LimitedExecutor(String nodeId, int limit, int queueCapacity) {
+			Assert.isTrue(limit > 0, "concurrency of node " + nodeId + " must be greater than 0");
+			this.nodeId = nodeId;
+			this.limit = limit;
+			this.queueCapacity = queueCapacity;
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			if (shutdown) {
+				rejected.incrementAndGet();
+				throw new RejectedExecutionException("Graph execution policy is shut down");
+			}
+			if (queued.incrementAndGet() > queueCapacity) {
+				queued.decrementAndGet();
+				rejected.incrementAndGet();
+				throw new RejectedExecutionException("Parallel branch queue of node " + nodeId + " is full ("
+						+ queueCapacity + ")");
+			}
+			queue.offer(task);
+			drain();
+		}
+
+		private void drain() {
+			while (!queue.isEmpty()) {
+				int current = active.get();
+				if (current >= limit) {
+					return;
+				}
+				if (!active.compareAndSet(current, current + 1)) {
+					continue;
+				}
+
+				Runnable task = queue.poll();
+				if (task == null) {
+					active.decrementAndGet();
+					continue;
+				}
+				queued.decrementAndGet();
+
+				try {
+					backend.execute(() -> {
+						try {
+							run(task);
+						}
+						finally {
+							drain();
+						}
+					});
+				}
+				catch (RejectedExecutionException e) {
+					// backend 已关闭：任务已经出队，调用方（可能是另一个分支的完成回调）无法感知拒绝，
+					// 丢弃会让等待该分支的图永远挂起，在当前线程执行以保证分支的 future 完成
+					rejected.incrementAndGet();
+					logger.warn("Backend rejected a parallel branch of node {}, run it in the caller thread: {}",
+							nodeId, e.getMessage());
+					run(task);
+				}
+			}
+		}
+
+		private void run(Runnable task) {
+			try {
+				task.run();
+			}
+			finally {
+				completed.incrementAndGet();
+				active.decrementAndGet();
+			}
+		}
+
+		private NodeMetrics metrics() {
+			return new NodeMetrics(limit, active.get(), queued.get(), completed.get(), rejected.get());
+		}
+
+	}
+
+	/**
+	 * @param limit 并发上限
+	 * @param active 执行中的分支数
+	 * @param queued 排队中的分支数（队列深度）
+	 * @param completed 已完成的分支数
+	 * @param rejected 队列满时被拒绝的分支数
+	 */
+	public record NodeMetrics(int limit, int active, int queued, long completed, long rejected) {
+	}
+
+	public enum Mode {
+
+		VIRTUAL, PLATFORM, REACTIVE
+
+	}
+
+	private static final class BranchThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger counter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "graph-branch-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static class Builder {
+
+		private Mode mode = Mode.PLATFORM;
+
+		private int maxThreads = Math.max(32, Runtime.getRuntime().availableProcessors() * 8);
+
+		private int defaultConcurrency = 64;
+
+		private int queueCapacity = 1000;
+
+		private final Map<String, Integer> nodeConcurrency = new LinkedHashMap<>();
+
+		public Builder mode(Mode mode) {
+			this.mode = mode;
+			return this;
+		}
+
+		public Builder maxThreads(int maxThreads) {
+			this.maxThreads = maxThreads;
+			return this;
+		}
+
+		public Builder defaultConcurrency(int defaultConcurrency) {
+			this.defaultConcurrency = defaultConcurrency;
+			return this;
+		}
+
+		public Builder queueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+			return this;
+		}
+
+		public Builder nodeConcurrency(String nodeId, int limit) {
+			this.nodeConcurrency.put(nodeId, limit);
+			return this;
+		}
+
+		public GraphExecutionPolicy build() {
+			return new GraphExecutionPolicy(this);
+		}
+
+	}
+
+}
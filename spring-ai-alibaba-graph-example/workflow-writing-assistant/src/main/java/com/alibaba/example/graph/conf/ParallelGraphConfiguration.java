@@ -31,6 +31,7 @@ import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -50,6 +51,23 @@ import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
 @Configuration
 public class ParallelGraphConfiguration {
 
+	/**
+	 * sentiment 与 keyword 从 START 并行执行，分支中阻塞的 ChatClient.call() 运行在独立的执行器中
+	 */
+	@Bean
+	public GraphExecutionPolicy graphExecutionPolicy(
+			@Value("${graph.execution.mode:PLATFORM}") GraphExecutionPolicy.Mode mode,
+			@Value("${graph.execution.max-threads:64}") int maxThreads,
+			@Value("${graph.execution.queue-capacity:1000}") int queueCapacity,
+			@Value("${graph.execution.start-concurrency:32}") int startConcurrency) {
+		return GraphExecutionPolicy.builder()
+			.mode(mode)
+			.maxThreads(maxThreads)
+			.queueCapacity(queueCapacity)
+			.nodeConcurrency(START, startConcurrency)
+			.build();
+	}
+
 	@Bean
 	public StateGraph parallelGraph(ChatModel chatModel) throws GraphStateException {
 		ChatClient client = ChatClient.builder(chatModel).defaultAdvisors(new SimpleLoggerAdvisor()).build();
@@ -16,10 +16,10 @@
 
 package com.alibaba.example.graph.conf;
 
+import com.alibaba.example.graph.vectorstore.FlatVectorStore;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.reader.TextReader;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -45,7 +45,7 @@ class VectorStoreConfig {
 
 		var chunks = new TokenTextSplitter().transform(new TextReader(ragSource).read());
 
-		SimpleVectorStore vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+		FlatVectorStore vectorStore = FlatVectorStore.builder(embeddingModel).build();
 
 		vectorStore.write(chunks);
 		return vectorStore;
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.multi.helper;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.Java2DFrameConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.ai.content.Media;
+import org.springframework.util.Assert;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * 视频抽帧：在内存中完成解码与编码，直接生成交给模型的 {@link Media}，不读写文件系统。
+ * <p>
+ * 1. 按视频时长均匀选取目标时间点（每段的中点）；
+ * 2. 解码器设置 skip_frame=nokey，seek 到目标时间点后只解码附近的关键帧，不解码中间的 P/B 帧；
+ *    关键帧离目标时间点超过半个采样间隔时（GOP 比采样间隔长），退回到精确 seek，避免多个时间点取到同一个关键帧；
+ * 3. 目标时间点按顺序分段，每段由独立的 grabber 在有界线程池中并发处理，帧在同一个线程中编码为 JPEG。
+ */
+
+public class VideoFrameSampler implements Disposable {
+
+	private static final Logger logger = LoggerFactory.getLogger(VideoFrameSampler.class);
+
+	private final int workersPerVideo;
+
+	private final int maxWidth;
+
+	private final float jpegQuality;
+
+	private final Scheduler scheduler;
+
+	private VideoFrameSampler(Builder builder) {
+
+		Assert.isTrue(builder.maxConcurrency > 0, "maxConcurrency must be greater than 0");
+		Assert.isTrue(builder.workersPerVideo > 0, "workersPerVideo must be greater than 0");
+		Assert.isTrue(builder.maxWidth > 0, "maxWidth must be greater than 0");
+		Assert.isTrue(builder.jpegQuality > 0 && builder.jpegQuality <= 1, "jpegQuality must be in (0, 1]");
+
+		this.workersPerVideo = builder.workersPerVideo;
+		this.maxWidth = builder.maxWidth;
+		this.jpegQuality = builder.jpegQuality;
+		this.scheduler = Schedulers.newBoundedElastic(builder.maxConcurrency,
+				Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "video-frame-sampler");
+	}
+
+	public List<Media> sample(byte[] video, int frameCount) {
+
+		return sampleAsync(video, frameCount).block();
+	}
+
+	/**
+	 * @param video 视频文件内容
+	 * @param frameCount 抽取的帧数
+	 * @return 按时间顺序排列的 JPEG 帧
+	 */
+	public Mono<List<Media>> sampleAsync(byte[] video, int frameCount) {
+
+		Assert.notNull(video, "video must not be null");
+		Assert.isTrue(frameCount > 0, "frameCount must be greater than 0");
+
+		return Mono.fromCallable(() -> duration(video))
+				.subscribeOn(scheduler)
+				.flatMapMany(duration -> {
+					long[] timestamps = new long[frameCount];
+					for (int i = 0; i < frameCount; i++) {
+						timestamps[i] = duration * (2L * i + 1) / (2L * frameCount);
+					}
+
+					int workers = Math.min(workersPerVideo, frameCount);
+					int chunkSize = (frameCount + workers - 1) / workers;
+
+					List<long[]> chunks = new ArrayList<>(workers);
+					for (int from = 0; from < frameCount; from += chunkSize) {
+						long[] chunk = new long[Math.min(chunkSize, frameCount - from)];
+						System.arraycopy(timestamps, from, chunk, 0, chunk.length);
+						chunks.add(chunk);
+					}
+
+					long tolerance = duration / (2L * frameCount);
+
+					// flatMapSequential 保证结果按时间顺序返回
+					return Flux.fromIterable(chunks)
+							.flatMapSequential(chunk -> Mono.fromCallable(() -> grab(video, chunk, tolerance))
+									.subscribeOn(scheduler), workers)
+							.flatMapIterable(frames -> frames);
+				})
+				.collectList();
+	}
+
+	private long duration(byte[] video) throws IOException {
+
+		try (FFmpegFrameGrabber grabber = grabber(video)) {
+			grabber.start();
+			long duration = grabber.getLengthInTime();
+			if (duration <= 0) {
+				throw new IllegalStateException("Cannot read video duration");
+			}
+			return duration;
+		}
+	}
+
+	private List<Media> grab(byte[] video, long[] timestamps, long tolerance) throws IOException {
+
+		long start = System.nanoTime();
+		List<Media> frames = new ArrayList<>(timestamps.length);
+		FFmpegFrameGrabber exactGrabber = null;
+
+		try (FFmpegFrameGrabber grabber = grabber(video);
+				Java2DFrameConverter converter = new Java2DFrameConverter()) {
+			// 只解码关键帧
+			grabber.setVideoOption("skip_frame", "nokey");
+			grabber.start();
+
+			for (long timestamp : timestamps) {
+				grabber.setVideoTimestamp(timestamp);
+				Frame frame = grabber.grabImage();
+
+				if (frame == null || Math.abs(frame.timestamp - timestamp) > tolerance) {
+					if (exactGrabber == null) {
+						exactGrabber = grabber(video);
+						exactGrabber.start();
+					}
+					logger.debug("No keyframe near {}us, fallback to exact seek", timestamp);
+					exactGrabber.setVideoTimestamp(timestamp);
+					frame = exactGrabber.grabImage();
+				}
+				if (frame == null) {
+					continue;
+				}
+
+				frames.add(Media.builder()
+						.mimeType(MimeTypeUtils.IMAGE_JPEG)
+						.data(encode(converter.convert(frame)))
+						.build());
+			}
+		}
+		finally {
+			if (exactGrabber != null) {
+				exactGrabber.close();
+			}
+		}
+
+		logger.debug("Sampled {} frames in {}ms", frames.size(), (System.nanoTime() - start) / 1_000_000);
+		return frames;
+	}
+
+	private byte[] encode(BufferedImage image) throws IOException {
+
+		if (image.getWidth() > maxWidth) {
+			int height = Math.max(1, image.getHeight() * maxWidth / image.getWidth());
+			BufferedImage scaled = new BufferedImage(maxWidth, height, BufferedImage.TYPE_3BYTE_BGR);
+			scaled.createGraphics().drawImage(image.getScaledInstance(maxWidth, height, Image.SCALE_FAST),
+					0, 0, null);
+			image = scaled;
+		}
+
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+
+		try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(jpegQuality);
+
+			writer.setOutput(ios);
+			writer.write(null, new IIOImage(image, null, null), param);
+		}
+		finally {
+			writer.dispose();
+		}
+
+		return out.toByteArray();
+	}
+
+	private static FFmpegFrameGrabber grabber(byte[] video) {
+
+		// ByteArrayInputStream 支持 mark/reset，maximumSize 覆盖整个视频时 grabber 可以在内存中任意 seek
+		return new FFmpegFrameGrabber(new ByteArrayInputStream(video), Math.max(1, video.length));
+	}
+
+	@Override
+	public void dispose() {
+
+		scheduler.dispose();
+	}
+
+	@Override
+	public boolean isDisposed() {
+
+		return scheduler.isDisposed();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+
+		private int maxConcurrency = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+		private int workersPerVideo = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+		private int maxWidth = 1280;
+
+		private float jpegQuality = 0.85f;
+
+		public Builder maxConcurrency(int maxConcurrency) {
+
+			this.maxConcurrency = maxConcurrency;
+			return this;
+		}
+
+		public Builder workersPerVideo(int workersPerVideo) {
+
+			this.workersPerVideo = workersPerVideo;
+			return this;
+		}
+
+		public Builder maxWidth(int maxWidth) {
+
+			this.maxWidth = maxWidth;
+			return this;
+		}
+
+		public Builder jpegQuality(float jpegQuality) {
+
+			this.jpegQuality = jpegQuality;
+			return this;
+		}
+
+		public VideoFrameSampler build() {
+
+			return new VideoFrameSampler(this);
+		}
+	}
+
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.advisor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.alibaba.cloud.ai.application.advisor.cache.ResponseCacheStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * 精确匹配的回答缓存：以 system prompt、全部对话消息、模型与参数的规范化哈希为 key。
+ * <p>
+ * 1. 首次请求按原始分块记录流式回答，命中时按相同的分块边界回放；
+ * 2. 相同 key 的并发请求只会触发一次上游调用：同步调用由 {@link ResponseCacheStore#get(String, java.util.function.Supplier)}
+ * 保证，流式调用的其余请求订阅同一个流（single-flight）；
+ * 3. 缓存保存完整的 {@link ChatResponse}（含用量、结束原因），只有正常结束且有内容的回答才会写入，
+ * 出错、被取消或为空的回答不会缓存；
+ * 4. 带有多模态内容或工具调用的请求不参与缓存。
+ * <p>
+ * 顺序位于 ChatMemory advisor 之后、{@link SemanticCacheAdvisor} 之前，
+ * 因此 key 中已包含会话历史，命中时回放的回答同样会写入会话记忆。
+ */
+
+public class ResponseCacheAdvisor implements BaseAdvisor {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResponseCacheAdvisor.class);
+
+	/**
+	 * 通过 advisor 参数指定额外的命名空间，用于区分后续 advisor 会改写 prompt 的场景（如 RAG）。
+	 */
+	public static final String CACHE_NAMESPACE = "response_cache_namespace";
+
+	private static final String METRIC_REQUESTS = "saa.response.cache.requests";
+
+	private final ResponseCacheStore store;
+
+	private final MeterRegistry meterRegistry;
+
+	private final int order;
+
+	private final Map<String, Flux<ChatClientResponse>> inFlight = new ConcurrentHashMap<>();
+
+	public ResponseCacheAdvisor(ResponseCacheStore store, MeterRegistry meterRegistry) {
+
+		this(store, meterRegistry, Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER + 1);
+	}
+
+	public ResponseCacheAdvisor(ResponseCacheStore store, MeterRegistry meterRegistry, int order) {
+
+		Assert.notNull(store, "store must not be null");
+		Assert.notNull(meterRegistry, "meterRegistry must not be null");
+
+		this.store = store;
+		this.meterRegistry = meterRegistry;
+		this.order = order;
+	}
+
+	@Override
+	public int getOrder() {
+
+		return this.order;
+	}
+
+	@Override
+	public ChatClientRequest before(ChatClientRequest chatClientRequest, AdvisorChain advisorChain) {
+
+		return chatClientRequest;
+	}
+
+	@Override
+	public ChatClientResponse after(ChatClientResponse chatClientResponse, AdvisorChain advisorChain) {
+
+		return chatClientResponse;
+	}
+
+	@Override
+	public ChatClientResponse adviseCall(ChatClientRequest chatClientRequest, CallAdvisorChain callAdvisorChain) {
+
+		String key = cacheKey(chatClientRequest);
+		if (key == null) {
+			return callAdvisorChain.nextCall(chatClientRequest);
+		}
+
+		AtomicReference<ChatClientResponse> loaded = new AtomicReference<>();
+		List<ChatResponse> cached;
+		try {
+			// 相同 key 的并发请求只有一个会调用上游，其余等待其结果
+			cached = store.get(key, () -> {
+				count("miss");
+				ChatClientResponse response = callAdvisorChain.nextCall(chatClientRequest);
+				loaded.set(response);
+				if (!hasText(response.chatResponse())) {
+					throw new UncacheableResponseException(response);
+				}
+				return List.of(response.chatResponse());
+			});
+		}
+		catch (UncacheableResponseException e) {
+			return loaded.get() != null ? loaded.get() : toResponse(chatClientRequest, e.response.chatResponse());
+		}
+
+		if (loaded.get() != null) {
+			return loaded.get();
+		}
+
+		count("hit");
+		return toResponse(chatClientRequest, merge(cached));
+	}
+
+	@Override
+	public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest, StreamAdvisorChain streamAdvisorChain) {
+
+		String key = cacheKey(chatClientRequest);
+		if (key == null) {
+			return streamAdvisorChain.nextStream(chatClientRequest);
+		}
+
+		return Flux.defer(() -> {
+			List<ChatResponse> cached = store.get(key);
+			if (cached != null) {
+				count("hit");
+				return Flux.fromIterable(cached).map(chunk -> toResponse(chatClientRequest, chunk));
+			}
+
+			Flux<ChatClientResponse> shared = inFlight.get(key);
+			if (shared != null) {
+				count("coalesced");
+				// 上游响应的 context 属于首个请求，替换为当前请求的 context
+				return shared.map(response -> ChatClientResponse.builder()
+						.chatResponse(response.chatResponse())
+						.context(chatClientRequest.context())
+						.build());
+			}
+
+			AtomicReference<Flux<ChatClientResponse>> self = new AtomicReference<>();
+			Flux<ChatClientResponse> upstream = Flux.defer(() -> {
+						// 每次订阅上游使用独立的缓冲区，refCount 重新连接时不会把两次调用的分块拼到同一个条目里
+						List<ChatResponse> chunks = new ArrayList<>();
+						return streamAdvisorChain.nextStream(chatClientRequest)
+								.doOnNext(response -> {
+									if (response.chatResponse() != null) {
+										chunks.add(response.chatResponse());
+									}
+								})
+								// 只有正常结束且有内容的流才会写入缓存，取消与出错不会触发 onComplete
+								.doOnComplete(() -> {
+									if (chunks.stream().anyMatch(ResponseCacheAdvisor::hasText)) {
+										store.put(key, List.copyOf(chunks));
+									}
+								});
+					})
+					// 只移除自己的条目，旧流迟到的 doFinally 不会移除之后新建的 in-flight 条目
+					.doFinally(signal -> inFlight.remove(key, self.get()))
+					// 订阅者全部取消时同时取消上游
+					.replay()
+					.refCount();
+			self.set(upstream);
+
+			Flux<ChatClientResponse> existing = inFlight.putIfAbsent(key, upstream);
+			if (existing != null) {
+				count("coalesced");
+				return existing.map(response -> ChatClientResponse.builder()
+						.chatResponse(response.chatResponse())
+						.context(chatClientRequest.context())
+						.build());
+			}
+
+			count("miss");
+			return upstream;
+		});
+	}
+
+	public void clear() {
+
+		store.clear();
+	}
+
+	private void count(String result) {
+
+		Counter.builder(METRIC_REQUESTS)
+				.description("Exact-match response cache lookups")
+				.tag("result", result)
+				.register(meterRegistry)
+				.increment();
+	}
+
+	/**
+	 * @return 规范化后的 sha-256，请求不可缓存时返回 null
+	 */
+	private String cacheKey(ChatClientRequest request) {
+
+		Prompt prompt = request.prompt();
+		MessageDigest digest = sha256();
+
+		Object namespace = request.context().get(CACHE_NAMESPACE);
+		update(digest, namespace != null ? namespace.toString() : "");
+
+		for (Message message : prompt.getInstructions()) {
+			if (message instanceof UserMessage userMessage && !CollectionUtils.isEmpty(userMessage.getMedia())) {
+				return null;
+			}
+			if (message instanceof AssistantMessage assistantMessage && assistantMessage.hasToolCalls()) {
+				return null;
+			}
+			update(digest, message.getMessageType().name());
+			update(digest, message.getText());
+		}
+
+		ChatOptions options = prompt.getOptions();
+		update(digest, options != null ? canonicalOptions(options) : "");
+
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * 参数序列化为按 key 排序的结构，字段声明顺序不同不会影响 key。
+	 */
+	private static String canonicalOptions(ChatOptions options) {
+
+		try {
+			return options.getClass().getName() + new TreeMap<>(ModelOptionsUtils.objectToMap(options));
+		}
+		catch (RuntimeException e) {
+			logger.debug("Failed to serialize chat options {}, fall back to portable options.", options.getClass(), e);
+			return String.join("|", String.valueOf(options.getModel()), String.valueOf(options.getTemperature()),
+					String.valueOf(options.getTopP()), String.valueOf(options.getTopK()),
+					String.valueOf(options.getMaxTokens()), String.valueOf(options.getFrequencyPenalty()),
+					String.valueOf(options.getPresencePenalty()), String.valueOf(options.getStopSequences()));
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) {
+
+		// 长度前缀避免不同字段拼接后产生相同的字节序列
+		byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value != null ? bytes.length : -1).array());
+		digest.update(bytes);
+	}
+
+	private static MessageDigest sha256() {
+
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static ChatClientResponse toResponse(ChatClientRequest request, ChatResponse chatResponse) {
+
+		return ChatClientResponse.builder()
+				.chatResponse(chatResponse)
+				.context(request.context())
+				.build();
+	}
+
+	/**
+	 * 将流式记录的分块合并为一次同步回答：文本按顺序拼接，结束原因取最后一个非空值，
+	 * 用量等响应元数据取最后一个分块（流式回答的用量在最后一个分块上）。
+	 */
+	private static ChatResponse merge(List<ChatResponse> chunks) {
+
+		if (chunks.size() == 1) {
+			return chunks.get(0);
+		}
+
+		StringBuilder text = new StringBuilder();
+		ChatGenerationMetadata generationMetadata = ChatGenerationMetadata.NULL;
+		for (ChatResponse chunk : chunks) {
+			Generation generation = chunk.getResult();
+			if (generation == null) {
+				continue;
+			}
+			String chunkText = ResponseCacheStore.text(chunk);
+			if (chunkText != null) {
+				text.append(chunkText);
+			}
+			if (generation.getMetadata() != null && generation.getMetadata().getFinishReason() != null) {
+				generationMetadata = generation.getMetadata();
+			}
+		}
+
+		return ChatResponse.builder()
+				.generations(List.of(new Generation(AssistantMessage.builder().content(text.toString()).build(),
+						generationMetadata)))
+				.metadata(chunks.get(chunks.size() - 1).getMetadata())
+				.build();
+	}
+
+	private static boolean hasText(ChatResponse chatResponse) {
+
+		String text = ResponseCacheStore.text(chatResponse);
+		return text != null && !text.isEmpty();
+	}
+
+	/**
+	 * 上游返回空回答时由 loader 抛出，空结果不写入缓存，等待同一 key 的请求直接复用该回答。
+	 */
+	private static final class UncacheableResponseException extends RuntimeException {
+
+		private final transient ChatClientResponse response;
+
+		private UncacheableResponseException(ChatClientResponse response) {
+
+			super(null, null, false, false);
+			this.response = response;
+		}
+
+	}
+
+}
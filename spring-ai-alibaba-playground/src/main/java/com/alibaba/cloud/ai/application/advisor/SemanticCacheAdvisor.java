@@ -0,0 +1,500 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.advisor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * 问题级语义缓存：将用户问题 embedding 后，在同一命名空间（模型）下查找最近的
+ * (问题, 模型, 参数) -> 回答 条目，相似度超过阈值时直接回放缓存的回答，不再请求模型。
+ * <p>
+ * 1. 每个模型一个命名空间，条目按 LRU 淘汰，超过 TTL 的条目在查找时清理；
+ * 2. system prompt、模型参数（temperature、topP 等）以及当前问题之前的全部会话消息计算为指纹，指纹不同的条目不会命中，
+ *    多轮对话中的追问（如"继续"、"为什么"）只会命中同一段历史下缓存的回答，不会命中其他会话或用户的回答；
+ * 3. 仅缓存完整、非空的回答，流式中断或出错的回答不写入缓存；
+ * 4. 命中、未命中以及节省的模型耗时通过 Micrometer 暴露。
+ * <p>
+ * 顺序位于 ChatMemory advisor 之后，命中时回放的回答同样会写入会话记忆。
+ */
+
+public class SemanticCacheAdvisor implements BaseAdvisor {
+
+	private static final Logger logger = LoggerFactory.getLogger(SemanticCacheAdvisor.class);
+
+	/**
+	 * 通过 advisor 参数指定额外的命名空间，避免不同业务（如普通对话与 RAG）对同一问题的回答互相命中。
+	 */
+	public static final String CACHE_NAMESPACE = "semantic_cache_namespace";
+
+	/**
+	 * 通过 advisor 参数跳过本次请求的缓存。
+	 */
+	public static final String CACHE_DISABLED = "semantic_cache_disabled";
+
+	private static final String METRIC_REQUESTS = "saa.semantic.cache.requests";
+
+	private static final String METRIC_LATENCY_SAVED = "saa.semantic.cache.latency.saved";
+
+	private static final String DEFAULT_MODEL = "default";
+
+	private final EmbeddingModel embeddingModel;
+
+	private final MeterRegistry meterRegistry;
+
+	private final double similarityThreshold;
+
+	private final long ttlNanos;
+
+	private final int maxEntriesPerNamespace;
+
+	private final int order;
+
+	private final Map<String, Namespace> namespaces = new ConcurrentHashMap<>();
+
+	private SemanticCacheAdvisor(Builder builder) {
+
+		Assert.notNull(builder.embeddingModel, "embeddingModel must not be null");
+		Assert.notNull(builder.meterRegistry, "meterRegistry must not be null");
+		Assert.isTrue(builder.similarityThreshold > 0 && builder.similarityThreshold <= 1,
+				"similarityThreshold must be in (0, 1]");
+		Assert.isTrue(builder.ttl != null && !builder.ttl.isNegative() && !builder.ttl.isZero(),
+				"ttl must be positive");
+		Assert.isTrue(builder.maxEntriesPerNamespace > 0, "maxEntriesPerNamespace must be greater than 0");
+
+		this.embeddingModel = builder.embeddingModel;
+		this.meterRegistry = builder.meterRegistry;
+		this.similarityThreshold = builder.similarityThreshold;
+		this.ttlNanos = builder.ttl.toNanos();
+		this.maxEntriesPerNamespace = builder.maxEntriesPerNamespace;
+		this.order = builder.order;
+	}
+
+	@Override
+	public int getOrder() {
+
+		return this.order;
+	}
+
+	@Override
+	public ChatClientRequest before(ChatClientRequest chatClientRequest, AdvisorChain advisorChain) {
+
+		return chatClientRequest;
+	}
+
+	@Override
+	public ChatClientResponse after(ChatClientResponse chatClientResponse, AdvisorChain advisorChain) {
+
+		return chatClientResponse;
+	}
+
+	@Override
+	public ChatClientResponse adviseCall(ChatClientRequest chatClientRequest, CallAdvisorChain callAdvisorChain) {
+
+		CacheKey key = cacheKey(chatClientRequest);
+		if (key == null) {
+			return callAdvisorChain.nextCall(chatClientRequest);
+		}
+
+		Optional<float[]> vector = embed(key.question());
+		if (vector.isEmpty()) {
+			return callAdvisorChain.nextCall(chatClientRequest);
+		}
+
+		CacheEntry hit = lookup(key, vector.get());
+		if (hit != null) {
+			return replay(chatClientRequest, hit);
+		}
+
+		long start = System.nanoTime();
+		ChatClientResponse response = callAdvisorChain.nextCall(chatClientRequest);
+		store(key, vector.get(), text(response), System.nanoTime() - start);
+
+		return response;
+	}
+
+	@Override
+	public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest, StreamAdvisorChain streamAdvisorChain) {
+
+		CacheKey key = cacheKey(chatClientRequest);
+		if (key == null) {
+			return streamAdvisorChain.nextStream(chatClientRequest);
+		}
+
+		// embedding 为阻塞调用，切换到弹性线程池执行
+		return Mono.fromCallable(() -> embed(key.question()))
+				.subscribeOn(Schedulers.boundedElastic())
+				.flatMapMany(vector -> {
+					if (vector.isEmpty()) {
+						return streamAdvisorChain.nextStream(chatClientRequest);
+					}
+
+					CacheEntry hit = lookup(key, vector.get());
+					if (hit != null) {
+						return Flux.just(replay(chatClientRequest, hit));
+					}
+
+					long start = System.nanoTime();
+					StringBuilder answer = new StringBuilder();
+					return streamAdvisorChain.nextStream(chatClientRequest)
+							.doOnNext(response -> {
+								String chunk = text(response);
+								if (chunk != null) {
+									answer.append(chunk);
+								}
+							})
+							.doOnComplete(() -> store(key, vector.get(), answer.toString(), System.nanoTime() - start));
+				});
+	}
+
+	/**
+	 * 清空所有命名空间。
+	 */
+	public void clear() {
+
+		namespaces.clear();
+	}
+
+	private CacheKey cacheKey(ChatClientRequest request) {
+
+		if (Boolean.TRUE.equals(request.context().get(CACHE_DISABLED))) {
+			return null;
+		}
+
+		Prompt prompt = request.prompt();
+		String question = prompt.getUserMessage().getText();
+		if (!StringUtils.hasText(question)) {
+			return null;
+		}
+
+		ChatOptions options = prompt.getOptions();
+		String model = options != null && StringUtils.hasText(options.getModel()) ? options.getModel() : DEFAULT_MODEL;
+		Object extraNamespace = request.context().get(CACHE_NAMESPACE);
+		String namespace = extraNamespace != null ? extraNamespace + ":" + model : model;
+
+		return new CacheKey(namespace, question, fingerprint(prompt));
+	}
+
+	/**
+	 * @return 当前问题之外的消息（system prompt 与会话历史）以及模型参数的 sha-256
+	 */
+	private static String fingerprint(Prompt prompt) {
+
+		List<Message> messages = prompt.getInstructions();
+		int questionIndex = -1;
+		for (int i = messages.size() - 1; i >= 0; i--) {
+			if (messages.get(i) instanceof UserMessage) {
+				questionIndex = i;
+				break;
+			}
+		}
+
+		MessageDigest digest = sha256();
+		for (int i = 0; i < messages.size(); i++) {
+			if (i == questionIndex) {
+				continue;
+			}
+			update(digest, messages.get(i).getMessageType().name());
+			update(digest, messages.get(i).getText());
+		}
+
+		ChatOptions options = prompt.getOptions();
+		if (options != null) {
+			update(digest, String.valueOf(options.getTemperature()));
+			update(digest, String.valueOf(options.getTopP()));
+			update(digest, String.valueOf(options.getTopK()));
+			update(digest, String.valueOf(options.getMaxTokens()));
+			update(digest, String.valueOf(options.getFrequencyPenalty()));
+			update(digest, String.valueOf(options.getPresencePenalty()));
+			update(digest, String.valueOf(options.getStopSequences()));
+		}
+
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, String value) {
+
+		// 长度前缀避免不同字段拼接后产生相同的字节序列
+		byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value != null ? bytes.length : -1).array());
+		digest.update(bytes);
+	}
+
+	private static MessageDigest sha256() {
+
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private Optional<float[]> embed(String question) {
+
+		try {
+			return Optional.of(normalize(embeddingModel.embed(question)));
+		}
+		catch (RuntimeException e) {
+			// embedding 失败时不影响正常对话，仅跳过缓存
+			logger.warn("Failed to embed question for semantic cache, skip it: {}", e.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	private CacheEntry lookup(CacheKey key, float[] vector) {
+
+		Namespace namespace = namespaces.get(key.namespace());
+		CacheEntry hit = namespace != null ? namespace.lookup(key.fingerprint(), vector) : null;
+
+		if (hit == null) {
+			requestCounter(key.namespace(), "miss").increment();
+			return null;
+		}
+
+		requestCounter(key.namespace(), "hit").increment();
+		Timer.builder(METRIC_LATENCY_SAVED)
+				.description("Model latency saved by semantic cache hits")
+				.tag("namespace", key.namespace())
+				.register(meterRegistry)
+				.record(hit.latencyNanos(), TimeUnit.NANOSECONDS);
+		logger.debug("Semantic cache hit in namespace {}, cached question: {}", key.namespace(), hit.question());
+
+		return hit;
+	}
+
+	private void store(CacheKey key, float[] vector, String answer, long latencyNanos) {
+
+		if (!StringUtils.hasText(answer)) {
+			return;
+		}
+
+		namespaces.computeIfAbsent(key.namespace(), unused -> new Namespace())
+				.put(new CacheEntry(key.question(), vector, key.fingerprint(), answer, latencyNanos, System.nanoTime()));
+	}
+
+	private Counter requestCounter(String namespace, String result) {
+
+		return Counter.builder(METRIC_REQUESTS)
+				.description("Semantic cache lookups")
+				.tag("namespace", namespace)
+				.tag("result", result)
+				.register(meterRegistry);
+	}
+
+	private static ChatClientResponse replay(ChatClientRequest request, CacheEntry entry) {
+
+		ChatResponse chatResponse = ChatResponse.builder()
+				.generations(List.of(new Generation(AssistantMessage.builder().content(entry.answer()).build())))
+				.build();
+
+		return ChatClientResponse.builder()
+				.chatResponse(chatResponse)
+				.context(request.context())
+				.build();
+	}
+
+	private static String text(ChatClientResponse response) {
+
+		ChatResponse chatResponse = response.chatResponse();
+		if (chatResponse == null || chatResponse.getResult() == null || chatResponse.getResult().getOutput() == null) {
+			return null;
+		}
+
+		return chatResponse.getResult().getOutput().getText();
+	}
+
+	private static float[] normalize(float[] vector) {
+
+		double norm = 0;
+		for (float value : vector) {
+			norm += value * value;
+		}
+		if (norm == 0) {
+			return vector.clone();
+		}
+
+		float inv = (float) (1 / Math.sqrt(norm));
+		float[] normalized = new float[vector.length];
+		for (int i = 0; i < vector.length; i++) {
+			normalized[i] = vector[i] * inv;
+		}
+
+		return normalized;
+	}
+
+	private record CacheKey(String namespace, String question, String fingerprint) {
+	}
+
+	private record CacheEntry(String question, float[] vector, String fingerprint, String answer, long latencyNanos,
+			long createdNanos) {
+	}
+
+	/**
+	 * 单个模型的相似度索引。条目数量有上限，线性扫描归一化向量的点积即可满足延迟要求。
+	 */
+	private final class Namespace {
+
+		private final LinkedHashMap<Long, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, CacheEntry> eldest) {
+				return size() > maxEntriesPerNamespace;
+			}
+		};
+
+		private long nextId;
+
+		synchronized CacheEntry lookup(String fingerprint, float[] vector) {
+
+			long now = System.nanoTime();
+			Long bestId = null;
+			double bestScore = similarityThreshold;
+
+			Iterator<Map.Entry<Long, CacheEntry>> iterator = entries.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<Long, CacheEntry> entry = iterator.next();
+				CacheEntry cached = entry.getValue();
+
+				if (now - cached.createdNanos() > ttlNanos) {
+					iterator.remove();
+					continue;
+				}
+				if (!cached.fingerprint().equals(fingerprint) || cached.vector().length != vector.length) {
+					continue;
+				}
+
+				double score = dot(cached.vector(), vector);
+				if (score >= bestScore) {
+					bestScore = score;
+					bestId = entry.getKey();
+				}
+			}
+
+			// get 会刷新访问顺序
+			return bestId != null ? entries.get(bestId) : null;
+		}
+
+		synchronized void put(CacheEntry entry) {
+
+			entries.put(nextId++, entry);
+		}
+
+		private static double dot(float[] a, float[] b) {
+
+			double sum = 0;
+			for (int i = 0; i < a.length; i++) {
+				sum += a[i] * b[i];
+			}
+			return sum;
+		}
+	}
+
+	public static Builder builder(EmbeddingModel embeddingModel, MeterRegistry meterRegistry) {
+		return new Builder(embeddingModel, meterRegistry);
+	}
+
+	public static final class Builder {
+
+		private final EmbeddingModel embeddingModel;
+
+		private final MeterRegistry meterRegistry;
+
+		private double similarityThreshold = 0.95;
+
+		private Duration ttl = Duration.ofMinutes(30);
+
+		private int maxEntriesPerNamespace = 1000;
+
+		// 位于 ResponseCacheAdvisor 之后，精确匹配未命中时才计算 embedding
+		private int order = Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER + 2;
+
+		private Builder(EmbeddingModel embeddingModel, MeterRegistry meterRegistry) {
+
+			this.embeddingModel = embeddingModel;
+			this.meterRegistry = meterRegistry;
+		}
+
+		public Builder similarityThreshold(double similarityThreshold) {
+
+			this.similarityThreshold = similarityThreshold;
+			return this;
+		}
+
+		public Builder ttl(Duration ttl) {
+
+			this.ttl = ttl;
+			return this;
+		}
+
+		public Builder maxEntriesPerNamespace(int maxEntriesPerNamespace) {
+
+			this.maxEntriesPerNamespace = maxEntriesPerNamespace;
+			return this;
+		}
+
+		public Builder order(int order) {
+
+			this.order = order;
+			return this;
+		}
+
+		public SemanticCacheAdvisor build() {
+
+			return new SemanticCacheAdvisor(this);
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.advisor.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import org.springframework.ai.chat.model.ChatResponse;
+
+/**
+ * 基于 Guava Cache 的堆内实现，按写入时间过期，按估算字节数淘汰。直接保存原始 {@link ChatResponse}，
+ * 元数据完整保留。
+ */
+
+public class HeapResponseCacheStore implements ResponseCacheStore {
+
+	private final Cache<String, List<ChatResponse>> cache;
+
+	public HeapResponseCacheStore(long maxBytes, Duration ttl) {
+
+		this.cache = CacheBuilder.newBuilder()
+				.maximumWeight(maxBytes)
+				.weigher((String key, List<ChatResponse> chunks) ->
+						(int) Math.min(Integer.MAX_VALUE, ResponseCacheStore.weigh(key, chunks)))
+				.expireAfterWrite(ttl)
+				.build();
+	}
+
+	@Override
+	public List<ChatResponse> get(String key) {
+
+		return cache.getIfPresent(key);
+	}
+
+	@Override
+	public List<ChatResponse> get(String key, Supplier<List<ChatResponse>> loader) {
+
+		try {
+			return cache.get(key, () -> List.copyOf(loader.get()));
+		}
+		catch (UncheckedExecutionException | ExecutionError e) {
+			throw unwrap(e.getCause());
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	@Override
+	public void put(String key, List<ChatResponse> chunks) {
+
+		cache.put(key, List.copyOf(chunks));
+	}
+
+	@Override
+	public long size() {
+
+		return cache.size();
+	}
+
+	@Override
+	public void clear() {
+
+		cache.invalidateAll();
+	}
+
+	private static RuntimeException unwrap(Throwable cause) {
+
+		if (cause instanceof RuntimeException runtimeException) {
+			return runtimeException;
+		}
+		if (cause instanceof Error error) {
+			throw error;
+		}
+		return new IllegalStateException(cause);
+	}
+
+}
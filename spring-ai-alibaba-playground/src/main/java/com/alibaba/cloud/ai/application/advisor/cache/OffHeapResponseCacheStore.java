@@ -0,0 +1,277 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.advisor.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.util.Assert;
+
+/**
+ * 堆外实现：每条回答编码后写入一块 direct buffer，堆内只保留 key 与 buffer 引用，
+ * 大量长回答不会增加 GC 压力。按访问顺序 LRU 淘汰，总字节数超过上限时淘汰最久未访问的条目。
+ * <p>
+ * 每个分块保存文本、结束原因、响应 id、模型与 token 用量；其余厂商自定义的元数据不会进入堆外缓存。
+ * 编码格式（字符串为 length(int) | utf-8，null 的 length 为 -1；整数 null 为 -1）：
+ * <pre>
+ * chunk count(int) | (text | finish reason | id | model | prompt tokens(int) | completion tokens(int)) * count
+ * </pre>
+ */
+
+public class OffHeapResponseCacheStore implements ResponseCacheStore {
+
+	private final long maxBytes;
+
+	private final long ttlNanos;
+
+	private final LinkedHashMap<String, Slot> slots = new LinkedHashMap<>(64, 0.75f, true);
+
+	private final Map<String, CompletableFuture<List<ChatResponse>>> loading = new ConcurrentHashMap<>();
+
+	private long usedBytes;
+
+	public OffHeapResponseCacheStore(long maxBytes, Duration ttl) {
+
+		Assert.isTrue(maxBytes > 0, "maxBytes must be greater than 0");
+		Assert.isTrue(ttl != null && !ttl.isNegative() && !ttl.isZero(), "ttl must be positive");
+
+		this.maxBytes = maxBytes;
+		this.ttlNanos = ttl.toNanos();
+	}
+
+	@Override
+	public List<ChatResponse> get(String key) {
+
+		ByteBuffer buffer;
+		synchronized (this) {
+			Slot slot = slots.get(key);
+			if (slot == null) {
+				return null;
+			}
+			if (System.nanoTime() - slot.createdNanos() > ttlNanos) {
+				remove(key);
+				return null;
+			}
+			buffer = slot.buffer().duplicate();
+		}
+
+		// 解码在锁外进行，direct buffer 写入后只读
+		int count = buffer.getInt();
+		List<ChatResponse> chunks = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			chunks.add(decode(buffer));
+		}
+
+		return chunks;
+	}
+
+	@Override
+	public List<ChatResponse> get(String key, Supplier<List<ChatResponse>> loader) {
+
+		List<ChatResponse> cached = get(key);
+		if (cached != null) {
+			return cached;
+		}
+
+		CompletableFuture<List<ChatResponse>> future = new CompletableFuture<>();
+		CompletableFuture<List<ChatResponse>> existing = loading.putIfAbsent(key, future);
+		if (existing != null) {
+			return join(existing);
+		}
+
+		try {
+			// 抢到加载权之前可能已有其他线程完成加载
+			List<ChatResponse> chunks = get(key);
+			if (chunks == null) {
+				chunks = List.copyOf(loader.get());
+				put(key, chunks);
+			}
+			future.complete(chunks);
+			return chunks;
+		}
+		catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		}
+		finally {
+			loading.remove(key, future);
+		}
+	}
+
+	@Override
+	public void put(String key, List<ChatResponse> chunks) {
+
+		byte[] encoded = encode(chunks);
+		if (encoded.length > maxBytes) {
+			return;
+		}
+
+		int capacity = encoded.length;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+		buffer.put(encoded);
+		buffer.flip();
+
+		synchronized (this) {
+			remove(key);
+			slots.put(key, new Slot(buffer.asReadOnlyBuffer(), System.nanoTime()));
+			usedBytes += capacity;
+
+			Iterator<Map.Entry<String, Slot>> eldest = slots.entrySet().iterator();
+			while (usedBytes > maxBytes && eldest.hasNext()) {
+				usedBytes -= eldest.next().getValue().buffer().capacity();
+				eldest.remove();
+			}
+		}
+	}
+
+	@Override
+	public synchronized long size() {
+
+		return slots.size();
+	}
+
+	@Override
+	public synchronized void clear() {
+
+		slots.clear();
+		usedBytes = 0;
+	}
+
+	public synchronized long usedBytes() {
+
+		return usedBytes;
+	}
+
+	private void remove(String key) {
+
+		Slot removed = slots.remove(key);
+		if (removed != null) {
+			usedBytes -= removed.buffer().capacity();
+		}
+	}
+
+	private static List<ChatResponse> join(CompletableFuture<List<ChatResponse>> future) {
+
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (e.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw e;
+		}
+	}
+
+	private static byte[] encode(List<ChatResponse> chunks) {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(chunks.size());
+			for (ChatResponse chunk : chunks) {
+				Generation generation = chunk.getResult();
+				ChatResponseMetadata metadata = chunk.getMetadata();
+				Usage usage = metadata.getUsage();
+
+				writeString(out, ResponseCacheStore.text(chunk));
+				writeString(out, generation != null ? generation.getMetadata().getFinishReason() : null);
+				writeString(out, metadata.getId());
+				writeString(out, metadata.getModel());
+				out.writeInt(usage != null && usage.getPromptTokens() != null ? usage.getPromptTokens() : -1);
+				out.writeInt(usage != null && usage.getCompletionTokens() != null ? usage.getCompletionTokens() : -1);
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	private static ChatResponse decode(ByteBuffer buffer) {
+
+		String text = readString(buffer);
+		String finishReason = readString(buffer);
+		String id = readString(buffer);
+		String model = readString(buffer);
+		int promptTokens = buffer.getInt();
+		int completionTokens = buffer.getInt();
+
+		ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder().id(id).model(model);
+		if (promptTokens >= 0 || completionTokens >= 0) {
+			metadata.usage(new DefaultUsage(promptTokens >= 0 ? promptTokens : null,
+					completionTokens >= 0 ? completionTokens : null));
+		}
+
+		// 文本为 null 表示该分块只携带元数据（如流式最后一个只含用量的分块）
+		List<Generation> generations = text == null ? List.of()
+				: List.of(new Generation(AssistantMessage.builder().content(text).build(),
+						ChatGenerationMetadata.builder().finishReason(finishReason).build()));
+
+		return ChatResponse.builder().generations(generations).metadata(metadata.build()).build();
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private record Slot(ByteBuffer buffer, long createdNanos) {
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.advisor.cache;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.ai.chat.model.ChatResponse;
+
+/**
+ * {@link com.alibaba.cloud.ai.application.advisor.ResponseCacheAdvisor} 的存储后端。
+ * 一条缓存即一次完整回答按原始分块顺序保存的 {@link ChatResponse}，包含用量、结束原因等元数据。
+ */
+
+public interface ResponseCacheStore {
+
+	/**
+	 * @return 缓存的分块，不存在或已过期时返回 null
+	 */
+	List<ChatResponse> get(String key);
+
+	/**
+	 * 读取缓存，不存在时调用 loader 加载并写入。同一 key 的并发调用只执行一次 loader，其余调用等待其结果；
+	 * loader 抛出的异常会传给所有等待者，且不会写入缓存。
+	 */
+	List<ChatResponse> get(String key, Supplier<List<ChatResponse>> loader);
+
+	void put(String key, List<ChatResponse> chunks);
+
+	long size();
+
+	void clear();
+
+	/**
+	 * 估算一条缓存占用的字节数，用于按容量淘汰。
+	 */
+	static long weigh(String key, List<ChatResponse> chunks) {
+
+		long bytes = key.length() * 2L;
+		for (ChatResponse chunk : chunks) {
+			// 元数据（id、模型、用量、结束原因）按固定开销估算
+			bytes += 256;
+			String text = text(chunk);
+			if (text != null) {
+				bytes += text.length() * 3L;
+			}
+		}
+		return bytes;
+	}
+
+	static String text(ChatResponse chunk) {
+
+		if (chunk == null || chunk.getResult() == null || chunk.getResult().getOutput() == null) {
+			return null;
+		}
+		return chunk.getResult().getOutput().getText();
+	}
+
+}
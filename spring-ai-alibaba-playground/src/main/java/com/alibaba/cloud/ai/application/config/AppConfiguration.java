@@ -16,19 +16,34 @@
 
 package com.alibaba.cloud.ai.application.config;
 
+import java.time.Duration;
+
+import com.alibaba.cloud.ai.application.advisor.ResponseCacheAdvisor;
+import com.alibaba.cloud.ai.application.advisor.SemanticCacheAdvisor;
+import com.alibaba.cloud.ai.application.advisor.cache.HeapResponseCacheStore;
+import com.alibaba.cloud.ai.application.advisor.cache.OffHeapResponseCacheStore;
+import com.alibaba.cloud.ai.application.advisor.cache.ResponseCacheStore;
 import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.util.unit.DataSize;
 import org.springframework.context.annotation.Configuration;
 
 /**
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  *
- * 全局统一管理 ChatMemory Bean 和 SimpleLoggerAdvisor
+ * 全局统一管理 ChatMemory Bean、SimpleLoggerAdvisor 以及回答缓存相关的 Advisor
  */
 
 @Configuration
@@ -49,6 +64,45 @@ public class AppConfiguration {
 		return MessageChatMemoryAdvisor.builder(chatMemory).build();
 	}
 
+	/**
+	 * 问题级语义缓存，未引入 actuator 时指标注册到 Micrometer 全局 registry。
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "spring.ai.alibaba.playground.semantic-cache.enabled", havingValue = "true", matchIfMissing = true)
+	public SemanticCacheAdvisor semanticCacheAdvisor(
+			@Qualifier("dashscopeEmbeddingModel") EmbeddingModel embeddingModel,
+			ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${spring.ai.alibaba.playground.semantic-cache.similarity-threshold:0.95}") double similarityThreshold,
+			@Value("${spring.ai.alibaba.playground.semantic-cache.ttl:30m}") Duration ttl,
+			@Value("${spring.ai.alibaba.playground.semantic-cache.max-entries-per-model:1000}") int maxEntriesPerModel
+	) {
+
+		return SemanticCacheAdvisor.builder(embeddingModel, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry))
+				.similarityThreshold(similarityThreshold)
+				.ttl(ttl)
+				.maxEntriesPerNamespace(maxEntriesPerModel)
+				.build();
+	}
+
+	/**
+	 * 精确匹配的回答缓存，backend 可选 heap（Guava Cache）或 off-heap（direct buffer）。
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "spring.ai.alibaba.playground.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+	public ResponseCacheAdvisor responseCacheAdvisor(
+			ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${spring.ai.alibaba.playground.response-cache.backend:heap}") String backend,
+			@Value("${spring.ai.alibaba.playground.response-cache.max-size:64MB}") DataSize maxSize,
+			@Value("${spring.ai.alibaba.playground.response-cache.ttl:1h}") Duration ttl
+	) {
+
+		ResponseCacheStore store = "off-heap".equalsIgnoreCase(backend)
+				? new OffHeapResponseCacheStore(maxSize.toBytes(), ttl)
+				: new HeapResponseCacheStore(maxSize.toBytes(), ttl);
+
+		return new ResponseCacheAdvisor(store, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+	}
+
 	@Bean
 	public ToolCallingManager toolCallingManager() {
 
@@ -0,0 +1,408 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * 基于内容哈希的 embedding 快照文件。
+ * <p>
+ * 文件格式（小端序）：
+ * <pre>
+ * header: magic(int) | format version(int) | model name length(short) | model name(utf-8) | dimensions(int)
+ * record: sha-256(text)(32 bytes) | embedding(float * dimensions)
+ * </pre>
+ * 启动时将已有文件只读映射到内存，仅建立 hash -> offset 索引，向量在命中时才从映射区读取；
+ * 新增向量以追加方式写入文件。模型名称、维度或格式版本不一致时，旧快照会被丢弃重建。
+ * <p>
+ * 读取持有读锁，追加、重建与压缩持有写锁；重建与压缩都先删除或替换旧文件再写新文件，不会截断仍被映射的文件。
+ * 一次完整入库后调用 {@link #compact()}，只保留本次进程中用到的向量，已删除或已修改的文档不会无限累积。
+ */
+
+public class EmbeddingSnapshotStore implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(EmbeddingSnapshotStore.class);
+
+	private static final int MAGIC = 0x53414145;
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int HASH_BYTES = 32;
+
+	private final Path path;
+
+	private final String model;
+
+	private final Map<ContentHash, Integer> mappedOffsets = new ConcurrentHashMap<>();
+
+	private final Map<ContentHash, float[]> appended = new ConcurrentHashMap<>();
+
+	/**
+	 * 本次进程中读取或写入过的哈希，压缩时只保留这些记录
+	 */
+	private final Set<ContentHash> used = ConcurrentHashMap.newKeySet();
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private volatile MappedByteBuffer mapped;
+
+	private FileChannel appendChannel;
+
+	private volatile int dimensions = -1;
+
+	public EmbeddingSnapshotStore(Path path, String model) {
+
+		Assert.notNull(path, "path must not be null");
+		Assert.hasText(model, "model must not be empty");
+
+		this.path = path;
+		this.model = model;
+
+		try {
+			load();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to load embedding snapshot: " + path, e);
+		}
+	}
+
+	public static ContentHash hash(String text) {
+
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+			ByteBuffer buffer = ByteBuffer.wrap(digest);
+			return new ContentHash(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public int dimensions() {
+
+		return dimensions;
+	}
+
+	public int size() {
+
+		return mappedOffsets.size() + appended.size();
+	}
+
+	public float[] get(ContentHash hash) {
+
+		lock.readLock().lock();
+		try {
+			float[] embedding = read(hash);
+			if (embedding != null) {
+				used.add(hash);
+			}
+			return embedding;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public void put(ContentHash hash, float[] embedding) {
+
+		lock.writeLock().lock();
+		try {
+			if (appended.containsKey(hash) || mappedOffsets.containsKey(hash)) {
+				used.add(hash);
+				return;
+			}
+
+			if (dimensions != embedding.length) {
+				// 首次写入，或模型维度发生了变化
+				reset(embedding.length);
+			}
+
+			writeRecord(appendChannel, hash, embedding);
+
+			appended.put(hash, embedding.clone());
+			used.add(hash);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to append embedding snapshot: " + path, e);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void flush() throws IOException {
+
+		lock.writeLock().lock();
+		try {
+			if (appendChannel != null) {
+				appendChannel.force(false);
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 重写快照文件，只保留本次进程中读取或写入过的向量。新文件写入临时文件后原子替换，
+	 * 旧文件的映射在替换后仍然有效，替换完成后重新映射新文件。
+	 * @return 移除的记录数
+	 */
+	public int compact() throws IOException {
+
+		lock.writeLock().lock();
+		try {
+			int removed = size() - used.size();
+			if (dimensions <= 0 || removed <= 0) {
+				return 0;
+			}
+
+			Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+			try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				writeHeader(channel, dimensions);
+				for (ContentHash hash : used) {
+					float[] embedding = read(hash);
+					if (embedding != null) {
+						writeRecord(channel, hash, embedding);
+					}
+				}
+				channel.force(true);
+			}
+
+			if (appendChannel != null) {
+				appendChannel.close();
+				appendChannel = null;
+			}
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			mappedOffsets.clear();
+			appended.clear();
+			mapped = null;
+			dimensions = -1;
+			load();
+
+			logger.info("Compacted embedding snapshot {}, removed {} unused embeddings, {} left.", path, removed, size());
+			return removed;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		lock.writeLock().lock();
+		try {
+			if (appendChannel != null) {
+				appendChannel.force(false);
+				appendChannel.close();
+				appendChannel = null;
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+
+		logger.info("Embedding snapshot {} closed with {} embeddings.", path, size());
+	}
+
+	/**
+	 * 调用方持有读锁或写锁
+	 */
+	private float[] read(ContentHash hash) {
+
+		float[] embedding = appended.get(hash);
+		if (embedding != null) {
+			return embedding;
+		}
+
+		MappedByteBuffer buffer = mapped;
+		Integer offset = mappedOffsets.get(hash);
+		if (buffer == null || offset == null) {
+			return null;
+		}
+
+		embedding = new float[dimensions];
+		for (int i = 0; i < embedding.length; i++) {
+			embedding[i] = buffer.getFloat(offset + i * Float.BYTES);
+		}
+
+		return embedding;
+	}
+
+	private void load() throws IOException {
+
+		if (!Files.exists(path)) {
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			if (fileSize > Integer.MAX_VALUE) {
+				logger.warn("Embedding snapshot {} is too large to map, ignore it.", path);
+				return;
+			}
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			int fileDimensions = readHeader(buffer);
+			if (fileDimensions <= 0) {
+				return;
+			}
+
+			int recordSize = HASH_BYTES + fileDimensions * Float.BYTES;
+			int headerSize = buffer.position();
+			int records = (int) ((fileSize - headerSize) / recordSize);
+
+			for (int i = 0; i < records; i++) {
+				int offset = headerSize + i * recordSize;
+				ContentHash hash = new ContentHash(
+						buffer.getLong(offset), buffer.getLong(offset + 8),
+						buffer.getLong(offset + 16), buffer.getLong(offset + 24)
+				);
+				mappedOffsets.put(hash, offset + HASH_BYTES);
+			}
+
+			this.mapped = buffer;
+			this.dimensions = fileDimensions;
+
+			// 丢弃上次异常退出时残留的半条记录
+			this.appendChannel = FileChannel.open(path, StandardOpenOption.WRITE);
+			this.appendChannel.truncate(headerSize + (long) records * recordSize);
+			this.appendChannel.position(headerSize + (long) records * recordSize);
+
+			logger.info("Loaded {} embeddings from snapshot {} (model: {}, dimensions: {}).",
+					records, path, model, fileDimensions);
+		}
+	}
+
+	/**
+	 * @return 快照维度，快照与当前模型不匹配时返回 -1
+	 */
+	private int readHeader(ByteBuffer buffer) {
+
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+				logger.info("Embedding snapshot {} has unknown format, it will be rebuilt.", path);
+				return -1;
+			}
+
+			byte[] modelBytes = new byte[buffer.getShort()];
+			buffer.get(modelBytes);
+			String fileModel = new String(modelBytes, StandardCharsets.UTF_8);
+			int fileDimensions = buffer.getInt();
+
+			if (!model.equals(fileModel)) {
+				logger.info("Embedding snapshot {} was built by model {}, current model is {}, it will be rebuilt.",
+						path, fileModel, model);
+				return -1;
+			}
+
+			return fileDimensions;
+		}
+		catch (RuntimeException e) {
+			logger.info("Embedding snapshot {} header is broken, it will be rebuilt.", path);
+			return -1;
+		}
+	}
+
+	private void reset(int newDimensions) throws IOException {
+
+		if (appendChannel != null) {
+			appendChannel.close();
+		}
+		if (dimensions > 0) {
+			logger.info("Embedding dimensions changed from {} to {}, rebuild snapshot {}.",
+					dimensions, newDimensions, path);
+		}
+
+		mappedOffsets.clear();
+		appended.clear();
+		used.clear();
+		mapped = null;
+
+		if (path.getParent() != null) {
+			Files.createDirectories(path.getParent());
+		}
+
+		// 删除而不是截断旧文件：旧映射指向的 inode 在解除映射前保持有效
+		Files.deleteIfExists(path);
+		appendChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		writeHeader(appendChannel, newDimensions);
+
+		dimensions = newDimensions;
+	}
+
+	private void writeHeader(FileChannel channel, int headerDimensions) throws IOException {
+
+		byte[] modelBytes = model.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * 3 + Short.BYTES + modelBytes.length)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putInt(FORMAT_VERSION).putShort((short) modelBytes.length).put(modelBytes)
+				.putInt(headerDimensions);
+		header.flip();
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+	}
+
+	private static void writeRecord(FileChannel channel, ContentHash hash, float[] embedding) throws IOException {
+
+		ByteBuffer record = ByteBuffer.allocate(HASH_BYTES + embedding.length * Float.BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		record.putLong(hash.h0()).putLong(hash.h1()).putLong(hash.h2()).putLong(hash.h3());
+		for (float value : embedding) {
+			record.putFloat(value);
+		}
+		record.flip();
+		while (record.hasRemaining()) {
+			channel.write(record);
+		}
+	}
+
+	/**
+	 * sha-256 内容哈希。
+	 */
+	public record ContentHash(long h0, long h1, long h2, long h3) {
+	}
+
+}
@@ -0,0 +1,875 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.observation.conventions.VectorStoreProvider;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.Assert;
+
+/**
+ * 进程内 HNSW（Hierarchical Navigable Small World）近似最近邻向量库，
+ * 适用于无法部署 Milvus / Elasticsearch 的本地或离线环境。
+ * <p>
+ * <ul>
+ *     <li>m / efConstruction / efSearch 可调；</li>
+ *     <li>支持增量写入，删除采用墓碑标记（节点仍参与图遍历，但不会出现在结果中），{@link #save} 前会压缩掉墓碑节点；</li>
+ *     <li>Filter.Expression 在第 0 层搜索时下推：不满足条件的节点只用于导航，不进入结果集，
+ *     过滤条件过于严格导致结果不足时回退为对满足条件文档的精确扫描；</li>
+ *     <li>{@link #save(Path, String)} / {@link #load(Path)} 持久化到本地文件，加载时通过内存映射读取；
+ *     文件头记录 embedding 模型、维度与文档内容版本，调用方通过 {@link #readHeader(Path)} 判断索引是否需要重建。</li>
+ * </ul>
+ */
+
+public class HnswVectorStore extends AbstractObservationVectorStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(HnswVectorStore.class);
+
+	private static final int MAGIC = 0x484E5357;
+
+	private static final int FORMAT_VERSION = 2;
+
+	private static final Comparator<Candidate> NEAREST_FIRST = (a, b) -> Float.compare(b.score(), a.score());
+
+	private static final Comparator<Candidate> FURTHEST_FIRST = Comparator.comparingDouble(Candidate::score);
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final ExpressionParser expressionParser = new SpelExpressionParser();
+
+	private final FilterExpressionConverter filterExpressionConverter = new SimpleVectorStoreFilterExpressionConverter();
+
+	private final String model;
+
+	private final int m;
+
+	private final int maxConnectionsLevel0;
+
+	private final int efConstruction;
+
+	private final int efSearch;
+
+	private final double levelMultiplier;
+
+	private final Random random;
+
+	private final Map<String, Integer> nodes = new HashMap<>();
+
+	private final BitSet deleted = new BitSet();
+
+	private Document[] documents = new Document[0];
+
+	private float[] vectors = new float[0];
+
+	/**
+	 * links[node][level] = [count, neighbor...]
+	 */
+	private int[][][] links = new int[0][][];
+
+	private int dimensions = -1;
+
+	private int count;
+
+	private int entryPoint = -1;
+
+	private int maxLevel = -1;
+
+	protected HnswVectorStore(HnswVectorStoreBuilder builder) {
+
+		super(builder);
+
+		Assert.hasText(builder.model, "model must not be empty");
+		Assert.isTrue(builder.m >= 2, "m must be at least 2");
+		Assert.isTrue(builder.efConstruction > 0, "efConstruction must be greater than 0");
+		Assert.isTrue(builder.efSearch > 0, "efSearch must be greater than 0");
+
+		this.model = builder.model;
+		this.m = builder.m;
+		this.maxConnectionsLevel0 = builder.m * 2;
+		this.efConstruction = builder.efConstruction;
+		this.efSearch = builder.efSearch;
+		this.levelMultiplier = 1 / Math.log(builder.m);
+		this.random = new Random(builder.seed);
+	}
+
+	public static HnswVectorStoreBuilder builder(EmbeddingModel embeddingModel) {
+
+		return new HnswVectorStoreBuilder(embeddingModel);
+	}
+
+	public int size() {
+
+		lock.readLock().lock();
+		try {
+			return nodes.size();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void doAdd(List<Document> documents) {
+
+		List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptions.builder().build(), batchingStrategy);
+
+		lock.writeLock().lock();
+		try {
+			for (int i = 0; i < documents.size(); i++) {
+				Document document = documents.get(i);
+
+				// 同 id 重复写入视为更新：旧节点打墓碑，插入新节点
+				Integer previous = nodes.remove(document.getId());
+				if (previous != null) {
+					deleted.set(previous);
+				}
+
+				int node = allocate(normalize(embeddings.get(i)), Document.builder()
+						.id(document.getId())
+						.text(document.getText())
+						.metadata(document.getMetadata())
+						.build());
+				insert(node);
+				nodes.put(document.getId(), node);
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void doDelete(List<String> idList) {
+
+		lock.writeLock().lock();
+		try {
+			for (String id : idList) {
+				Integer node = nodes.remove(id);
+				if (node != null) {
+					deleted.set(node);
+				}
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public List<Document> doSimilaritySearch(SearchRequest request) {
+
+		float[] query = normalize(embeddingModel.embed(request.getQuery()));
+		IntPredicate filter = filterPredicate(request);
+
+		lock.readLock().lock();
+		try {
+			if (entryPoint < 0 || request.getTopK() == 0) {
+				return List.of();
+			}
+			Assert.isTrue(query.length == dimensions, "Query embedding dimensions mismatch");
+
+			IntPredicate accept = filter == null ? node -> !deleted.get(node)
+					: node -> !deleted.get(node) && filter.test(node);
+
+			int ep = entryPoint;
+			for (int level = maxLevel; level > 0; level--) {
+				ep = greedyClosest(query, ep, level);
+			}
+
+			PriorityQueue<Candidate> results = searchLayer(query, ep, Math.max(efSearch, request.getTopK()), 0, accept);
+
+			if (filter != null && results.size() < request.getTopK()) {
+				// 过滤条件过于严格，图上可达的候选不足，回退为精确扫描
+				results = exactSearch(query, request.getTopK(), accept);
+			}
+
+			List<Candidate> sorted = new ArrayList<>(results);
+			sorted.sort(NEAREST_FIRST);
+
+			List<Document> result = new ArrayList<>(Math.min(request.getTopK(), sorted.size()));
+			for (Candidate candidate : sorted) {
+				if (result.size() >= request.getTopK()) {
+					break;
+				}
+				if (candidate.score() < request.getSimilarityThreshold()) {
+					break;
+				}
+				result.add(toDocument(candidate));
+			}
+
+			return result;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+
+		return VectorStoreObservationContext.builder(VectorStoreProvider.SIMPLE.value(), operationName)
+				.dimensions(dimensions > 0 ? dimensions : null)
+				.collectionName("hnsw")
+				.similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+	}
+
+	/**
+	 * 先压缩墓碑节点，再写入临时文件后原子替换，避免写一半时进程退出导致快照损坏。
+	 * @param contentVersion 建索引所用文档内容的版本，写入文件头，内容变化时由调用方重建索引
+	 */
+	public void save(Path path, String contentVersion) {
+
+		Assert.notNull(contentVersion, "contentVersion must not be null");
+		compact();
+
+		lock.readLock().lock();
+		try {
+			if (path.getParent() != null) {
+				Files.createDirectories(path.getParent());
+			}
+			Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(m);
+				writeBytes(out, model.getBytes(StandardCharsets.UTF_8));
+				writeBytes(out, contentVersion.getBytes(StandardCharsets.UTF_8));
+				out.writeInt(dimensions);
+				out.writeInt(count);
+				out.writeInt(entryPoint);
+				out.writeInt(maxLevel);
+
+				for (int node = 0; node < count; node++) {
+					out.writeBoolean(deleted.get(node));
+					for (int i = 0; i < dimensions; i++) {
+						out.writeFloat(vectors[node * dimensions + i]);
+					}
+
+					out.writeInt(links[node].length);
+					for (int[] levelLinks : links[node]) {
+						out.writeInt(levelLinks[0]);
+						for (int i = 1; i <= levelLinks[0]; i++) {
+							out.writeInt(levelLinks[i]);
+						}
+					}
+
+					Document document = documents[node];
+					writeBytes(out, document.getId().getBytes(StandardCharsets.UTF_8));
+					writeBytes(out, document.getText().getBytes(StandardCharsets.UTF_8));
+					writeBytes(out, objectMapper.writeValueAsBytes(document.getMetadata()));
+				}
+			}
+
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			logger.info("Saved {} documents ({} nodes) of hnsw index to {}", nodes.size(), count, path);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to save hnsw index to " + path, e);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 读取索引文件头，文件不存在或不是当前格式时返回 null。
+	 */
+	public static IndexHeader readHeader(Path path) {
+
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+			int fileM = in.readInt();
+			String fileModel = new String(readBytes(in), StandardCharsets.UTF_8);
+			String contentVersion = new String(readBytes(in), StandardCharsets.UTF_8);
+			int fileDimensions = in.readInt();
+			int fileCount = in.readInt();
+
+			return new IndexHeader(fileM, fileModel, fileDimensions, contentVersion, fileCount);
+		}
+		catch (IOException e) {
+			logger.warn("Failed to read hnsw index header from {}: {}", path, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * 移除墓碑节点：存活节点按原顺序重新分配并插入，重建后的图不再引用已删除的节点。
+	 * @return 移除的节点数
+	 */
+	public int compact() {
+
+		lock.writeLock().lock();
+		try {
+			int removed = deleted.cardinality();
+			if (removed == 0) {
+				return 0;
+			}
+
+			int live = count - removed;
+			Document[] liveDocuments = new Document[live];
+			float[][] liveVectors = new float[live][];
+			for (int node = 0, i = 0; node < count; node++) {
+				if (!deleted.get(node)) {
+					liveDocuments[i] = documents[node];
+					liveVectors[i++] = vectorOf(node);
+				}
+			}
+
+			this.documents = new Document[0];
+			this.vectors = new float[0];
+			this.links = new int[0][][];
+			this.count = 0;
+			this.entryPoint = -1;
+			this.maxLevel = -1;
+			this.deleted.clear();
+			this.nodes.clear();
+
+			for (int i = 0; i < live; i++) {
+				int node = allocate(liveVectors[i], liveDocuments[i]);
+				insert(node);
+				nodes.put(liveDocuments[i].getId(), node);
+			}
+
+			logger.info("Compacted hnsw index, removed {} deleted nodes, {} nodes left", removed, live);
+			return removed;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 从 {@link #save(Path, String)} 生成的文件加载，会替换当前内容；是否与当前模型、文档一致由调用方通过
+	 * {@link #readHeader(Path)} 判断。
+	 */
+	public void load(Path path) {
+
+		lock.writeLock().lock();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			Assert.isTrue(buffer.getInt() == MAGIC, "Not a hnsw index file: " + path);
+			Assert.isTrue(buffer.getInt() == FORMAT_VERSION, "Unsupported hnsw index version: " + path);
+			int fileM = buffer.getInt();
+			Assert.isTrue(fileM == m, () -> "Index was built with m=" + fileM + " but store is configured with m=" + m);
+			String fileModel = new String(readBytes(buffer), StandardCharsets.UTF_8);
+			Assert.isTrue(fileModel.equals(model),
+					() -> "Index was built with model " + fileModel + " but store is configured with " + model);
+			// 内容版本由调用方通过 readHeader 校验
+			readBytes(buffer);
+
+			int fileDimensions = buffer.getInt();
+			int fileCount = buffer.getInt();
+			int fileEntryPoint = buffer.getInt();
+			int fileMaxLevel = buffer.getInt();
+
+			float[] fileVectors = new float[fileCount * Math.max(fileDimensions, 0)];
+			int[][][] fileLinks = new int[fileCount][][];
+			Document[] fileDocuments = new Document[fileCount];
+			BitSet fileDeleted = new BitSet(fileCount);
+			Map<String, Integer> fileNodes = new HashMap<>();
+
+			for (int node = 0; node < fileCount; node++) {
+				boolean isDeleted = buffer.get() != 0;
+				buffer.asFloatBuffer().get(fileVectors, node * fileDimensions, fileDimensions);
+				buffer.position(buffer.position() + fileDimensions * Float.BYTES);
+
+				int levels = buffer.getInt();
+				fileLinks[node] = new int[levels][];
+				for (int level = 0; level < levels; level++) {
+					int size = buffer.getInt();
+					int[] levelLinks = new int[maxConnections(level) + 1];
+					levelLinks[0] = size;
+					for (int i = 1; i <= size; i++) {
+						levelLinks[i] = buffer.getInt();
+					}
+					fileLinks[node][level] = levelLinks;
+				}
+
+				String id = new String(readBytes(buffer), StandardCharsets.UTF_8);
+				String text = new String(readBytes(buffer), StandardCharsets.UTF_8);
+				Map<String, Object> metadata = objectMapper.readValue(readBytes(buffer), new TypeReference<>() {
+				});
+				fileDocuments[node] = Document.builder().id(id).text(text).metadata(metadata).build();
+
+				if (isDeleted) {
+					fileDeleted.set(node);
+				}
+				else {
+					fileNodes.put(id, node);
+				}
+			}
+
+			this.dimensions = fileDimensions;
+			this.count = fileCount;
+			this.entryPoint = fileEntryPoint;
+			this.maxLevel = fileMaxLevel;
+			this.vectors = fileVectors;
+			this.links = fileLinks;
+			this.documents = fileDocuments;
+			this.deleted.clear();
+			this.deleted.or(fileDeleted);
+			this.nodes.clear();
+			this.nodes.putAll(fileNodes);
+
+			logger.info("Loaded {} documents ({} nodes) of hnsw index from {}", nodes.size(), count, path);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to load hnsw index from " + path, e);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private int allocate(float[] vector, Document document) {
+
+		if (dimensions < 0) {
+			dimensions = vector.length;
+		}
+		Assert.isTrue(vector.length == dimensions, () -> "Embedding dimensions mismatch, expected " + dimensions
+				+ " but got " + vector.length + " for document " + document.getId());
+
+		if (count == documents.length) {
+			int capacity = Math.max(16, count + (count >> 1));
+			documents = Arrays.copyOf(documents, capacity);
+			vectors = Arrays.copyOf(vectors, capacity * dimensions);
+			links = Arrays.copyOf(links, capacity);
+		}
+
+		int node = count++;
+		documents[node] = document;
+		System.arraycopy(vector, 0, vectors, node * dimensions, dimensions);
+
+		int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+		links[node] = new int[level + 1][];
+		for (int l = 0; l <= level; l++) {
+			links[node][l] = new int[maxConnections(l) + 1];
+		}
+
+		return node;
+	}
+
+	private void insert(int node) {
+
+		int level = links[node].length - 1;
+		float[] query = vectorOf(node);
+
+		if (entryPoint < 0) {
+			entryPoint = node;
+			maxLevel = level;
+			return;
+		}
+
+		int ep = entryPoint;
+		for (int l = maxLevel; l > level; l--) {
+			ep = greedyClosest(query, ep, l);
+		}
+
+		for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+			PriorityQueue<Candidate> candidates = searchLayer(query, ep, efConstruction, l, n -> true);
+
+			List<Candidate> sorted = new ArrayList<>(candidates);
+			sorted.sort(NEAREST_FIRST);
+			ep = sorted.get(0).node();
+
+			int[] selected = selectNeighbors(sorted, m);
+			int[] nodeLinks = links[node][l];
+			nodeLinks[0] = selected.length;
+			System.arraycopy(selected, 0, nodeLinks, 1, selected.length);
+
+			for (int neighbor : selected) {
+				connect(neighbor, node, l);
+			}
+		}
+
+		if (level > maxLevel) {
+			entryPoint = node;
+			maxLevel = level;
+		}
+	}
+
+	private void connect(int node, int neighbor, int level) {
+
+		int[] nodeLinks = links[node][level];
+		int size = nodeLinks[0];
+
+		if (size < nodeLinks.length - 1) {
+			nodeLinks[++size] = neighbor;
+			nodeLinks[0] = size;
+			return;
+		}
+
+		// 邻居已满，重新按启发式挑选
+		float[] base = vectorOf(node);
+		List<Candidate> candidates = new ArrayList<>(size + 1);
+		for (int i = 1; i <= size; i++) {
+			candidates.add(new Candidate(nodeLinks[i], similarity(base, nodeLinks[i])));
+		}
+		candidates.add(new Candidate(neighbor, similarity(base, neighbor)));
+		candidates.sort(NEAREST_FIRST);
+
+		int[] selected = selectNeighbors(candidates, maxConnections(level));
+		nodeLinks[0] = selected.length;
+		System.arraycopy(selected, 0, nodeLinks, 1, selected.length);
+	}
+
+	/**
+	 * HNSW 论文中的启发式邻居选择：候选离 base 比离任何已选邻居都近时才保留，
+	 * 不足时用被淘汰的候选补齐。
+	 * @param sorted 按相似度从高到低排序的候选
+	 */
+	private int[] selectNeighbors(List<Candidate> sorted, int max) {
+
+		int[] selected = new int[Math.min(max, sorted.size())];
+		int size = 0;
+		List<Candidate> pruned = new ArrayList<>();
+
+		for (Candidate candidate : sorted) {
+			if (size == selected.length) {
+				break;
+			}
+
+			float[] vector = vectorOf(candidate.node());
+			boolean keep = true;
+			for (int i = 0; i < size; i++) {
+				if (similarity(vector, selected[i]) > candidate.score()) {
+					keep = false;
+					break;
+				}
+			}
+
+			if (keep) {
+				selected[size++] = candidate.node();
+			}
+			else {
+				pruned.add(candidate);
+			}
+		}
+
+		for (int i = 0; size < selected.length && i < pruned.size(); i++) {
+			selected[size++] = pruned.get(i).node();
+		}
+
+		return selected;
+	}
+
+	private int greedyClosest(float[] query, int ep, int level) {
+
+		int current = ep;
+		float currentScore = similarity(query, current);
+
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			int[] nodeLinks = links[current][level];
+			for (int i = 1; i <= nodeLinks[0]; i++) {
+				float score = similarity(query, nodeLinks[i]);
+				if (score > currentScore) {
+					current = nodeLinks[i];
+					currentScore = score;
+					changed = true;
+				}
+			}
+		}
+
+		return current;
+	}
+
+	/**
+	 * @return 大小不超过 ef 的小顶堆，堆顶为结果中相似度最低的节点；只包含 accept 通过的节点
+	 */
+	private PriorityQueue<Candidate> searchLayer(float[] query, int ep, int ef, int level, IntPredicate accept) {
+
+		BitSet visited = new BitSet(count);
+		PriorityQueue<Candidate> candidates = new PriorityQueue<>(NEAREST_FIRST);
+		PriorityQueue<Candidate> results = new PriorityQueue<>(FURTHEST_FIRST);
+
+		Candidate start = new Candidate(ep, similarity(query, ep));
+		visited.set(ep);
+		candidates.add(start);
+		if (accept.test(ep)) {
+			results.add(start);
+		}
+
+		while (!candidates.isEmpty()) {
+			Candidate current = candidates.poll();
+			if (results.size() >= ef && current.score() < results.peek().score()) {
+				break;
+			}
+
+			int[] nodeLinks = links[current.node()][level];
+			for (int i = 1; i <= nodeLinks[0]; i++) {
+				int neighbor = nodeLinks[i];
+				if (visited.get(neighbor)) {
+					continue;
+				}
+				visited.set(neighbor);
+
+				float score = similarity(query, neighbor);
+				if (results.size() < ef || score > results.peek().score()) {
+					Candidate candidate = new Candidate(neighbor, score);
+					candidates.add(candidate);
+					if (accept.test(neighbor)) {
+						results.add(candidate);
+						if (results.size() > ef) {
+							results.poll();
+						}
+					}
+				}
+			}
+		}
+
+		return results;
+	}
+
+	private PriorityQueue<Candidate> exactSearch(float[] query, int topK, IntPredicate accept) {
+
+		PriorityQueue<Candidate> results = new PriorityQueue<>(FURTHEST_FIRST);
+		for (int node = 0; node < count; node++) {
+			if (!accept.test(node)) {
+				continue;
+			}
+			float score = similarity(query, node);
+			if (results.size() < topK) {
+				results.add(new Candidate(node, score));
+			}
+			else if (score > results.peek().score()) {
+				results.poll();
+				results.add(new Candidate(node, score));
+			}
+		}
+
+		return results;
+	}
+
+	private IntPredicate filterPredicate(SearchRequest request) {
+
+		if (!request.hasFilterExpression()) {
+			return null;
+		}
+
+		Expression expression = expressionParser
+				.parseExpression(filterExpressionConverter.convertExpression(request.getFilterExpression()));
+
+		return node -> {
+			StandardEvaluationContext context = new StandardEvaluationContext();
+			context.setVariable("metadata", documents[node].getMetadata());
+			return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+		};
+	}
+
+	private Document toDocument(Candidate candidate) {
+
+		Document document = documents[candidate.node()];
+		Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+		metadata.put(DocumentMetadata.DISTANCE.value(), 1 - candidate.score());
+
+		return Document.builder()
+				.id(document.getId())
+				.text(document.getText())
+				.metadata(metadata)
+				.score((double) candidate.score())
+				.build();
+	}
+
+	private int maxConnections(int level) {
+
+		return level == 0 ? maxConnectionsLevel0 : m;
+	}
+
+	private float[] vectorOf(int node) {
+
+		return Arrays.copyOfRange(vectors, node * dimensions, (node + 1) * dimensions);
+	}
+
+	private float similarity(float[] query, int node) {
+
+		int offset = node * dimensions;
+		float sum = 0;
+		for (int i = 0; i < dimensions; i++) {
+			sum += query[i] * vectors[offset + i];
+		}
+
+		return sum;
+	}
+
+	private static float[] normalize(float[] vector) {
+
+		double norm = 0;
+		for (float v : vector) {
+			norm += v * v;
+		}
+
+		float scale = norm == 0 ? 0 : (float) (1 / Math.sqrt(norm));
+		float[] normalized = new float[vector.length];
+		for (int i = 0; i < vector.length; i++) {
+			normalized[i] = vector[i] * scale;
+		}
+
+		return normalized;
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static byte[] readBytes(ByteBuffer buffer) {
+
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+
+		return bytes;
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+
+		return bytes;
+	}
+
+	private record Candidate(int node, float score) {
+	}
+
+	/**
+	 * @param contentVersion 建索引所用文档内容的版本
+	 * @param nodes 节点数，包含墓碑节点
+	 */
+	public record IndexHeader(int m, String model, int dimensions, String contentVersion, int nodes) {
+	}
+
+	public static final class HnswVectorStoreBuilder extends AbstractVectorStoreBuilder<HnswVectorStoreBuilder> {
+
+		private String model = "default";
+
+		private int m = 16;
+
+		private int efConstruction = 200;
+
+		private int efSearch = 64;
+
+		private long seed = 42;
+
+		private HnswVectorStoreBuilder(EmbeddingModel embeddingModel) {
+
+			super(embeddingModel);
+		}
+
+		/**
+		 * embedding 模型标识，写入索引文件头，模型不同的索引不会被加载
+		 */
+		public HnswVectorStoreBuilder model(String model) {
+
+			this.model = model;
+			return this;
+		}
+
+		/**
+		 * 每个节点在非 0 层的最大邻居数，第 0 层为 2 * m
+		 */
+		public HnswVectorStoreBuilder m(int m) {
+
+			this.m = m;
+			return this;
+		}
+
+		public HnswVectorStoreBuilder efConstruction(int efConstruction) {
+
+			this.efConstruction = efConstruction;
+			return this;
+		}
+
+		/**
+		 * 查询时第 0 层的候选集大小，越大召回越高、延迟越高；实际取 max(efSearch, topK)
+		 */
+		public HnswVectorStoreBuilder efSearch(int efSearch) {
+
+			this.efSearch = efSearch;
+			return this;
+		}
+
+		public HnswVectorStoreBuilder seed(long seed) {
+
+			this.seed = seed;
+			return this;
+		}
+
+		@Override
+		public HnswVectorStore build() {
+
+			return new HnswVectorStore(this);
+		}
+	}
+
+}
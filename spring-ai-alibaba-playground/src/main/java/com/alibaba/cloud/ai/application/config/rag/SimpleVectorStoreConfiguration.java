@@ -16,37 +16,133 @@
 
 package com.alibaba.cloud.ai.application.config.rag;
 
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class SimpleVectorStoreConfiguration {
 
+	private static final Logger logger = LoggerFactory.getLogger(SimpleVectorStoreConfiguration.class);
+
 	@Value("${spring.ai.alibaba.playground.bailian.enable:false}")
 	private Boolean enable;
 
+	@Value("${spring.ai.alibaba.playground.vector-store.ingest.max-tokens-per-batch:16000}")
+	private int maxTokensPerBatch;
+
+	@Value("${spring.ai.alibaba.playground.vector-store.ingest.max-in-flight-batches:4}")
+	private int maxInFlightBatches;
+
+	@Value("${spring.ai.alibaba.playground.vector-store.snapshot.enabled:true}")
+	private boolean snapshotEnabled;
+
+	@Value("${spring.ai.alibaba.playground.vector-store.hnsw.path:${user.dir}/rag/hnsw-index.bin}")
+	private String hnswIndexPath;
+
+	@Value("${spring.ai.alibaba.playground.vector-store.hnsw.m:16}")
+	private int hnswM;
+
+	@Value("${spring.ai.dashscope.embedding.options.model:text-embedding-v1}")
+	private String embeddingModelName;
+
 	@Bean
-	CommandLineRunner ingestTermOfServiceToVectorStore(VectorStoreDelegate vectorStoreDelegate) {
+	CommandLineRunner ingestTermOfServiceToVectorStore(
+			VectorStoreDelegate vectorStoreDelegate,
+			EmbeddingSnapshotStore embeddingSnapshotStore
+	) {
 		return args -> {
 			// 百炼知识库和向量存储初始化
 			// 如果未启用百炼知识库，则默认用向量存储服务
 			if (!enable) {
 				String type = System.getenv("VECTOR_STORE_TYPE");
+				VectorStore vectorStore = vectorStoreDelegate.getVectorStore(type);
 				VectorStoreInitializer initializer = new VectorStoreInitializer();
-				initializer.init(vectorStoreDelegate.getVectorStore(type));
+
+				String contentVersion = null;
+				if (vectorStore instanceof HnswVectorStore hnswVectorStore) {
+					contentVersion = initializer.contentVersion();
+					// hnsw 索引与当前模型、维度、文档内容一致时直接加载，否则重新写入
+					if (loadHnswIndex(hnswVectorStore, contentVersion, embeddingSnapshotStore.dimensions())) {
+						return;
+					}
+				}
+
+				VectorStoreIngestionPipeline pipeline = VectorStoreIngestionPipeline.builder()
+						.vectorStore(vectorStore)
+						.maxTokensPerBatch(maxTokensPerBatch)
+						.maxInFlightBatches(maxInFlightBatches)
+						.build();
+				initializer.init(pipeline);
+				embeddingSnapshotStore.flush();
+				if (snapshotEnabled) {
+					// 全量入库后，本次未用到的向量对应已删除或已修改的文档
+					embeddingSnapshotStore.compact();
+				}
+
+				if (vectorStore instanceof HnswVectorStore hnswVectorStore) {
+					hnswVectorStore.save(Path.of(hnswIndexPath), contentVersion);
+				}
 			}
 		};
 	}
 
+	private boolean loadHnswIndex(HnswVectorStore vectorStore, String contentVersion, int dimensions) {
+
+		Path indexPath = Path.of(hnswIndexPath);
+		HnswVectorStore.IndexHeader header = HnswVectorStore.readHeader(indexPath);
+		if (header == null) {
+			return false;
+		}
+
+		String reason = null;
+		if (!header.model().equals(embeddingModelName)) {
+			reason = "embedding model changed from " + header.model() + " to " + embeddingModelName;
+		}
+		else if (dimensions > 0 && header.dimensions() != dimensions) {
+			reason = "embedding dimensions changed from " + header.dimensions() + " to " + dimensions;
+		}
+		else if (!header.contentVersion().equals(contentVersion)) {
+			reason = "markdown documents changed";
+		}
+		else if (header.m() != hnswM) {
+			reason = "m changed from " + header.m() + " to " + hnswM;
+		}
+
+		if (reason != null) {
+			logger.info("Rebuild hnsw index {}: {}", indexPath, reason);
+			return false;
+		}
+
+		vectorStore.load(indexPath);
+		return true;
+	}
+
 	/**
-	 * 提供基于内存的向量存储（SimpleVectorStore）
+	 * embedding 快照文件，按 模型 + 维度 做版本区分，重启后未变化的 chunk 不再重新 embedding
+	 */
+	@Bean(destroyMethod = "close")
+	public EmbeddingSnapshotStore embeddingSnapshotStore(
+			@Value("${spring.ai.alibaba.playground.vector-store.snapshot.path:${user.dir}/rag/embedding-snapshot.bin}") String path,
+			@Value("${spring.ai.dashscope.embedding.options.model:text-embedding-v1}") String model
+	) {
+
+		return new EmbeddingSnapshotStore(Path.of(path), model);
+	}
+
+	/**
+	 * 提供基于内存的向量存储（FlatVectorStore，替代 SimpleVectorStore 的线性扫描实现）
 	 * <p>
 	 * 依赖 EmbeddingModel（自动注入，Alibaba 的嵌入模型）
 	 * @param embeddingModel
@@ -54,19 +150,49 @@ public class SimpleVectorStoreConfiguration {
 	 */
 	@Bean
 	public VectorStore simpleVectorStore(
-			@Qualifier("dashscopeEmbeddingModel") EmbeddingModel embeddingModel
+			@Qualifier("dashscopeEmbeddingModel") EmbeddingModel embeddingModel,
+			EmbeddingSnapshotStore embeddingSnapshotStore
 	) {
 
-		return SimpleVectorStore.builder(embeddingModel).build();
+		if (snapshotEnabled) {
+			embeddingModel = new SnapshotEmbeddingModel(embeddingModel, embeddingSnapshotStore);
+		}
+
+		return FlatVectorStore.builder(embeddingModel).build();
+	}
+
+	/**
+	 * 进程内 HNSW 向量存储，仅在 VECTOR_STORE_TYPE=hnsw 时创建，索引持久化在本地文件中，由启动时的初始化任务加载或重建
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "VECTOR_STORE_TYPE", havingValue = "hnsw")
+	public VectorStore hnswVectorStore(
+			@Qualifier("dashscopeEmbeddingModel") EmbeddingModel embeddingModel,
+			EmbeddingSnapshotStore embeddingSnapshotStore,
+			@Value("${spring.ai.alibaba.playground.vector-store.hnsw.ef-construction:200}") int efConstruction,
+			@Value("${spring.ai.alibaba.playground.vector-store.hnsw.ef-search:64}") int efSearch
+	) {
+
+		if (snapshotEnabled) {
+			embeddingModel = new SnapshotEmbeddingModel(embeddingModel, embeddingSnapshotStore);
+		}
+
+		return HnswVectorStore.builder(embeddingModel)
+				.model(embeddingModelName)
+				.m(hnswM)
+				.efConstruction(efConstruction)
+				.efSearch(efSearch)
+				.build();
 	}
 
 	@Bean
 	public VectorStoreDelegate vectorStoreDelegate(
 			@Qualifier("simpleVectorStore") VectorStore simpleVectorStore,
-			@Qualifier("analyticdbVectorStore") @Autowired(required = false) VectorStore analyticdbVectorStore
+			@Qualifier("analyticdbVectorStore") @Autowired(required = false) VectorStore analyticdbVectorStore,
+			@Qualifier("hnswVectorStore") @Autowired(required = false) VectorStore hnswVectorStore
 	) {
 
-		return new VectorStoreDelegate(simpleVectorStore, analyticdbVectorStore);
+		return new VectorStoreDelegate(simpleVectorStore, analyticdbVectorStore, hnswVectorStore);
 	}
 
 }
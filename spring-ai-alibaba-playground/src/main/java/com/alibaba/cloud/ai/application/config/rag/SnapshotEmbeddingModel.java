@@ -0,0 +1,170 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.util.Assert;
+
+/**
+ * 文档 embedding（{@link #embed(Document)} 与批量入库）先查 {@link EmbeddingSnapshotStore}，只有快照中不存在的文本
+ * 才会调用真实的 embedding 模型，使重启后的向量库初始化从 O(corpus) 次模型调用降为 O(delta)。
+ * <p>
+ * 单条与批量两条路径都以 {@link Document#getFormattedContent(MetadataMode)} 作为快照 key，并且未命中时交给模型的也是同一段文本，
+ * 同一文档不论从哪条路径写入，得到的 key 与向量都一致。
+ * <p>
+ * 检索时的查询文本（{@link #embed(String)}、{@link #call(EmbeddingRequest)}）直接交给 delegate，不写入快照。
+ */
+
+public class SnapshotEmbeddingModel implements EmbeddingModel {
+
+	private static final Logger logger = LoggerFactory.getLogger(SnapshotEmbeddingModel.class);
+
+	private final EmbeddingModel delegate;
+
+	private final EmbeddingSnapshotStore snapshotStore;
+
+	private final MetadataMode metadataMode;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	public SnapshotEmbeddingModel(EmbeddingModel delegate, EmbeddingSnapshotStore snapshotStore) {
+
+		this(delegate, snapshotStore, MetadataMode.EMBED);
+	}
+
+	public SnapshotEmbeddingModel(EmbeddingModel delegate, EmbeddingSnapshotStore snapshotStore,
+			MetadataMode metadataMode) {
+
+		Assert.notNull(delegate, "delegate must not be null");
+		Assert.notNull(snapshotStore, "snapshotStore must not be null");
+		Assert.notNull(metadataMode, "metadataMode must not be null");
+
+		this.delegate = delegate;
+		this.snapshotStore = snapshotStore;
+		this.metadataMode = metadataMode;
+	}
+
+	@Override
+	public float[] embed(Document document) {
+
+		String content = content(document);
+		EmbeddingSnapshotStore.ContentHash hash = EmbeddingSnapshotStore.hash(content);
+
+		float[] embedding = snapshotStore.get(hash);
+		if (embedding != null) {
+			hits.increment();
+			return embedding;
+		}
+
+		misses.increment();
+		embedding = delegate.embed(content);
+		snapshotStore.put(hash, embedding);
+
+		return embedding;
+	}
+
+	@Override
+	public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+
+		Assert.notNull(documents, "documents must not be null");
+
+		float[][] outputs = new float[documents.size()][];
+		EmbeddingSnapshotStore.ContentHash[] hashes = new EmbeddingSnapshotStore.ContentHash[documents.size()];
+
+		List<Document> missDocuments = new ArrayList<>();
+		List<Integer> missIndexes = new ArrayList<>();
+
+		for (int i = 0; i < documents.size(); i++) {
+			hashes[i] = EmbeddingSnapshotStore.hash(content(documents.get(i)));
+			outputs[i] = snapshotStore.get(hashes[i]);
+			if (outputs[i] == null) {
+				missDocuments.add(documents.get(i));
+				missIndexes.add(i);
+			}
+		}
+
+		hits.add(documents.size() - missDocuments.size());
+		misses.add(missDocuments.size());
+
+		if (!missDocuments.isEmpty()) {
+			int next = 0;
+			for (List<Document> batch : batchingStrategy.batch(missDocuments)) {
+				// 不使用 delegate 的默认批量实现（按 getText 计算），保证与快照 key 是同一段文本
+				EmbeddingResponse response = delegate.call(
+						new EmbeddingRequest(batch.stream().map(this::content).toList(), options));
+				Assert.state(response.getResults().size() == batch.size(),
+						"Embedding model returned " + response.getResults().size() + " results for " + batch.size() + " documents");
+				for (int i = 0; i < batch.size(); i++) {
+					int index = missIndexes.get(next++);
+					outputs[index] = response.getResults().get(i).getOutput();
+					snapshotStore.put(hashes[index], outputs[index]);
+				}
+			}
+		}
+
+		return List.of(outputs);
+	}
+
+	/**
+	 * 查询文本直接交给 delegate，不写入快照：快照只保存入库文档的向量，避免每次检索都追加文件并常驻内存。
+	 */
+	@Override
+	public float[] embed(String text) {
+
+		return delegate.embed(text);
+	}
+
+	@Override
+	public EmbeddingResponse call(EmbeddingRequest request) {
+
+		return delegate.call(request);
+	}
+
+	@Override
+	public int dimensions() {
+
+		int dimensions = snapshotStore.dimensions();
+		return dimensions > 0 ? dimensions : delegate.dimensions();
+	}
+
+	public void logStatistics() {
+
+		logger.info("Embedding snapshot statistics: hits={}, misses={}, snapshot size={}",
+				hits.sum(), misses.sum(), snapshotStore.size());
+	}
+
+	private String content(Document document) {
+
+		return document.getFormattedContent(metadataMode);
+	}
+
+}
@@ -26,9 +26,16 @@ public class VectorStoreDelegate {
 
 	private VectorStore analyticdbVectorStore;
 
+	private VectorStore hnswVectorStore;
+
 	public VectorStoreDelegate(VectorStore simpleVectorStore, VectorStore analyticdbVectorStore) {
+		this(simpleVectorStore, analyticdbVectorStore, null);
+	}
+
+	public VectorStoreDelegate(VectorStore simpleVectorStore, VectorStore analyticdbVectorStore, VectorStore hnswVectorStore) {
 		this.simpleVectorStore = simpleVectorStore;
 		this.analyticdbVectorStore = analyticdbVectorStore;
+		this.hnswVectorStore = hnswVectorStore;
 	}
 
 	public VectorStore getVectorStore(String vectorStoreType) {
@@ -37,6 +44,10 @@ public class VectorStoreDelegate {
 			return analyticdbVectorStore;
 		}
 
+		if (Objects.equals(vectorStoreType, "hnsw") && hnswVectorStore != null) {
+			return hnswVectorStore;
+		}
+
 		return simpleVectorStore;
 	}
 }
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.alibaba.cloud.ai.application.exception.SAAAppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentReader;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.transformer.splitter.TextSplitter;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * 向量库批量写入管道：
+ * <p>
+ * 1. 读取 + 切分：多个 reader 在线程池中并行执行，共用同一个（无状态的）TokenTextSplitter；
+ * 2. 切分结果写入有界队列，队列满时读取线程阻塞，形成背压；
+ * 3. 按 token 预算（而非固定条数）组装 embedding 批次；
+ * 4. 通过信号量限制同时发往 embedding 模型的批次数。
+ */
+
+public class VectorStoreIngestionPipeline {
+
+	private static final Logger logger = LoggerFactory.getLogger(VectorStoreIngestionPipeline.class);
+
+	/**
+	 * 队列结束标记，仅按引用比较。
+	 */
+	private static final Document END_OF_STREAM = new Document("__end_of_stream__");
+
+	private final VectorStore vectorStore;
+
+	private final TextSplitter textSplitter;
+
+	private final TokenCountEstimator tokenCountEstimator;
+
+	private final int readerThreads;
+
+	private final int maxTokensPerBatch;
+
+	private final int maxDocumentsPerBatch;
+
+	private final int maxInFlightBatches;
+
+	private final int queueCapacity;
+
+	private VectorStoreIngestionPipeline(Builder builder) {
+
+		Assert.notNull(builder.vectorStore, "vectorStore must not be null");
+		Assert.isTrue(builder.readerThreads > 0, "readerThreads must be greater than 0");
+		Assert.isTrue(builder.maxTokensPerBatch > 0, "maxTokensPerBatch must be greater than 0");
+		Assert.isTrue(builder.maxDocumentsPerBatch > 0, "maxDocumentsPerBatch must be greater than 0");
+		Assert.isTrue(builder.maxInFlightBatches > 0, "maxInFlightBatches must be greater than 0");
+		Assert.isTrue(builder.queueCapacity > 0, "queueCapacity must be greater than 0");
+
+		this.vectorStore = builder.vectorStore;
+		this.textSplitter = builder.textSplitter;
+		this.tokenCountEstimator = builder.tokenCountEstimator;
+		this.readerThreads = builder.readerThreads;
+		this.maxTokensPerBatch = builder.maxTokensPerBatch;
+		this.maxDocumentsPerBatch = builder.maxDocumentsPerBatch;
+		this.maxInFlightBatches = builder.maxInFlightBatches;
+		this.queueCapacity = builder.queueCapacity;
+	}
+
+	public IngestionReport ingest(List<? extends DocumentReader> readers) throws InterruptedException {
+
+		long start = System.nanoTime();
+
+		BlockingQueue<Document> queue = new ArrayBlockingQueue<>(queueCapacity);
+		AtomicInteger sourceDocuments = new AtomicInteger();
+		AtomicInteger failedReaders = new AtomicInteger();
+		AtomicReference<Throwable> embeddingFailure = new AtomicReference<>();
+
+		ExecutorService readExecutor = Executors.newFixedThreadPool(
+				Math.min(readerThreads, Math.max(1, readers.size())),
+				new CustomizableThreadFactory("vector-ingest-read-")
+		);
+		ExecutorService embedExecutor = Executors.newFixedThreadPool(
+				maxInFlightBatches,
+				new CustomizableThreadFactory("vector-ingest-embed-")
+		);
+		Semaphore inFlight = new Semaphore(maxInFlightBatches);
+
+		int chunks = 0;
+		int batches = 0;
+
+		try {
+			// stage 1 + 2: 并行读取与切分，put 在队列满时阻塞
+			CompletableFuture<?>[] readTasks = readers.stream()
+					.map(reader -> CompletableFuture.runAsync(() -> {
+						try {
+							List<Document> documents = reader.get();
+							sourceDocuments.addAndGet(documents.size());
+							for (Document chunk : textSplitter.apply(documents)) {
+								queue.put(chunk);
+							}
+						}
+						catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						catch (RuntimeException e) {
+							failedReaders.incrementAndGet();
+							logger.warn("Failed to read or split documents from {}: {}", reader, e.getMessage());
+						}
+					}, readExecutor))
+					.toArray(CompletableFuture[]::new);
+
+			// 异步投递结束标记，避免在队列已满时阻塞当前（消费）线程
+			CompletableFuture.allOf(readTasks).whenCompleteAsync((unused, ex) -> {
+				try {
+					queue.put(END_OF_STREAM);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, readExecutor);
+
+			// stage 3: 按 token 预算组批，stage 4: 限流提交
+			List<Document> batch = new ArrayList<>(maxDocumentsPerBatch);
+			int batchTokens = 0;
+
+			for (Document chunk = queue.take(); chunk != END_OF_STREAM; chunk = queue.take()) {
+
+				if (embeddingFailure.get() != null) {
+					// embedding 已失败，仅继续消费队列以释放读取线程
+					continue;
+				}
+
+				int tokens = tokenCountEstimator.estimate(chunk.getText());
+				if (!batch.isEmpty() && (batchTokens + tokens > maxTokensPerBatch || batch.size() >= maxDocumentsPerBatch)) {
+					submit(batch, embedExecutor, inFlight, embeddingFailure);
+					batches++;
+					batch = new ArrayList<>(maxDocumentsPerBatch);
+					batchTokens = 0;
+				}
+
+				batch.add(chunk);
+				batchTokens += tokens;
+				chunks++;
+			}
+
+			if (!batch.isEmpty() && embeddingFailure.get() == null) {
+				submit(batch, embedExecutor, inFlight, embeddingFailure);
+				batches++;
+			}
+
+			// 等待所有在途批次完成
+			inFlight.acquire(maxInFlightBatches);
+			inFlight.release(maxInFlightBatches);
+		}
+		finally {
+			readExecutor.shutdownNow();
+			embedExecutor.shutdown();
+			embedExecutor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+
+		if (embeddingFailure.get() != null) {
+			throw new SAAAppException("Failed to add documents to vector store: " + embeddingFailure.get().getMessage());
+		}
+
+		IngestionReport report = new IngestionReport(
+				readers.size(), failedReaders.get(), sourceDocuments.get(), chunks, batches, System.nanoTime() - start
+		);
+		logger.info("Vector store ingestion finished: {}", report);
+
+		return report;
+	}
+
+	private void submit(
+			List<Document> batch,
+			ExecutorService embedExecutor,
+			Semaphore inFlight,
+			AtomicReference<Throwable> embeddingFailure
+	) throws InterruptedException {
+
+		inFlight.acquire();
+		try {
+			embedExecutor.execute(() -> {
+				try {
+					vectorStore.add(batch);
+				}
+				catch (Throwable e) {
+					embeddingFailure.compareAndSet(null, e);
+				}
+				finally {
+					inFlight.release();
+				}
+			});
+		}
+		catch (RuntimeException e) {
+			inFlight.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param readers 读取源数量
+	 * @param failedReaders 读取或切分失败的源数量
+	 * @param documents 读取到的原始文档数
+	 * @param chunks 切分后写入向量库的文档数（即 embedding 数）
+	 * @param batches embedding 批次数
+	 * @param elapsedNanos 总耗时
+	 */
+	public record IngestionReport(int readers, int failedReaders, int documents, int chunks, int batches,
+			long elapsedNanos) {
+
+		public double documentsPerSecond() {
+			return perSecond(documents);
+		}
+
+		public double embeddingsPerSecond() {
+			return perSecond(chunks);
+		}
+
+		private double perSecond(int count) {
+			return elapsedNanos == 0 ? 0 : count * 1_000_000_000D / elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("readers=%d (failed=%d), documents=%d, embeddings=%d, batches=%d, elapsed=%dms, "
+							+ "docs/s=%.2f, embeddings/s=%.2f",
+					readers, failedReaders, documents, chunks, batches, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+					documentsPerSecond(), embeddingsPerSecond());
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+
+		private VectorStore vectorStore;
+
+		private TextSplitter textSplitter = new TokenTextSplitter(2000, 1024, 10, 10000, true);
+
+		private TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+		private int readerThreads = Runtime.getRuntime().availableProcessors();
+
+		private int maxTokensPerBatch = 16_000;
+
+		// DashScope text-embedding 单次请求最多 25 条
+		private int maxDocumentsPerBatch = 25;
+
+		private int maxInFlightBatches = 4;
+
+		private int queueCapacity = 256;
+
+		public Builder vectorStore(VectorStore vectorStore) {
+
+			this.vectorStore = vectorStore;
+			return this;
+		}
+
+		public Builder textSplitter(TextSplitter textSplitter) {
+
+			this.textSplitter = textSplitter;
+			return this;
+		}
+
+		public Builder tokenCountEstimator(TokenCountEstimator tokenCountEstimator) {
+
+			this.tokenCountEstimator = tokenCountEstimator;
+			return this;
+		}
+
+		public Builder readerThreads(int readerThreads) {
+
+			this.readerThreads = readerThreads;
+			return this;
+		}
+
+		public Builder maxTokensPerBatch(int maxTokensPerBatch) {
+
+			this.maxTokensPerBatch = maxTokensPerBatch;
+			return this;
+		}
+
+		public Builder maxDocumentsPerBatch(int maxDocumentsPerBatch) {
+
+			this.maxDocumentsPerBatch = maxDocumentsPerBatch;
+			return this;
+		}
+
+		public Builder maxInFlightBatches(int maxInFlightBatches) {
+
+			this.maxInFlightBatches = maxInFlightBatches;
+			return this;
+		}
+
+		public Builder queueCapacity(int queueCapacity) {
+
+			this.queueCapacity = queueCapacity;
+			return this;
+		}
+
+		public VectorStoreIngestionPipeline build() {
+
+			return new VectorStoreIngestionPipeline(this);
+		}
+	}
+
+}
@@ -17,10 +17,16 @@
 package com.alibaba.cloud.ai.application.config.rag;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -28,10 +34,10 @@ import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.springframework.ai.document.Document;
 import org.springframework.ai.reader.markdown.MarkdownDocumentReader;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
 
 /**
  * @author yuluo
@@ -42,31 +48,53 @@ public class VectorStoreInitializer {
 	private final Logger logger = LoggerFactory.getLogger(VectorStoreInitializer.class);
 
 	public void init(VectorStore vectorStore) throws Exception {
-		List<MarkdownDocumentReader> markdownDocumentReaderList = loadMarkdownDocuments();
 
-		int size = 0;
+		init(VectorStoreIngestionPipeline.builder().vectorStore(vectorStore).build());
+	}
+
+	public void init(VectorStoreIngestionPipeline pipeline) throws Exception {
+		List<MarkdownDocumentReader> markdownDocumentReaderList = markdownLocations().stream()
+				.map(MarkdownDocumentReader::new)
+				.collect(Collectors.toList());
+
 		if (markdownDocumentReaderList.isEmpty()) {
 			logger.warn("No markdown documents found in the directory.");
 			return;
 		}
 
 		logger.debug("Start to load markdown documents into vector store......");
-		for (MarkdownDocumentReader markdownDocumentReader : markdownDocumentReaderList) {
-			List<Document> documents = new TokenTextSplitter(2000, 1024, 10, 10000, true).transform(markdownDocumentReader.get());
-			size += documents.size();
-
-			// 拆分 documents 列表为最大 25 个元素的子列表
-			for (int i = 0; i < documents.size(); i += 25) {
-				int end = Math.min(i + 25, documents.size());
-				List<Document> subList = documents.subList(i, end);
-				vectorStore.add(subList);
+		VectorStoreIngestionPipeline.IngestionReport report = pipeline.ingest(markdownDocumentReaderList);
+		logger.debug("Load markdown documents into vector store successfully. Load {} documents.", report.chunks());
+	}
+
+	/**
+	 * 待写入向量库的 markdown 文件名称与内容的 sha-256，文件增删或内容变化时改变，用于判断持久化的索引是否过期。
+	 */
+	public String contentVersion() throws IOException, URISyntaxException {
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		ResourceLoader resourceLoader = new DefaultResourceLoader();
+		for (String location : markdownLocations()) {
+			digest.update(location.getBytes(StandardCharsets.UTF_8));
+			try (InputStream in = resourceLoader.getResource(location).getInputStream()) {
+				byte[] content = in.readAllBytes();
+				digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(content.length).array());
+				digest.update(content);
 			}
 		}
-		logger.debug("Load markdown documents into vector store successfully. Load {} documents.", size);
+
+		return HexFormat.of().formatHex(digest.digest());
 	}
 
-	private List<MarkdownDocumentReader> loadMarkdownDocuments() throws IOException, URISyntaxException {
-		List<MarkdownDocumentReader> readers;
+	private List<String> markdownLocations() throws IOException, URISyntaxException {
+		List<String> locations;
 		
 		// 首先检查jar包当前运行目录是否存在markdown文件
 		Path currentDirPath = Paths.get(System.getProperty("user.dir"), "rag", "markdown");
@@ -77,17 +105,15 @@ public class VectorStoreInitializer {
 			try (Stream<Path> paths = Files.walk(currentDirPath)) {
 				List<Path> markdownFiles = paths.filter(Files::isRegularFile)
 						.filter(path -> path.toString().endsWith(".md"))
+						.sorted()
 						.collect(Collectors.toList());
 				
 				if (!markdownFiles.isEmpty()) {
 					logger.debug("Loading {} markdown files from current directory", markdownFiles.size());
-					readers = markdownFiles.stream()
-							.map(path -> {
-								String filePath = path.toAbsolutePath().toString();
-								return new MarkdownDocumentReader("file:" + filePath);
-							})
+					locations = markdownFiles.stream()
+							.map(path -> "file:" + path.toAbsolutePath())
 							.collect(Collectors.toList());
-					return readers;
+					return locations;
 				} else {
 					logger.debug("No markdown files found in current directory, falling back to resources");
 				}
@@ -101,17 +127,14 @@ public class VectorStoreInitializer {
 		logger.debug("Loading markdown files from resources directory: {}", markdownDir);
 
 		try (Stream<Path> paths = Files.walk(markdownDir)) {
-			readers = paths.filter(Files::isRegularFile)
+			locations = paths.filter(Files::isRegularFile)
 					.filter(path -> path.toString().endsWith(".md"))
-					.map(path -> {
-						String fileName = path.getFileName().toString();
-						String classpathPath = "classpath:rag/markdown/" + fileName;
-						return new MarkdownDocumentReader(classpathPath);
-					})
+					.sorted()
+					.map(path -> "classpath:rag/markdown/" + path.getFileName())
 					.collect(Collectors.toList());
 		}
 
-		return readers;
+		return locations;
 	}
 
 }
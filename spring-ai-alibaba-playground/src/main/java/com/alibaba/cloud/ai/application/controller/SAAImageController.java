@@ -20,12 +20,15 @@ import com.alibaba.cloud.ai.application.entity.result.Result;
 import com.alibaba.cloud.ai.application.service.SAAImageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import reactor.core.publisher.Flux;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -77,13 +80,15 @@ public class SAAImageController {
 	@GetMapping("/text2image")
 	@Operation(summary = "DashScope Image Generation")
 	public Result<Void> text2Image(
+			HttpServletRequest request,
 			HttpServletResponse response,
 			@Validated @RequestParam("prompt") String prompt,
 			@RequestParam(value = "style", required = false, defaultValue = DEFAULT_IMAGE_STYLE) String style,
-			@RequestParam(value = "resolution", required = false, defaultValue = "1080*1080") String resolution
+			@RequestParam(value = "resolution", required = false, defaultValue = "1080*1080") String resolution,
+			@RequestHeader(value = HttpHeaders.RANGE, required = false) String range
 	) {
 
-		imageService.text2Image(prompt, resolution, style, response);
+		imageService.text2Image(prompt, resolution, style, range, request, response);
 		return Result.success();
 	}
 
@@ -16,7 +16,6 @@
 
 package com.alibaba.cloud.ai.application.controller;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,12 +23,13 @@ import java.util.Map;
 import com.alibaba.cloud.ai.application.entity.mcp.McpServer;
 import com.alibaba.cloud.ai.application.entity.result.Result;
 import com.alibaba.cloud.ai.application.entity.tools.ToolCallResp;
-import com.alibaba.cloud.ai.application.exception.SAAAppException;
 import com.alibaba.cloud.ai.application.mcp.McpServerContainer;
 import com.alibaba.cloud.ai.application.service.SAAMcpService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.publisher.Flux;
 
+import org.springframework.http.MediaType;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -80,6 +80,25 @@ public class SAAMcpController {
 			@RequestParam(value = "envs", required = false) String envs
 	) {
 
+		return Result.success(mcpService.run(id, parseEnvs(envs), prompt));
+	}
+
+	/**
+	 * 流式返回工具执行进度，最后一个事件为所有工具执行结果的汇总。
+	 */
+	@PostMapping(value = "/mcp-run/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@Operation(summary = "MCP Run Stream")
+	public Flux<ToolCallResp> mcpRunStream(
+			@Validated @RequestParam("id") String id,
+			@Validated @RequestParam("prompt") String prompt,
+			@RequestParam(value = "envs", required = false) String envs
+	) {
+
+		return mcpService.runStream(id, parseEnvs(envs), prompt);
+	}
+
+	private static Map<String, String> parseEnvs(String envs) {
+
 		Map<String, String> env = new HashMap<>();
 		if (StringUtils.hasText(envs)) {
 			for (String entry : envs.split(",")) {
@@ -90,12 +109,7 @@ public class SAAMcpController {
 			}
 		}
 
-		try {
-			return Result.success(mcpService.run(id, env, prompt));
-		}
-		catch (IOException e) {
-			throw new SAAAppException(e.getMessage());
-		}
+		return env;
 	}
-}
 
+}
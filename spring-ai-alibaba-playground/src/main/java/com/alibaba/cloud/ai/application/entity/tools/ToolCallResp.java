@@ -16,6 +16,7 @@
 
 package com.alibaba.cloud.ai.application.entity.tools;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 /**
@@ -30,6 +31,16 @@ public class ToolCallResp {
 	 */
 	private ToolState status;
 
+	/**
+	 * 模型返回的 Tool Call id，用于关联同一轮中的多个工具调用
+	 */
+	private String toolCallId;
+
+	/**
+	 * 工具调用在同一轮回复中的序号（从 0 开始），模型返回的 id 可能为空或重复，汇总结果时按序号关联
+	 */
+	private Integer toolCallIndex;
+
 	/**
 	 * Tool Name
 	 */
@@ -66,7 +77,7 @@ public class ToolCallResp {
 	private String toolInput;
 
 	/**
-	 * 工具执行耗时
+	 * 工具执行耗时（毫秒）
 	 */
 	private Long toolCostTime;
 	/**
@@ -101,6 +112,22 @@ public class ToolCallResp {
 		this.status = status;
 	}
 
+	public String getToolCallId() {
+		return toolCallId;
+	}
+
+	public void setToolCallId(String toolCallId) {
+		this.toolCallId = toolCallId;
+	}
+
+	public Integer getToolCallIndex() {
+		return toolCallIndex;
+	}
+
+	public void setToolCallIndex(Integer toolCallIndex) {
+		this.toolCallIndex = toolCallIndex;
+	}
+
 	public String getToolName() {
 		return toolName;
 	}
@@ -177,6 +204,8 @@ public class ToolCallResp {
 	public String toString() {
 		return "ToolCallResp{" +
 				"status=" + status +
+				", toolCallId='" + toolCallId + '\'' +
+				", toolCallIndex=" + toolCallIndex +
 				", toolName='" + toolName + '\'' +
 				", toolParameters='" + toolParameters + '\'' +
 				", toolResult='" + toolResult + '\'' +
@@ -213,9 +242,7 @@ public class ToolCallResp {
 		res.setToolResult(toolResult);
 		res.setToolEndTime(LocalDateTime.now());
 		res.setStatus(status);
-		res.setToolCostTime(
-				(long) (res.getToolEndTime().getNano() - toolStartTime.getNano())
-		);
+		res.setToolCostTime(Duration.between(toolStartTime, res.getToolEndTime()).toMillis());
 
 		return res;
 	}
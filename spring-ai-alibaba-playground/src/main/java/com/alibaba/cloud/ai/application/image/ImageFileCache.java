@@ -0,0 +1,280 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * 文生图结果的本地磁盘缓存，以 (prompt, resolution, style, model) 的 sha-256 作为文件名（内容寻址）。
+ * <p>
+ * 1. 未命中时边下载边写入响应和临时文件，使用固定大小的缓冲区，图片不会整体驻留堆内存；
+ *    下载完成后原子重命名为缓存文件，失败时删除临时文件；
+ * 2. 命中时由调用方通过 {@link #cachedFile(String)} 交给容器的 sendfile 发送（零拷贝），容器不支持 sendfile 时
+ *    通过 {@link #transferTo} 以 FileChannel 读取并写入响应流（用户态复制），两种方式都支持指定字节范围；
+ * 3. 按访问顺序 LRU 淘汰，缓存文件总大小超过上限时删除最久未访问的文件，启动时按修改时间恢复已有文件。
+ */
+
+public class ImageFileCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ImageFileCache.class);
+
+	private static final String FILE_SUFFIX = ".img";
+
+	private static final String TMP_SUFFIX = ".tmp";
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private final Path directory;
+
+	private final long maxBytes;
+
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+	private long usedBytes;
+
+	public ImageFileCache(Path directory, long maxBytes) throws IOException {
+
+		Assert.notNull(directory, "directory must not be null");
+		Assert.isTrue(maxBytes > 0, "maxBytes must be greater than 0");
+
+		this.directory = Files.createDirectories(directory);
+		this.maxBytes = maxBytes;
+
+		restore();
+	}
+
+	public static String key(String prompt, String resolution, String style, String model) {
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		for (String value : new String[] { prompt, resolution, style, model }) {
+			// 长度前缀避免不同字段拼接后产生相同的字节序列
+			byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+			digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value != null ? bytes.length : -1).array());
+			digest.update(bytes);
+		}
+
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * @return 缓存文件的大小，未命中时返回 empty
+	 */
+	public Optional<Long> size(String key) {
+
+		synchronized (entries) {
+			return Optional.ofNullable(entries.get(key));
+		}
+	}
+
+	/**
+	 * 缓存文件的路径，供容器 sendfile 使用。文件在请求结束后才由容器打开，期间被淘汰时容器发送失败并关闭连接。
+	 * @return 缓存文件，未命中或文件已被删除时返回 empty
+	 */
+	public Optional<Path> cachedFile(String key) {
+
+		Path file = file(key);
+		synchronized (entries) {
+			if (!entries.containsKey(key)) {
+				return Optional.empty();
+			}
+			if (Files.isRegularFile(file)) {
+				return Optional.of(file);
+			}
+			Long size = entries.remove(key);
+			usedBytes -= size;
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * 将缓存文件中 [position, position + count) 范围的内容复制到输出流。输出流不是 {@link FileChannel}，
+	 * 因此 transferTo 退化为经由用户态缓冲区的复制，能直接交给容器 sendfile 时应优先使用 {@link #cachedFile(String)}。
+	 * @return 是否命中，文件已被淘汰时返回 false
+	 */
+	public boolean transferTo(String key, long position, long count, OutputStream out) throws IOException {
+
+		Path file = file(key);
+
+		FileChannel channel;
+		try {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+		}
+		catch (NoSuchFileException e) {
+			synchronized (entries) {
+				Long size = entries.remove(key);
+				if (size != null) {
+					usedBytes -= size;
+				}
+			}
+			return false;
+		}
+
+		// 文件已打开，之后即使被淘汰删除也可以继续读取
+		try (channel) {
+			WritableByteChannel target = Channels.newChannel(out);
+			long end = position + count;
+			while (position < end) {
+				long transferred = channel.transferTo(position, end - position, target);
+				if (transferred <= 0) {
+					break;
+				}
+				position += transferred;
+			}
+		}
+		out.flush();
+
+		return true;
+	}
+
+	/**
+	 * 将输入流同时写入输出流与缓存文件，全部成功后加入缓存。
+	 * @return 写入的字节数
+	 */
+	public long copyAndStore(String key, InputStream in, OutputStream out) throws IOException {
+
+		Path tmp = directory.resolve(key + "-" + UUID.randomUUID() + TMP_SUFFIX);
+		long size = 0;
+
+		try {
+			try (OutputStream fileOut = Files.newOutputStream(tmp)) {
+				byte[] buffer = new byte[BUFFER_SIZE];
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					out.write(buffer, 0, read);
+					fileOut.write(buffer, 0, read);
+					size += read;
+				}
+			}
+			out.flush();
+
+			Files.move(tmp, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+
+		add(key, size);
+
+		return size;
+	}
+
+	private void add(String key, long size) {
+
+		synchronized (entries) {
+			Long previous = entries.put(key, size);
+			usedBytes += size - (previous != null ? previous : 0);
+
+			Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+			while (usedBytes > maxBytes && iterator.hasNext()) {
+				Map.Entry<String, Long> eldest = iterator.next();
+				if (eldest.getKey().equals(key)) {
+					continue;
+				}
+
+				iterator.remove();
+				usedBytes -= eldest.getValue();
+				delete(file(eldest.getKey()));
+			}
+		}
+	}
+
+	private void restore() throws IOException {
+
+		try (Stream<Path> files = Files.list(directory)) {
+			files.filter(Files::isRegularFile)
+					.sorted(Comparator.comparing(ImageFileCache::lastModified))
+					.forEach(file -> {
+						String fileName = file.getFileName().toString();
+						if (fileName.endsWith(TMP_SUFFIX)) {
+							// 上次进程退出时未完成的下载
+							delete(file);
+						}
+						else if (fileName.endsWith(FILE_SUFFIX)) {
+							try {
+								add(fileName.substring(0, fileName.length() - FILE_SUFFIX.length()), Files.size(file));
+							}
+							catch (IOException e) {
+								logger.warn("Failed to restore image cache file: {}", file, e);
+							}
+						}
+					});
+		}
+
+		logger.info("Init image cache: {}, {} files, {} bytes", directory, entries.size(), usedBytes);
+	}
+
+	private Path file(String key) {
+
+		return directory.resolve(key + FILE_SUFFIX);
+	}
+
+	private static long lastModified(Path file) {
+
+		try {
+			return Files.getLastModifiedTime(file).toMillis();
+		}
+		catch (IOException e) {
+			return 0L;
+		}
+	}
+
+	private static void delete(Path file) {
+
+		try {
+			Files.deleteIfExists(file);
+		}
+		catch (IOException e) {
+			logger.warn("Failed to delete image cache file: {}", file, e);
+		}
+	}
+
+}
@@ -0,0 +1,455 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.mcp;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.alibaba.cloud.ai.application.exception.SAAAppException;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.json.McpJsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.util.Assert;
+
+/**
+ * MCP stdio client 连接池，避免每次运行 MCP Server 都重新启动进程：
+ * <p>
+ * 1. 以 server name + 启动参数（command、args、env）哈希为 key，相同配置的请求复用同一个已初始化的 client（stdio 上的 JSON-RPC 支持并发请求）；
+ * 2. 相同 key 的并发创建只会启动一个进程；
+ * 3. 定时对空闲 client 执行 ping 健康检查，失败或空闲超时的 client 会被关闭；
+ * 4. 存活的 client 数量达到 maxInstances 时，关闭最久未使用的空闲 client，全部在使用中时拒绝创建。
+ */
+
+public class McpClientPool implements Disposable {
+
+	private static final Logger logger = LoggerFactory.getLogger(McpClientPool.class);
+
+	private final int maxInstances;
+
+	private final Duration idleTimeout;
+
+	private final Function<ServerParameters, McpSyncClient> clientFactory;
+
+	private final Map<Key, CompletableFuture<PooledClient>> clients = new ConcurrentHashMap<>();
+
+	private final Scheduler scheduler;
+
+	private final Disposable healthCheckTask;
+
+	private McpClientPool(Builder builder) {
+
+		Assert.isTrue(builder.maxInstances > 0, "maxInstances must be greater than 0");
+		Assert.isTrue(builder.idleTimeout != null && !builder.idleTimeout.isNegative() && !builder.idleTimeout.isZero(),
+				"idleTimeout must be positive");
+		Assert.isTrue(builder.healthCheckInterval != null && !builder.healthCheckInterval.isNegative()
+				&& !builder.healthCheckInterval.isZero(), "healthCheckInterval must be positive");
+		Assert.isTrue(builder.requestTimeout != null && !builder.requestTimeout.isNegative()
+				&& !builder.requestTimeout.isZero(), "requestTimeout must be positive");
+
+		this.maxInstances = builder.maxInstances;
+		this.idleTimeout = builder.idleTimeout;
+		this.clientFactory = builder.clientFactory != null
+				? builder.clientFactory : stdioClientFactory(builder.requestTimeout);
+		// ping 与 close 均为阻塞调用，不能使用 non-blocking 的 single scheduler
+		this.scheduler = Schedulers.newBoundedElastic(1, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE,
+				"mcp-client-pool", 60, true);
+		this.healthCheckTask = scheduler.schedulePeriodically(this::healthCheck,
+				builder.healthCheckInterval.toMillis(), builder.healthCheckInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 获取对应配置的 client，使用完毕后必须关闭返回的 {@link Lease}。
+	 */
+	public Lease acquire(String serverName, ServerParameters parameters) {
+
+		Assert.hasText(serverName, "serverName must not be empty");
+		Assert.notNull(parameters, "parameters must not be null");
+
+		Key key = new Key(serverName, parametersHash(parameters));
+
+		while (true) {
+			CompletableFuture<PooledClient> future = clients.get(key);
+			if (future == null) {
+				makeRoom(key);
+
+				// 相同 key 只有一个请求负责启动进程，其它请求等待该进程初始化完成
+				CompletableFuture<PooledClient> created = new CompletableFuture<>();
+				future = clients.putIfAbsent(key, created);
+				if (future == null) {
+					future = created;
+					try {
+						created.complete(create(key, parameters));
+					}
+					catch (RuntimeException e) {
+						// 创建失败不缓存，下一次请求重新创建
+						clients.remove(key, created);
+						created.completeExceptionally(e);
+					}
+				}
+			}
+
+			PooledClient client;
+			try {
+				client = future.join();
+			}
+			catch (CompletionException e) {
+				throw e.getCause() instanceof RuntimeException re ? re : new SAAAppException(e.getMessage());
+			}
+
+			if (client.retain()) {
+				return new Lease(client);
+			}
+
+			// client 已被健康检查或淘汰关闭，移除后重试
+			clients.remove(key, future);
+		}
+	}
+
+	public int size() {
+
+		return clients.size();
+	}
+
+	private PooledClient create(Key key, ServerParameters parameters) {
+
+		long start = System.nanoTime();
+		McpSyncClient client = clientFactory.apply(parameters);
+
+		try {
+			client.initialize();
+			ToolCallback[] toolCallbacks = SyncMcpToolCallbackProvider.builder()
+					.mcpClients(client)
+					.build()
+					.getToolCallbacks();
+
+			logger.info("Started MCP client for server: {} in {}ms, tools: {}", key.serverName(),
+					Duration.ofNanos(System.nanoTime() - start).toMillis(), toolCallbacks.length);
+
+			return new PooledClient(key, client, toolCallbacks);
+		}
+		catch (RuntimeException e) {
+			closeQuietly(key, client);
+			throw new SAAAppException("Failed to start MCP server: " + key.serverName() + ", " + e.getMessage());
+		}
+	}
+
+	/**
+	 * 达到上限时淘汰最久未使用的空闲 client，并发创建时可能短暂超出上限。
+	 */
+	private void makeRoom(Key incoming) {
+
+		while (clients.size() >= maxInstances) {
+			PooledClient eldest = null;
+			for (CompletableFuture<PooledClient> future : clients.values()) {
+				PooledClient candidate = future.getNow(null);
+				if (candidate != null && candidate.isIdle()
+						&& (eldest == null || candidate.lastUsed < eldest.lastUsed)) {
+					eldest = candidate;
+				}
+			}
+
+			if (eldest == null) {
+				throw new SAAAppException("MCP client pool exhausted, max instances: " + maxInstances
+						+ ", server: " + incoming.serverName());
+			}
+
+			logger.debug("Evicting MCP client for server: {} to make room", eldest.key.serverName());
+			evict(eldest);
+		}
+	}
+
+	private void healthCheck() {
+
+		long now = System.nanoTime();
+
+		for (CompletableFuture<PooledClient> future : clients.values()) {
+			PooledClient client = future.getNow(null);
+			if (client == null || !client.isIdle()) {
+				continue;
+			}
+
+			if (now - client.lastUsed > idleTimeout.toNanos()) {
+				logger.debug("MCP client for server: {} idle for more than {}, closing", client.key.serverName(),
+						idleTimeout);
+				evict(client);
+				continue;
+			}
+
+			try {
+				client.client.ping();
+			}
+			catch (RuntimeException e) {
+				logger.warn("MCP client for server: {} failed health check, closing: {}", client.key.serverName(),
+						e.getMessage());
+				evict(client);
+			}
+		}
+	}
+
+	private void evict(PooledClient client) {
+
+		// 只关闭没有请求在使用的 client
+		if (client.markClosing()) {
+			clients.computeIfPresent(client.key, (k, v) -> v.getNow(null) == client ? null : v);
+			closeQuietly(client.key, client.client);
+		}
+	}
+
+	private static void closeQuietly(Key key, McpSyncClient client) {
+
+		try {
+			client.closeGracefully();
+		}
+		catch (RuntimeException e) {
+			logger.debug("Failed to close MCP client for server: {}", key.serverName(), e);
+		}
+	}
+
+	private static Function<ServerParameters, McpSyncClient> stdioClientFactory(Duration requestTimeout) {
+
+		return parameters -> McpClient.sync(new StdioClientTransport(parameters, McpJsonMapper.getDefault()))
+				.requestTimeout(requestTimeout)
+				.build();
+	}
+
+	/**
+	 * env 按 key 排序后计算哈希，仅用于区分配置，不在日志中暴露 token 等敏感信息。
+	 * 包含 command 与 args，配置文件热更新后会启动新的进程。
+	 */
+	private static String parametersHash(ServerParameters parameters) {
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		update(digest, parameters.getCommand());
+		for (String arg : parameters.getArgs()) {
+			update(digest, arg);
+		}
+
+		Map<String, String> env = parameters.getEnv();
+		if (env != null) {
+			new TreeMap<>(env).forEach((name, value) -> {
+				update(digest, name);
+				update(digest, Objects.toString(value, ""));
+			});
+		}
+
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, String value) {
+
+		digest.update(Objects.toString(value, "").getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	@Override
+	public void dispose() {
+
+		healthCheckTask.dispose();
+		clients.values().forEach(future -> {
+			PooledClient client = future.getNow(null);
+			if (client != null) {
+				closeQuietly(client.key, client.client);
+			}
+		});
+		clients.clear();
+		scheduler.dispose();
+	}
+
+	@Override
+	public boolean isDisposed() {
+
+		return scheduler.isDisposed();
+	}
+
+	private record Key(String serverName, String parametersHash) {
+	}
+
+	private static final class PooledClient {
+
+		private final Key key;
+
+		private final McpSyncClient client;
+
+		private final ToolCallback[] toolCallbacks;
+
+		// 正在使用的请求数，-1 表示已关闭
+		private final AtomicInteger leases = new AtomicInteger();
+
+		private volatile long lastUsed = System.nanoTime();
+
+		private PooledClient(Key key, McpSyncClient client, ToolCallback[] toolCallbacks) {
+			this.key = key;
+			this.client = client;
+			this.toolCallbacks = toolCallbacks;
+		}
+
+		private boolean retain() {
+
+			int current;
+			do {
+				current = leases.get();
+				if (current < 0) {
+					return false;
+				}
+			}
+			while (!leases.compareAndSet(current, current + 1));
+
+			lastUsed = System.nanoTime();
+			return true;
+		}
+
+		private void release() {
+
+			lastUsed = System.nanoTime();
+			leases.decrementAndGet();
+		}
+
+		private boolean isIdle() {
+
+			return leases.get() == 0;
+		}
+
+		private boolean markClosing() {
+
+			return leases.compareAndSet(0, -1);
+		}
+	}
+
+	/**
+	 * 一次使用 client 的凭证，关闭后 client 归还到连接池。
+	 */
+	public static final class Lease implements AutoCloseable {
+
+		private final PooledClient client;
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Lease(PooledClient client) {
+			this.client = client;
+		}
+
+		public String serverName() {
+
+			return client.key.serverName();
+		}
+
+		public McpSyncClient client() {
+
+			return client.client;
+		}
+
+		public ToolCallback[] toolCallbacks() {
+
+			return client.toolCallbacks;
+		}
+
+		@Override
+		public void close() {
+
+			if (released.compareAndSet(false, true)) {
+				client.release();
+			}
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+
+		private int maxInstances = 8;
+
+		private Duration idleTimeout = Duration.ofMinutes(10);
+
+		private Duration healthCheckInterval = Duration.ofSeconds(30);
+
+		private Duration requestTimeout = Duration.ofSeconds(60);
+
+		private Function<ServerParameters, McpSyncClient> clientFactory;
+
+		public Builder maxInstances(int maxInstances) {
+
+			this.maxInstances = maxInstances;
+			return this;
+		}
+
+		public Builder idleTimeout(Duration idleTimeout) {
+
+			this.idleTimeout = idleTimeout;
+			return this;
+		}
+
+		public Builder healthCheckInterval(Duration healthCheckInterval) {
+
+			this.healthCheckInterval = healthCheckInterval;
+			return this;
+		}
+
+		public Builder requestTimeout(Duration requestTimeout) {
+
+			this.requestTimeout = requestTimeout;
+			return this;
+		}
+
+		/**
+		 * 默认使用 stdio transport 启动 MCP Server 进程。
+		 */
+		public Builder clientFactory(Function<ServerParameters, McpSyncClient> clientFactory) {
+
+			this.clientFactory = clientFactory;
+			return this;
+		}
+
+		public McpClientPool build() {
+
+			return new McpClientPool(this);
+		}
+	}
+
+}
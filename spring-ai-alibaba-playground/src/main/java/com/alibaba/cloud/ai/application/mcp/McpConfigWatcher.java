@@ -0,0 +1,161 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.mcp;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.alibaba.cloud.ai.application.entity.mcp.McpServerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+
+import org.springframework.util.Assert;
+
+/**
+ * 监听 mcp-config.yml 的变更，文件修改后重新解析并回调，无需重启即可增删 MCP Server。
+ * <p>
+ * 监听的是文件所在目录，编辑器先写临时文件再重命名的保存方式同样可以被感知；
+ * 短时间内的多个事件合并为一次解析，并通过文件修改时间去重。
+ */
+
+public class McpConfigWatcher implements Disposable {
+
+	private static final Logger logger = LoggerFactory.getLogger(McpConfigWatcher.class);
+
+	private static final Duration DEBOUNCE = Duration.ofMillis(200);
+
+	private final Path configFile;
+
+	private final Consumer<McpServerConfig> listener;
+
+	private final WatchService watchService;
+
+	private final Thread watchThread;
+
+	private volatile FileTime lastModified;
+
+	public McpConfigWatcher(Path configFile, Consumer<McpServerConfig> listener) throws IOException {
+
+		Assert.notNull(configFile, "configFile must not be null");
+		Assert.notNull(listener, "listener must not be null");
+
+		this.configFile = configFile.toAbsolutePath();
+		this.listener = listener;
+		this.lastModified = Files.getLastModifiedTime(this.configFile);
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.configFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY);
+
+		this.watchThread = new Thread(this::watch, "mcp-config-watcher");
+		this.watchThread.setDaemon(true);
+		this.watchThread.start();
+
+		logger.info("Watching mcp config file: {}", this.configFile);
+	}
+
+	private void watch() {
+
+		while (!Thread.currentThread().isInterrupted()) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			}
+			catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+
+			if (!isConfigChanged(key)) {
+				continue;
+			}
+
+			// 一次保存通常产生多个事件，等待文件写入完成后再解析
+			try {
+				while ((key = watchService.poll(DEBOUNCE.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+					isConfigChanged(key);
+				}
+			}
+			catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+
+			reload();
+		}
+	}
+
+	private boolean isConfigChanged(WatchKey key) {
+
+		boolean changed = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.context() instanceof Path path && configFile.getFileName().equals(path)) {
+				changed = true;
+			}
+		}
+		key.reset();
+
+		return changed;
+	}
+
+	private void reload() {
+
+		try {
+			FileTime modified = Files.getLastModifiedTime(configFile);
+			if (modified.equals(lastModified)) {
+				return;
+			}
+
+			McpServerConfig mcpServerConfig = McpServerUtils.getMcpServerConfig(configFile);
+			lastModified = modified;
+			logger.info("Mcp config file changed, servers: {}", mcpServerConfig.getMcpServers().keySet());
+			listener.accept(mcpServerConfig);
+		}
+		catch (Exception e) {
+			// 文件可能正在写入，保留当前配置，等待下一次变更
+			logger.warn("Failed to reload mcp config file: {}, {}", configFile, e.getMessage());
+		}
+	}
+
+	@Override
+	public void dispose() {
+
+		watchThread.interrupt();
+		try {
+			watchService.close();
+		}
+		catch (IOException e) {
+			logger.debug("Failed to close mcp config watch service", e);
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+
+		return !watchThread.isAlive();
+	}
+
+}
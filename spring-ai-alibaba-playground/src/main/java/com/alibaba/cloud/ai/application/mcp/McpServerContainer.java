@@ -19,31 +19,128 @@ package com.alibaba.cloud.ai.application.mcp;
 import com.alibaba.cloud.ai.application.entity.mcp.McpServer;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * MCP Server 注册表，按 id、name 以及 tool name 建立索引。
+ * <p>
+ * 写操作加锁后生成新的不可变快照并替换，读操作只读取 volatile 快照，不加锁。
+ * MCP Server 数量很少且很少变更，写时复制的开销可以忽略。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
 
 public class McpServerContainer {
 
-	private static final List<McpServer> mcpServerContainer = new ArrayList<>();
+	private static final Object writeLock = new Object();
+
+	private static volatile Snapshot snapshot = Snapshot.EMPTY;
 
 	public static List<McpServer> getAllServers() {
-		return new ArrayList<>(mcpServerContainer);
+		return new ArrayList<>(snapshot.byId.values());
 	}
 
 	public static Optional<McpServer> getServerById(String id) {
 
-		return mcpServerContainer.stream()
-				.filter(server -> server.getId().equals(id))
-				.findFirst();
+		return Optional.ofNullable(snapshot.byId.get(id));
+	}
+
+	public static Optional<McpServer> getServerByName(String name) {
+
+		return Optional.ofNullable(snapshot.byName.get(name));
 	}
 
+	/**
+	 * 根据工具名称查找提供该工具的 MCP Server。
+	 */
+	public static Optional<McpServer> getServerByToolName(String toolName) {
+
+		return Optional.ofNullable(snapshot.byToolName.get(toolName));
+	}
+
+	/**
+	 * 添加 MCP Server，同名的 server 会被替换。
+	 */
 	public static void addServer(McpServer server) {
-		mcpServerContainer.add(server);
+
+		update(servers -> {
+			servers.values().removeIf(existing -> existing.getName().equals(server.getName()));
+			servers.put(server.getId(), server);
+			return servers;
+		});
 	}
 
 	public static boolean removeServerById(String id) {
 
-		return mcpServerContainer.removeIf(server -> server.getId().equals(id));
+		synchronized (writeLock) {
+			if (!snapshot.byId.containsKey(id)) {
+				return false;
+			}
+			update(servers -> {
+				servers.remove(id);
+				return servers;
+			});
+			return true;
+		}
+	}
+
+	public static boolean removeServerByName(String name) {
+
+		synchronized (writeLock) {
+			McpServer server = snapshot.byName.get(name);
+			return server != null && removeServerById(server.getId());
+		}
+	}
+
+	/**
+	 * 用给定的 server 列表整体替换注册表。
+	 */
+	public static void replaceServers(Collection<McpServer> servers) {
+
+		update(current -> {
+			Map<String, McpServer> replaced = new LinkedHashMap<>();
+			servers.forEach(server -> replaced.put(server.getId(), server));
+			return replaced;
+		});
+	}
+
+	private static void update(UnaryOperator<Map<String, McpServer>> operator) {
+
+		synchronized (writeLock) {
+			snapshot = Snapshot.of(operator.apply(new LinkedHashMap<>(snapshot.byId)));
+		}
+	}
+
+	private record Snapshot(Map<String, McpServer> byId, Map<String, McpServer> byName,
+			Map<String, McpServer> byToolName) {
+
+		private static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), Map.of());
+
+		private static Snapshot of(Map<String, McpServer> servers) {
+
+			Map<String, McpServer> byName = new LinkedHashMap<>();
+			Map<String, McpServer> byToolName = new LinkedHashMap<>();
+
+			for (McpServer server : servers.values()) {
+				byName.put(server.getName(), server);
+				if (server.getToolList() != null) {
+					server.getToolList().forEach(tool -> byToolName.putIfAbsent(tool.getName(), server));
+				}
+			}
+
+			return new Snapshot(
+					Collections.unmodifiableMap(servers),
+					Collections.unmodifiableMap(byName),
+					Collections.unmodifiableMap(byToolName)
+			);
+		}
 	}
 
 }
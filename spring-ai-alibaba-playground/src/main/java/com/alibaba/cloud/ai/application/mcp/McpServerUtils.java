@@ -23,6 +23,8 @@ import com.alibaba.cloud.ai.application.exception.SAAAppException;
 import com.alibaba.cloud.ai.application.utils.ModelsUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.mcp.SyncMcpToolCallback;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
@@ -32,12 +34,19 @@ import org.springframework.core.io.Resource;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * @author yuluo
@@ -46,6 +55,8 @@ import java.util.UUID;
 
 public final class McpServerUtils {
 
+	private static final Logger logger = LoggerFactory.getLogger(McpServerUtils.class);
+
 	private static final String MCP_CONFIG_FILE_PATH = "mcp-config.yml";
 
 	private McpServerUtils() {
@@ -53,10 +64,45 @@ public final class McpServerUtils {
 
 	public static McpServerConfig getMcpServerConfig() throws IOException {
 
+		try (InputStream resourceAsStream = ModelsUtils.class.getClassLoader().getResourceAsStream(MCP_CONFIG_FILE_PATH)) {
+			return readMcpServerConfig(resourceAsStream);
+		}
+	}
+
+	public static McpServerConfig getMcpServerConfig(Path configFile) throws IOException {
+
+		try (InputStream inputStream = Files.newInputStream(configFile)) {
+			return readMcpServerConfig(inputStream);
+		}
+	}
+
+	/**
+	 * 配置文件以文件形式存在于 classpath 中（如本地开发）时返回其路径，打包在 jar 中时无法监听变更。
+	 */
+	public static Optional<Path> getMcpConfigFile() {
+
+		URL url = ModelsUtils.class.getClassLoader().getResource(MCP_CONFIG_FILE_PATH);
+		if (url == null || !"file".equals(url.getProtocol())) {
+			return Optional.empty();
+		}
+
+		try {
+			return Optional.of(Paths.get(url.toURI()));
+		}
+		catch (Exception e) {
+			logger.debug("Cannot resolve mcp config file: {}", url, e);
+			return Optional.empty();
+		}
+	}
+
+	private static McpServerConfig readMcpServerConfig(InputStream inputStream) throws IOException {
+
 		ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-		InputStream resourceAsStream = ModelsUtils.class.getClassLoader().getResourceAsStream(MCP_CONFIG_FILE_PATH);
 
-		McpServerConfig mcpServerConfig = mapper.readValue(resourceAsStream, McpServerConfig.class);
+		McpServerConfig mcpServerConfig = mapper.readValue(inputStream, McpServerConfig.class);
+		if (mcpServerConfig.getMcpServers() == null) {
+			mcpServerConfig.setMcpServers(new LinkedHashMap<>());
+		}
 		mcpServerConfig.getMcpServers().forEach((key, parameters) -> {
 			Map<String, String> env = parameters.env();
 			if (Objects.nonNull(env)) {
@@ -123,40 +169,80 @@ public final class McpServerUtils {
 
 	public static void initMcpServerContainer(ToolCallbackProvider toolCallbackProvider) throws IOException {
 
-		McpServerConfig mcpServerConfig = McpServerUtils.getMcpServerConfig();
-		Map<String, String> mcpServerDescMap = initMcpServerDescMap();
-
-		mcpServerConfig.getMcpServers().forEach((key, parameters) -> {
+		Map<String, List<McpServer.Tools>> toolsByServer = groupToolsByServer(toolCallbackProvider.getToolCallbacks());
 
-			List<McpServer.Tools> toolsList = new ArrayList<>();
-			for (ToolCallback toolCallback : toolCallbackProvider.getToolCallbacks()) {
+		syncMcpServerContainer(getMcpServerConfig(), name -> toolsByServer.getOrDefault(name, List.of()));
+	}
 
-				// todo: 拿不到 mcp client, 先用包装器拿吧
-				SyncMcpToolCallback mcpToolCallback = (SyncMcpToolCallback) toolCallback;
-				SyncMcpToolCallbackWrapper syncMcpToolCallbackWrapper = new SyncMcpToolCallbackWrapper(mcpToolCallback);
-				String currentMcpServerName = syncMcpToolCallbackWrapper.getMcpClient().getServerInfo().name();
+	/**
+	 * 按照 mcp server name 聚合 mcp server tools，只遍历一次工具列表。
+	 */
+	public static Map<String, List<McpServer.Tools>> groupToolsByServer(ToolCallback[] toolCallbacks) {
 
-				// 按照 mcp server name 聚合 mcp server tools
-				if (Objects.equals(key, currentMcpServerName)) {
-					McpServer.Tools tool = new McpServer.Tools();
-					tool.setDesc(toolCallback.getToolDefinition().description());
-					tool.setName(toolCallback.getToolDefinition().name());
-					tool.setParams(toolCallback.getToolDefinition().inputSchema());
+		Map<String, List<McpServer.Tools>> toolsByServer = new HashMap<>();
 
-					toolsList.add(tool);
-				}
+		for (ToolCallback toolCallback : toolCallbacks) {
+			if (!(toolCallback instanceof SyncMcpToolCallback mcpToolCallback)) {
+				logger.debug("Skip non mcp tool: {}", toolCallback.getToolDefinition().name());
+				continue;
 			}
 
-			McpServerContainer.addServer(McpServer.builder()
-					.id(getId())
+			// todo: 拿不到 mcp client, 先用包装器拿吧
+			SyncMcpToolCallbackWrapper syncMcpToolCallbackWrapper = new SyncMcpToolCallbackWrapper(mcpToolCallback);
+			String currentMcpServerName = syncMcpToolCallbackWrapper.getMcpClient().getServerInfo().name();
+
+			toolsByServer.computeIfAbsent(currentMcpServerName, name -> new ArrayList<>()).add(toTool(toolCallback));
+		}
+
+		return toolsByServer;
+	}
+
+	public static List<McpServer.Tools> toTools(ToolCallback[] toolCallbacks) {
+
+		List<McpServer.Tools> toolsList = new ArrayList<>(toolCallbacks.length);
+		for (ToolCallback toolCallback : toolCallbacks) {
+			toolsList.add(toTool(toolCallback));
+		}
+
+		return toolsList;
+	}
+
+	/**
+	 * 以配置文件为准同步注册表：新增的 server 通过 toolsResolver 获取工具列表，删除的 server 从注册表中移除，
+	 * 已存在的 server 保留原有 id 和工具列表。
+	 */
+	public static void syncMcpServerContainer(
+			McpServerConfig mcpServerConfig,
+			Function<String, List<McpServer.Tools>> toolsResolver
+	) {
+
+		Map<String, String> mcpServerDescMap = initMcpServerDescMap();
+		List<McpServer> servers = new ArrayList<>();
+
+		mcpServerConfig.getMcpServers().forEach((key, parameters) -> {
+			Optional<McpServer> existing = McpServerContainer.getServerByName(key);
+
+			servers.add(McpServer.builder()
+					.id(existing.map(McpServer::getId).orElseGet(McpServerUtils::getId))
 					.name(key)
 					.env(parameters.env())
 					.desc(mcpServerDescMap.get(key))
-					.toolList(toolsList)
+					.toolList(existing.map(McpServer::getToolList).orElseGet(() -> toolsResolver.apply(key)))
 					.build()
 			);
 		});
 
+		McpServerContainer.replaceServers(servers);
+	}
+
+	private static McpServer.Tools toTool(ToolCallback toolCallback) {
+
+		McpServer.Tools tool = new McpServer.Tools();
+		tool.setDesc(toolCallback.getToolDefinition().description());
+		tool.setName(toolCallback.getToolDefinition().name());
+		tool.setParams(toolCallback.getToolDefinition().inputSchema());
+
+		return tool;
 	}
 
 	private static Map<String, String> initMcpServerDescMap() {
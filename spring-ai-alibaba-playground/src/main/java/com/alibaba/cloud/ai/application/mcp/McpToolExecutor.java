@@ -0,0 +1,175 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.mcp;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.alibaba.cloud.ai.application.entity.tools.ToolCallResp;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.util.Assert;
+
+/**
+ * 并发执行一轮模型回复中的全部工具调用：
+ * <p>
+ * 1. 每个工具调用在有界线程池中执行，并设置单独的超时时间；
+ * 2. 以 {@link ToolCallResp} 流的形式返回进度：所有工具先发出 RUNNING 事件，执行完成后各自发出 SUCCESS / FAILURE 事件，
+ *    事件带有工具调用在本轮中的序号（toolCallIndex）；
+ * 3. 耗时使用单调时钟 System.nanoTime 计算，并按工具名称与执行结果记录到 Micrometer timer。
+ */
+
+public class McpToolExecutor implements Disposable {
+
+	private static final Logger logger = LoggerFactory.getLogger(McpToolExecutor.class);
+
+	private static final String METRIC_TOOL_EXECUTION = "saa.mcp.tool.execution";
+
+	private final MeterRegistry meterRegistry;
+
+	private final Duration timeout;
+
+	private final Scheduler scheduler;
+
+	public McpToolExecutor(
+			MeterRegistry meterRegistry,
+			Duration timeout,
+			int maxConcurrency
+	) {
+
+		Assert.notNull(meterRegistry, "meterRegistry must not be null");
+		Assert.isTrue(timeout != null && !timeout.isNegative() && !timeout.isZero(), "timeout must be positive");
+		Assert.isTrue(maxConcurrency > 0, "maxConcurrency must be greater than 0");
+
+		this.meterRegistry = meterRegistry;
+		this.timeout = timeout;
+		this.scheduler = Schedulers.newBoundedElastic(maxConcurrency, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE,
+				"mcp-tool");
+	}
+
+	/**
+	 * @param toolInput 模型在发起工具调用时输出的文本
+	 * @param toolCalls 同一轮回复中的全部工具调用
+	 * @param callbacks 本轮可用的工具，如从 {@link McpClientPool} 获取的 client 提供的工具
+	 */
+	public Flux<ToolCallResp> execute(String toolInput, List<AssistantMessage.ToolCall> toolCalls,
+			ToolCallback[] callbacks) {
+
+		return Flux.range(0, toolCalls.size())
+				.flatMap(index -> {
+					AssistantMessage.ToolCall toolCall = toolCalls.get(index);
+					ToolCallResp running = ToolCallResp.startExecute(toolInput, toolCall.name(), toolCall.arguments());
+					running.setToolCallId(toolCall.id());
+					running.setToolCallIndex(index);
+
+					return Flux.concat(Mono.just(running), executeOne(toolInput, index, toolCall, callbacks));
+				}, Math.max(1, toolCalls.size()));
+	}
+
+	private Mono<ToolCallResp> executeOne(String toolInput, int index, AssistantMessage.ToolCall toolCall,
+			ToolCallback[] callbacks) {
+
+		LocalDateTime startTime = LocalDateTime.now();
+
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+
+			return Mono.fromCallable(() -> findToolCallback(callbacks, toolCall.name()).call(toolCall.arguments()))
+					.subscribeOn(scheduler)
+					.timeout(timeout)
+					.map(response -> complete(toolInput, index, toolCall, startTime, start,
+							ToolCallResp.ToolState.SUCCESS, response, null))
+					.onErrorResume(ex -> {
+						String errorMessage = ex instanceof TimeoutException
+								? "Tool execution timed out after " + timeout : ex.getMessage();
+						logger.error("Tool {} execution failed, msg: {}", toolCall.name(), errorMessage);
+						return Mono.just(complete(toolInput, index, toolCall, startTime, start,
+								ToolCallResp.ToolState.FAILURE, null, errorMessage));
+					});
+		});
+	}
+
+	private ToolCallResp complete(
+			String toolInput,
+			int index,
+			AssistantMessage.ToolCall toolCall,
+			LocalDateTime startTime,
+			long startNanos,
+			ToolCallResp.ToolState status,
+			String toolResponse,
+			String errorMessage
+	) {
+
+		long elapsedNanos = System.nanoTime() - startNanos;
+
+		Timer.builder(METRIC_TOOL_EXECUTION)
+				.description("MCP tool execution latency")
+				.tag("tool", toolCall.name())
+				.tag("status", status.name())
+				.register(meterRegistry)
+				.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+		ToolCallResp resp = ToolCallResp.startExecute(toolInput, toolCall.name(), toolCall.arguments());
+		resp.setToolCallId(toolCall.id());
+		resp.setToolCallIndex(index);
+		resp.setToolStartTime(startTime);
+		resp.setToolEndTime(LocalDateTime.now());
+		resp.setToolCostTime(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+		resp.setStatus(status);
+		resp.setToolResponse(toolResponse);
+		resp.setErrorMessage(errorMessage);
+
+		return resp;
+	}
+
+	private static ToolCallback findToolCallback(ToolCallback[] callbacks, String name) {
+
+		for (ToolCallback callback : callbacks) {
+			if (callback.getToolDefinition().name().equals(name)) {
+				return callback;
+			}
+		}
+
+		throw new IllegalStateException("No ToolCallback found for tool name: " + name);
+	}
+
+	@Override
+	public void dispose() {
+
+		scheduler.dispose();
+	}
+
+	@Override
+	public boolean isDisposed() {
+
+		return scheduler.isDisposed();
+	}
+
+}
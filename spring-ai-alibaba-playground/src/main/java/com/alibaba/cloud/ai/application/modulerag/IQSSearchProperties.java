@@ -16,11 +16,32 @@
 
 package com.alibaba.cloud.ai.application.modulerag;
 
+import java.time.Duration;
+
 /**
  * iqs search properties
  *
+ * @param apiKey 通晓搜索 api key
+ * @param cacheTtl 搜索结果缓存时间
+ * @param failureCacheTtl 搜索失败的缓存时间，期间相同查询直接返回失败
+ * @param cacheMaxSize 搜索结果缓存的最大条数
+ *
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
-public record IQSSearchProperties(String apiKey) {
+public record IQSSearchProperties(String apiKey, Duration cacheTtl, Duration failureCacheTtl, Integer cacheMaxSize) {
+
+	public IQSSearchProperties {
+
+		if (cacheTtl == null) {
+			cacheTtl = Duration.ofMinutes(10);
+		}
+		if (failureCacheTtl == null) {
+			failureCacheTtl = Duration.ofSeconds(30);
+		}
+		if (cacheMaxSize == null) {
+			cacheMaxSize = 512;
+		}
+	}
+
 }
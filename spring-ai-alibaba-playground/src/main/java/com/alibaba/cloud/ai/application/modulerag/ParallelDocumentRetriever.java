@@ -0,0 +1,217 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import com.alibaba.cloud.ai.application.modulerag.join.ConcatenationDocumentJoiner;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.preretrieval.query.expansion.QueryExpander;
+import org.springframework.ai.rag.retrieval.join.DocumentJoiner;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * 扩展问题的并发检索：
+ * <p>
+ * 1. 由 QueryExpander 扩展问题后，所有问题的检索通过 Flux.merge 同时发起，调用线程只阻塞一次；
+ * 2. {@link AsyncDocumentRetriever} 直接订阅非阻塞检索，不创建线程池；只有阻塞式 delegate 才会创建有界线程池，
+ * 检索在其中执行，并发数与排队数由 maxConcurrency、queueCapacity 限制；
+ * 3. 每个问题设置单独的超时时间，超时或失败时返回空结果（部分结果语义），不影响其它问题的检索结果；
+ * 4. 检索结果按扩展顺序交给 DocumentJoiner 合并，整体耗时约为 max(单次检索) 而非 sum(单次检索)。
+ * <p>
+ * 扩展在检索内部完成，RetrievalAugmentationAdvisor 不再配置 QueryExpander，也不需要额外的分发线程池。
+ */
+
+public class ParallelDocumentRetriever implements DocumentRetriever, Disposable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ParallelDocumentRetriever.class);
+
+	private final DocumentRetriever delegate;
+
+	private final QueryExpander queryExpander;
+
+	private final DocumentJoiner documentJoiner;
+
+	private final Duration timeout;
+
+	/**
+	 * 仅阻塞式 delegate 使用，非阻塞 delegate 时为 null
+	 */
+	@Nullable
+	private final Scheduler retrieveScheduler;
+
+	private volatile boolean disposed;
+
+	private ParallelDocumentRetriever(Builder builder) {
+
+		Assert.notNull(builder.delegate, "delegate must not be null");
+		Assert.notNull(builder.documentJoiner, "documentJoiner must not be null");
+		Assert.isTrue(builder.timeout != null && !builder.timeout.isNegative() && !builder.timeout.isZero(),
+				"timeout must be positive");
+		Assert.isTrue(builder.maxConcurrency > 0, "maxConcurrency must be greater than 0");
+
+		this.delegate = builder.delegate;
+		this.queryExpander = builder.queryExpander;
+		this.documentJoiner = builder.documentJoiner;
+		this.timeout = builder.timeout;
+		this.retrieveScheduler = builder.delegate instanceof AsyncDocumentRetriever ? null
+				: Schedulers.newBoundedElastic(builder.maxConcurrency, builder.queueCapacity, "rag-retrieve");
+	}
+
+	@NotNull
+	@Override
+	public List<Document> retrieve(@Nullable Query query) {
+
+		Assert.notNull(query, "query cannot be null");
+
+		List<Query> queries = queryExpander != null ? queryExpander.expand(query) : List.of(query);
+
+		List<Map.Entry<Query, List<Document>>> results = Flux.mergeSequential(queries.stream()
+						.map(expanded -> retrieveAsync(expanded).map(documents -> Map.entry(expanded, documents)))
+						.toList())
+				.collectList()
+				.block();
+
+		// 扩展结果中可能存在相同的问题，按问题聚合后保持扩展顺序
+		Map<Query, List<List<Document>>> documentsForQuery = new LinkedHashMap<>();
+		for (Map.Entry<Query, List<Document>> result : results) {
+			documentsForQuery.computeIfAbsent(result.getKey(), key -> new ArrayList<>()).add(result.getValue());
+		}
+
+		return documentJoiner.join(documentsForQuery);
+	}
+
+	/**
+	 * 单个问题的检索，超时或失败时返回空列表。
+	 */
+	public Mono<List<Document>> retrieveAsync(Query query) {
+
+		long start = System.nanoTime();
+
+		// 支持非阻塞检索的 delegate 直接订阅，阻塞式 delegate 在检索线程池中执行
+		Mono<List<Document>> retrieval = retrieveScheduler == null
+				? Mono.defer(() -> ((AsyncDocumentRetriever) delegate).retrieveAsync(query))
+				: Mono.fromCallable(() -> delegate.retrieve(query)).subscribeOn(retrieveScheduler);
+
+		return retrieval
+				.timeout(timeout)
+				.doOnNext(documents -> logger.debug("Retrieved {} documents for query: {} in {}ms", documents.size(),
+						query.text(), Duration.ofNanos(System.nanoTime() - start).toMillis()))
+				.onErrorResume(ex -> {
+					if (ex instanceof TimeoutException) {
+						logger.warn("Retrieve timed out after {} for query: {}, skip it.", timeout, query.text());
+					}
+					else {
+						logger.warn("Retrieve failed for query: {}, skip it: {}", query.text(), ex.getMessage());
+					}
+					return Mono.just(List.of());
+				});
+	}
+
+	@Override
+	public void dispose() {
+
+		disposed = true;
+		if (retrieveScheduler != null) {
+			retrieveScheduler.dispose();
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+
+		return disposed;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+
+		private DocumentRetriever delegate;
+
+		private QueryExpander queryExpander;
+
+		private DocumentJoiner documentJoiner = new ConcatenationDocumentJoiner();
+
+		private Duration timeout = Duration.ofSeconds(5);
+
+		private int maxConcurrency = Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE;
+
+		private int queueCapacity = Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE;
+
+		public Builder delegate(DocumentRetriever delegate) {
+
+			this.delegate = delegate;
+			return this;
+		}
+
+		public Builder queryExpander(QueryExpander queryExpander) {
+
+			this.queryExpander = queryExpander;
+			return this;
+		}
+
+		public Builder documentJoiner(DocumentJoiner documentJoiner) {
+
+			this.documentJoiner = documentJoiner;
+			return this;
+		}
+
+		public Builder timeout(Duration timeout) {
+
+			this.timeout = timeout;
+			return this;
+		}
+
+		public Builder maxConcurrency(int maxConcurrency) {
+
+			this.maxConcurrency = maxConcurrency;
+			return this;
+		}
+
+		public Builder queueCapacity(int queueCapacity) {
+
+			this.queueCapacity = queueCapacity;
+			return this;
+		}
+
+		public ParallelDocumentRetriever build() {
+
+			return new ParallelDocumentRetriever(this);
+		}
+	}
+
+}
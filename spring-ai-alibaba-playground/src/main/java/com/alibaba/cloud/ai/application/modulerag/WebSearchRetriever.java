@@ -17,19 +17,16 @@
 package com.alibaba.cloud.ai.application.modulerag;
 
 import com.alibaba.cloud.ai.application.entity.iqs.IQSSearchResponse;
-import com.alibaba.cloud.ai.application.exception.SAAAppException;
 import com.alibaba.cloud.ai.application.modulerag.core.IQSSearchEngine;
 import com.alibaba.cloud.ai.application.modulerag.data.DataClean;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.rag.Query;
-import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
 import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
 
-import java.net.URISyntaxException;
 import java.util.List;
 
 /**
@@ -39,7 +36,7 @@ import java.util.List;
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
 
-public class WebSearchRetriever implements DocumentRetriever {
+public class WebSearchRetriever implements AsyncDocumentRetriever {
 
 	private static final Logger logger = LoggerFactory.getLogger(WebSearchRetriever.class);
 
@@ -63,24 +60,19 @@ public class WebSearchRetriever implements DocumentRetriever {
 	) {
 
 		// 搜索
-		IQSSearchResponse searchResp;
-		try {
-			searchResp = searchEngine.search(query.text());
-		} catch (JsonProcessingException e) {
-			throw new SAAAppException("json process error" + e.getMessage());
-		}
+		return clean(searchEngine.search(query.text()));
+	}
+
+	@Override
+	public Mono<List<Document>> retrieveAsync(Query query) {
+
+		return searchEngine.searchAsync(query.text()).map(this::clean);
+	}
+
+	private List<Document> clean(IQSSearchResponse searchResp) {
 
-		// 清洗数据
-        List<Document> cleanerData;
-        try {
-            cleanerData = dataCleaner.getData(searchResp);
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
-        }
-        // logger.debug("cleaner data: {}", cleanerData);
-
-		// 返回结果
-		List<Document> documents = dataCleaner.limitResults(cleanerData, maxResults);
+		// 清洗数据，得到 maxResults 条结果后停止
+		List<Document> documents = dataCleaner.clean(searchResp, maxResults);
 
 		logger.debug("WebSearchRetriever#retrieve() document size: {}, raw documents: {}",
 				documents.size(),
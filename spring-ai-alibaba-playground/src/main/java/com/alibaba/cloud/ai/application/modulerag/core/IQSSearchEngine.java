@@ -21,22 +21,32 @@ import com.alibaba.cloud.ai.application.entity.iqs.IQSSearchRequest;
 import com.alibaba.cloud.ai.application.entity.iqs.IQSSearchResponse;
 import com.alibaba.cloud.ai.application.exception.SAAAppException;
 import com.alibaba.cloud.ai.application.modulerag.IQSSearchProperties;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
-import org.springframework.web.client.ResponseErrorHandler;
-import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
-import java.util.Objects;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 
 /**
  * <a href="https://help.aliyun.com/document_detail/2883041.html">通晓搜索</a>
+ * <p>
+ * 一次联网搜索会对原始问题及其扩展问题分别发起搜索，因此对搜索结果做了缓存：
+ * 1. 以规范化后的 query + timeRange + engineType 为 key，请求 IQS 时同样使用规范化后的 query，
+ * 保证共用同一条缓存的调用方得到的就是该 query 的结果；成功结果在 cacheTtl 内复用；
+ * 2. 相同 key 的并发搜索共享同一个请求（single-flight）；
+ * 3. 搜索失败在 failureCacheTtl 内直接返回失败，避免在接口异常时重复请求；
+ * 4. 过期时间在搜索完成时才开始计算，进行中的搜索不会因超过 cacheTtl 被淘汰，缓存只按条数上限淘汰。
  *
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
@@ -45,34 +55,78 @@ import java.util.function.Consumer;
 @Component
 public class IQSSearchEngine {
 
-	private final RestClient restClient;
+	private static final Logger logger = LoggerFactory.getLogger(IQSSearchEngine.class);
+
+	private final WebClient webClient;
 	private final IQSSearchProperties iqsSearchProperties;
+	private final Cache<SearchKey, CachedSearch> cache;
 	private static final String BASE_URL = "https://cloud-iqs.aliyuncs.com/";
 	private static final String API_PATH = "/search/unified";
 	private static final String DEFAULT_TIME_RANGE = "OneWeek";
 	private static final String DEFAULT_ENGINE_TYPE = "Generic";
 
 	public IQSSearchEngine(
-			RestClient.Builder restClientBuilder,
-			WebSearchProperties webSearchProperties,
-			ResponseErrorHandler responseErrorHandler
+			WebClient.Builder webClientBuilder,
+			WebSearchProperties webSearchProperties
 	) {
 
 		this.iqsSearchProperties = webSearchProperties.iqs();
 		Assert.hasText(iqsSearchProperties.apiKey(), "apiKey must not be empty");
-		this.restClient = restClientBuilder.baseUrl(BASE_URL)
+		this.webClient = webClientBuilder.clone()
+				.baseUrl(BASE_URL)
 				.defaultHeaders(getHeaders())
-				.defaultStatusHandler(responseErrorHandler)
 				.build();
+		this.cache = CacheBuilder.newBuilder()
+				.maximumSize(iqsSearchProperties.cacheMaxSize())
+				.build();
+	}
+
+	/**
+	 * 阻塞式搜索，结果与 {@link #searchAsync(String)} 共用缓存。
+	 */
+	public IQSSearchResponse search(String query) {
+
+		try {
+			return lookup(query).join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof SAAAppException appException) {
+				throw appException;
+			}
+			throw new SAAAppException("Failed to search: " + e.getCause().getMessage());
+		}
 	}
 
-	public IQSSearchResponse search(String query) throws JsonProcessingException {
+	/**
+	 * 非阻塞搜索。取消订阅不会取消共享的搜索请求，其它等待相同结果的调用方不受影响。
+	 */
+	public Mono<IQSSearchResponse> searchAsync(String query) {
+
+		return Mono.fromFuture(() -> lookup(query), true);
+	}
+
+	private CompletableFuture<IQSSearchResponse> lookup(String query) {
+
+		SearchKey key = new SearchKey(normalize(query), DEFAULT_TIME_RANGE, DEFAULT_ENGINE_TYPE);
+		long now = System.nanoTime();
+
+		CachedSearch cached = cache.asMap().compute(key, (k, existing) -> {
+			if (existing != null && !existing.isExpired(now)) {
+				return existing;
+			}
+			return fetch(k);
+		});
+
+		return cached.future();
+	}
+
+	private CachedSearch fetch(SearchKey key) {
 
 		// String encodeQ = URLEncoder.encode(query, StandardCharsets.UTF_8);
 		final IQSSearchRequest request = IQSSearchRequest.builder()
-				.query(query)
-				.timeRange(DEFAULT_TIME_RANGE)
-				.engineType(DEFAULT_ENGINE_TYPE)
+				.query(key.query())
+				.timeRange(key.timeRange())
+				.engineType(key.engineType())
 				.contents(IQSSearchRequest.Contents.builder()
 						.mainText(true)
 						// IQS 目前的 md 文档效果不好, 所以关闭.
@@ -81,23 +135,73 @@ public class IQSSearchEngine {
 						.build())
 				.build();
 
-		ResponseEntity<IQSSearchResponse> response = this.restClient.post()
+		CompletableFuture<IQSSearchResponse> future = this.webClient.post()
 				.uri(API_PATH)
 				.contentType(MediaType.APPLICATION_JSON)
-				.body(request)
+				.bodyValue(request)
 				.retrieve()
-				.toEntity(IQSSearchResponse.class);
+				.onStatus(status -> !status.is2xxSuccessful(), response -> response.bodyToMono(String.class)
+						.defaultIfEmpty("")
+						.map(body -> new SAAAppException("Failed to search" + response.statusCode().value() + " " + body)))
+				.bodyToMono(IQSSearchResponse.class)
+				.switchIfEmpty(Mono.error(() -> new SAAAppException("Failed to search, empty response")))
+				.toFuture();
+
+		CachedSearch cached = new CachedSearch(future);
+		future.whenComplete((response, ex) -> {
+			if (ex == null) {
+				cached.expireAfter(iqsSearchProperties.cacheTtl().toNanos());
+			}
+			else {
+				logger.warn("IQS search failed for query: {}, cache the failure for {}", key.query(),
+						iqsSearchProperties.failureCacheTtl());
+				cached.expireAfter(iqsSearchProperties.failureCacheTtl().toNanos());
+			}
+		});
+
+		return cached;
+	}
+
+	/**
+	 * 去除首尾空白、合并连续空白、全角转半角并统一小写，使仅格式不同的扩展问题共用缓存。
+	 */
+	private static String normalize(String query) {
+
+		Assert.hasText(query, "query must not be empty");
 
-		return genericSearchResult(response);
+		return Normalizer.normalize(query, Normalizer.Form.NFKC)
+				.strip()
+				.replaceAll("\\s+", " ")
+				.toLowerCase(Locale.ROOT);
 	}
 
-	private IQSSearchResponse genericSearchResult(ResponseEntity<IQSSearchResponse> response) {
+	private record SearchKey(String query, String timeRange, String engineType) {
+	}
+
+	/**
+	 * 进行中的搜索不会过期，完成后根据成功或失败设置过期时间。
+	 */
+	private static final class CachedSearch {
+
+		private final CompletableFuture<IQSSearchResponse> future;
 
-		if ((Objects.equals(response.getStatusCode(), HttpStatus.OK)) && Objects.nonNull(response.getBody())) {
-			return response.getBody();
+		private volatile long expiresAtNanos = Long.MAX_VALUE;
+
+		private CachedSearch(CompletableFuture<IQSSearchResponse> future) {
+			this.future = future;
+		}
+
+		CompletableFuture<IQSSearchResponse> future() {
+			return future;
 		}
 
-		throw new SAAAppException("Failed to search" + response.getStatusCode().value());
+		void expireAfter(long ttlNanos) {
+			this.expiresAtNanos = System.nanoTime() + ttlNanos;
+		}
+
+		boolean isExpired(long now) {
+			return expiresAtNanos != Long.MAX_VALUE && now - expiresAtNanos > 0;
+		}
 	}
 
 	private Consumer<HttpHeaders> getHeaders() {
@@ -21,126 +21,116 @@ import org.springframework.ai.document.Document;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.net.URISyntaxException;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  *
  * Data Cleansing: Filters out useless data and converts it into Spring AI's Document objects
+ * <p>
+ * 无状态，可在并发请求间共享：引用序号与链接保存在每个 Document 的 index、link 元数据中，不再写入全局 Map；
+ * 正文只作为 Document 的 text，metadata 中不再重复保存 mainText 与 markdownText。
  */
 
 @Component
 public class DataClean {
 
-	private static final Map<Integer, String> WebLink_MAP = new HashMap<>();
+	private static final int MIN_MAIN_TEXT_LENGTH = 10;
 
-	public List<Document> getData(IQSSearchResponse respData) throws URISyntaxException {
+	public List<Document> getData(IQSSearchResponse respData) {
 
-		List<Document> documents = new ArrayList<>();
-		Map<String, Object> metadata = getQueryMetadata(respData);
+		return clean(respData, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * 按 IQS 返回顺序逐条清洗，得到 maxResults 条有效结果后立即停止，不再转换剩余的搜索结果。
+	 */
+	public List<Document> clean(IQSSearchResponse respData, int maxResults) {
+
+		List<IQSSearchResponse.PageItem> pageItems = Objects.nonNull(respData.pageItems())
+				? respData.pageItems() : List.of();
+
+		// 同一次搜索的 query 信息对所有文档相同，只解析一次
+		String query = null;
+		String timeRange = null;
+		if (Objects.nonNull(respData.queryContext()) && Objects.nonNull(respData.queryContext().originalQuery())) {
+			query = respData.queryContext().originalQuery().query();
+			timeRange = respData.queryContext().originalQuery().timeRange();
+		}
 
-		for (int i = 0; i < respData.pageItems().size(); i++) {
+		List<Document> documents = new ArrayList<>(Math.min(maxResults, pageItems.size()));
 
-			IQSSearchResponse.PageItem pageItem = respData.pageItems().get(i);
-			Map<String, Object> pageItemMetadata = getPageItemMetadata(pageItem);
+		for (int i = 0; i < pageItems.size() && documents.size() < maxResults; i++) {
 
-			metadata.putAll(pageItemMetadata);
+			IQSSearchResponse.PageItem pageItem = pageItems.get(i);
 
-			if (!StringUtils.hasText(pageItem.mainText()) || pageItem.mainText().length() < 10) {
+			if (Objects.isNull(pageItem) || !StringUtils.hasText(pageItem.mainText())
+					|| pageItem.mainText().length() < MIN_MAIN_TEXT_LENGTH) {
 				// Skip items with main text that is too short
 				continue;
 			}
 
-			Document document = Document.builder()
-					.metadata(metadata)
+			// 链接序号与 IQS 返回结果中的位置保持一致
+			int index = i + 1;
+
+			documents.add(Document.builder()
+					.metadata(getPageItemMetadata(pageItem, index, query, timeRange))
 					.text(pageItem.mainText())
 					.score(pageItem.rerankScore())
-					.build();
-
-			if (Objects.nonNull(pageItem.link())) {
-				int index = i;
-				WebLink_MAP.put(index + 1, pageItem.link());
-			}
-
-			documents.add(document);
+					.build());
 		}
 
-		return documents;
-	}
-
-	public Map<Integer, String> getWebLink() {
-
-		return WebLink_MAP;
+		return Collections.unmodifiableList(documents);
 	}
 
-	private Map<String, Object> getQueryMetadata(IQSSearchResponse respData) {
+	private Map<String, Object> getPageItemMetadata(
+			IQSSearchResponse.PageItem pageItem,
+			int index,
+			String query,
+			String timeRange
+	) {
 
-		HashMap<String, Object> docsMetadata = new HashMap<>();
+		Map<String, Object> pageItemMetadata = new HashMap<>(16);
 
-		if (Objects.nonNull(respData.queryContext())) {
-			docsMetadata.put("query", respData.queryContext().originalQuery().query());
+		pageItemMetadata.put("index", index);
+		pageItemMetadata.put("rerankScore", pageItem.rerankScore());
 
-			if (Objects.nonNull(respData.queryContext().originalQuery().timeRange())) {
-				docsMetadata.put("timeRange", respData.queryContext().originalQuery().timeRange());
-			}
-
-			if (Objects.nonNull(respData.queryContext().originalQuery().timeRange())) {
-				docsMetadata.put("filters", respData.queryContext().originalQuery().timeRange());
-			}
+		if (Objects.nonNull(query)) {
+			pageItemMetadata.put("query", query);
 		}
 
-		return docsMetadata;
-	}
-
-	private Map<String, Object> getPageItemMetadata(IQSSearchResponse.PageItem pageItem) {
-
-		HashMap<String, Object> pageItemMetadata = new HashMap<>();
-
-		if (Objects.nonNull(pageItem)) {
-
-			if (Objects.nonNull(pageItem.hostname())) {
-				pageItemMetadata.put("hostname", pageItem.hostname());
-			}
-
-			if (Objects.nonNull(pageItem.title())) {
-				pageItemMetadata.put("title", pageItem.title());
-			}
-
-			if (Objects.nonNull(pageItem.markdownText())) {
-				pageItemMetadata.put("markdownText", pageItem.markdownText());
-			}
+		if (Objects.nonNull(timeRange)) {
+			pageItemMetadata.put("timeRange", timeRange);
+			pageItemMetadata.put("filters", timeRange);
+		}
 
-			if (Objects.nonNull(pageItem.link())) {
-				pageItemMetadata.put("link", pageItem.link());
-			}
+		if (Objects.nonNull(pageItem.hostname())) {
+			pageItemMetadata.put("hostname", pageItem.hostname());
+		}
 
-			if (Objects.nonNull(pageItem.mainText())) {
-				pageItemMetadata.put("mainText", pageItem.mainText());
-			}
+		if (Objects.nonNull(pageItem.title())) {
+			pageItemMetadata.put("title", pageItem.title());
+		}
 
-			if (Objects.nonNull(pageItem.rerankScore())) {
-				pageItemMetadata.put("rerankScore", pageItem.rerankScore());
-			}
+		if (Objects.nonNull(pageItem.link())) {
+			pageItemMetadata.put("link", pageItem.link());
+		}
 
-			if (Objects.nonNull(pageItem.publishedTime())) {
-				pageItemMetadata.put("publishedTime", pageItem.publishedTime());
-			}
+		if (Objects.nonNull(pageItem.publishedTime())) {
+			pageItemMetadata.put("publishedTime", pageItem.publishedTime());
+		}
 
-			if (Objects.nonNull(pageItem.snippet())) {
-				pageItemMetadata.put("snippet", pageItem.snippet());
-			}
+		if (Objects.nonNull(pageItem.snippet())) {
+			pageItemMetadata.put("snippet", pageItem.snippet());
 		}
 
 		return pageItemMetadata;
 	}
 
-	public List<Document> limitResults(List<Document> documents, int minResults) {
-
-		int limit = Math.min(documents.size(), minResults);
-
-		return documents.subList(0, limit);
-	}
-
 }
@@ -136,7 +136,10 @@ public class ConcatenationDocumentJoiner implements DocumentJoiner {
 		return selectDocumentsForQuery;
 	}
 
-	private List<String> extractKeys(Document document) {
+	/**
+	 * 文档的去重依据，{@link ScoreFusionDocumentJoiner} 复用同一组 key。
+	 */
+	static List<String> extractKeys(Document document) {
 
 		List<String> keys = new ArrayList<>();
 
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag.join;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.join.DocumentJoiner;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * 基于分数融合的 DocumentJoiner，支持三种策略：
+ * <p>
+ * 1. RECIPROCAL_RANK：倒数排名融合，score = Σ weight / (k + rank)，不依赖各路检索分数的量纲；
+ * 2. MAX_SCORE：取文档在各路检索中的最高分（如 IQS rerankScore）；
+ * 3. WEIGHTED_SUM：各路检索分数按问题权重加权求和，被多个扩展问题同时召回的文档得分更高。
+ * <p>
+ * 所有文档只遍历一次，去重 key 与 {@link ConcatenationDocumentJoiner} 相同（id、source、file_name），
+ * 另外加上联网搜索结果的 link（其 id 每次检索随机生成），任意一个 key 相同即视为同一文档；
+ * 最后用大小为 topK 的小顶堆选出结果，返回文档的 score 为融合后的分数。
+ */
+
+public class ScoreFusionDocumentJoiner implements DocumentJoiner {
+
+	private static final Logger logger = LoggerFactory.getLogger(ScoreFusionDocumentJoiner.class);
+
+	private final Strategy strategy;
+
+	private final int topK;
+
+	private final int rrfK;
+
+	private final ToDoubleFunction<Query> queryWeight;
+
+	private ScoreFusionDocumentJoiner(Builder builder) {
+
+		Assert.notNull(builder.strategy, "strategy must not be null");
+		Assert.isTrue(builder.topK > 0, "topK must be greater than 0");
+		Assert.isTrue(builder.rrfK >= 0, "rrfK must not be negative");
+		Assert.notNull(builder.queryWeight, "queryWeight must not be null");
+
+		this.strategy = builder.strategy;
+		this.topK = builder.topK;
+		this.rrfK = builder.rrfK;
+		this.queryWeight = builder.queryWeight;
+	}
+
+	@NotNull
+	@Override
+	public List<Document> join(@Nullable Map<Query, List<List<Document>>> documentsForQuery) {
+
+		Assert.notNull(documentsForQuery, "documentsForQuery cannot be null");
+		Assert.noNullElements(documentsForQuery.keySet(), "documentsForQuery cannot contain null keys");
+		Assert.noNullElements(documentsForQuery.values(), "documentsForQuery cannot contain null values");
+		logger.debug("Joining documents by {} fusion", strategy);
+
+		Map<String, Candidate> candidatesByKey = new HashMap<>();
+		List<Candidate> candidates = new ArrayList<>();
+		int sequence = 0;
+
+		for (Map.Entry<Query, List<List<Document>>> entry : documentsForQuery.entrySet()) {
+			double weight = queryWeight.applyAsDouble(entry.getKey());
+
+			for (List<Document> documents : entry.getValue()) {
+				for (int rank = 0; rank < documents.size(); rank++) {
+					Document document = documents.get(rank);
+					double score = document.getScore() != null ? document.getScore() : 0D;
+
+					List<String> keys = dedupKeys(document);
+					Candidate candidate = null;
+					for (String key : keys) {
+						candidate = candidatesByKey.get(key);
+						if (candidate != null) {
+							break;
+						}
+					}
+					if (candidate == null) {
+						candidate = new Candidate(document, sequence++,
+								strategy == Strategy.MAX_SCORE ? Double.NEGATIVE_INFINITY : 0D);
+						candidates.add(candidate);
+					}
+					else if (score > candidate.bestScore) {
+						// 保留原始分数最高的文档实例
+						candidate.document = document;
+					}
+					for (String key : keys) {
+						candidatesByKey.putIfAbsent(key, candidate);
+					}
+
+					candidate.bestScore = Math.max(candidate.bestScore, score);
+					candidate.fusedScore = switch (strategy) {
+						case RECIPROCAL_RANK -> candidate.fusedScore + weight / (rrfK + rank + 1);
+						case MAX_SCORE -> Math.max(candidate.fusedScore, weight * score);
+						case WEIGHTED_SUM -> candidate.fusedScore + weight * score;
+					};
+				}
+			}
+		}
+
+		// 小顶堆，堆顶为当前保留结果中分数最低（同分时出现最晚）的文档
+		PriorityQueue<Candidate> heap = new PriorityQueue<>(Math.min(topK, Math.max(1, candidates.size())),
+				ScoreFusionDocumentJoiner::compareAscending);
+		for (Candidate candidate : candidates) {
+			if (heap.size() < topK) {
+				heap.offer(candidate);
+			}
+			else if (compareAscending(candidate, heap.peek()) > 0) {
+				heap.poll();
+				heap.offer(candidate);
+			}
+		}
+
+		List<Document> joined = new ArrayList<>(heap.size());
+		while (!heap.isEmpty()) {
+			Candidate candidate = heap.poll();
+			joined.add(candidate.document.mutate().score(candidate.fusedScore).build());
+		}
+		Collections.reverse(joined);
+
+		return joined;
+	}
+
+	private static int compareAscending(Candidate a, Candidate b) {
+
+		int byScore = Double.compare(a.fusedScore, b.fusedScore);
+		return byScore != 0 ? byScore : Integer.compare(b.sequence, a.sequence);
+	}
+
+	private static List<String> dedupKeys(Document document) {
+
+		List<String> keys = ConcatenationDocumentJoiner.extractKeys(document);
+		if (document.getMetadata().get("link") instanceof String link) {
+			keys.add("LINK:" + link);
+		}
+		return keys;
+	}
+
+	private static final class Candidate {
+
+		private Document document;
+
+		private final int sequence;
+
+		private double bestScore = Double.NEGATIVE_INFINITY;
+
+		private double fusedScore;
+
+		private Candidate(Document document, int sequence, double fusedScore) {
+			this.document = document;
+			this.sequence = sequence;
+			this.fusedScore = fusedScore;
+		}
+	}
+
+	public enum Strategy {
+
+		RECIPROCAL_RANK,
+
+		MAX_SCORE,
+
+		WEIGHTED_SUM
+
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+
+		private Strategy strategy = Strategy.RECIPROCAL_RANK;
+
+		private int topK = 10;
+
+		// RRF 论文中的经验值
+		private int rrfK = 60;
+
+		private ToDoubleFunction<Query> queryWeight = query -> 1D;
+
+		public Builder strategy(Strategy strategy) {
+
+			this.strategy = strategy;
+			return this;
+		}
+
+		public Builder topK(int topK) {
+
+			this.topK = topK;
+			return this;
+		}
+
+		public Builder rrfK(int rrfK) {
+
+			this.rrfK = rrfK;
+			return this;
+		}
+
+		public Builder queryWeight(ToDoubleFunction<Query> queryWeight) {
+
+			this.queryWeight = queryWeight;
+			return this;
+		}
+
+		public ScoreFusionDocumentJoiner build() {
+
+			return new ScoreFusionDocumentJoiner(this);
+		}
+	}
+
+}
@@ -16,10 +16,16 @@
 
 package com.alibaba.cloud.ai.application.service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.cloud.ai.advisor.DocumentRetrievalAdvisor;
 import com.alibaba.cloud.ai.application.advisor.ReasoningContentAdvisor;
+import com.alibaba.cloud.ai.application.advisor.ResponseCacheAdvisor;
+import com.alibaba.cloud.ai.application.advisor.SemanticCacheAdvisor;
 import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
 import com.alibaba.cloud.ai.dashscope.api.DashScopeResponseFormat;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
@@ -33,14 +39,19 @@ import reactor.core.publisher.Flux;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
+ * 每个模型的 ChatClient 在第一次使用时构建并缓存，options 与 advisors 只创建一次，
+ * 每次请求只需要设置用户输入与对话 ID。模型名称由 controller 按 models.yaml 校验，缓存大小有限。
+ *
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
@@ -50,8 +61,16 @@ public class SAAChatService {
 
 	private static final Logger log = LoggerFactory.getLogger(SAAChatService.class);
 
+	private static final DashScopeResponseFormat TEXT_RESPONSE_FORMAT = DashScopeResponseFormat.builder()
+			.type(DashScopeResponseFormat.Type.TEXT)
+			.build();
+
 	private final ChatClient chatClient;
 
+	private final Map<String, ChatClient> chatClients = new ConcurrentHashMap<>();
+
+	private final Map<String, ChatClient> deepThinkingChatClients = new ConcurrentHashMap<>();
+
 	private final DashScopeApi dashscopeApi;
 
 	@Value("${spring.ai.alibaba.playground.bailian.enable:false}")
@@ -64,12 +83,18 @@ public class SAAChatService {
 
 	private final ReasoningContentAdvisor reasoningContentAdvisor;
 
+	private final ResponseCacheAdvisor responseCacheAdvisor;
+
+	private final SemanticCacheAdvisor semanticCacheAdvisor;
+
 	private DocumentRetrievalAdvisor retrievalAdvisor;
 
 	public SAAChatService(
 			DashScopeApi dashscopeApi,
 			SimpleLoggerAdvisor simpleLoggerAdvisor,
 			MessageChatMemoryAdvisor messageChatMemoryAdvisor,
+			ObjectProvider<ResponseCacheAdvisor> responseCacheAdvisor,
+			ObjectProvider<SemanticCacheAdvisor> semanticCacheAdvisor,
 			@Qualifier("dashScopeChatModel") ChatModel chatModel,
 			@Qualifier("systemPromptTemplate") PromptTemplate systemPromptTemplate,
 			@Qualifier("deepThinkPromptTemplate") PromptTemplate deepThinkPromptTemplate
@@ -84,7 +109,10 @@ public class SAAChatService {
 				).build();
 
 		this.deepThinkPromptTemplate = deepThinkPromptTemplate;
-		this.reasoningContentAdvisor = new ReasoningContentAdvisor(1);
+		// 位于 chat memory 之外，写入会话记忆的是不含 <think> 的正文，思考过程只出现在返回给前端的输出中
+		this.reasoningContentAdvisor = new ReasoningContentAdvisor(Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER - 1);
+		this.responseCacheAdvisor = responseCacheAdvisor.getIfAvailable();
+		this.semanticCacheAdvisor = semanticCacheAdvisor.getIfAvailable();
 	}
 
 	@PostConstruct
@@ -108,57 +136,82 @@ public class SAAChatService {
 
 		log.debug("chat model is: {}", model);
 
+		return chatClients.computeIfAbsent(model, this::buildChatClient)
+				.prompt()
+				.user(prompt)
+				.advisors(memoryAdvisor -> memoryAdvisor
+						.param(ChatMemory.CONVERSATION_ID, chatId)
+				).stream()
+				.content();
+	}
+
+	public Flux<String> deepThinkingChat(String chatId, String model, String prompt) {
+
+		return deepThinkingChatClients.computeIfAbsent(model, this::buildDeepThinkingChatClient)
+				.prompt()
+				.user(prompt)
+				.advisors(memoryAdvisor -> memoryAdvisor
+						.param(ChatMemory.CONVERSATION_ID, chatId)
+				).stream()
+				.content();
+	}
+
+	private ChatClient buildChatClient(String model) {
+
+		List<Advisor> advisors = new ArrayList<>();
+
 		// check if model == "deepseek-r1", output reasoning content.
 		if (Objects.equals("deepseek-r1", model)) {
-			// add reasoning content advisor.
-			chatClient.prompt().advisors(reasoningContentAdvisor);
+			advisors.add(reasoningContentAdvisor);
 		}
-		var runtimeOptions = DashScopeChatOptions.builder()
-				.withModel(model)
-				.withTemperature(0.8)
-				.withResponseFormat(DashScopeResponseFormat.builder()
-						.type(DashScopeResponseFormat.Type.TEXT)
-						.build()
-				).build();
+		// Only add if enable is true and retrievalAdvisor is initialized
+		if (enable && retrievalAdvisor != null) {
+			log.debug("Adding DocumentRetrievalAdvisor to chat");
+			advisors.add(retrievalAdvisor);
+		}
+		if (responseCacheAdvisor != null) {
+			advisors.add(responseCacheAdvisor);
+		}
+		if (semanticCacheAdvisor != null) {
+			advisors.add(semanticCacheAdvisor);
+		}
+
+		log.info("Build chat client for model: {}", model);
+		return chatClient.mutate()
+				.defaultOptions(options(model))
+				.defaultAdvisors(advisors)
+				.build();
+	}
 
-        ChatClient.ChatClientRequestSpec clientRequestSpec = chatClient.prompt()
-                .options(runtimeOptions)
-                .user(prompt)
-                .advisors(memoryAdvisor -> memoryAdvisor
-                        .param(ChatMemory.CONVERSATION_ID, chatId)
-                );
+	private ChatClient buildDeepThinkingChatClient(String model) {
 
-        // Only add if enable is true and retrievalAdvisor is initialized
-        if (enable && retrievalAdvisor != null) {
-            log.debug("Adding DocumentRetrievalAdvisor to chat");
-            clientRequestSpec.advisors(retrievalAdvisor);
-        }
+		List<Advisor> advisors = new ArrayList<>();
 
-        return clientRequestSpec.stream().content();
+		// Only add if enable is true and retrievalAdvisor is initialized
+		if (enable && retrievalAdvisor != null) {
+			log.debug("Adding DocumentRetrievalAdvisor to deepThinkingChat");
+			advisors.add(retrievalAdvisor);
+		}
+		// 深度思考的 system prompt 固定，相同问题可以直接复用回答
+		if (responseCacheAdvisor != null) {
+			advisors.add(responseCacheAdvisor);
+		}
+
+		log.info("Build deep thinking chat client for model: {}", model);
+		return chatClient.mutate()
+				.defaultSystem(deepThinkPromptTemplate.getTemplate())
+				.defaultOptions(options(model))
+				.defaultAdvisors(advisors)
+				.build();
 	}
 
-	public Flux<String> deepThinkingChat(String chatId, String model, String prompt) {
+	private static DashScopeChatOptions options(String model) {
+
+		return DashScopeChatOptions.builder()
+				.withModel(model)
+				.withTemperature(0.8)
+				.withResponseFormat(TEXT_RESPONSE_FORMAT)
+				.build();
+	}
 
-        ChatClient.ChatClientRequestSpec clientRequestSpec = chatClient.prompt()
-                .options(DashScopeChatOptions.builder()
-                        .withModel(model)
-                        .withTemperature(0.8)
-                        .withResponseFormat(DashScopeResponseFormat.builder()
-                                .type(DashScopeResponseFormat.Type.TEXT)
-                                .build()
-                        ).build()
-                ).system(deepThinkPromptTemplate.getTemplate())
-                .user(prompt)
-                .advisors(memoryAdvisor -> memoryAdvisor
-                        .param(ChatMemory.CONVERSATION_ID, chatId)
-                );
-
-        // Only add if enable is true and retrievalAdvisor is initialized
-        if (enable && retrievalAdvisor != null) {
-            log.debug("Adding DocumentRetrievalAdvisor to deepThinkingChat");
-            clientRequestSpec.advisors(retrievalAdvisor);
-        }
-
-        return clientRequestSpec.stream().content();
-    }
 }
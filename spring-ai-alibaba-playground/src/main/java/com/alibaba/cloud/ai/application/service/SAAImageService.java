@@ -16,11 +16,13 @@
 
 package com.alibaba.cloud.ai.application.service;
 
-import com.alibaba.cloud.ai.application.utils.FilesUtils;
+import com.alibaba.cloud.ai.application.exception.SAAAppException;
+import com.alibaba.cloud.ai.application.image.ImageFileCache;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
 import com.alibaba.cloud.ai.dashscope.chat.MessageFormat;
 import com.alibaba.cloud.ai.dashscope.image.DashScopeImageOptions;
 import com.google.common.collect.Lists;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.UserMessage;
@@ -32,20 +34,30 @@ import org.springframework.ai.image.ImageGeneration;
 import org.springframework.ai.image.ImageModel;
 import org.springframework.ai.image.ImagePrompt;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 import reactor.core.publisher.Flux;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
-import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.alibaba.cloud.ai.dashscope.common.DashScopeApiConstants.MESSAGE_FORMAT;
 
@@ -61,6 +73,17 @@ public class SAAImageService {
 
 	private static final String DEFAULT_IMAGE_MODEL = "wanx2.1-t2i-turbo";
 
+	/**
+	 * Tomcat sendfile 请求属性，见 org.apache.catalina.Globals
+	 */
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
 	/**
 	 * Images generate text
 	 */
@@ -71,36 +94,76 @@ public class SAAImageService {
 	 */
 	private final ChatClient daschScopeChatClient;
 
+	/**
+	 * 图片以 base64 形式随请求发送，限制同时处理的多模态请求数量，避免大量图片同时驻留堆内存
+	 */
+	private final Semaphore image2TextPermits;
+
+	private final DataSize image2TextMaxSize;
+
+	/**
+	 * 文生图结果缓存，未启用时为 null
+	 */
+	private final ImageFileCache imageCache;
+
+	private final Duration imageDownloadTimeout;
+
 	public SAAImageService(
 			@Qualifier("dashScopeChatModel") ChatModel chatModel,
-			@Qualifier("dashScopeImageModel") ImageModel imageModel
-	) {
+			@Qualifier("dashScopeImageModel") ImageModel imageModel,
+			@Value("${spring.ai.alibaba.playground.image.max-concurrency:8}") int image2TextMaxConcurrency,
+			@Value("${spring.ai.alibaba.playground.image.max-size:10MB}") DataSize image2TextMaxSize,
+			@Value("${spring.ai.alibaba.playground.image.cache.enabled:true}") boolean imageCacheEnabled,
+			@Value("${spring.ai.alibaba.playground.image.cache.dir:${user.dir}/tmp/image-cache}") String imageCacheDir,
+			@Value("${spring.ai.alibaba.playground.image.cache.max-size:512MB}") DataSize imageCacheMaxSize,
+			@Value("${spring.ai.alibaba.playground.image.download-timeout:30s}") Duration imageDownloadTimeout
+	) throws IOException {
 
 		this.imageModel = imageModel;
+		this.image2TextPermits = new Semaphore(image2TextMaxConcurrency);
+		this.image2TextMaxSize = image2TextMaxSize;
+		this.imageCache = imageCacheEnabled ? new ImageFileCache(Path.of(imageCacheDir), imageCacheMaxSize.toBytes()) : null;
+		this.imageDownloadTimeout = imageDownloadTimeout;
 		this.daschScopeChatClient = ChatClient
 				.builder(chatModel)
 				.build();
 	}
 
-	public Flux<String> image2Text(String prompt, MultipartFile file) throws IOException {
-
-		String filePath = FilesUtils.saveTempFile(file, "/tmp/image/");
-//		UserMessage message = new UserMessage(
-//				prompt,
-//				new Media(
-//						MimeTypeUtils.IMAGE_PNG,
-//						new FileSystemResource(filePath)
-//				)
-//		);
-		List<Media> mediaList = Lists.newArrayList(new Media(
-				MimeTypeUtils.IMAGE_PNG,
-				new FileSystemResource(filePath)
-		));
-		UserMessage message =
-				UserMessage.builder().text(prompt).media(mediaList).metadata(new HashMap<>()).build();
-		message.getMetadata().put(MESSAGE_FORMAT, MessageFormat.IMAGE);
-
-		List<ChatResponse> response = daschScopeChatClient.prompt(
+	public Flux<String> image2Text(String prompt, MultipartFile file) {
+
+		if (file == null || file.isEmpty()) {
+			throw new SAAAppException("File is null or empty");
+		}
+		// 在读取文件内容之前校验大小，超出限制的文件不会进入堆内存
+		if (file.getSize() > image2TextMaxSize.toBytes()) {
+			throw new SAAAppException("Image size exceeds the limit of " + image2TextMaxSize);
+		}
+		if (!image2TextPermits.tryAcquire()) {
+			throw new SAAAppException("Too many image recognition requests, please try again later");
+		}
+
+		AtomicBoolean released = new AtomicBoolean();
+		Runnable release = () -> {
+			if (released.compareAndSet(false, true)) {
+				image2TextPermits.release();
+			}
+		};
+
+		UserMessage message;
+		try {
+			List<Media> mediaList = Lists.newArrayList(new Media(
+					imageMimeType(file),
+					file.getResource()
+			));
+			message = UserMessage.builder().text(prompt).media(mediaList).metadata(new HashMap<>()).build();
+			message.getMetadata().put(MESSAGE_FORMAT, MessageFormat.IMAGE);
+		}
+		catch (RuntimeException e) {
+			release.run();
+			throw e;
+		}
+
+		return daschScopeChatClient.prompt(
 						new Prompt(
 								message,
 								DashScopeChatOptions.builder()
@@ -108,19 +171,23 @@ public class SAAImageService {
 										.withMultiModel(true)
 										.build())
 				).stream()
-				.chatResponse()
-				.collectList()
-				.block();
-
-		StringBuilder result = new StringBuilder();
-		if (response != null) {
-			for (ChatResponse chatResponse : response) {
-				String outputContent = chatResponse.getResult().getOutput().getText();
-				result.append(outputContent);
+				.content()
+				// 正常结束、出错或客户端断开时归还许可，在结束信号传递给下游之前执行
+				.doOnTerminate(release)
+				.doOnCancel(release);
+	}
+
+	private static MimeType imageMimeType(MultipartFile file) {
+
+		String contentType = file.getContentType();
+		if (StringUtils.hasText(contentType)) {
+			MimeType mimeType = MimeTypeUtils.parseMimeType(contentType);
+			if ("image".equals(mimeType.getType())) {
+				return mimeType;
 			}
 		}
 
-		return Flux.just(result.toString());
+		return MimeTypeUtils.IMAGE_PNG;
 	}
 
 	/**
@@ -129,38 +196,124 @@ public class SAAImageService {
 	 * 此示例中不做演示。
 	 * 文档参考：<a href="https://help.aliyun.com/zh/model-studio/developer-reference/text-to-image-v2-api-reference">...</a>
 	 */
-	public void text2Image(String prompt, String resolution, String style, HttpServletResponse response) {
+	public void text2Image(String prompt, String resolution, String style, String range, HttpServletRequest request,
+			HttpServletResponse response) {
 
+		String cacheKey = ImageFileCache.key(prompt, resolution, style, DEFAULT_IMAGE_MODEL);
 
-		//
-		HttpHeaders headers = new HttpHeaders();
-		headers.add("Content-Security-Policy", "img-src 'self' data:;");
+		try {
+			if (imageCache != null && writeCachedImage(cacheKey, range, request, response)) {
+				return;
+			}
 
-		ImageGeneration result = imageModel.call(
-				new ImagePrompt(
-						prompt,
-						DashScopeImageOptions.builder()
-								.withHeight(Integer.valueOf(resolution.split("\\*")[0]))
-								.withWidth(Integer.valueOf(resolution.split("\\*")[1]))
-								.withStyle(style)
-								.withModel(DEFAULT_IMAGE_MODEL)
-								.build())
-		).getResult();
+			ImageGeneration result = imageModel.call(
+					new ImagePrompt(
+							prompt,
+							DashScopeImageOptions.builder()
+									.withHeight(Integer.valueOf(resolution.split("\\*")[0]))
+									.withWidth(Integer.valueOf(resolution.split("\\*")[1]))
+									.withStyle(style)
+									.withModel(DEFAULT_IMAGE_MODEL)
+									.build())
+			).getResult();
 
-		String imageUrl = result.getOutput().getUrl();
+			String imageUrl = result.getOutput().getUrl();
 
-		try {
-			URL url = URI.create(imageUrl).toURL();
-			InputStream in = url.openStream();
+			URLConnection connection = URI.create(imageUrl).toURL().openConnection();
+			connection.setConnectTimeout((int) imageDownloadTimeout.toMillis());
+			connection.setReadTimeout((int) imageDownloadTimeout.toMillis());
 
-			response.setHeader("Content-Security-Policy", "img-src 'self' data:;");
-			response.setHeader("Content-Type", MediaType.IMAGE_PNG_VALUE);
-			response.getOutputStream().write(in.readAllBytes());
-			response.getOutputStream().flush();
+			// 边下载边写入响应，使用固定大小的缓冲区，不在堆内缓存整张图片
+			try (InputStream in = connection.getInputStream()) {
+				setImageHeaders(response);
+				long contentLength = connection.getContentLengthLong();
+				if (contentLength >= 0) {
+					response.setContentLengthLong(contentLength);
+				}
+
+				OutputStream out = response.getOutputStream();
+				if (imageCache != null) {
+					imageCache.copyAndStore(cacheKey, in, out);
+				}
+				else {
+					in.transferTo(out);
+					out.flush();
+				}
+			}
 		}
 		catch (IOException e) {
-			response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			if (!response.isCommitted()) {
+				response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			}
 		}
 	}
 
+	/**
+	 * 命中缓存时从文件发送，支持单个字节范围的 Range 请求。
+	 * <p>
+	 * Tomcat 连接器支持 sendfile 时，只设置 {@code org.apache.tomcat.sendfile.*} 请求属性并提交响应头，
+	 * 由 Tomcat 在请求处理结束后通过 sendfile 从文件直接发送到 socket，不经过用户态缓冲区；
+	 * 其他容器或关闭 sendfile 时退回 {@link ImageFileCache#transferTo}，在用户态复制到响应流。
+	 * @return 是否命中缓存
+	 */
+	private boolean writeCachedImage(String cacheKey, String range, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+
+		Optional<Long> size = imageCache.size(cacheKey);
+		if (size.isEmpty()) {
+			return false;
+		}
+
+		long length = size.get();
+		long start = 0;
+		long count = length;
+
+		if (StringUtils.hasText(range)) {
+			try {
+				List<HttpRange> ranges = HttpRange.parseRanges(range);
+				if (ranges.size() == 1) {
+					start = ranges.get(0).getRangeStart(length);
+					count = ranges.get(0).getRangeEnd(length) - start + 1;
+					response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+					response.setHeader(HttpHeaders.CONTENT_RANGE,
+							"bytes " + start + "-" + (start + count - 1) + "/" + length);
+				}
+			}
+			catch (IllegalArgumentException e) {
+				response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+				return true;
+			}
+		}
+
+		setImageHeaders(response);
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+		response.setContentLengthLong(count);
+
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+			Optional<Path> file = imageCache.cachedFile(cacheKey);
+			if (file.isPresent()) {
+				request.setAttribute(SENDFILE_FILENAME, file.get().toAbsolutePath().toString());
+				request.setAttribute(SENDFILE_START, start);
+				request.setAttribute(SENDFILE_END, start + count);
+				// 提交响应头，之后写入响应体的内容（如 controller 的返回值）会被 Tomcat 丢弃
+				response.flushBuffer();
+				return true;
+			}
+		}
+		else if (imageCache.transferTo(cacheKey, start, count, response.getOutputStream())) {
+			return true;
+		}
+
+		// 缓存文件已被淘汰，重新生成
+		response.reset();
+		return false;
+	}
+
+	private static void setImageHeaders(HttpServletResponse response) {
+
+		response.setHeader("Content-Security-Policy", "img-src 'self' data:;");
+		response.setHeader("Content-Type", MediaType.IMAGE_PNG_VALUE);
+	}
+
 }
@@ -17,36 +17,56 @@
 package com.alibaba.cloud.ai.application.service;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import com.alibaba.cloud.ai.application.entity.mcp.McpServer;
+import com.alibaba.cloud.ai.application.entity.mcp.McpServerConfig;
 import com.alibaba.cloud.ai.application.entity.tools.ToolCallResp;
+import com.alibaba.cloud.ai.application.exception.SAAAppException;
+import com.alibaba.cloud.ai.application.mcp.McpClientPool;
+import com.alibaba.cloud.ai.application.mcp.McpConfigWatcher;
 import com.alibaba.cloud.ai.application.mcp.McpServerContainer;
 import com.alibaba.cloud.ai.application.mcp.McpServerUtils;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.alibaba.cloud.ai.application.mcp.McpToolExecutor;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.mcp.client.common.autoconfigure.properties.McpStdioClientProperties;
+import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.model.tool.ToolCallingChatOptions;
-import org.springframework.ai.model.tool.ToolCallingManager;
-import org.springframework.ai.model.tool.ToolExecutionResult;
 import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
 
 import static com.alibaba.cloud.ai.application.mcp.McpServerUtils.getMcpLibsAbsPath;
 
@@ -59,151 +79,284 @@ public class SAAMcpService {
 
 	private final ChatClient chatClient;
 
-	private final ObjectMapper objectMapper;
-
 	private final ToolCallbackProvider tools;
 
-	private final ToolCallingManager toolCallingManager;
+	private final McpToolExecutor toolExecutor;
+
+	private final McpClientPool clientPool;
 
-	private final McpStdioClientProperties mcpStdioClientProperties;
+	private volatile McpServerConfig mcpServerConfig;
+
+	private McpConfigWatcher configWatcher;
 
 	private static final Logger logger = LoggerFactory.getLogger(SAAMcpService.class);
 
 	public SAAMcpService(
-			ObjectMapper objectMapper,
 			ToolCallbackProvider tools,
 			SimpleLoggerAdvisor simpleLoggerAdvisor,
-			ToolCallingManager toolCallingManager,
-			McpStdioClientProperties mcpStdioClientProperties,
-			@Qualifier("openAiChatModel") ChatModel chatModel
+			ObjectProvider<MeterRegistry> meterRegistry,
+			@Qualifier("openAiChatModel") ChatModel chatModel,
+			@Value("${spring.ai.alibaba.playground.mcp.tool-timeout:60s}") Duration toolTimeout,
+			@Value("${spring.ai.alibaba.playground.mcp.tool-concurrency:8}") int toolConcurrency,
+			@Value("${spring.ai.alibaba.playground.mcp.pool.max-instances:8}") int poolMaxInstances,
+			@Value("${spring.ai.alibaba.playground.mcp.pool.idle-timeout:10m}") Duration poolIdleTimeout,
+			@Value("${spring.ai.alibaba.playground.mcp.pool.health-check-interval:30s}") Duration poolHealthCheckInterval,
+			@Value("${spring.ai.alibaba.playground.mcp.config-watch.enabled:true}") boolean configWatchEnabled
 	) throws IOException {
 
-		this.objectMapper = objectMapper;
-		this.mcpStdioClientProperties = mcpStdioClientProperties;
-
-		// Initialize chat client with non-blocking configuration
+		// 工具通过每次请求的 options 指定，同一个 client 可同时服务启动时加载的工具和连接池中的工具
 		this.chatClient = ChatClient.builder(chatModel)
 				.defaultAdvisors(
 						simpleLoggerAdvisor
-				).defaultToolCallbacks(tools)
-				.build();
+				).build();
 		this.tools = tools;
-		this.toolCallingManager = toolCallingManager;
+		this.toolExecutor = new McpToolExecutor(
+				meterRegistry.getIfAvailable(() -> Metrics.globalRegistry),
+				toolTimeout,
+				toolConcurrency
+		);
+		this.clientPool = McpClientPool.builder()
+				.maxInstances(poolMaxInstances)
+				.idleTimeout(poolIdleTimeout)
+				.healthCheckInterval(poolHealthCheckInterval)
+				.requestTimeout(toolTimeout)
+				.build();
+		this.mcpServerConfig = McpServerUtils.getMcpServerConfig();
 
 		McpServerUtils.initMcpServerContainer(tools);
+
+		if (configWatchEnabled) {
+			Optional<Path> configFile = McpServerUtils.getMcpConfigFile();
+			if (configFile.isPresent()) {
+				this.configWatcher = new McpConfigWatcher(configFile.get(), this::reload);
+			}
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+
+		if (configWatcher != null) {
+			configWatcher.dispose();
+		}
+		toolExecutor.dispose();
+		clientPool.dispose();
 	}
 
+	/**
+	 * mcp-config.yml 变更后同步注册表，新增或启动参数变化的 server 通过连接池启动并获取工具列表。
+	 */
+	private void reload(McpServerConfig config) {
+
+		McpServerConfig previous = this.mcpServerConfig;
+		this.mcpServerConfig = config;
+
+		config.getMcpServers().forEach((name, parameters) -> {
+			if (!Objects.equals(previous.getMcpServers().get(name), parameters)) {
+				McpServerContainer.removeServerByName(name);
+			}
+		});
+
+		McpServerUtils.syncMcpServerContainer(config, name -> {
+			try (McpClientPool.Lease lease = clientPool.acquire(name, serverParameters(name, Map.of()))) {
+				return McpServerUtils.toTools(lease.toolCallbacks());
+			}
+			catch (RuntimeException e) {
+				logger.warn("Failed to list tools of mcp server: {}, {}", name, e.getMessage());
+				return List.of();
+			}
+		});
+	}
+
+	/**
+	 * 阻塞版本，返回 {@link #chatStream(String)} 的最后一个事件，即所有工具执行结果的汇总。
+	 */
 	public ToolCallResp chat(String prompt) {
 
+		return chatStream(prompt).last(ToolCallResp.TCR()).block();
+	}
+
+	/**
+	 * 1. 模型决定需要调用的工具；
+	 * 2. 同一轮中的全部工具并发执行，逐个返回执行进度；
+	 * 3. 将工具结果交给模型生成最终回答，最后一个事件为汇总结果。
+	 */
+	public Flux<ToolCallResp> chatStream(String prompt) {
+
+		return chatStream(prompt, tools.getToolCallbacks());
+	}
+
+	private Flux<ToolCallResp> chatStream(String prompt, ToolCallback[] toolCallbacks) {
+
 		// manual run tools flag
 		ChatOptions chatOptions = ToolCallingChatOptions.builder()
-				.toolCallbacks(tools.getToolCallbacks())
+				.toolCallbacks(toolCallbacks)
 				.internalToolExecutionEnabled(false)
 				.build();
 
-		ChatResponse response = chatClient.prompt(new Prompt(prompt, chatOptions))
-				.call().chatResponse();
+		return Mono.fromCallable(() -> chatClient.prompt(new Prompt(prompt, chatOptions)).call().chatResponse())
+				.subscribeOn(Schedulers.boundedElastic())
+				.flatMapMany(response -> {
+
+					logger.debug("ChatResponse: {}", response);
+					AssistantMessage output = response.getResult().getOutput();
+					List<AssistantMessage.ToolCall> toolCalls = output.getToolCalls();
+					logger.debug("ToolCalls: {}", toolCalls);
+					String responseByLLm = output.getText();
+					logger.debug("Response by LLM: {}", responseByLLm);
+
+					if (toolCalls.isEmpty()) {
+						logger.debug("ToolCalls is empty, no tool execution needed.");
+						var tcr = ToolCallResp.TCR();
+						tcr.setToolResult(responseByLLm);
+						return Flux.just(tcr);
+					}
+
+					LocalDateTime startTime = LocalDateTime.now();
+					long start = System.nanoTime();
+					List<ToolCallResp> finished = Collections.synchronizedList(new ArrayList<>());
+
+					Flux<ToolCallResp> progress = toolExecutor.execute(responseByLLm, toolCalls, toolCallbacks)
+							.doOnNext(event -> {
+								if (event.getStatus() != ToolCallResp.ToolState.RUNNING) {
+									finished.add(event);
+								}
+							});
 
-		logger.debug("ChatResponse: {}", response);
-		assert response != null;
-		List<AssistantMessage.ToolCall> toolCalls = response.getResult().getOutput().getToolCalls();
-		logger.debug("ToolCalls: {}", toolCalls);
-		String responseByLLm = response.getResult().getOutput().getText();
-		logger.debug("Response by LLM: {}", responseByLLm);
+					Mono<ToolCallResp> summary = Mono.fromCallable(() -> summarize(
+									prompt, output, toolCalls, toolCallbacks, finished, startTime,
+									System.nanoTime() - start))
+							.subscribeOn(Schedulers.boundedElastic());
 
-		// execute tools with no chat memory messages.
-		var tcr = ToolCallResp.TCR();
-		if (!toolCalls.isEmpty()) {
+					return progress.concatWith(summary);
+				});
+	}
 
-			tcr = ToolCallResp.startExecute(
-					responseByLLm,
-					toolCalls.get(0).name(),
-					toolCalls.get(0).arguments()
+	private ToolCallResp summarize(
+			String prompt,
+			AssistantMessage output,
+			List<AssistantMessage.ToolCall> toolCalls,
+			ToolCallback[] toolCallbacks,
+			List<ToolCallResp> finished,
+			LocalDateTime startTime,
+			long elapsedNanos
+	) {
+
+		// 按模型返回的调用顺序整理工具结果，以调用序号关联，模型返回的 id 可能为空或重复
+		ToolCallResp[] ordered = new ToolCallResp[toolCalls.size()];
+		for (ToolCallResp resp : finished) {
+			ordered[resp.getToolCallIndex()] = resp;
+		}
+		for (int i = 0; i < ordered.length; i++) {
+			Assert.state(ordered[i] != null, "Missing result of tool call " + i + ": " + toolCalls.get(i).name());
+		}
+		List<ToolCallResp> results = List.of(ordered);
+		boolean anySuccess = results.stream().anyMatch(resp -> resp.getStatus() == ToolCallResp.ToolState.SUCCESS);
+		boolean allSuccess = results.stream().allMatch(resp -> resp.getStatus() == ToolCallResp.ToolState.SUCCESS);
+
+		var tcr = ToolCallResp.startExecute(
+				output.getText(),
+				results.stream().map(ToolCallResp::getToolName).collect(Collectors.joining(",")),
+				results.stream().map(ToolCallResp::getToolParameters).collect(Collectors.joining(","))
+		);
+		tcr.setToolStartTime(startTime);
+		tcr.setToolResponse(results.stream()
+				.map(ToolCallResp::getToolResponse)
+				.filter(Objects::nonNull)
+				.collect(Collectors.joining()));
+		String errorMessage = results.stream()
+				.map(ToolCallResp::getErrorMessage)
+				.filter(Objects::nonNull)
+				.collect(Collectors.joining("; "));
+		tcr.setErrorMessage(errorMessage.isEmpty() ? null : errorMessage);
+
+		String llmCallResponse = "";
+		if (anySuccess) {
+			// 失败的工具以错误信息作为返回结果，由模型决定如何回答
+			List<ToolResponseMessage.ToolResponse> toolResponses = results.stream()
+					.map(resp -> new ToolResponseMessage.ToolResponse(
+							resp.getToolCallId(),
+							resp.getToolName(),
+							resp.getStatus() == ToolCallResp.ToolState.SUCCESS
+									? resp.getToolResponse() : "Tool execution failed: " + resp.getErrorMessage()
+					)).toList();
+
+			List<Message> conversationHistory = List.of(
+					new UserMessage(prompt),
+					output,
+					ToolResponseMessage.builder().responses(toolResponses).build()
 			);
-			tcr.setToolParameters(toolCalls.get(0).arguments());
-			logger.debug("Start ToolCallResp: {}", tcr);
-			ToolExecutionResult toolExecutionResult = null;
-
-			try {
-				toolExecutionResult = toolCallingManager.executeToolCalls(new Prompt(prompt, chatOptions), response);
 
-				tcr.setToolEndTime(LocalDateTime.now());
+			ChatResponse finalResponse = chatClient.prompt()
+					.messages(conversationHistory)
+					.options(ToolCallingChatOptions.builder().toolCallbacks(toolCallbacks).build())
+					.call().chatResponse();
+			if (finalResponse != null) {
+				llmCallResponse = finalResponse.getResult().getOutput().getText();
 			}
-			catch (Exception e) {
-
-				tcr.setStatus(ToolCallResp.ToolState.FAILURE);
-				tcr.setErrorMessage(e.getMessage());
-				tcr.setToolEndTime(LocalDateTime.now());
-				tcr.setToolCostTime((long) (tcr.getToolEndTime().getNano() - tcr.getToolStartTime().getNano()));
-				logger.error("Error ToolCallResp: {}, msg: {}", tcr, e.getMessage());
-				// throw new RuntimeException("Tool execution failed, please check the logs for details.");
-			}
-
-			String llmCallResponse = "";
-			if (Objects.nonNull(toolExecutionResult)) {
-//				ToolResponseMessage toolResponseMessage = (ToolResponseMessage) toolExecutionResult.conversationHistory()
-//						.get(toolExecutionResult.conversationHistory().size() - 1);
-//				llmCallResponse = toolResponseMessage.getResponses().get(0).responseData();
-				ChatResponse finalResponse = chatClient.prompt().messages(toolExecutionResult.conversationHistory())
-						.call().chatResponse();
-				if (finalResponse != null) {
-					llmCallResponse = finalResponse.getResult().getOutput().getText();
-				}
-
-				StringBuilder sb = new StringBuilder();
-				toolExecutionResult.conversationHistory().stream()
-						.filter(message -> message instanceof ToolResponseMessage)
-						.forEach(message -> {
-							ToolResponseMessage toolResponseMessage = (ToolResponseMessage) message;
-							toolResponseMessage.getResponses().forEach(tooResponse -> {
-								sb.append(tooResponse.responseData());
-							});
-						});
-				tcr.setToolResponse(sb.toString());
-			}
-
-			tcr.setStatus(ToolCallResp.ToolState.SUCCESS);
-			tcr.setToolResult(llmCallResponse);
-			tcr.setToolCostTime((long) (tcr.getToolEndTime().getNano() - tcr.getToolStartTime().getNano()));
-			logger.debug("End ToolCallResp: {}", tcr);
-		}
-		else {
-			logger.debug("ToolCalls is empty, no tool execution needed.");
-			tcr.setToolResult(responseByLLm);
 		}
 
+		tcr.setToolEndTime(LocalDateTime.now());
+		tcr.setStatus(allSuccess ? ToolCallResp.ToolState.SUCCESS : ToolCallResp.ToolState.FAILURE);
+		tcr.setToolResult(llmCallResponse);
+		tcr.setToolCostTime(Duration.ofNanos(elapsedNanos).toMillis());
+		logger.debug("End ToolCallResp: {}", tcr);
+
 		return tcr;
 	}
 
-	public ToolCallResp run(String id, Map<String, String> envs, String prompt) throws IOException {
+	public ToolCallResp run(String id, Map<String, String> envs, String prompt) {
+
+		return runStream(id, envs, prompt).last(ToolCallResp.TCR()).block();
+	}
+
+	/**
+	 * 使用连接池中对应 server 与 env 的 client 执行，流结束后归还 client。
+	 */
+	public Flux<ToolCallResp> runStream(String id, Map<String, String> envs, String prompt) {
 
 		Optional<McpServer> runMcpServer = McpServerContainer.getServerById(id);
 		if (runMcpServer.isEmpty()) {
 			logger.error("McpServer not found, id: {}", id);
-			return ToolCallResp.TCR();
+			return Flux.just(ToolCallResp.TCR());
 		}
 
 		String runMcpServerName = runMcpServer.get().getName();
-		var mcpServerConfig = McpServerUtils.getMcpServerConfig();
-		McpStdioClientProperties.Parameters parameters = new McpStdioClientProperties.Parameters(
-				mcpServerConfig.getMcpServers().get(runMcpServerName).command(),
-				mcpServerConfig.getMcpServers().get(runMcpServerName).args(),
-				envs
-		);
+		ServerParameters parameters = serverParameters(runMcpServerName, envs);
+
+		return Flux.using(
+				() -> clientPool.acquire(runMcpServerName, parameters),
+				lease -> chatStream(prompt, lease.toolCallbacks()),
+				McpClientPool.Lease::close
+		).subscribeOn(Schedulers.boundedElastic());
+	}
 
-		if (parameters.command().startsWith("java")) {
-			String oldMcpLibsPath = McpServerUtils.getLibsPath(parameters.args());
-			String rewriteMcpLibsAbsPath = getMcpLibsAbsPath(McpServerUtils.getLibsPath(parameters.args()));
+	private ServerParameters serverParameters(String serverName, Map<String, String> envs) {
 
-			parameters.args().remove(oldMcpLibsPath);
-			parameters.args().add(rewriteMcpLibsAbsPath);
+		McpStdioClientProperties.Parameters config = mcpServerConfig.getMcpServers().get(serverName);
+		if (config == null) {
+			throw new SAAAppException("McpServer config not found, name: " + serverName);
 		}
 
-		String mcpServerConfigJSON = objectMapper.writeValueAsString(mcpServerConfig);
-		mcpStdioClientProperties.setServersConfiguration(new ByteArrayResource(mcpServerConfigJSON.getBytes()));
+		// 配置文件中的 env 作为默认值，请求中的 env 覆盖同名配置
+		Map<String, String> env = new HashMap<>();
+		if (config.env() != null) {
+			env.putAll(config.env());
+		}
+		if (envs != null) {
+			env.putAll(envs);
+		}
+
+		List<String> args = new ArrayList<>(config.args() != null ? config.args() : List.of());
+		if (config.command().startsWith("java")) {
+			String oldMcpLibsPath = McpServerUtils.getLibsPath(args);
+			args.set(args.size() - 1, getMcpLibsAbsPath(oldMcpLibsPath));
+		}
 
-		return chat(prompt);
+		return ServerParameters.builder(config.command())
+				.args(args)
+				.env(env)
+				.build();
 	}
 
 }
-
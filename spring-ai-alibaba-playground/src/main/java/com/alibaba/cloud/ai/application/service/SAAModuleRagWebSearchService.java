@@ -19,13 +19,16 @@ package com.alibaba.cloud.ai.application.service;
 import com.alibaba.cloud.ai.application.advisor.ReasoningContentAdvisor;
 import com.alibaba.cloud.ai.application.entity.dashscope.ChatResponseDTO;
 import com.alibaba.cloud.ai.application.enums.WebSearchEnum;
+import com.alibaba.cloud.ai.application.modulerag.ParallelDocumentRetriever;
 import com.alibaba.cloud.ai.application.modulerag.WebSearchRetriever;
 import com.alibaba.cloud.ai.application.modulerag.core.IQSSearchEngine;
 import com.alibaba.cloud.ai.application.modulerag.data.DataClean;
 import com.alibaba.cloud.ai.application.modulerag.join.ConcatenationDocumentJoiner;
+import com.alibaba.cloud.ai.application.modulerag.join.ScoreFusionDocumentJoiner;
 import com.alibaba.cloud.ai.application.modulerag.prompt.CustomContextQueryAugmenter;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
 import com.alibaba.cloud.ai.dashscope.spec.DashScopeModel;
+import jakarta.annotation.PreDestroy;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.model.ChatModel;
@@ -33,10 +36,15 @@ import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
 import org.springframework.ai.rag.preretrieval.query.expansion.QueryExpander;
 import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
+import org.springframework.ai.rag.retrieval.join.DocumentJoiner;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
+import java.time.Duration;
+
 /**
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
@@ -53,7 +61,7 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
 
     private final QueryTransformer queryTransformer;
 
-    private final WebSearchRetriever webSearchRetriever;
+    private final ParallelDocumentRetriever webSearchRetriever;
 
     private final SimpleLoggerAdvisor simpleLoggerAdvisor;
 
@@ -61,6 +69,8 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
 
     private final ReasoningContentAdvisor reasoningContentAdvisor;
 
+    private final RetrievalAugmentationAdvisor retrievalAugmentationAdvisor;
+
     public SAAModuleRagWebSearchService(
             DataClean dataCleaner,
             QueryExpander queryExpander,
@@ -68,7 +78,9 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
             QueryTransformer queryTransformer,
             SimpleLoggerAdvisor simpleLoggerAdvisor,
             @Qualifier("dashScopeChatModel") ChatModel chatModel,
-            @Qualifier("queryArgumentPromptTemplate") PromptTemplate queryArgumentPromptTemplate
+            @Qualifier("queryArgumentPromptTemplate") PromptTemplate queryArgumentPromptTemplate,
+            @Value("${spring.ai.alibaba.playground.web-search.retrieve-timeout:5s}") Duration retrieveTimeout,
+            @Value("${spring.ai.alibaba.playground.web-search.join-strategy:concatenation}") String joinStrategy
     ) {
 
         this.dataCleaner = dataCleaner;
@@ -91,11 +103,26 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
 
         this.simpleLoggerAdvisor = simpleLoggerAdvisor;
 
-        this.webSearchRetriever = WebSearchRetriever.builder()
-                .searchEngine(searchEngine)
-                .dataCleaner(dataCleaner)
-                .maxResults(2)
+        // 扩展问题并发检索，单个问题超时或失败时返回部分结果
+        this.webSearchRetriever = ParallelDocumentRetriever.builder()
+                .delegate(WebSearchRetriever.builder()
+                        .searchEngine(searchEngine)
+                        .dataCleaner(dataCleaner)
+                        .maxResults(2)
+                        .build())
+                .queryExpander(queryExpander)
+                .documentJoiner(createDocumentJoiner(joinStrategy))
+                .timeout(retrieveTimeout)
                 .build();
+
+        // advisor 无状态，只创建一次，不必每次请求重新构建
+        this.retrievalAugmentationAdvisor = createRetrievalAugmentationAdvisor();
+    }
+
+    @PreDestroy
+    public void destroy() {
+
+        webSearchRetriever.dispose();
     }
 
 
@@ -109,7 +136,7 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
 
         return chatClient.prompt()
                 .advisors(
-                        createRetrievalAugmentationAdvisor(),
+                        retrievalAugmentationAdvisor,
                         reasoningContentAdvisor,
                         simpleLoggerAdvisor
                 ).user(prompt)
@@ -120,6 +147,7 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
 
     private RetrievalAugmentationAdvisor createRetrievalAugmentationAdvisor() {
 
+        // 问题扩展与合并由 ParallelDocumentRetriever 完成，advisor 只检索一次，直接在当前线程执行
         return RetrievalAugmentationAdvisor.builder()
                 .documentRetriever(webSearchRetriever)
                 .queryTransformers(queryTransformer)
@@ -128,9 +156,29 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
                                 queryArgumentPromptTemplate,
                                 null,
                                 true)
-                ).queryExpander(queryExpander)
-                .documentJoiner(new ConcatenationDocumentJoiner())
+                ).taskExecutor(new SyncTaskExecutor())
                 .build();
     }
 
+    /**
+     * concatenation: 按问题平均分配名额拼接（默认）；
+     * reciprocal-rank / max-score / weighted-sum: 按融合分数排序，使用 IQS rerankScore。
+     */
+    private DocumentJoiner createDocumentJoiner(String joinStrategy) {
+
+        return switch (joinStrategy.toLowerCase()) {
+            case "concatenation" -> new ConcatenationDocumentJoiner();
+            case "reciprocal-rank" -> ScoreFusionDocumentJoiner.builder()
+                    .strategy(ScoreFusionDocumentJoiner.Strategy.RECIPROCAL_RANK)
+                    .build();
+            case "max-score" -> ScoreFusionDocumentJoiner.builder()
+                    .strategy(ScoreFusionDocumentJoiner.Strategy.MAX_SCORE)
+                    .build();
+            case "weighted-sum" -> ScoreFusionDocumentJoiner.builder()
+                    .strategy(ScoreFusionDocumentJoiner.Strategy.WEIGHTED_SUM)
+                    .build();
+            default -> throw new IllegalArgumentException("Unsupported web search join strategy: " + joinStrategy);
+        };
+    }
+
 }
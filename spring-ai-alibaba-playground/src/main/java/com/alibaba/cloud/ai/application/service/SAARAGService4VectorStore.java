@@ -16,6 +16,8 @@
 
 package com.alibaba.cloud.ai.application.service;
 
+import com.alibaba.cloud.ai.application.advisor.ResponseCacheAdvisor;
+import com.alibaba.cloud.ai.application.advisor.SemanticCacheAdvisor;
 import com.alibaba.cloud.ai.application.config.rag.VectorStoreDelegate;
 import reactor.core.publisher.Flux;
 
@@ -27,10 +29,13 @@ import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 /**
+ * QuestionAnswerAdvisor、SearchRequest 与缓存命名空间在构造时创建一次，每次请求只设置用户输入与对话 ID。
+ *
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
@@ -40,36 +45,24 @@ public class SAARAGService4VectorStore implements ISAARAGService {
 
 	private final ChatClient client;
 
-	private final VectorStoreDelegate vectorStoreDelegate;
-
-	private String vectorStoreType;
-
 	public SAARAGService4VectorStore(
 			VectorStoreDelegate vectorStoreDelegate,
 			SimpleLoggerAdvisor simpleLoggerAdvisor,
 			MessageChatMemoryAdvisor messageChatMemoryAdvisor,
+			ObjectProvider<ResponseCacheAdvisor> responseCacheAdvisor,
+			ObjectProvider<SemanticCacheAdvisor> semanticCacheAdvisor,
 			@Qualifier("dashScopeChatModel") ChatModel chatModel,
 			@Qualifier("systemPromptTemplate") PromptTemplate systemPromptTemplate
 	) {
 
-		this.vectorStoreType = System.getenv("VECTOR_STORE_TYPE");
-		this.vectorStoreDelegate = vectorStoreDelegate;
-		this.client = ChatClient.builder(chatModel)
+		String vectorStoreType = System.getenv("VECTOR_STORE_TYPE");
+
+		ChatClient.Builder builder = ChatClient.builder(chatModel)
 				.defaultSystem(
 						systemPromptTemplate.getTemplate()
 				).defaultAdvisors(
 						messageChatMemoryAdvisor,
-						simpleLoggerAdvisor
-				).build();
-	}
-
-	public Flux<String> ragChat(String chatId, String prompt) {
-
-		return client.prompt()
-				.user(prompt)
-				.advisors(memoryAdvisor -> memoryAdvisor
-						.param(ChatMemory.CONVERSATION_ID, chatId)
-				).advisors(
+						simpleLoggerAdvisor,
 						QuestionAnswerAdvisor
 								.builder(vectorStoreDelegate.getVectorStore(vectorStoreType))
 								.searchRequest(
@@ -80,6 +73,34 @@ public class SAARAGService4VectorStore implements ISAARAGService {
 												.build()
 								)
 								.build()
+				);
+
+		// 命中时跳过向量检索与模型调用，RAG 回答与普通对话回答分属不同命名空间
+		String cacheNamespace = "rag:" + vectorStoreType;
+		ResponseCacheAdvisor responseCache = responseCacheAdvisor.getIfAvailable();
+		if (responseCache != null) {
+			builder.defaultAdvisors(advisor -> advisor
+					.param(ResponseCacheAdvisor.CACHE_NAMESPACE, cacheNamespace)
+					.advisors(responseCache)
+			);
+		}
+		SemanticCacheAdvisor semanticCache = semanticCacheAdvisor.getIfAvailable();
+		if (semanticCache != null) {
+			builder.defaultAdvisors(advisor -> advisor
+					.param(SemanticCacheAdvisor.CACHE_NAMESPACE, cacheNamespace)
+					.advisors(semanticCache)
+			);
+		}
+
+		this.client = builder.build();
+	}
+
+	public Flux<String> ragChat(String chatId, String prompt) {
+
+		return client.prompt()
+				.user(prompt)
+				.advisors(memoryAdvisor -> memoryAdvisor
+						.param(ChatMemory.CONVERSATION_ID, chatId)
 				).stream()
 				.content();
 	}
@@ -16,30 +16,43 @@
 
 package com.alibaba.cloud.ai.application.service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 import com.alibaba.cloud.ai.application.exception.SAAAppException;
+import com.alibaba.cloud.ai.application.summarizer.DocumentChunkReader;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.PromptTemplate;
-import org.springframework.ai.document.Document;
-import org.springframework.ai.reader.tika.TikaDocumentReader;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 
 /**
+ * 文档摘要，按 map-reduce 的方式处理大文档：
+ * <p>
+ * 1. map：边解析边按 token 数切分文档，chunk 并发生成摘要，并发数有上限，各部分摘要按顺序流式返回给客户端；
+ * 2. reduce：各部分摘要逐层合并，每一层累积的摘要超过 token 上限时合并为一条放入上一层，
+ *    内存中只保留每层未合并的摘要，层数随文档大小对数增长；
+ * 3. 最后将剩余的摘要交给模型流式生成全文摘要。文档只有一个 chunk 时直接流式生成摘要。
+ *
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
@@ -49,13 +62,46 @@ public class SAASummarizerService {
 
 	private static final Logger logger = LoggerFactory.getLogger(SAASummarizerService.class);
 
+	// 原文和摘要中可能包含 {}，直接拼接而不使用 PromptTemplate 渲染
+	private static final String MAP_PROMPT = """
+			The following is part %d of a longer document. Summarize this part only,
+			keeping the key points, names and numbers. Do not add an overall summary.
+
+			""";
+
+	private static final String REDUCE_PROMPT = """
+			The following are summaries of consecutive parts of one document, in order.
+			Merge them into a single summary that keeps the key points of every part.
+
+			""";
+
+	private static final String FINAL_PROMPT = """
+			The following are summaries of consecutive parts of one document, in order.
+			Summarize the document based on them.
+
+			""";
+
+	private static final String SEPARATOR = "\n\n---\n\n";
+
 	private final ChatClient chatClient;
 
+	private final ChatClient chunkChatClient;
+
+	private final DocumentChunkReader chunkReader;
+
+	private final int mapConcurrency;
+
+	private final int reduceTokens;
+
 	public SAASummarizerService(
 			SimpleLoggerAdvisor simpleLoggerAdvisor,
 			MessageChatMemoryAdvisor messageChatMemoryAdvisor,
 			@Qualifier("dashScopeChatModel") ChatModel chatModel,
-			@Qualifier("summarizerPromptTemplate") PromptTemplate docsSummaryPromptTemplate
+			@Qualifier("summarizerPromptTemplate") PromptTemplate docsSummaryPromptTemplate,
+			@Value("${spring.ai.alibaba.playground.summarizer.chunk-tokens:4000}") int chunkTokens,
+			@Value("${spring.ai.alibaba.playground.summarizer.reduce-tokens:8000}") int reduceTokens,
+			@Value("${spring.ai.alibaba.playground.summarizer.map-concurrency:4}") int mapConcurrency,
+			@Value("${spring.ai.alibaba.playground.summarizer.max-concurrent-documents:4}") int maxConcurrentDocuments
 	) {
 
 		this.chatClient = ChatClient.builder(chatModel)
@@ -67,6 +113,21 @@ public class SAASummarizerService {
 						messageChatMemoryAdvisor,
 						simpleLoggerAdvisor
 				).build();
+
+		// chunk 与中间合并的结果不写入对话记忆，也不打印整段原文
+		this.chunkChatClient = ChatClient.builder(chatModel)
+				.defaultOptions(
+						DashScopeChatOptions.builder().withModel("deepseek-r1").build()
+				).defaultSystem(
+						docsSummaryPromptTemplate.getTemplate()
+				).build();
+
+		this.chunkReader = DocumentChunkReader.builder()
+				.maxTokens(chunkTokens)
+				.maxConcurrency(maxConcurrentDocuments)
+				.build();
+		this.mapConcurrency = mapConcurrency;
+		this.reduceTokens = reduceTokens;
 	}
 
 	/**
@@ -74,37 +135,163 @@ public class SAASummarizerService {
 	 */
 	public Flux<String> summary(MultipartFile file, String url) {
 
-		String text = getText(url, file);
-		if (!StringUtils.hasText(text)) {
+		Resource resource = getResource(url, file);
+		if (Objects.isNull(resource)) {
 			return Flux.error(new SAAAppException("Invalid file content"));
 		}
 
-		return chatClient.prompt()
-				.user("Summarize the document")
-				.user(text)
-				.stream().content();
+		return chunkReader.read(resource)
+				.switchOnFirst((signal, chunks) -> {
+					if (signal.hasValue() && Objects.requireNonNull(signal.get()).last()) {
+						return chunks.concatMap(chunk -> chatClient.prompt()
+								.user("Summarize the document")
+								.user(chunk.text())
+								.stream().content());
+					}
+					if (signal.hasValue()) {
+						return mapReduce(chunks);
+					}
+
+					return chunks.thenMany(Flux.error(new SAAAppException("Invalid file content")));
+				});
+	}
+
+	private Flux<String> mapReduce(Flux<DocumentChunkReader.Chunk> chunks) {
+
+		SummaryLevels levels = new SummaryLevels(chunkReader.getTokenCountEstimator(), reduceTokens);
+
+		return chunks
+				// 同时处理的 chunk 数有上限，解析线程按需读取后续内容
+				.flatMapSequential(chunk -> complete(chunkChatClient.prompt()
+						.user(MAP_PROMPT.formatted(chunk.index() + 1) + chunk.text()))
+						.map(summary -> new PartSummary(chunk.index(), summary)), mapConcurrency, 1)
+				.concatMap(part -> Mono.just("### Part " + (part.index() + 1) + "\n\n" + part.summary() + "\n\n")
+						.concatWith(levels.add(0, part.summary()).then(Mono.empty())))
+				.concatWith(Flux.defer(() -> levels.finish()
+						.flatMapMany(summaries -> Flux.concat(Mono.just(SEPARATOR), chatClient.prompt()
+								.user(FINAL_PROMPT + join(summaries))
+								.stream().content()))));
 	}
 
-	private String getText(String url, MultipartFile file) {
+	private Mono<String> reduce(List<String> summaries) {
+
+		logger.debug("Reducing {} summaries", summaries.size());
+		return complete(chunkChatClient.prompt().user(REDUCE_PROMPT + join(summaries)));
+	}
+
+	private static Mono<String> complete(ChatClient.ChatClientRequestSpec request) {
+
+		return request.stream()
+				.content()
+				.filter(Objects::nonNull)
+				.collect(Collectors.joining());
+	}
+
+	private static String join(List<String> summaries) {
+
+		return String.join("\n\n", summaries);
+	}
+
+	private Resource getResource(String url, MultipartFile file) {
 
 		if (Objects.nonNull(file)) {
 
 			logger.debug("Reading file content form MultipartFile");
-			List<Document> documents = new TikaDocumentReader(file.getResource()).get();
-			return documents.stream()
-					.map(Document::getFormattedContent)
-					.collect(Collectors.joining("\n\n"));
+			return file.getResource();
 		}
 
 		if (StringUtils.hasText(url)) {
 			logger.debug("Reading file content form url");
-			List<Document> documents = new TikaDocumentReader(url).get();
-			return documents.stream()
-					.map(Document::getFormattedContent)
-					.collect(Collectors.joining("\n\n"));
+			return new DefaultResourceLoader().getResource(url);
+		}
+
+		return null;
+	}
+
+	@PreDestroy
+	public void destroy() {
+
+		chunkReader.dispose();
+	}
+
+	private record PartSummary(int index, String summary) {
+	}
+
+	/**
+	 * 逐层合并的摘要。第 0 层是各个 chunk 的摘要，层数越高对应的文档内容越靠前。
+	 * 只在 concatMap 中按顺序访问，不需要同步。
+	 */
+	private final class SummaryLevels {
+
+		private final TokenCountEstimator tokenCountEstimator;
+
+		private final int maxTokens;
+
+		private final List<List<String>> levels = new ArrayList<>();
+
+		private final List<Integer> levelTokens = new ArrayList<>();
+
+		private SummaryLevels(TokenCountEstimator tokenCountEstimator, int maxTokens) {
+			this.tokenCountEstimator = tokenCountEstimator;
+			this.maxTokens = maxTokens;
+		}
+
+		private Mono<Void> add(int level, String summary) {
+
+			return Mono.defer(() -> {
+				while (levels.size() <= level) {
+					levels.add(new ArrayList<>());
+					levelTokens.add(0);
+				}
+
+				int tokens = tokenCountEstimator.estimate(summary);
+				List<String> current = levels.get(level);
+				if (levelTokens.get(level) + tokens <= maxTokens || current.isEmpty()) {
+					current.add(summary);
+					levelTokens.set(level, levelTokens.get(level) + tokens);
+					return Mono.empty();
+				}
+
+				// 当前层已满，合并为一条放入上一层，再放入新的摘要
+				List<String> batch = List.copyOf(current);
+				current.clear();
+				levelTokens.set(level, 0);
+
+				return reduce(batch).flatMap(reduced -> add(level + 1, reduced))
+						.then(Mono.defer(() -> add(level, summary)));
+			});
+		}
+
+		/**
+		 * 合并到总 token 数不超过上限为止。
+		 * @return 按文档顺序排列的剩余摘要
+		 */
+		private Mono<List<String>> finish() {
+
+			return Mono.defer(() -> {
+				int total = levelTokens.stream().mapToInt(Integer::intValue).sum();
+				int lowest = 0;
+				while (lowest < levels.size() && levels.get(lowest).isEmpty()) {
+					lowest++;
+				}
+
+				if (total <= maxTokens || lowest >= levels.size() - 1) {
+					List<String> summaries = new ArrayList<>();
+					for (int level = levels.size() - 1; level >= 0; level--) {
+						summaries.addAll(levels.get(level));
+					}
+					return Mono.just(summaries);
+				}
+
+				List<String> batch = List.copyOf(levels.get(lowest));
+				levels.get(lowest).clear();
+				levelTokens.set(lowest, 0);
+
+				int next = lowest + 1;
+				return reduce(batch).flatMap(reduced -> add(next, reduced)).then(finish());
+			});
 		}
 
-		return "";
 	}
 
 }
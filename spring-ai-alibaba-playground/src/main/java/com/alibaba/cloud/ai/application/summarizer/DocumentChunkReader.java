@@ -0,0 +1,308 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.summarizer;
+
+import java.io.InputStream;
+import java.util.Set;
+
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+/**
+ * 边解析边切分文档：
+ * <p>
+ * 1. Tika 以 SAX 事件的形式输出文本，按段落 / 句子边界累积，token 数达到上限时输出一个 {@link Chunk}，不拼接全文；
+ * 2. 只在下游有需求时才输出下一个 chunk，下游处理不过来时解析线程等待，内存中最多只有下游请求数量的 chunk；
+ * 3. 多保留一个 chunk，以便标记最后一个 chunk，下游可以据此判断文档是否只有一个 chunk；
+ * 4. 下游取消时中断解析。
+ */
+
+public class DocumentChunkReader implements Disposable {
+
+	private static final Logger logger = LoggerFactory.getLogger(DocumentChunkReader.class);
+
+	private static final Set<String> BLOCK_ELEMENTS = Set.of("p", "div", "li", "tr", "title", "h1", "h2", "h3",
+			"h4", "h5", "h6");
+
+	private final int maxTokens;
+
+	private final TokenCountEstimator tokenCountEstimator;
+
+	private final Scheduler scheduler;
+
+	private DocumentChunkReader(Builder builder) {
+
+		Assert.isTrue(builder.maxTokens > 0, "maxTokens must be greater than 0");
+		Assert.isTrue(builder.maxConcurrency > 0, "maxConcurrency must be greater than 0");
+		Assert.notNull(builder.tokenCountEstimator, "tokenCountEstimator must not be null");
+
+		this.maxTokens = builder.maxTokens;
+		this.tokenCountEstimator = builder.tokenCountEstimator;
+		this.scheduler = Schedulers.newBoundedElastic(builder.maxConcurrency,
+				Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "document-chunk-reader");
+	}
+
+	public Flux<Chunk> read(Resource resource) {
+
+		Assert.notNull(resource, "resource must not be null");
+
+		return Flux.<Chunk>create(sink -> parse(resource, sink), FluxSink.OverflowStrategy.BUFFER)
+				// request 在调用方线程执行，不排队到被解析任务占用的线程
+				.subscribeOn(scheduler, false);
+	}
+
+	public TokenCountEstimator getTokenCountEstimator() {
+
+		return tokenCountEstimator;
+	}
+
+	private void parse(Resource resource, FluxSink<Chunk> sink) {
+
+		Object monitor = new Object();
+		Runnable signal = () -> {
+			synchronized (monitor) {
+				monitor.notifyAll();
+			}
+		};
+		sink.onRequest(n -> signal.run());
+		sink.onCancel(signal::run);
+
+		ChunkingHandler handler = new ChunkingHandler(sink, monitor);
+		AutoDetectParser parser = new AutoDetectParser();
+		ParseContext context = new ParseContext();
+		context.set(Parser.class, parser);
+
+		long start = System.nanoTime();
+		try (InputStream in = TikaInputStream.get(resource.getInputStream())) {
+			parser.parse(in, handler, new Metadata(), context);
+			handler.finish();
+
+			logger.debug("Read {} chunks from {} in {}ms", handler.index, resource.getDescription(),
+					(System.nanoTime() - start) / 1_000_000);
+			sink.complete();
+		}
+		catch (Exception e) {
+			if (sink.isCancelled()) {
+				logger.debug("Reading {} cancelled", resource.getDescription());
+				return;
+			}
+			sink.error(e);
+		}
+	}
+
+	private final class ChunkingHandler extends DefaultHandler {
+
+		private final FluxSink<Chunk> sink;
+
+		private final Object monitor;
+
+		private final StringBuilder segment = new StringBuilder();
+
+		private final StringBuilder chunk = new StringBuilder();
+
+		private int chunkTokens;
+
+		private Chunk pending;
+
+		private int index;
+
+		private ChunkingHandler(FluxSink<Chunk> sink, Object monitor) {
+			this.sink = sink;
+			this.monitor = monitor;
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+
+			for (int i = start; i < start + length; i++) {
+				char c = ch[i];
+				segment.append(c);
+
+				// 单个段落没有句子边界时，按字符数强制切分，保证 segment 不超过 chunk 上限
+				if (isBoundary(c) || segment.length() >= maxTokens / 2) {
+					flushSegment();
+				}
+			}
+		}
+
+		@Override
+		public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+
+			characters(ch, start, length);
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+
+			if (BLOCK_ELEMENTS.contains(localName)) {
+				segment.append('\n');
+				flushSegment();
+			}
+		}
+
+		private void finish() throws SAXException {
+
+			flushSegment();
+			flushChunk();
+
+			if (pending != null) {
+				emit(new Chunk(pending.index(), pending.text(), pending.tokens(), true));
+			}
+		}
+
+		private void flushSegment() throws SAXException {
+
+			if (segment.isEmpty()) {
+				return;
+			}
+
+			String text = segment.toString();
+			segment.setLength(0);
+			if (text.isBlank() && chunk.isEmpty()) {
+				return;
+			}
+
+			int tokens = tokenCountEstimator.estimate(text);
+			if (chunkTokens + tokens > maxTokens && !chunk.isEmpty()) {
+				flushChunk();
+			}
+
+			chunk.append(text);
+			chunkTokens += tokens;
+		}
+
+		private void flushChunk() throws SAXException {
+
+			String text = chunk.toString().strip();
+			chunk.setLength(0);
+			int tokens = chunkTokens;
+			chunkTokens = 0;
+
+			if (text.isEmpty()) {
+				return;
+			}
+
+			if (pending != null) {
+				emit(pending);
+			}
+			pending = new Chunk(index++, text, tokens, false);
+		}
+
+		private void emit(Chunk next) throws SAXException {
+
+			synchronized (monitor) {
+				while (sink.requestedFromDownstream() <= 0 && !sink.isCancelled()) {
+					try {
+						monitor.wait(100);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new SAXException("Interrupted while waiting for downstream demand", e);
+					}
+				}
+			}
+
+			if (sink.isCancelled()) {
+				throw new SAXException("Document reading cancelled");
+			}
+			sink.next(next);
+		}
+
+		private static boolean isBoundary(char c) {
+
+			return switch (c) {
+				case '\n', '。', '！', '？', '；', '.', '!', '?', ';' -> true;
+				default -> false;
+			};
+		}
+
+	}
+
+	/**
+	 * @param index chunk 在文档中的序号，从 0 开始
+	 * @param tokens 估算的 token 数
+	 * @param last 是否是文档的最后一个 chunk
+	 */
+	public record Chunk(int index, String text, int tokens, boolean last) {
+	}
+
+	@Override
+	public void dispose() {
+
+		scheduler.dispose();
+	}
+
+	@Override
+	public boolean isDisposed() {
+
+		return scheduler.isDisposed();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+
+		private int maxTokens = 4000;
+
+		private int maxConcurrency = 4;
+
+		private TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+		public Builder maxTokens(int maxTokens) {
+
+			this.maxTokens = maxTokens;
+			return this;
+		}
+
+		public Builder maxConcurrency(int maxConcurrency) {
+
+			this.maxConcurrency = maxConcurrency;
+			return this;
+		}
+
+		public Builder tokenCountEstimator(TokenCountEstimator tokenCountEstimator) {
+
+			this.tokenCountEstimator = tokenCountEstimator;
+			return this;
+		}
+
+		public DocumentChunkReader build() {
+
+			return new DocumentChunkReader(this);
+		}
+	}
+
+}
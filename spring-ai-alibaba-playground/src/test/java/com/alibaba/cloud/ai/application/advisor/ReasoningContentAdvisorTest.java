@@ -0,0 +1,135 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.advisor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import static com.alibaba.cloud.ai.application.advisor.ReasoningContentAdvisor.DeltaType.CONTENT;
+import static com.alibaba.cloud.ai.application.advisor.ReasoningContentAdvisor.DeltaType.REASONING;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReasoningContentAdvisorTest {
+
+	@Test
+	void emitsTypedDeltasAndOneThinkBlock() {
+
+		List<ChatClientResponse> responses = stream(new ReasoningContentAdvisor(1),
+				chunk("a", null), chunk("b", null), chunk("c", "x"), chunk(null, "y"), chunk(null, null));
+
+		assertThat(texts(responses)).containsExactly("<think>a", "b", "c</think>", "x", "y", "");
+		assertThat(types(responses)).containsExactly(REASONING, REASONING, REASONING, CONTENT, CONTENT, null);
+	}
+
+	@Test
+	void closesThinkBlockWhenStreamEndsWithoutContent() {
+
+		ChatClientResponse empty = ChatClientResponse.builder().context(Map.of()).build();
+		List<ChatClientResponse> responses = stream(new ReasoningContentAdvisor(1), chunk("a", null), empty);
+
+		assertThat(responses).hasSize(3);
+		assertThat(responses.get(1).chatResponse()).isNull();
+		assertThat(text(responses.get(2))).isEqualTo("</think>");
+		assertThat(type(responses.get(2))).isEqualTo(REASONING);
+	}
+
+	@Test
+	void withoutThinkTagsTextIsTheDeltaItself() {
+
+		List<ChatClientResponse> responses = stream(new ReasoningContentAdvisor(1, false),
+				chunk("a", null), chunk("b", "x"), chunk(null, "y"));
+
+		assertThat(texts(responses)).containsExactly("a", "b", "x", "y");
+		assertThat(types(responses)).containsExactly(REASONING, REASONING, CONTENT, CONTENT);
+	}
+
+	private static List<ChatClientResponse> stream(ReasoningContentAdvisor advisor, ChatClientResponse... chunks) {
+
+		StreamAdvisorChain chain = new StreamAdvisorChain() {
+
+			@Override
+			public Flux<ChatClientResponse> nextStream(ChatClientRequest request) {
+				return Flux.just(chunks);
+			}
+
+			@Override
+			public List<StreamAdvisor> getStreamAdvisors() {
+				return List.of();
+			}
+
+		};
+		ChatClientRequest request = ChatClientRequest.builder().prompt(new Prompt("q")).build();
+
+		return advisor.adviseStream(request, chain).collectList().block();
+	}
+
+	private static ChatClientResponse chunk(String reasoning, String text) {
+
+		Map<String, Object> properties = new HashMap<>();
+		if (reasoning != null) {
+			properties.put("reasoningContent", reasoning);
+		}
+		AssistantMessage message = AssistantMessage.builder()
+				.content(text != null ? text : "")
+				.properties(properties)
+				.build();
+
+		return ChatClientResponse.builder()
+				.chatResponse(ChatResponse.builder().generations(List.of(new Generation(message))).build())
+				.context(Map.of())
+				.build();
+	}
+
+	private static List<String> texts(List<ChatClientResponse> responses) {
+
+		List<String> texts = new ArrayList<>();
+		responses.forEach(response -> texts.add(text(response)));
+		return texts;
+	}
+
+	private static List<Object> types(List<ChatClientResponse> responses) {
+
+		List<Object> types = new ArrayList<>();
+		responses.forEach(response -> types.add(type(response)));
+		return types;
+	}
+
+	private static String text(ChatClientResponse response) {
+
+		return response.chatResponse().getResult().getOutput().getText();
+	}
+
+	private static Object type(ChatClientResponse response) {
+
+		return response.chatResponse().getResult().getOutput().getMetadata().get(ReasoningContentAdvisor.DELTA_TYPE);
+	}
+
+}
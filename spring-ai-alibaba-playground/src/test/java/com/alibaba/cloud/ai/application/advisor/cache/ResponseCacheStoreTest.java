@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.advisor.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResponseCacheStoreTest {
+
+	private final List<ResponseCacheStore> stores = List.of(
+			new HeapResponseCacheStore(1 << 20, Duration.ofMinutes(1)),
+			new OffHeapResponseCacheStore(1 << 20, Duration.ofMinutes(1)));
+
+	@Test
+	void keepsTextFinishReasonAndUsage() {
+
+		List<ChatResponse> chunks = List.of(chunk("你好", null, null), chunk("，世界", "STOP", new DefaultUsage(12, 3)));
+		for (ResponseCacheStore store : stores) {
+			store.put("k", chunks);
+			List<ChatResponse> cached = store.get("k");
+
+			assertThat(cached).hasSize(2);
+			assertThat(ResponseCacheStore.text(cached.get(0))).isEqualTo("你好");
+			ChatResponse last = cached.get(1);
+			assertThat(ResponseCacheStore.text(last)).isEqualTo("，世界");
+			assertThat(last.getResult().getMetadata().getFinishReason()).isEqualTo("STOP");
+			assertThat(last.getMetadata().getId()).isEqualTo("r1");
+			assertThat(last.getMetadata().getModel()).isEqualTo("qwen-plus");
+			assertThat(last.getMetadata().getUsage().getPromptTokens()).isEqualTo(12);
+			assertThat(last.getMetadata().getUsage().getCompletionTokens()).isEqualTo(3);
+		}
+	}
+
+	@Test
+	void concurrentLoadsRunLoaderOnce() throws Exception {
+
+		for (ResponseCacheStore store : stores) {
+			AtomicInteger loads = new AtomicInteger();
+			CountDownLatch release = new CountDownLatch(1);
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			try {
+				List<Future<List<ChatResponse>>> futures = new ArrayList<>();
+				for (int i = 0; i < 4; i++) {
+					futures.add(executor.submit(() -> store.get("k", () -> {
+						loads.incrementAndGet();
+						await(release);
+						return List.of(chunk("answer", "STOP", null));
+					})));
+				}
+				Thread.sleep(100);
+				release.countDown();
+
+				for (Future<List<ChatResponse>> future : futures) {
+					assertThat(ResponseCacheStore.text(future.get(5, TimeUnit.SECONDS).get(0))).isEqualTo("answer");
+				}
+				assertThat(loads.get()).isEqualTo(1);
+			}
+			finally {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	@Test
+	void failedLoadIsNotCached() {
+
+		for (ResponseCacheStore store : stores) {
+			assertThatThrownBy(() -> store.get("k", () -> {
+				throw new IllegalStateException("upstream failed");
+			})).isInstanceOf(IllegalStateException.class).hasMessage("upstream failed");
+
+			assertThat(store.get("k")).isNull();
+			assertThat(store.size()).isZero();
+		}
+	}
+
+	private static ChatResponse chunk(String text, String finishReason, DefaultUsage usage) {
+
+		ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder().id("r1").model("qwen-plus");
+		if (usage != null) {
+			metadata.usage(usage);
+		}
+		return ChatResponse.builder()
+				.generations(List.of(new Generation(AssistantMessage.builder().content(text).build(),
+						ChatGenerationMetadata.builder().finishReason(finishReason).build())))
+				.metadata(metadata.build())
+				.build();
+	}
+
+	private static void await(CountDownLatch latch) {
+
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
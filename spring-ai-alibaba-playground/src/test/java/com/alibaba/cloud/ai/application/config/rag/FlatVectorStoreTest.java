@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FlatVectorStoreTest {
+
+	private final HashEmbeddingModel embeddingModel = new HashEmbeddingModel(16);
+
+	@Test
+	void matchesSimpleVectorStore() {
+
+		List<Document> documents = documents(500);
+		FlatVectorStore flat = FlatVectorStore.builder(embeddingModel).build();
+		SimpleVectorStore simple = SimpleVectorStore.builder(embeddingModel).build();
+		flat.add(documents);
+		simple.add(documents);
+
+		for (String query : List.of("text 7", "text 123", "unrelated query")) {
+			SearchRequest request = SearchRequest.builder().query(query).topK(10).build();
+			assertThat(ids(flat.similaritySearch(request))).containsExactlyElementsOf(ids(simple.similaritySearch(request)));
+		}
+	}
+
+	@Test
+	void parallelScanMatchesSequentialScan() {
+
+		List<Document> documents = documents(2000);
+		FlatVectorStore sequential = FlatVectorStore.builder(embeddingModel).parallelThreshold(Integer.MAX_VALUE).build();
+		FlatVectorStore parallel = FlatVectorStore.builder(embeddingModel).parallelThreshold(100).build();
+		sequential.add(documents);
+		parallel.add(documents);
+
+		SearchRequest request = SearchRequest.builder().query("text 42").topK(20).build();
+		assertThat(ids(parallel.similaritySearch(request))).containsExactlyElementsOf(ids(sequential.similaritySearch(request)));
+	}
+
+	@Test
+	void appliesFilterAndThreshold() {
+
+		FlatVectorStore store = FlatVectorStore.builder(embeddingModel).build();
+		store.add(documents(200));
+
+		List<Document> filtered = store.similaritySearch(SearchRequest.builder()
+				.query("text 3")
+				.topK(50)
+				.filterExpression("category == 'even'")
+				.build());
+		assertThat(filtered).hasSize(50).allSatisfy(document -> assertThat(document.getMetadata()).containsEntry("category", "even"));
+
+		List<Document> exact = store.similaritySearch(SearchRequest.builder()
+				.query("text 3")
+				.topK(5)
+				.similarityThreshold(0.999)
+				.build());
+		assertThat(ids(exact)).containsExactly("d3");
+		assertThat(exact.get(0).getScore()).isCloseTo(1.0, within(1e-4));
+	}
+
+	@Test
+	void updatesAndDeletesDocuments() {
+
+		FlatVectorStore store = FlatVectorStore.builder(embeddingModel).initialCapacity(2).build();
+		store.add(documents(10));
+		store.add(List.of(new Document("d1", "replaced", Map.of("category", "odd"))));
+		store.delete(List.of("d2", "d5"));
+
+		assertThat(store.size()).isEqualTo(8);
+		assertThat(ids(store.similaritySearch(SearchRequest.builder().query("replaced").topK(1).build()))).containsExactly("d1");
+		// 被删除的文档与查询完全一致时也不会再返回
+		assertThat(ids(store.similaritySearch(SearchRequest.builder().query("text 2").topK(10).build())))
+				.isNotEmpty()
+				.doesNotContain("d2", "d5");
+		assertThat(ids(store.similaritySearch(SearchRequest.builder().query("text 5").topK(10).build())))
+				.doesNotContain("d2", "d5");
+	}
+
+	static List<Document> documents(int count) {
+
+		List<Document> documents = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			documents.add(new Document("d" + i, "text " + i, Map.of("category", i % 2 == 0 ? "even" : "odd")));
+		}
+		return documents;
+	}
+
+	static List<String> ids(List<Document> documents) {
+
+		return documents.stream().map(Document::getId).toList();
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * 测试用的 embedding 模型：以文本哈希为种子生成固定维度的随机向量，相同文本总是得到相同的向量。
+ */
+class HashEmbeddingModel implements EmbeddingModel {
+
+	private final int dimensions;
+
+	HashEmbeddingModel(int dimensions) {
+
+		this.dimensions = dimensions;
+	}
+
+	@Override
+	public EmbeddingResponse call(EmbeddingRequest request) {
+
+		List<Embedding> embeddings = new ArrayList<>();
+		for (String text : request.getInstructions()) {
+			embeddings.add(new Embedding(vector(text), embeddings.size()));
+		}
+		return new EmbeddingResponse(embeddings);
+	}
+
+	@Override
+	public float[] embed(Document document) {
+
+		return vector(document.getText());
+	}
+
+	@Override
+	public int dimensions() {
+
+		return dimensions;
+	}
+
+	float[] vector(String text) {
+
+		Random random = new Random(text.hashCode());
+		float[] vector = new float[dimensions];
+		for (int i = 0; i < dimensions; i++) {
+			vector[i] = random.nextFloat() - 0.5f;
+		}
+		return vector;
+	}
+
+}
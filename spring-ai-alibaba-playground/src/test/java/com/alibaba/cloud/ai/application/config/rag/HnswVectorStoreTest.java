@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import static com.alibaba.cloud.ai.application.config.rag.FlatVectorStoreTest.documents;
+import static com.alibaba.cloud.ai.application.config.rag.FlatVectorStoreTest.ids;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HnswVectorStoreTest {
+
+	private final HashEmbeddingModel embeddingModel = new HashEmbeddingModel(16);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recallAgainstExactSearch() {
+
+		List<Document> documents = documents(2000);
+		HnswVectorStore hnsw = HnswVectorStore.builder(embeddingModel).model("m1").build();
+		FlatVectorStore exact = FlatVectorStore.builder(embeddingModel).build();
+		hnsw.add(documents);
+		exact.add(documents);
+
+		int hits = 0;
+		int total = 0;
+		for (int i = 0; i < 50; i++) {
+			SearchRequest request = SearchRequest.builder().query("query " + i).topK(10).build();
+			Set<String> expected = new HashSet<>(ids(exact.similaritySearch(request)));
+			for (String id : ids(hnsw.similaritySearch(request))) {
+				if (expected.contains(id)) {
+					hits++;
+				}
+			}
+			total += expected.size();
+		}
+
+		assertThat((double) hits / total).isGreaterThanOrEqualTo(0.9);
+	}
+
+	@Test
+	void deletedDocumentsAreNotReturnedAndCompacted() {
+
+		HnswVectorStore store = HnswVectorStore.builder(embeddingModel).model("m1").build();
+		store.add(documents(200));
+		store.delete(List.of("d1", "d2", "d3"));
+
+		assertThat(store.size()).isEqualTo(197);
+		assertThat(ids(store.similaritySearch(SearchRequest.builder().query("text 2").topK(10).build())))
+				.doesNotContain("d1", "d2", "d3");
+
+		assertThat(store.compact()).isEqualTo(3);
+		assertThat(store.compact()).isZero();
+		assertThat(ids(store.similaritySearch(SearchRequest.builder().query("text 42").topK(1).build())))
+				.containsExactly("d42");
+	}
+
+	@Test
+	void saveAndLoadRoundTrip() {
+
+		Path path = directory.resolve("index").resolve("hnsw.bin");
+		HnswVectorStore store = HnswVectorStore.builder(embeddingModel).model("m1").m(8).build();
+		store.add(documents(300));
+		store.delete(List.of("d7"));
+		store.save(path, "v1");
+
+		assertThat(HnswVectorStore.readHeader(path))
+				.isEqualTo(new HnswVectorStore.IndexHeader(8, "m1", 16, "v1", 299));
+		assertThat(Files.exists(path.resolveSibling("hnsw.bin.tmp"))).isFalse();
+
+		HnswVectorStore loaded = HnswVectorStore.builder(embeddingModel).model("m1").m(8).build();
+		loaded.load(path);
+
+		assertThat(loaded.size()).isEqualTo(299);
+		for (String query : List.of("text 42", "text 7", "query 3")) {
+			SearchRequest request = SearchRequest.builder().query(query).topK(5).build();
+			assertThat(ids(loaded.similaritySearch(request))).containsExactlyElementsOf(ids(store.similaritySearch(request)));
+		}
+		assertThat(ids(loaded.similaritySearch(SearchRequest.builder().query("text 7").topK(10).build())))
+				.doesNotContain("d7");
+
+		loaded.add(List.of(new Document("d1000", "added after load", Map.of())));
+		assertThat(ids(loaded.similaritySearch(SearchRequest.builder().query("added after load").topK(1).build())))
+				.containsExactly("d1000");
+	}
+
+	@Test
+	void rejectsIndexOfAnotherModelOrGraphDegree() {
+
+		Path path = directory.resolve("hnsw.bin");
+		HnswVectorStore store = HnswVectorStore.builder(embeddingModel).model("m1").build();
+		store.add(documents(20));
+		store.save(path, "v1");
+
+		assertThatThrownBy(() -> HnswVectorStore.builder(embeddingModel).model("m2").build().load(path))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("m2");
+		assertThatThrownBy(() -> HnswVectorStore.builder(embeddingModel).model("m1").m(8).build().load(path))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("m=8");
+	}
+
+	@Test
+	void readHeaderOfMissingOrForeignFile() throws Exception {
+
+		assertThat(HnswVectorStore.readHeader(directory.resolve("missing.bin"))).isNull();
+
+		Path foreign = Files.writeString(directory.resolve("foreign.bin"), "not an index");
+		assertThat(HnswVectorStore.readHeader(foreign)).isNull();
+	}
+
+}
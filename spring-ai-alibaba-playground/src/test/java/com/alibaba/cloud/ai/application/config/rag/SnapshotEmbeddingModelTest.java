@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotEmbeddingModelTest {
+
+	@TempDir
+	Path directory;
+
+	private final CountingEmbeddingModel delegate = new CountingEmbeddingModel();
+
+	@Test
+	void singleAndBatchEmbeddingShareOneKey() throws Exception {
+
+		try (EmbeddingSnapshotStore store = new EmbeddingSnapshotStore(directory.resolve("snapshot.bin"), "m1")) {
+			SnapshotEmbeddingModel model = new SnapshotEmbeddingModel(delegate, store);
+			Document document = new Document("d1", "text", Map.of());
+
+			float[] single = model.embed(document);
+			List<float[]> batch = model.embed(List.of(document), EmbeddingOptions.builder().build(),
+					new TokenCountBatchingStrategy());
+
+			assertThat(batch.get(0)).containsExactly(single);
+			assertThat(delegate.texts.get()).isEqualTo(1);
+			assertThat(store.size()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void reopenServesFromSnapshotAndCompactDropsUnusedEmbeddings() throws Exception {
+
+		Path path = directory.resolve("snapshot.bin");
+		List<Document> documents = FlatVectorStoreTest.documents(100);
+		try (EmbeddingSnapshotStore store = new EmbeddingSnapshotStore(path, "m1")) {
+			embed(new SnapshotEmbeddingModel(delegate, store), documents);
+		}
+		long sizeBefore = Files.size(path);
+
+		try (EmbeddingSnapshotStore store = new EmbeddingSnapshotStore(path, "m1")) {
+			delegate.texts.set(0);
+			embed(new SnapshotEmbeddingModel(delegate, store), documents.subList(0, 40));
+
+			assertThat(delegate.texts.get()).isZero();
+			assertThat(store.compact()).isEqualTo(60);
+			assertThat(store.size()).isEqualTo(40);
+			assertThat(Files.size(path)).isLessThan(sizeBefore);
+			assertThat(store.get(EmbeddingSnapshotStore.hash(documents.get(0).getFormattedContent()))).isNotNull();
+		}
+
+		try (EmbeddingSnapshotStore store = new EmbeddingSnapshotStore(path, "m1")) {
+			assertThat(store.size()).isEqualTo(40);
+		}
+	}
+
+	@Test
+	void changedDimensionsRebuildSnapshot() throws Exception {
+
+		Path path = directory.resolve("snapshot.bin");
+		try (EmbeddingSnapshotStore store = new EmbeddingSnapshotStore(path, "m1")) {
+			store.put(EmbeddingSnapshotStore.hash("a"), new float[] { 1, 2 });
+			store.put(EmbeddingSnapshotStore.hash("b"), new float[] { 1, 2, 3 });
+
+			assertThat(store.dimensions()).isEqualTo(3);
+			assertThat(store.size()).isEqualTo(1);
+			assertThat(store.get(EmbeddingSnapshotStore.hash("b"))).containsExactly(1, 2, 3);
+		}
+	}
+
+	private static void embed(SnapshotEmbeddingModel model, List<Document> documents) {
+
+		model.embed(documents, EmbeddingOptions.builder().build(), new TokenCountBatchingStrategy());
+	}
+
+	private static final class CountingEmbeddingModel extends HashEmbeddingModel {
+
+		private final AtomicInteger texts = new AtomicInteger();
+
+		private CountingEmbeddingModel() {
+
+			super(8);
+		}
+
+		@Override
+		public EmbeddingResponse call(EmbeddingRequest request) {
+
+			texts.addAndGet(request.getInstructions().size());
+			return super.call(request);
+		}
+
+	}
+
+}
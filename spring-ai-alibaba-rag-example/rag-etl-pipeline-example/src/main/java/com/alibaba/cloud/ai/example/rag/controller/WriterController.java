@@ -17,13 +17,13 @@
 package com.alibaba.cloud.ai.example.rag.controller;
 
 import com.alibaba.cloud.ai.example.rag.model.Constant;
+import com.alibaba.cloud.ai.example.rag.vectorstore.FlatVectorStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
 import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.writer.FileDocumentWriter;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
@@ -45,7 +45,7 @@ public class WriterController {
 
     private final List<Document> documents;
 
-    private final SimpleVectorStore simpleVectorStore;
+    private final FlatVectorStore flatVectorStore;
 
     public WriterController(EmbeddingModel embeddingModel) {
         logger.info("start read pdf file by page");
@@ -53,7 +53,7 @@ public class WriterController {
         PagePdfDocumentReader pagePdfDocumentReader = new PagePdfDocumentReader(resource); // 只可以传pdf格式文件
         this.documents = pagePdfDocumentReader.read();
 
-        this.simpleVectorStore = SimpleVectorStore
+        this.flatVectorStore = FlatVectorStore
                 .builder(embeddingModel).build();
     }
 
@@ -68,13 +68,13 @@ public class WriterController {
     @GetMapping("/vector")
     public void writeVector() {
         logger.info("Writing vector...");
-        simpleVectorStore.add(documents);
+        flatVectorStore.add(documents);
     }
 
     @GetMapping("/search")
     public List<Document> search() {
         logger.info("start search data");
-        return simpleVectorStore.similaritySearch(SearchRequest
+        return flatVectorStore.similaritySearch(SearchRequest
                 .builder()
                 .query("Spring")
                 .topK(2)
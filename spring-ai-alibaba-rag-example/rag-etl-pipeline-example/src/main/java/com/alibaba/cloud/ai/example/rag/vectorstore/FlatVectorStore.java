@@ -0,0 +1,419 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.rag.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.observation.conventions.VectorStoreProvider;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * SimpleVectorStore 的替代实现：所有向量（归一化后）连续存放在同一个 float[] 中，
+ * 查询时直接在该数组上做点积（即余弦相似度），用固定大小的小顶堆维护 top-k；
+ * 数据量超过 parallelThreshold 时按分区并行扫描后再合并。
+ * <p>
+ * 过滤表达式与 SimpleVectorStore 语义一致（SpEL），但只对能进入 top-k 的候选计算。
+ */
+public class FlatVectorStore extends AbstractObservationVectorStore {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ExpressionParser expressionParser = new SpelExpressionParser();
+
+    private final FilterExpressionConverter filterExpressionConverter = new SimpleVectorStoreFilterExpressionConverter();
+
+    private final int parallelThreshold;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    private float[] arena;
+
+    private Document[] documents;
+
+    private int dimensions = -1;
+
+    private int size;
+
+    protected FlatVectorStore(FlatVectorStoreBuilder builder) {
+        super(builder);
+
+        Assert.isTrue(builder.initialCapacity > 0, "initialCapacity must be greater than 0");
+        Assert.isTrue(builder.parallelThreshold > 0, "parallelThreshold must be greater than 0");
+
+        this.parallelThreshold = builder.parallelThreshold;
+        this.documents = new Document[builder.initialCapacity];
+        this.arena = new float[0];
+    }
+
+    public static FlatVectorStoreBuilder builder(EmbeddingModel embeddingModel) {
+        return new FlatVectorStoreBuilder(embeddingModel);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void doAdd(List<Document> documents) {
+        // embedding 在锁外完成，写锁只覆盖内存拷贝
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptions.builder().build(), batchingStrategy);
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                float[] embedding = embeddings.get(i);
+
+                if (dimensions < 0) {
+                    dimensions = embedding.length;
+                    arena = new float[this.documents.length * dimensions];
+                }
+                Assert.isTrue(embedding.length == dimensions, () -> "Embedding dimensions mismatch, expected "
+                        + dimensions + " but got " + embedding.length + " for document " + document.getId());
+
+                Integer slot = slots.get(document.getId());
+                if (slot == null) {
+                    ensureCapacity(size + 1);
+                    slot = size++;
+                    slots.put(document.getId(), slot);
+                }
+
+                this.documents[slot] = Document.builder()
+                        .id(document.getId())
+                        .text(document.getText())
+                        .metadata(document.getMetadata())
+                        .build();
+                normalizeInto(embedding, arena, slot * dimensions);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void doDelete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                Integer slot = slots.remove(id);
+                if (slot == null) {
+                    continue;
+                }
+
+                // 用最后一个元素填补空位，保持 arena 连续
+                int last = --size;
+                if (slot != last) {
+                    System.arraycopy(arena, last * dimensions, arena, slot * dimensions, dimensions);
+                    documents[slot] = documents[last];
+                    slots.put(documents[slot].getId(), slot);
+                }
+                documents[last] = null;
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        float[] query = embeddingModel.embed(request.getQuery());
+        Predicate<Map<String, Object>> filter = filterPredicate(request);
+
+        lock.readLock().lock();
+        try {
+            if (size == 0) {
+                return List.of();
+            }
+            Assert.isTrue(query.length == dimensions, "Query embedding dimensions mismatch");
+
+            float[] normalizedQuery = new float[dimensions];
+            normalizeInto(query, normalizedQuery, 0);
+
+            int topK = Math.min(request.getTopK(), size);
+            if (topK == 0) {
+                return List.of();
+            }
+            float threshold = (float) request.getSimilarityThreshold();
+
+            TopK result;
+            if (size < parallelThreshold) {
+                result = scan(normalizedQuery, 0, size, topK, threshold, filter);
+            }
+            else {
+                int partitions = Math.min(Runtime.getRuntime().availableProcessors(), (size + parallelThreshold - 1) / parallelThreshold);
+                int partitionSize = (size + partitions - 1) / partitions;
+                result = IntStream.range(0, partitions)
+                        .parallel()
+                        .mapToObj(p -> scan(normalizedQuery, p * partitionSize, Math.min(size, (p + 1) * partitionSize),
+                                topK, threshold, filter))
+                        .reduce(TopK::merge)
+                        .orElseGet(() -> new TopK(topK));
+            }
+
+            return result.toDocuments(documents);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        return VectorStoreObservationContext.builder(VectorStoreProvider.SIMPLE.value(), operationName)
+                .dimensions(dimensions > 0 ? dimensions : null)
+                .collectionName("flat-arena")
+                .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    private TopK scan(float[] query, int from, int to, int topK, float threshold,
+            Predicate<Map<String, Object>> filter) {
+        TopK heap = new TopK(topK);
+        for (int slot = from; slot < to; slot++) {
+            float score = dot(arena, slot * dimensions, query);
+            // 先比较分数，只有可能进入结果集的候选才计算过滤表达式
+            if (score < threshold || !heap.accepts(score)) {
+                continue;
+            }
+            if (filter != null && !filter.test(documents[slot].getMetadata())) {
+                continue;
+            }
+            heap.offer(score, slot);
+        }
+
+        return heap;
+    }
+
+    private Predicate<Map<String, Object>> filterPredicate(SearchRequest request) {
+        if (!request.hasFilterExpression()) {
+            return null;
+        }
+
+        Expression expression = expressionParser
+                .parseExpression(filterExpressionConverter.convertExpression(request.getFilterExpression()));
+
+        return metadata -> {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("metadata", metadata);
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= documents.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, documents.length + (documents.length >> 1));
+        documents = Arrays.copyOf(documents, newCapacity);
+        arena = Arrays.copyOf(arena, newCapacity * dimensions);
+    }
+
+    private static void normalizeInto(float[] vector, float[] target, int offset) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+
+        float scale = norm == 0 ? 0 : (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            target[offset + i] = vector[i] * scale;
+        }
+    }
+
+    /**
+     * 4 路展开，便于 JIT 做 SIMD 自动向量化。
+     */
+    private static float dot(float[] arena, int offset, float[] query) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int n = query.length;
+        int upper = n & ~3;
+        int i = 0;
+
+        for (; i < upper; i += 4) {
+            s0 += arena[offset + i] * query[i];
+            s1 += arena[offset + i + 1] * query[i + 1];
+            s2 += arena[offset + i + 2] * query[i + 2];
+            s3 += arena[offset + i + 3] * query[i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += arena[offset + i] * query[i];
+        }
+
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * 基于原始数组的定长小顶堆，堆顶为当前 top-k 中的最低分。
+     */
+    private static final class TopK {
+
+        private final float[] scores;
+
+        private final int[] slots;
+
+        private int size;
+
+        TopK(int k) {
+            this.scores = new float[k];
+            this.slots = new int[k];
+        }
+
+        boolean accepts(float score) {
+            return size < scores.length || score > scores[0];
+        }
+
+        void offer(float score, int slot) {
+            if (size < scores.length) {
+                int i = size++;
+                scores[i] = score;
+                slots[i] = slot;
+                siftUp(i);
+            }
+            else if (score > scores[0]) {
+                scores[0] = score;
+                slots[0] = slot;
+                siftDown(0);
+            }
+        }
+
+        TopK merge(TopK other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.scores[i], other.slots[i]);
+            }
+            return this;
+        }
+
+        List<Document> toDocuments(Document[] documents) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+
+            List<Document> result = new ArrayList<>(size);
+            for (int i : order) {
+                Document document = documents[slots[i]];
+                Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+                metadata.put(DocumentMetadata.DISTANCE.value(), 1 - scores[i]);
+                result.add(Document.builder()
+                        .id(document.getId())
+                        .text(document.getText())
+                        .metadata(metadata)
+                        .score((double) scores[i])
+                        .build());
+            }
+
+            return result;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= scores[i]) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) {
+                    break;
+                }
+                int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+                if (scores[i] <= scores[smallest]) {
+                    break;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+
+            int slot = slots[a];
+            slots[a] = slots[b];
+            slots[b] = slot;
+        }
+    }
+
+    public static final class FlatVectorStoreBuilder extends AbstractVectorStoreBuilder<FlatVectorStoreBuilder> {
+
+        private int initialCapacity = 1024;
+
+        private int parallelThreshold = 16_384;
+
+        private FlatVectorStoreBuilder(EmbeddingModel embeddingModel) {
+            super(embeddingModel);
+        }
+
+        public FlatVectorStoreBuilder initialCapacity(int initialCapacity) {
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        /**
+         * 向量数超过该值时启用分区并行扫描
+         */
+        public FlatVectorStoreBuilder parallelThreshold(int parallelThreshold) {
+            this.parallelThreshold = parallelThreshold;
+            return this;
+        }
+
+        @Override
+        public FlatVectorStore build() {
+            return new FlatVectorStore(this);
+        }
+    }
+
+}